@@ -0,0 +1,77 @@
+# 仮想スレッド / プラットフォームスレッドのスループット比較
+# 1) SPRING_PROFILES_ACTIVE=stub,loadtest VIRTUAL_THREADS=false で起動 → 本スクリプト実行
+# 2) VIRTUAL_THREADS=true で再起動 → 本スクリプト実行
+# 結果は $OutCsv に追記される（mode 列は /ops/threads の値）
+# PowerShell 7 以降（ForEach-Object -Parallel）が必要
+param(
+    [string]$BaseUrl = "http://localhost:8080",
+    [string[]]$Paths = @("/health", "/ops/status"),
+    [int]$Concurrency = 200,
+    [int]$RequestsPerWorker = 50,
+    [string]$AuthToken = "",
+    [string]$OutCsv = "loadtest_threads.csv"
+)
+
+$ErrorActionPreference = "Stop"
+
+if ($PSVersionTable.PSVersion.Major -lt 7) {
+    throw "PowerShell 7+ is required"
+}
+
+$headers = @{}
+if ($AuthToken -ne "") { $headers["Authorization"] = "Bearer $AuthToken" }
+
+$mode = "UNKNOWN"
+try {
+    $mode = (Invoke-RestMethod -Uri "$BaseUrl/ops/threads" -Headers $headers).mode
+} catch {
+    Write-Warning "could not read /ops/threads (auth required?): $($_.Exception.Message)"
+}
+
+foreach ($path in $Paths) {
+    $url = "$BaseUrl$path"
+    # ウォームアップ
+    1..20 | ForEach-Object { try { Invoke-WebRequest -Uri $url -Headers $headers | Out-Null } catch {} }
+
+    $sw = [System.Diagnostics.Stopwatch]::StartNew()
+    $results = 1..$Concurrency | ForEach-Object -ThrottleLimit $Concurrency -Parallel {
+        $u = $using:url
+        $h = $using:headers
+        $lat = New-Object System.Collections.Generic.List[double]
+        $err = 0
+        for ($i = 0; $i -lt $using:RequestsPerWorker; $i++) {
+            $t = [System.Diagnostics.Stopwatch]::StartNew()
+            try {
+                Invoke-WebRequest -Uri $u -Headers $h | Out-Null
+            } catch {
+                $err++
+            }
+            $lat.Add($t.Elapsed.TotalMilliseconds)
+        }
+        [pscustomobject]@{ Latencies = $lat; Errors = $err }
+    }
+    $sw.Stop()
+
+    $all = $results | ForEach-Object { $_.Latencies } | Sort-Object
+    $errors = ($results | Measure-Object -Property Errors -Sum).Sum
+    $total = $all.Count
+    $rps = [math]::Round($total / $sw.Elapsed.TotalSeconds, 1)
+    $p50 = [math]::Round($all[[int]($total * 0.50)], 1)
+    $p99 = [math]::Round($all[[math]::Min($total - 1, [int]($total * 0.99))], 1)
+
+    $row = [pscustomobject]@{
+        timestamp   = (Get-Date).ToString("s")
+        mode        = $mode
+        path        = $path
+        concurrency = $Concurrency
+        requests    = $total
+        errors      = $errors
+        rps         = $rps
+        p50_ms      = $p50
+        p99_ms      = $p99
+    }
+    $row | Format-Table -AutoSize | Out-String | Write-Host
+    $row | Export-Csv -Path $OutCsv -Append -NoTypeInformation
+}
+
+Write-Host "results appended to $OutCsv"
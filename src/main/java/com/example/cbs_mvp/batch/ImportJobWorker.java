@@ -0,0 +1,103 @@
+package com.example.cbs_mvp.batch;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.cbs_mvp.config.WorkerThreads;
+import com.example.cbs_mvp.entity.ImportJob;
+import com.example.cbs_mvp.imports.ImportJobService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * CSV取込ジョブを実行するワーカー。
+ * 空きスレッドの数だけ待機中（またはリース切れ）のジョブを取得し、専用プールで最後まで処理する。
+ * 実行中のジョブのリースは imports.lease-renew-ms ごとに延長する（チャンクの処理が長引いてもリースが切れない）。
+ * シャットダウン時は実行中のジョブを割り込み、チャンクの区切りで待機中に戻す（次回起動時に再開）。
+ */
+@Component
+public class ImportJobWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobWorker.class);
+
+    private final ImportJobService jobs;
+    private final WorkerThreads workerThreads;
+    private final AtomicInteger running = new AtomicInteger();
+    private final Set<Long> active = ConcurrentHashMap.newKeySet();
+
+    @Value("${imports.workers:2}")
+    private int workers;
+
+    private ExecutorService pool;
+
+    public ImportJobWorker(ImportJobService jobs, WorkerThreads workerThreads) {
+        this.jobs = jobs;
+        this.workerThreads = workerThreads;
+    }
+
+    @PostConstruct
+    void init() {
+        workers = Math.max(1, workers);
+        pool = workerThreads.fixedPool("import-job", workers);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${imports.poll-ms:2000}")
+    public void poll() {
+        while (running.get() < workers) {
+            Optional<ImportJob> claimed = jobs.claimNext();
+            if (claimed.isEmpty()) {
+                return;
+            }
+            ImportJob job = claimed.get();
+            running.incrementAndGet();
+            active.add(job.getJobId());
+            try {
+                pool.execute(() -> {
+                    try {
+                        jobs.run(job);
+                    } catch (RuntimeException ex) {
+                        log.error("[ImportJobWorker] job {} failed", job.getJobId(), ex);
+                    } finally {
+                        active.remove(job.getJobId());
+                        running.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException ex) {
+                // プール停止中：リースが切れれば次回起動時に再開される
+                active.remove(job.getJobId());
+                running.decrementAndGet();
+                log.warn("[ImportJobWorker] could not start job {}", job.getJobId(), ex);
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${imports.lease-renew-ms:60000}")
+    public void renewLeases() {
+        List<Long> ids = List.copyOf(active);
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            jobs.renewLeases(ids);
+        } catch (RuntimeException ex) {
+            log.warn("[ImportJobWorker] lease renewal failed for jobs {}", ids, ex);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.cbs_mvp.batch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.cbs_mvp.live.LiveEvent;
+import com.example.cbs_mvp.live.LiveEventBus;
+import com.example.cbs_mvp.live.LiveFeedHub;
+import com.example.cbs_mvp.ops.KillSwitchService;
+import com.example.cbs_mvp.ops.ReportingService;
+
+/**
+ * 変更通知を flush-ms ごとにまとめて購読者へ送る
+ * - 候補・下書き・停止状態が変わったとき、または dashboard-ms ごとにダッシュボードの集計を読み、
+ *   前回送った値から変わっていれば dashboard 通知を送る（集計は集計表を読むだけ）
+ * - 何も送らない状態が heartbeat-ms 続いたらコメント行を送る
+ * - 購読者がいなければ溜まった通知を捨てる
+ */
+@Component
+public class LiveFeedDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveFeedDispatcher.class);
+
+    private static final List<String> DASHBOARD_TRIGGERS = List.of("candidate", "draft", "killswitch", "import-job");
+
+    private final LiveEventBus bus;
+    private final LiveFeedHub hub;
+    private final ReportingService reporting;
+    private final KillSwitchService killSwitch;
+    private final long dashboardMs;
+    private final long heartbeatMs;
+
+    private Map<String, Object> lastDashboard;
+    private long lastDashboardCheck;
+    private long lastSent = System.currentTimeMillis();
+
+    public LiveFeedDispatcher(
+            LiveEventBus bus,
+            LiveFeedHub hub,
+            ReportingService reporting,
+            KillSwitchService killSwitch,
+            @Value("${live.dashboard-ms:30000}") long dashboardMs,
+            @Value("${live.heartbeat-ms:15000}") long heartbeatMs) {
+        this.bus = bus;
+        this.hub = hub;
+        this.reporting = reporting;
+        this.killSwitch = killSwitch;
+        this.dashboardMs = dashboardMs;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    @Scheduled(fixedDelayString = "${live.flush-ms:500}")
+    public void flush() {
+        if (!hub.hasSubscribers()) {
+            bus.clear();
+            lastDashboard = null;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<LiveEvent> events = new ArrayList<>(bus.drain());
+
+        boolean affectsDashboard = events.stream().anyMatch(e -> DASHBOARD_TRIGGERS.contains(e.type()));
+        if (affectsDashboard || lastDashboard == null || now - lastDashboardCheck >= dashboardMs) {
+            lastDashboardCheck = now;
+            try {
+                Map<String, Object> dashboard = dashboard();
+                if (!dashboard.equals(lastDashboard)) {
+                    lastDashboard = dashboard;
+                    events.add(new LiveEvent("dashboard", null, dashboard));
+                }
+            } catch (RuntimeException e) {
+                // 集計が読めなくても他の通知は送る
+                log.warn("[LiveFeedDispatcher] dashboard snapshot failed: {}", e.toString());
+            }
+        }
+
+        if (!events.isEmpty()) {
+            hub.broadcast(events);
+            lastSent = now;
+        } else if (now - lastSent >= heartbeatMs) {
+            hub.heartbeat();
+            lastSent = now;
+        }
+    }
+
+    // /ops/summary・/ops/dashboard/stats と同じ項目名
+    private Map<String, Object> dashboard() {
+        ReportingService.OpsSummary s = reporting.summary();
+        ReportingService.DashboardStats stats = reporting.dashboard();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("paused", killSwitch.isPaused());
+        summary.put("pauseReason", killSwitch.getReason());
+        summary.put("openCommitmentsYen", s.openCommitmentsYen());
+        summary.put("sales30dYen", s.sales30dYen());
+        summary.put("draftFailedLast10", s.draftFailedLast10());
+        summary.put("poFailedLast10", s.poFailedLast10());
+        summary.put("trackingFailedLast10", s.trackingFailedLast10());
+
+        Map<String, Object> statsBody = new LinkedHashMap<>();
+        statsBody.put("avgProfitRate", stats.avgProfitRate());
+        statsBody.put("totalProfitYen", stats.totalProfitYen());
+        statsBody.put("totalSalesYen", stats.totalSalesYen());
+        statsBody.put("countDraftReady", stats.countDraftReady());
+        statsBody.put("countTotalScope", stats.countTotalScope());
+        statsBody.put("passRate", stats.passRate());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("summary", summary);
+        body.put("stats", statsBody);
+        return body;
+    }
+}
@@ -2,14 +2,16 @@ package com.example.cbs_mvp.batch;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.example.cbs_mvp.entity.EbayDraft;
 import com.example.cbs_mvp.ops.KillSwitchService;
 import com.example.cbs_mvp.repo.EbayDraftRepository;
 import com.example.cbs_mvp.repo.StateTransitionRepository;
-import com.example.cbs_mvp.service.DraftService;
+import com.example.cbs_mvp.service.DraftBatchPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -23,31 +25,50 @@ public class NightlyBatch {
     private static final int TRACKING_FAILURE_WINDOW_MINUTES = 15;
 
     private final KillSwitchService killSwitchService;
-    private final DraftService draftService;
+    private final DraftBatchPublisher draftPublisher;
     private final EbayDraftRepository draftRepo;
     private final StateTransitionRepository transitionRepo;
 
     public NightlyBatch(
             KillSwitchService killSwitchService,
-            DraftService draftService,
+            DraftBatchPublisher draftPublisher,
             EbayDraftRepository draftRepo,
             StateTransitionRepository transitionRepo
     ) {
         this.killSwitchService = killSwitchService;
-        this.draftService = draftService;
+        this.draftPublisher = draftPublisher;
         this.draftRepo = draftRepo;
         this.transitionRepo = transitionRepo;
     }
 
+    // 1回の実行で処理する候補数の上限（bulk API 25件×並行バッチで処理）
+    @Value("${ebay.draft.batch-limit:500}")
+    private int draftBatchLimit;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
     // 動作確認用：10秒ごとに実行
+    // 仮想スレッドのスケジューラでは fixedRate の実行が重なりうるため、前回が実行中なら今回はスキップする
     @Scheduled(fixedRate = 10_000)
     public void run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("[NightlyBatch] skipped: previous run still in progress");
+            return;
+        }
+        try {
+            runOnce();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void runOnce() {
         if (killSwitchService.isPaused()) {
             log.warn("[NightlyBatch] skipped: SYSTEM IS PAUSED");
             return;
         }
 
-        int created = draftService.processReadyCandidates(10);
+        int created = draftPublisher.publishReadyCandidates(draftBatchLimit);
         log.info("[NightlyBatch] drafts created: {}", created);
 
         List<EbayDraft> recent = draftRepo.findRecentByUpdatedAt(PageRequest.of(0, 10));
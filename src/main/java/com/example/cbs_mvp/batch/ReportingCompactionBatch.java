@@ -0,0 +1,30 @@
+package com.example.cbs_mvp.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.cbs_mvp.repo.ReportingJdbcRepository;
+
+/**
+ * 集計表の接続ごとの行（slot）を定期的に1行へ畳み込む。
+ * 読み取り時に合計する行数を「指標数 × 直近に書き込んだ接続数」程度に抑える。
+ */
+@Component
+public class ReportingCompactionBatch {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportingCompactionBatch.class);
+
+    private final ReportingJdbcRepository reportingRepo;
+
+    public ReportingCompactionBatch(ReportingJdbcRepository reportingRepo) {
+        this.reportingRepo = reportingRepo;
+    }
+
+    @Scheduled(fixedDelayString = "${reporting.compact-ms:600000}")
+    public void compact() {
+        int rows = reportingRepo.compact();
+        log.debug("[ReportingCompactionBatch] compacted into {} rows", rows);
+    }
+}
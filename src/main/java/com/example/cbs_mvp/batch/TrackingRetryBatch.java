@@ -2,95 +2,210 @@ package com.example.cbs_mvp.batch;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.example.cbs_mvp.config.WorkerThreads;
+import com.example.cbs_mvp.ebay.EbayOrderClientException;
 import com.example.cbs_mvp.entity.Order;
 import com.example.cbs_mvp.ops.KillSwitchService;
 import com.example.cbs_mvp.ops.SystemFlagService;
 import com.example.cbs_mvp.repo.OrderRepository;
 import com.example.cbs_mvp.service.TrackingService;
+import com.example.cbs_mvp.service.TrackingUploadQueue;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 追跡番号アップロードの実行（リトライ含む）。
+ * TrackingUploadQueue から実行予定時刻に達した注文を取り出し、同時実行数を制限してアップロードする。
+ * 3PL取込・アップロード失敗時に予定が直接登録されるため、DB は起動時の復元にのみ使う。
+ */
 @Component
 public class TrackingRetryBatch {
 
     private static final Logger log = LoggerFactory.getLogger(TrackingRetryBatch.class);
-    private static final int RETRY_LIMIT_DEFAULT = 20;
+    private static final String STATE = "3PL_SHIPPED_INTL";
+    private static final int RECOVER_PAGE_SIZE = 1_000;
     private static final int RETRY_MAX_ATTEMPTS_DEFAULT = 5;
     private static final int RETRY_MAX_AGE_MINUTES_DEFAULT = 60;
+    private static final long IN_FLIGHT_RECHECK_SECONDS = 1;
 
     private final KillSwitchService killSwitch;
     private final OrderRepository orderRepo;
     private final TrackingService trackingService;
     private final SystemFlagService flags;
+    private final TrackingUploadQueue uploadQueue;
+    private final WorkerThreads workerThreads;
+    private final ObservationRegistry observations;
+
+    @Value("${tracking.upload.workers:4}")
+    private int workers;
+
+    // 停止中（Kill Switch）に予定時刻を迎えた注文を再確認するまでの秒数
+    @Value("${tracking.upload.paused-recheck-seconds:30}")
+    private long pausedRecheckSeconds;
+
+    // eBay 以外の想定外エラー（DB障害など）時の再実行までの秒数
+    @Value("${tracking.upload.error-retry-seconds:300}")
+    private long errorRetrySeconds;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private ExecutorService pool;
+    private Semaphore permits;
+    private Thread dispatcher;
+    private volatile boolean running;
 
     public TrackingRetryBatch(
             KillSwitchService killSwitch,
             OrderRepository orderRepo,
             TrackingService trackingService,
-            SystemFlagService flags
+            SystemFlagService flags,
+            TrackingUploadQueue uploadQueue,
+            WorkerThreads workerThreads,
+            ObservationRegistry observations
     ) {
         this.killSwitch = killSwitch;
         this.orderRepo = orderRepo;
         this.trackingService = trackingService;
         this.flags = flags;
+        this.uploadQueue = uploadQueue;
+        this.workerThreads = workerThreads;
+        this.observations = observations;
     }
 
-    @Scheduled(fixedRate = 30_000)
-    public void run() {
-        if (killSwitch.isPaused()) {
-            log.warn("[TrackingRetryBatch] skipped: SYSTEM IS PAUSED");
-            return;
-        }
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        int n = Math.max(1, workers);
+        pool = workerThreads.fixedPool("tracking-upload", n);
+        permits = new Semaphore(n);
 
-        LocalDateTime now = LocalDateTime.now();
-        int limit = positiveFlagInt("EBAY_TRACKING_RETRY_BATCH_LIMIT", RETRY_LIMIT_DEFAULT);
-        List<Order> targets = orderRepo.findTrackingRetryTargets(
-                "3PL_SHIPPED_INTL",
-                now,
-                PageRequest.of(0, limit)
-        );
-        if (targets.isEmpty()) {
-            return;
+        int recovered = recover();
+        if (recovered > 0) {
+            log.info("[TrackingRetryBatch] recovered scheduled uploads={}", recovered);
         }
 
-        int maxAttempts = positiveFlagInt(
-                "EBAY_TRACKING_RETRY_MAX_ATTEMPTS",
-                RETRY_MAX_ATTEMPTS_DEFAULT
-        );
-        int maxAgeMinutes = positiveFlagInt(
-                "EBAY_TRACKING_RETRY_MAX_AGE_MINUTES",
-                RETRY_MAX_AGE_MINUTES_DEFAULT
-        );
+        running = true;
+        dispatcher = workerThreads.newThread("tracking-upload-dispatcher", this::dispatchLoop);
+        dispatcher.start();
+    }
 
-        int attempted = 0;
-        int terminal = 0;
-        int errors = 0;
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
 
-        for (Order order : targets) {
-            if (shouldStopRetry(order, now, maxAttempts, maxAgeMinutes)) {
-                trackingService.markTrackingUploadFailedTerminal(
-                        order.getOrderId(),
-                        terminalDetail(order)
-                );
-                terminal++;
-                continue;
+    /**
+     * 未完了のアップロード予定を orders から読み込んでキューに登録する
+     */
+    int recover() {
+        int count = 0;
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = orderRepo.findPendingTrackingUploadsAfter(
+                    STATE, afterId, PageRequest.of(0, RECOVER_PAGE_SIZE));
+            for (Object[] row : rows) {
+                Long orderId = ((Number) row[0]).longValue();
+                uploadQueue.schedule(orderId, (LocalDateTime) row[1]);
+                afterId = orderId;
+                count++;
+            }
+            if (rows.size() < RECOVER_PAGE_SIZE) {
+                return count;
             }
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
             try {
-                trackingService.uploadTracking(order.getOrderId());
-                attempted++;
+                Long orderId = uploadQueue.take();
+                permits.acquire();
+                try {
+                    pool.execute(() -> {
+                        try {
+                            // 1件のアップロードを1トレースとして記録（eBay 呼び出しは子スパン）
+                            Observation.createNotStarted("cbs.tracking.upload", observations)
+                                    .contextualName("tracking.upload")
+                                    .highCardinalityKeyValue("order.id", String.valueOf(orderId))
+                                    .observe(() -> process(orderId));
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RuntimeException ex) {
+                    permits.release();
+                    throw ex;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
             } catch (RuntimeException ex) {
-                errors++;
-                log.warn("[TrackingRetryBatch] upload failed orderId={}", order.getOrderId(), ex);
+                log.error("[TrackingRetryBatch] dispatch failed", ex);
             }
         }
+    }
+
+    void process(Long orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (killSwitch.isPaused()) {
+            uploadQueue.schedule(orderId, now.plusSeconds(pausedRecheckSeconds));
+            return;
+        }
+        if (!inFlight.add(orderId)) {
+            // 同じ注文の実行中に再登録された場合は、完了後に改めて実行する
+            uploadQueue.schedule(orderId, now.plusSeconds(IN_FLIGHT_RECHECK_SECONDS));
+            return;
+        }
+        try {
+            Order order = orderRepo.findById(orderId).orElse(null);
+            if (order == null
+                    || !STATE.equals(order.getState())
+                    || order.getTrackingRetryTerminalAt() != null) {
+                return;
+            }
+
+            int maxAttempts = positiveFlagInt(
+                    "EBAY_TRACKING_RETRY_MAX_ATTEMPTS",
+                    RETRY_MAX_ATTEMPTS_DEFAULT
+            );
+            int maxAgeMinutes = positiveFlagInt(
+                    "EBAY_TRACKING_RETRY_MAX_AGE_MINUTES",
+                    RETRY_MAX_AGE_MINUTES_DEFAULT
+            );
+            if (shouldStopRetry(order, now, maxAttempts, maxAgeMinutes)) {
+                trackingService.markTrackingUploadFailedTerminal(orderId, terminalDetail(order));
+                log.info("[TrackingRetryBatch] retry exhausted orderId={}", orderId);
+                return;
+            }
 
-        if (attempted > 0 || terminal > 0 || errors > 0) {
-            log.info("[TrackingRetryBatch] attempted={} terminal={} errors={}", attempted, terminal, errors);
+            trackingService.uploadTracking(orderId);
+        } catch (EbayOrderClientException ex) {
+            // 次回予定（または終端）は TrackingService が記録・登録済み
+            log.warn("[TrackingRetryBatch] upload failed orderId={} retryable={}", orderId, ex.isRetryable());
+        } catch (RuntimeException ex) {
+            log.warn("[TrackingRetryBatch] upload failed orderId={}", orderId, ex);
+            uploadQueue.schedule(orderId, now.plusSeconds(errorRetrySeconds));
+        } finally {
+            inFlight.remove(orderId);
         }
     }
 
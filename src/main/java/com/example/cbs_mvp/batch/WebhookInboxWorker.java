@@ -0,0 +1,126 @@
+package com.example.cbs_mvp.batch;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.cbs_mvp.config.WorkerThreads;
+import com.example.cbs_mvp.entity.WebhookInbox;
+import com.example.cbs_mvp.ops.KillSwitchService;
+import com.example.cbs_mvp.service.WebhookInboxService;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * webhook_inbox を処理するワーカー。
+ * 各ワーカースレッドが SKIP LOCKED で別々のバッチを取得し、空になるまで処理する。
+ */
+@Component
+public class WebhookInboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookInboxWorker.class);
+    private static final int MAX_BATCHES_PER_WORKER = 20;
+
+    private final WebhookInboxService inbox;
+    private final KillSwitchService killSwitch;
+    private final WorkerThreads workerThreads;
+    private final ObservationRegistry observations;
+
+    @Value("${webhook.inbox.workers:4}")
+    private int workers;
+
+    @Value("${webhook.inbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${webhook.inbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private ExecutorService pool;
+    private volatile LocalDateTime lastStaleCheck = LocalDateTime.MIN;
+
+    public WebhookInboxWorker(
+            WebhookInboxService inbox,
+            KillSwitchService killSwitch,
+            WorkerThreads workerThreads,
+            ObservationRegistry observations) {
+        this.inbox = inbox;
+        this.killSwitch = killSwitch;
+        this.workerThreads = workerThreads;
+        this.observations = observations;
+    }
+
+    @PostConstruct
+    void init() {
+        workers = Math.max(1, workers);
+        pool = workerThreads.fixedPool("webhook-inbox", workers);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.inbox.poll-ms:1000}")
+    public void poll() {
+        if (killSwitch.isPaused()) {
+            // 停止中は取込が失敗するだけなので、リトライ回数を消費しないよう取得しない
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (lastStaleCheck.plusMinutes(1).isBefore(now)) {
+            lastStaleCheck = now;
+            int released = inbox.releaseStale(now.minusSeconds(leaseSeconds));
+            if (released > 0) {
+                log.warn("[WebhookInboxWorker] released stale rows={}", released);
+            }
+        }
+
+        // ワーカースレッドへはトレースが引き継がれないため、この実行（@Scheduled の観測）を親として渡す
+        Observation parent = observations.getCurrentObservation();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> drain(parent), pool));
+        }
+        int imported = futures.stream().mapToInt(f -> {
+            try {
+                return f.join();
+            } catch (RuntimeException ex) {
+                log.error("[WebhookInboxWorker] worker failed", ex);
+                return 0;
+            }
+        }).sum();
+
+        if (imported > 0) {
+            log.info("[WebhookInboxWorker] imported={}", imported);
+        }
+    }
+
+    private int drain(Observation parent) {
+        int imported = 0;
+        for (int i = 0; i < MAX_BATCHES_PER_WORKER; i++) {
+            List<WebhookInbox> rows = inbox.claim(batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            Integer n = Observation.createNotStarted("cbs.webhook.inbox.process", observations)
+                    .contextualName("webhook.process")
+                    .parentObservation(parent)
+                    .highCardinalityKeyValue("rows", String.valueOf(rows.size()))
+                    .observe(() -> inbox.processClaimed(rows));
+            imported += n == null ? 0 : n;
+        }
+        return imported;
+    }
+}
@@ -10,6 +10,10 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.cbs_mvp.entity.ImportJob;
+import com.example.cbs_mvp.imports.ImportJobController;
+import com.example.cbs_mvp.imports.ImportJobService;
+
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -18,14 +22,18 @@ import lombok.RequiredArgsConstructor;
 public class CandidateCsvImportController {
 
     private final CandidateCsvImportService csvImportService;
+    private final ImportJobService importJobs;
 
     /**
-     * CSVファイルからCandidateを一括インポート
+     * CSVファイルからCandidateを一括インポート（非同期の取込ジョブとして登録）
      * 
      * POST /candidates/import-csv
      * Content-Type: multipart/form-data
      * Body: file=@candidates.csv
      * 
+     * ファイルをサーバーに保存して 202 とジョブIDを返す。進捗は GET /imports/{jobId}、
+     * 行ごとのエラーは GET /imports/{jobId}/errors で確認する。
+     * 
      * @param skipDuplicates true: 重複URLはスキップして成功扱い（デフォルト: false）
      */
     @PostMapping(value = "/import-csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -39,19 +47,12 @@ public class CandidateCsvImportController {
         }
 
         try {
-            CandidateCsvImportService.ImportResult result = csvImportService.importFromCsv(
+            ImportJob job = importJobs.submit(CandidateCsvImportService.JOB_KIND, file.getOriginalFilename(),
                     file.getInputStream(), skipDuplicates, autoFilterProfit);
 
-            return ResponseEntity.ok(Map.of(
-                    "successCount", result.successCount(),
-                    "skippedCount", result.skippedCount(),
-                    "errorCount", result.errorCount(),
-                    "errors", result.errors().stream().limit(20).toList(),
-                    "message", result.hasErrors()
-                            ? "Import completed with errors"
-                            : (result.skippedCount() > 0
-                                    ? "Import completed (" + result.skippedCount() + " duplicates skipped)"
-                                    : "Import completed successfully")));
+            Map<String, Object> body = ImportJobController.view(job);
+            body.put("message", "Import queued");
+            return ResponseEntity.accepted().body(body);
 
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
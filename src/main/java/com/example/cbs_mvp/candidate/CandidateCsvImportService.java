@@ -6,30 +6,53 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import com.example.cbs_mvp.entity.Candidate;
-import com.example.cbs_mvp.repo.CandidateRepository;
-import com.example.cbs_mvp.service.StateTransitionService;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.cbs_mvp.entity.ImportJob;
+import com.example.cbs_mvp.imports.ImportChunkProcessor;
+import com.example.cbs_mvp.live.LiveEvent;
+import com.example.cbs_mvp.live.LiveEventBus;
+import com.example.cbs_mvp.repo.CandidateImportJdbcRepository;
+import com.example.cbs_mvp.repo.CandidateImportJdbcRepository.ExistingCandidate;
+import com.example.cbs_mvp.repo.CandidateImportJdbcRepository.NewCandidate;
+import com.example.cbs_mvp.service.CandidateBulkPricingService;
+import com.example.cbs_mvp.tracing.CorrelationIds;
 
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
-public class CandidateCsvImportService {
+public class CandidateCsvImportService implements ImportChunkProcessor {
+
+    /**
+     * import_jobs.kind
+     */
+    public static final String JOB_KIND = "CANDIDATE_CSV";
 
     private static final Logger log = LoggerFactory.getLogger(CandidateCsvImportService.class);
 
-    private final CandidateRepository candidateRepo;
-    private final StateTransitionService transitions;
-    private final com.example.cbs_mvp.service.CandidateService candidateService;
+    private final CandidateImportJdbcRepository importRepo;
+    private final CandidateBulkPricingService bulkPricing;
     private final com.example.cbs_mvp.fx.FxRateService fxRateService;
+    private final PlatformTransactionManager txManager;
+    private final LiveEventBus live;
+
+    @Value("${candidates.import.chunk-size:1000}")
+    private int chunkSize = 1000;
 
     /**
      * CSVからCandidateを一括インポート
@@ -37,36 +60,299 @@ public class CandidateCsvImportService {
      * CSV形式 (ヘッダー必須):
      * sourceUrl,sourcePriceYen,weightKg,sizeTier,title
      * 
-     * @param skipDuplicates   true: 重複URLはスキップして成功カウント、false: エラーとして報告
+     * 2段階で処理する:
+     * 1. ファイルを1行ずつ検証し、ファイル内の重複URLを除いた行を集める。
+     *    既存URLは chunkSize 件ずつ source_url = ANY(?) でまとめて判定する。
+     * 2. 残った行を chunkSize 件ずつ JDBC バッチで追加する（チャンクごとに1トランザクション。失敗したチャンクの行はエラー扱い）
+     * 3. autoFilterProfit の場合、追加した候補をまとめて価格計算する（CandidateBulkPricingService: 並列計算 + バッチ書き込み）
+     * 
+     * @param skipDuplicates   true: 重複URL（DB既存・ファイル内とも）はスキップして成功カウント、false: エラーとして報告
      * @param autoFilterProfit true: 利益計算を行い、基準未満ならREJECTEDにする
      * @return インポート結果
      */
-    @Transactional
     public ImportResult importFromCsv(InputStream inputStream, boolean skipDuplicates, boolean autoFilterProfit) {
-        List<String> errors = new ArrayList<>();
-        int successCount = 0;
-        int skippedCount = 0;
-        int lineNumber = 0;
-
         // For auto-filter, we need FX rate
         BigDecimal fxRate = null;
         if (autoFilterProfit) {
             var fxRes = fxRateService.getCurrentRate();
             if (fxRes == null || !fxRes.isSuccess()) {
-                return new ImportResult(0, 0, 1, List.of("Auto-filter enabled but failed to get FX rate: "
-                        + (fxRes != null ? fxRes.error() : "Unknown")));
+                return new ImportResult(0, 0, 1, List.of(fxErrorMessage(fxRes)));
             }
             fxRate = fxRes.rate();
         }
 
+        List<LineError> errors = new ArrayList<>();
+
+        // Phase 1: 検証 + ファイル内重複除去
+        Collected collected = new Collected(skipDuplicates, errors, 1024);
+        String fileError;
+        try {
+            fileError = parse(inputStream, collected::accept);
+        } catch (IOException e) {
+            log.error("CSV import failed", e);
+            fileError = "IO error: " + e.getMessage();
+        }
+        if (fileError != null && collected.rows.isEmpty() && errors.isEmpty()) {
+            return new ImportResult(0, 0, 1, List.of(fileError));
+        }
+
+        // Phase 1b〜3: DB 既存URLの判定・追加・自動フィルタ
+        Counts counts = importRows(collected.rows, errors, skipDuplicates, fxRate, null);
+        int successCount = counts.success();
+        int skippedCount = collected.inFileDuplicates + counts.skipped();
+
+        List<String> messages = new ArrayList<>(errors.size() + 1);
+        errors.stream().sorted(Comparator.comparingInt(LineError::lineNumber))
+                .forEach(e -> messages.add(e.message()));
+        if (fileError != null) {
+            messages.add(fileError);
+        }
+
+        log.info("CSV import completed: {} success, {} skipped, {} errors", successCount, skippedCount, messages.size());
+        return new ImportResult(successCount, skippedCount, messages.size(), messages);
+    }
+
+    // --- 取込ジョブ（ImportJobService から chunkSize 行ずつ呼ばれる） ---
+
+    @Override
+    public String kind() {
+        return JOB_KIND;
+    }
+
+    @Override
+    public String checkHeader(String headerLine) {
+        return columns(headerLine).error();
+    }
+
+    /**
+     * 自動フィルタの為替レートはジョブ開始時に1回だけ取得し、再開後も同じ値を使う
+     */
+    @Override
+    public void prepare(ImportJob job) {
+        if (job.isAutoFilterProfit() && job.getFxRate() == null) {
+            var fxRes = fxRateService.getCurrentRate();
+            if (fxRes == null || !fxRes.isSuccess()) {
+                throw new IllegalStateException(fxErrorMessage(fxRes));
+            }
+            job.setFxRate(fxRes.rate());
+        }
+    }
+
+    /**
+     * ファイル内重複はチャンク内で判定する。前のチャンクの行はコミット済みなので DB 既存として判定される。
+     * 同じジョブの同じ行から追加済みの候補（チェックポイント前に停止したチャンクの再処理）は追加済みとして数え、
+     * CANDIDATE のままなら価格計算をやり直す。
+     */
+    @Override
+    public ImportChunkProcessor.Result process(ImportJob job, String headerLine, List<ImportChunkProcessor.Line> lines) {
+        Columns columns = columns(headerLine);
+        List<LineError> errors = new ArrayList<>();
+        Collected collected = new Collected(job.isSkipDuplicates(), errors, Math.max(16, lines.size()));
+        for (ImportChunkProcessor.Line line : lines) {
+            if (line.text().isBlank()) {
+                continue;
+            }
+            collected.accept(parseLine(columns, line.lineNumber(), line.text()));
+        }
+
+        Counts counts = importRows(collected.rows, errors, job.isSkipDuplicates(),
+                job.isAutoFilterProfit() ? job.getFxRate() : null, job.getJobId());
+
+        List<ImportChunkProcessor.RowError> rowErrors = errors.stream()
+                .sorted(Comparator.comparingInt(LineError::lineNumber))
+                .map(e -> new ImportChunkProcessor.RowError(e.lineNumber(), e.message()))
+                .toList();
+        return new ImportChunkProcessor.Result(counts.success(), 0,
+                collected.inFileDuplicates + counts.skipped(), rowErrors);
+    }
+
+    private static String fxErrorMessage(com.example.cbs_mvp.fx.FxRateService.FxRateResult fxRes) {
+        return "Auto-filter enabled but failed to get FX rate: " + (fxRes != null ? fxRes.error() : "Unknown");
+    }
+
+    /**
+     * DB 既存URLを除いて追加し、fxRate があれば追加した候補をまとめて価格計算する
+     *
+     * @param rows ファイル内重複を除いた行
+     * @param fxRate null の場合は自動フィルタしない
+     * @param jobId 取込ジョブから呼ばれた場合のジョブID（追加した候補に行番号と一緒に記録する）。それ以外は null
+     */
+    private Counts importRows(List<NewCandidate> rows, List<LineError> errors, boolean skipDuplicates,
+            BigDecimal fxRate, Long jobId) {
+        int skippedCount = 0;
+        int successCount = 0;
+        List<CandidateBulkPricingService.Item> inserted = new ArrayList<>();
+        Map<Long, Integer> lineByCandidate = new HashMap<>();
+
+        // Phase 1b: DB 既存URLの判定（チャンク単位でまとめて問い合わせ）
+        List<NewCandidate> survivors = new ArrayList<>(rows.size());
+        for (List<NewCandidate> chunk : chunks(rows)) {
+            Map<String, ExistingCandidate> existing =
+                    importRepo.findExisting(chunk.stream().map(NewCandidate::sourceUrl).toList());
+            for (NewCandidate c : chunk) {
+                ExistingCandidate found = existing.get(c.sourceUrl());
+                if (found == null) {
+                    survivors.add(c);
+                } else if (found.importedBy(jobId, c.lineNumber())) {
+                    // 前回の実行で追加済み（チェックポイント前に停止した）
+                    successCount++;
+                    if (fxRate != null && "CANDIDATE".equals(found.state())) {
+                        inserted.add(new CandidateBulkPricingService.Item(
+                                found.candidateId(), c.sourcePriceYen(), c.weightKg(), c.sizeTier()));
+                        lineByCandidate.put(found.candidateId(), c.lineNumber());
+                    }
+                } else if (skipDuplicates) {
+                    skippedCount++;
+                } else {
+                    errors.add(new LineError(c.lineNumber(),
+                            "Line " + c.lineNumber() + ": duplicate URL: " + truncate(c.sourceUrl(), 50)));
+                }
+            }
+        }
+
+        // Phase 2: JDBC バッチで追加
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        String correlationId = CorrelationIds.current();
+        for (List<NewCandidate> chunk : chunks(survivors)) {
+            List<Long> ids;
+            try {
+                ids = tx.execute(status -> importRepo.insert(chunk, jobId, correlationId, LocalDateTime.now()));
+            } catch (RuntimeException e) {
+                log.error("CSV import chunk failed rows={}", chunk.size(), e);
+                for (NewCandidate c : chunk) {
+                    errors.add(new LineError(c.lineNumber(), "Line " + c.lineNumber() + ": " + e.getMessage()));
+                }
+                continue;
+            }
+            if (ids == null) {
+                continue;
+            }
+            successCount += ids.size();
+            if (live.isActive()) {
+                for (Long id : ids) {
+                    live.publish(LiveEvent.of("candidate", id, "candidateId", id, "from", null, "state", "CANDIDATE"));
+                }
+            }
+            if (fxRate != null) {
+                for (int i = 0; i < ids.size(); i++) {
+                    NewCandidate c = chunk.get(i);
+                    inserted.add(new CandidateBulkPricingService.Item(
+                            ids.get(i), c.sourcePriceYen(), c.weightKg(), c.sizeTier()));
+                    lineByCandidate.put(ids.get(i), c.lineNumber());
+                }
+            }
+        }
+
+        // Phase 3: Auto-Filter（追加をコミットした候補をまとめて価格計算。REJECTED / DRAFT_READY になる）
+        if (fxRate != null && !inserted.isEmpty()) {
+            Map<Long, String> failures;
+            try {
+                failures = bulkPricing.priceImported(inserted, fxRate, chunkSize);
+            } catch (RuntimeException e) {
+                log.error("Auto-filter failed for {} candidates", inserted.size(), e);
+                failures = new LinkedHashMap<>();
+                for (CandidateBulkPricingService.Item item : inserted) {
+                    failures.put(item.candidateId(), e.getMessage());
+                }
+            }
+            // If pricing fails, it stays as CANDIDATE, which is safe fall-back
+            failures.forEach((candidateId, message) -> {
+                int lineNumber = lineByCandidate.get(candidateId);
+                errors.add(new LineError(lineNumber,
+                        "Line " + lineNumber + ": Saved, but auto-filter failed: " + message));
+            });
+        }
+
+        return new Counts(successCount, skippedCount);
+    }
+
+    private record Counts(int success, int skipped) {
+    }
+
+    private record LineError(int lineNumber, String message) {
+    }
+
+    /**
+     * Phase 1 の集計（検証エラーを記録し、ファイル内重複を除いた行を集める）
+     */
+    private final class Collected {
+        private final boolean skipDuplicates;
+        private final List<LineError> errors;
+        private final OpenAddressingStringSet seen;
+        private final List<NewCandidate> rows = new ArrayList<>();
+        private int inFileDuplicates;
+
+        Collected(boolean skipDuplicates, List<LineError> errors, int expected) {
+            this.skipDuplicates = skipDuplicates;
+            this.errors = errors;
+            this.seen = new OpenAddressingStringSet(expected);
+        }
+
+        void accept(ParsedLine line) {
+            if (line.error() != null) {
+                errors.add(new LineError(line.lineNumber(), line.error()));
+            } else if (!seen.add(line.candidate().sourceUrl())) {
+                if (skipDuplicates) {
+                    inFileDuplicates++;
+                } else {
+                    errors.add(new LineError(line.lineNumber(), "Line " + line.lineNumber()
+                            + ": duplicate URL in file: " + truncate(line.candidate().sourceUrl(), 50)));
+                }
+            } else {
+                rows.add(line.candidate());
+            }
+        }
+    }
+
+    /**
+     * 1行分の検証結果（candidate か error のどちらか一方）
+     */
+    private record ParsedLine(
+            int lineNumber,
+            String url,
+            String priceStr,
+            String weightStr,
+            String sizeStr,
+            NewCandidate candidate,
+            String error) {
+    }
+
+    /**
+     * ヘッダーから求めた列位置（error があれば取込不可）
+     */
+    private record Columns(int urlIdx, int priceIdx, int weightIdx, int sizeIdx, String error) {
+    }
+
+    private Columns columns(String headerLine) {
+        String[] headers = parseCsvLine(headerLine);
+        int urlIdx = findIndex(headers, "sourceUrl", "url", "source_url");
+        int priceIdx = findIndex(headers, "sourcePriceYen", "price", "source_price_yen");
+        int weightIdx = findIndex(headers, "weightKg", "weight", "weight_kg");
+        int sizeIdx = findIndex(headers, "sizeTier", "size", "size_tier");
+
+        String error = null;
+        if (urlIdx < 0) {
+            error = "Missing required column: sourceUrl";
+        } else if (priceIdx < 0) {
+            error = "Missing required column: sourcePriceYen";
+        }
+        return new Columns(urlIdx, priceIdx, weightIdx, sizeIdx, error);
+    }
+
+    /**
+     * ヘッダーを解析し、データ行を1行ずつ検証して sink に渡す（重複判定は呼び出し側）
+     *
+     * @return ファイル全体のエラー（空ファイル・必須列なし）。正常なら null
+     */
+    private String parse(InputStream inputStream, Consumer<ParsedLine> sink) throws IOException {
         try (BufferedReader reader = new BufferedReader(
                 new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
 
             String headerLine = reader.readLine();
-            lineNumber++;
+            int lineNumber = 1;
 
             if (headerLine == null) {
-                return new ImportResult(0, 0, 1, List.of("Empty file"));
+                return "Empty file";
             }
 
             // BOM除去
@@ -75,17 +361,9 @@ public class CandidateCsvImportService {
             }
 
             // ヘッダー解析
-            String[] headers = parseCsvLine(headerLine);
-            int urlIdx = findIndex(headers, "sourceUrl", "url", "source_url");
-            int priceIdx = findIndex(headers, "sourcePriceYen", "price", "source_price_yen");
-            int weightIdx = findIndex(headers, "weightKg", "weight", "weight_kg");
-            int sizeIdx = findIndex(headers, "sizeTier", "size", "size_tier");
-
-            if (urlIdx < 0) {
-                return new ImportResult(0, 0, 1, List.of("Missing required column: sourceUrl"));
-            }
-            if (priceIdx < 0) {
-                return new ImportResult(0, 0, 1, List.of("Missing required column: sourcePriceYen"));
+            Columns columns = columns(headerLine);
+            if (columns.error() != null) {
+                return columns.error();
             }
 
             String line;
@@ -95,112 +373,47 @@ public class CandidateCsvImportService {
                 if (line.isBlank()) {
                     continue;
                 }
+                sink.accept(parseLine(columns, lineNumber, line));
+            }
+        }
+        return null;
+    }
 
-                try {
-                    String[] values = parseCsvLine(line);
-
-                    // sourceUrl 検証
-                    String url = getValueSafe(values, urlIdx, "");
-                    if (url.isBlank()) {
-                        errors.add("Line " + lineNumber + ": sourceUrl is required");
-                        continue;
-                    }
-
-                    // sourcePriceYen 検証（必須）
-                    String priceStr = getValueSafe(values, priceIdx, "");
-                    if (priceStr.isBlank()) {
-                        errors.add("Line " + lineNumber + ": sourcePriceYen is required");
-                        continue;
-                    }
-                    BigDecimal price = parseBigDecimalStrict(priceStr);
-                    if (price == null) {
-                        errors.add("Line " + lineNumber + ": invalid sourcePriceYen: " + priceStr);
-                        continue;
-                    }
-                    if (price.compareTo(BigDecimal.ZERO) <= 0) {
-                        errors.add("Line " + lineNumber + ": sourcePriceYen must be positive");
-                        continue;
-                    }
-
-                    // 重複チェック
-                    if (candidateRepo.findBySourceUrl(url).isPresent()) {
-                        if (skipDuplicates) {
-                            skippedCount++;
-                            continue; // スキップして成功扱い
-                        } else {
-                            errors.add("Line " + lineNumber + ": duplicate URL: " + truncate(url, 50));
-                            continue;
-                        }
-                    }
-
-                    // weightKg 検証（オプション、あれば正の数）
-                    BigDecimal weight = null;
-                    String weightStr = getValueSafe(values, weightIdx, null);
-                    if (weightStr != null && !weightStr.isBlank()) {
-                        weight = parseBigDecimalStrict(weightStr);
-                        if (weight == null || weight.compareTo(BigDecimal.ZERO) <= 0) {
-                            errors.add("Line " + lineNumber + ": invalid weightKg: " + weightStr);
-                            continue;
-                        }
-                    }
-
-                    // sizeTier 検証（オプション）
-                    String sizeTier = getValueSafe(values, sizeIdx, null);
-                    if (sizeTier != null && !sizeTier.isBlank()) {
-                        sizeTier = sizeTier.trim().toUpperCase();
-                        if (!isValidSizeTier(sizeTier)) {
-                            errors.add("Line " + lineNumber + ": invalid sizeTier: " + sizeTier
-                                    + " (expected: S/M/L/XL/XXL)");
-                            continue;
-                        }
-                    }
-
-                    Candidate candidate = new Candidate();
-                    candidate.setSourceUrl(url);
-                    candidate.setSourcePriceYen(price);
-                    candidate.setWeightKg(weight);
-                    candidate.setSizeTier(sizeTier);
-                    candidate.setState("CANDIDATE");
-
-                    candidate = candidateRepo.save(candidate);
-
-                    transitions.log(
-                            "CANDIDATE",
-                            candidate.getCandidateId(),
-                            null,
-                            "CANDIDATE",
-                            "CSV_IMPORT",
-                            "imported from CSV line " + lineNumber,
-                            "SYSTEM",
-                            java.util.UUID.randomUUID().toString().replace("-", ""));
-
-                    // Auto-Filter Logic
-                    if (autoFilterProfit) {
-                        try {
-                            // Run pricing (sets state to REJECTED or DRAFT_READY)
-                            candidateService.priceCandidate(candidate.getCandidateId(), fxRate, null, false);
-                        } catch (Exception e) {
-                            // Log error but count as success for import (maybe warn?)
-                            log.error("Auto-filter failed for candidate {}", candidate.getCandidateId(), e);
-                            errors.add("Line " + lineNumber + ": Saved, but auto-filter failed: " + e.getMessage());
-                            // If pricing fails, it stays as CANDIDATE, which is safe fall-back
-                        }
-                    }
-
-                    successCount++;
-
-                } catch (Exception e) {
-                    errors.add("Line " + lineNumber + ": " + e.getMessage());
-                }
+    private ParsedLine parseLine(Columns columns, int lineNumber, String line) {
+        String url = "";
+        String priceStr = "";
+        String weightStr = "";
+        String sizeStr = "";
+        try {
+            String[] values = parseCsvLine(line);
+            url = getValueSafe(values, columns.urlIdx(), "");
+            priceStr = getValueSafe(values, columns.priceIdx(), "");
+            weightStr = getValueSafe(values, columns.weightIdx(), "");
+            sizeStr = getValueSafe(values, columns.sizeIdx(), "");
+
+            String error = validateRow(lineNumber, url, priceStr, weightStr, sizeStr);
+            if (error != null) {
+                return new ParsedLine(lineNumber, url, priceStr, weightStr, sizeStr, null, error);
             }
 
-        } catch (IOException e) {
-            log.error("CSV import failed", e);
-            errors.add("IO error: " + e.getMessage());
+            BigDecimal weight = weightStr.isBlank() ? null : parseBigDecimalStrict(weightStr);
+            String sizeTier = sizeStr.isBlank() ? null : sizeStr.trim().toUpperCase();
+            NewCandidate candidate = new NewCandidate(
+                    lineNumber, url, parseBigDecimalStrict(priceStr), weight, sizeTier);
+            return new ParsedLine(lineNumber, url, priceStr, weightStr, sizeStr, candidate, null);
+        } catch (RuntimeException e) {
+            return new ParsedLine(lineNumber, url, priceStr, weightStr, sizeStr, null,
+                    "Line " + lineNumber + ": " + e.getMessage());
         }
+    }
 
-        log.info("CSV import completed: {} success, {} skipped, {} errors", successCount, skippedCount, errors.size());
-        return new ImportResult(successCount, skippedCount, errors.size(), errors);
+    private <T> List<List<T>> chunks(List<T> items) {
+        int size = Math.max(1, chunkSize);
+        List<List<T>> out = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += size) {
+            out.add(items.subList(i, Math.min(items.size(), i + size)));
+        }
+        return out;
     }
 
     private int findIndex(String[] headers, String... names) {
@@ -323,80 +536,74 @@ public class CandidateCsvImportService {
 
     /**
      * CSVのプレビュー/バリデーション（DBには保存しない）
+     * 重複URL（ファイル内・DB既存）も取込と同じ方法で判定する。
      */
     public PreviewResult previewFromCsv(InputStream inputStream) {
-        List<String> errors = new ArrayList<>();
-        List<PreviewData> previewData = new ArrayList<>();
-        int totalRows = 0;
-        int validRows = 0;
-        int lineNumber = 0;
-
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-
-            String headerLine = reader.readLine();
-            lineNumber++;
+        List<ParsedLine> lines = new ArrayList<>();
+        String fileError;
+        try {
+            fileError = parse(inputStream, lines::add);
+        } catch (IOException e) {
+            log.error("CSV preview failed", e);
+            fileError = "IO error: " + e.getMessage();
+        }
+        if (fileError != null && lines.isEmpty()) {
+            return new PreviewResult(0, 0, List.of(fileError), List.of());
+        }
 
-            if (headerLine == null) {
-                return new PreviewResult(0, 0, List.of("Empty file"), List.of());
+        // ファイル内重複を除いた有効URLについて、DB既存をまとめて判定
+        OpenAddressingStringSet seen = new OpenAddressingStringSet(Math.max(16, lines.size()));
+        List<String> firstUrls = new ArrayList<>();
+        boolean[] inFileDuplicate = new boolean[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            ParsedLine p = lines.get(i);
+            if (p.candidate() == null) {
+                continue;
             }
-
-            // BOM除去
-            if (headerLine.startsWith("\uFEFF")) {
-                headerLine = headerLine.substring(1);
+            if (seen.add(p.url())) {
+                firstUrls.add(p.url());
+            } else {
+                inFileDuplicate[i] = true;
             }
+        }
+        OpenAddressingStringSet existing = new OpenAddressingStringSet(16);
+        for (List<String> chunk : chunks(firstUrls)) {
+            importRepo.findExistingSourceUrls(chunk).forEach(existing::add);
+        }
 
-            // ヘッダー解析
-            String[] headers = parseCsvLine(headerLine);
-            int urlIdx = findIndex(headers, "sourceUrl", "url", "source_url");
-            int priceIdx = findIndex(headers, "sourcePriceYen", "price", "source_price_yen");
-            int weightIdx = findIndex(headers, "weightKg", "weight", "weight_kg");
-            int sizeIdx = findIndex(headers, "sizeTier", "size", "size_tier");
-
-            if (urlIdx < 0) {
-                return new PreviewResult(0, 0, List.of("Missing required column: sourceUrl"), List.of());
-            }
-            if (priceIdx < 0) {
-                return new PreviewResult(0, 0, List.of("Missing required column: sourcePriceYen"), List.of());
+        List<String> errors = new ArrayList<>();
+        List<PreviewData> previewData = new ArrayList<>(lines.size());
+        int validRows = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            ParsedLine p = lines.get(i);
+            String errorMsg = p.error();
+            if (errorMsg == null && inFileDuplicate[i]) {
+                errorMsg = "Line " + p.lineNumber() + ": duplicate URL (in file)";
+            } else if (errorMsg == null && existing.contains(p.url())) {
+                errorMsg = "Line " + p.lineNumber() + ": duplicate URL (already exists in DB)";
             }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-
-                if (line.isBlank()) {
-                    continue;
-                }
-
-                totalRows++;
-                String[] values = parseCsvLine(line);
-                String url = getValueSafe(values, urlIdx, "");
-                String priceStr = getValueSafe(values, priceIdx, "");
-                String weightStr = getValueSafe(values, weightIdx, "");
-                String sizeStr = getValueSafe(values, sizeIdx, "");
-
-                String errorMsg = validateRow(lineNumber, url, priceStr, weightStr, sizeStr);
-
-                if (errorMsg != null) {
-                    errors.add(errorMsg);
-                    previewData.add(new PreviewData(lineNumber, url, priceStr, weightStr, sizeStr, false, errorMsg));
-                } else {
-                    validRows++;
-                    previewData.add(new PreviewData(lineNumber, url, priceStr, weightStr, sizeStr, true, null));
-                }
+            if (errorMsg != null) {
+                errors.add(errorMsg);
+                previewData.add(new PreviewData(p.lineNumber(), p.url(), p.priceStr(), p.weightStr(), p.sizeStr(),
+                        false, errorMsg));
+            } else {
+                validRows++;
+                previewData.add(new PreviewData(p.lineNumber(), p.url(), p.priceStr(), p.weightStr(), p.sizeStr(),
+                        true, null));
             }
-
-        } catch (IOException e) {
-            log.error("CSV preview failed", e);
-            errors.add("IO error: " + e.getMessage());
+        }
+        if (fileError != null) {
+            errors.add(fileError);
         }
 
-        log.info("CSV preview completed: {} total, {} valid, {} errors", totalRows, validRows, errors.size());
-        return new PreviewResult(totalRows, validRows, errors, previewData);
+        log.info("CSV preview completed: {} total, {} valid, {} errors", lines.size(), validRows, errors.size());
+        return new PreviewResult(lines.size(), validRows, errors, previewData);
     }
 
     /**
      * 行のバリデーション（エラーメッセージを返す、正常ならnull）
+     * 重複URLの判定は含まない（呼び出し側でまとめて行う）
      */
     private String validateRow(int lineNumber, String url, String priceStr, String weightStr, String sizeStr) {
         // URL必須
@@ -416,11 +623,6 @@ public class CandidateCsvImportService {
             return "Line " + lineNumber + ": sourcePriceYen must be positive";
         }
 
-        // 重複チェック
-        if (candidateRepo.findBySourceUrl(url).isPresent()) {
-            return "Line " + lineNumber + ": duplicate URL (already exists in DB)";
-        }
-
         // 重量（オプション）
         if (weightStr != null && !weightStr.isBlank()) {
             BigDecimal weight = parseBigDecimalStrict(weightStr);
@@ -0,0 +1,92 @@
+package com.example.cbs_mvp.candidate;
+
+/**
+ * 文字列のオープンアドレス法ハッシュセット（線形探索・削除なし）
+ * CSV取込のファイル内重複判定用。行ごとにノードを作らず、キーとハッシュの配列2本だけで保持する。
+ */
+final class OpenAddressingStringSet {
+
+    private static final double MAX_LOAD = 0.5;
+
+    private String[] keys;
+    private int[] hashes;
+    private int mask;
+    private int size;
+
+    OpenAddressingStringSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * @return 追加した場合 true、既に含まれていた場合 false
+     */
+    boolean add(String key) {
+        int h = mix(key.hashCode());
+        int i = h & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && keys[i].equals(key)) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        hashes[i] = h;
+        if (++size > keys.length * MAX_LOAD) {
+            grow();
+        }
+        return true;
+    }
+
+    boolean contains(String key) {
+        int h = mix(key.hashCode());
+        int i = h & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && keys[i].equals(key)) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        allocate(oldKeys.length << 1);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = oldHashes[j] & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                hashes[i] = oldHashes[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int needed = (int) Math.min(1 << 30, Math.max(16L, (long) Math.ceil(expectedSize / MAX_LOAD)));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    /**
+     * String.hashCode の下位ビットの偏りを散らす（線形探索のクラスタ化を避ける）
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+}
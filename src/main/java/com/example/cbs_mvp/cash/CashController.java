@@ -5,7 +5,6 @@ import java.time.Instant;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.UUID;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +15,7 @@ import com.example.cbs_mvp.ops.OpsKeyService;
 import com.example.cbs_mvp.ops.SystemFlagService;
 import com.example.cbs_mvp.service.GateResult;
 import com.example.cbs_mvp.service.StateTransitionService;
+import com.example.cbs_mvp.tracing.CorrelationIds;
 
 @RestController
 @RequestMapping("/cash")
@@ -142,7 +142,7 @@ public class CashController {
     }
 
     private static String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
     }
 
     private static boolean isRatioKey(String key) {
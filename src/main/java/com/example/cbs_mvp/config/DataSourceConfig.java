@@ -0,0 +1,94 @@
+package com.example.cbs_mvp.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerCustomizer;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * DB接続プールを用途別に分ける（OLTP / BATCH / REPORTING、DbWorkload 参照）
+ * 長いバッチや集計がプールを使い切っても、画面・APIは自分のプールから接続を取れる。
+ * - 共通設定は spring.datasource.*（URL・認証）と spring.datasource.hikari.*（ドライバのプロパティなど）
+ * - プールごとの上限・待ち時間は db.pools.{oltp,batch,reporting}.*
+ * - 各プールは個別の Bean なので、Spring Boot が hikaricp.connections.*（acquire = 接続待ち時間、
+ *   pending = 待ちスレッド数、timeout = 待ち切れ）を pool タグ付きで公開する
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public HikariDataSource oltpDataSource(DataSourceProperties props, Environment env) {
+        return pool(props, env, DbWorkload.OLTP, 10, 5_000);
+    }
+
+    @Bean
+    public HikariDataSource batchDataSource(DataSourceProperties props, Environment env) {
+        return pool(props, env, DbWorkload.BATCH, 6, 60_000);
+    }
+
+    @Bean
+    public HikariDataSource reportingDataSource(DataSourceProperties props, Environment env) {
+        return pool(props, env, DbWorkload.REPORTING, 4, 10_000);
+    }
+
+    /**
+     * JPA・JdbcTemplate・Flyway が使う DataSource
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties props, Environment env) {
+        WorkloadRoutingDataSource routing = new WorkloadRoutingDataSource();
+        HikariDataSource oltp = oltpDataSource(props, env);
+        routing.setTargetDataSources(Map.of(
+                DbWorkload.OLTP, oltp,
+                DbWorkload.BATCH, batchDataSource(props, env),
+                DbWorkload.REPORTING, reportingDataSource(props, env)));
+        routing.setDefaultTargetDataSource(oltp);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * @Scheduled の実行は BATCH（プラットフォームスレッドのスケジューラ）
+     */
+    @Bean
+    public ThreadPoolTaskSchedulerCustomizer batchWorkloadScheduler() {
+        return scheduler -> scheduler.setTaskDecorator(DbWorkload::batch);
+    }
+
+    /**
+     * @Scheduled の実行は BATCH（仮想スレッドのスケジューラ）
+     */
+    @Bean
+    public SimpleAsyncTaskSchedulerCustomizer batchWorkloadVirtualScheduler() {
+        return scheduler -> scheduler.setTaskDecorator(DbWorkload::batch);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties props, Environment env, DbWorkload workload,
+            int defaultMaxSize, long defaultTimeoutMs) {
+        String prefix = "db.pools." + workload.key() + ".";
+        HikariDataSource ds = new HikariDataSource();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(ds));
+        ds.setJdbcUrl(props.determineUrl());
+        ds.setUsername(props.determineUsername());
+        ds.setPassword(props.determinePassword());
+        ds.setDriverClassName(props.determineDriverClassName());
+        ds.setPoolName("cbs-" + workload.key());
+        ds.setMaximumPoolSize(env.getProperty(prefix + "maximum-pool-size", Integer.class, defaultMaxSize));
+        ds.setMinimumIdle(env.getProperty(prefix + "minimum-idle", Integer.class, 1));
+        ds.setConnectionTimeout(env.getProperty(prefix + "connection-timeout-ms", Long.class, defaultTimeoutMs));
+        return ds;
+    }
+}
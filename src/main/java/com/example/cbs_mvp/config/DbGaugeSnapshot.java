@@ -0,0 +1,62 @@
+package com.example.cbs_mvp.config;
+
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.cbs_mvp.ops.ReportingService;
+import com.example.cbs_mvp.repo.WebhookInboxRepository;
+
+/**
+ * DB を参照するゲージの値を定期的に読み、メモリ上に保持する。
+ * スクレイプ（GET /metrics）はこの値を返すだけで DB に問い合わせない。
+ * 読み取りに失敗した値は NaN（Prometheus 上は欠損）にする。
+ */
+@Component
+public class DbGaugeSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(DbGaugeSnapshot.class);
+
+    private final WebhookInboxRepository webhookInboxRepo;
+    private final ReportingService reporting;
+
+    private volatile double webhookInboxPending = Double.NaN;
+    private volatile double webhookInboxFailed = Double.NaN;
+    private volatile double openCommitmentsYen = Double.NaN;
+
+    public DbGaugeSnapshot(WebhookInboxRepository webhookInboxRepo, ReportingService reporting) {
+        this.webhookInboxRepo = webhookInboxRepo;
+        this.reporting = reporting;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${metrics.db-gauges.refresh-ms:30000}")
+    public void refresh() {
+        webhookInboxPending = read(() -> webhookInboxRepo.countByStatus("PENDING"));
+        webhookInboxFailed = read(() -> webhookInboxRepo.countByStatus("FAILED"));
+        openCommitmentsYen = read(reporting::openCommitmentsYen);
+    }
+
+    public double webhookInboxPending() {
+        return webhookInboxPending;
+    }
+
+    public double webhookInboxFailed() {
+        return webhookInboxFailed;
+    }
+
+    public double openCommitmentsYen() {
+        return openCommitmentsYen;
+    }
+
+    private static double read(Supplier<? extends Number> value) {
+        try {
+            return value.get().doubleValue();
+        } catch (RuntimeException ex) {
+            log.debug("gauge read failed: {}", ex.getMessage());
+            return Double.NaN;
+        }
+    }
+}
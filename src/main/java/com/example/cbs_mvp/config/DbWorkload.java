@@ -0,0 +1,63 @@
+package com.example.cbs_mvp.config;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * DB接続プールの振り分け先
+ * - OLTP: 画面・APIのリクエスト（既定）
+ * - BATCH: @Scheduled の実行とアプリ独自のワーカースレッド（WorkerThreads）
+ * - REPORTING: 集計・ダッシュボードの読み取り（reporting で囲んだ処理だけ。readOnly のトランザクションでも既定はスレッドの区分）
+ */
+public enum DbWorkload {
+    OLTP, BATCH, REPORTING;
+
+    private static final ThreadLocal<DbWorkload> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 設定キー・プール名に使う小文字の名前（oltp / batch / reporting）
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 現在のスレッドの区分（未設定なら OLTP）
+     */
+    public static DbWorkload current() {
+        DbWorkload w = CURRENT.get();
+        return w == null ? OLTP : w;
+    }
+
+    /**
+     * task を BATCH として実行するラッパー（終了後は元の区分に戻す）
+     */
+    public static Runnable batch(Runnable task) {
+        return () -> with(BATCH, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * query を REPORTING として実行する（終了後は元の区分に戻す）。
+     * 接続は最初の SQL の時点で取るので、トランザクションの内側で囲んでもよい
+     */
+    public static <T> T reporting(Supplier<T> query) {
+        return with(REPORTING, query);
+    }
+
+    private static <T> T with(DbWorkload workload, Supplier<T> body) {
+        DbWorkload previous = CURRENT.get();
+        CURRENT.set(workload);
+        try {
+            return body.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
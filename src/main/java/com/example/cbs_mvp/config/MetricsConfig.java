@@ -0,0 +1,85 @@
+package com.example.cbs_mvp.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.cbs_mvp.security.JwtAuthenticationCache;
+import com.example.cbs_mvp.security.LoginService;
+import com.example.cbs_mvp.security.LoginThrottle;
+import com.example.cbs_mvp.service.TrackingUploadQueue;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+
+/**
+ * Micrometer 設定
+ * - @Observed を有効化（PricingCalculator.calculate、仕入れ先アダプタの取得など）
+ *   1回の観測でタイマー（メトリクス）とスパン（トレース）の両方が記録される
+ * - 認証キャッシュのヒット・ミス・件数
+ * - ログイン照合プールの滞留・流量制限で拒否した回数
+ * - キュー滞留・未払いコミットメントのゲージ（DB を参照するものは DbGaugeSnapshot が定期的に読んだ値を返し、
+ *   スクレイプでは DB に問い合わせない）
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry registry) {
+        return new ObservedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder pipelineGauges(
+            TrackingUploadQueue trackingUploadQueue,
+            DbGaugeSnapshot dbGauges) {
+        return registry -> {
+            Gauge.builder("cbs.tracking.upload.queue.depth", trackingUploadQueue, TrackingUploadQueue::size)
+                    .description("Scheduled eBay tracking uploads (including retries) waiting in memory")
+                    .register(registry);
+            Gauge.builder("cbs.webhook.inbox.depth", dbGauges, DbGaugeSnapshot::webhookInboxPending)
+                    .tag("status", "PENDING")
+                    .description("webhook_inbox rows waiting for processing or retry")
+                    .register(registry);
+            Gauge.builder("cbs.webhook.inbox.depth", dbGauges, DbGaugeSnapshot::webhookInboxFailed)
+                    .tag("status", "FAILED")
+                    .description("webhook_inbox rows that exhausted retries")
+                    .register(registry);
+            Gauge.builder("cbs.cash.open_commitments_yen", dbGauges, DbGaugeSnapshot::openCommitmentsYen)
+                    .description("Open purchase-order commitments (JPY)")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder authCacheMetrics(JwtAuthenticationCache authentications) {
+        return registry -> {
+            FunctionCounter.builder("cbs.auth.token_cache.requests", authentications, JwtAuthenticationCache::hits)
+                    .tag("result", "hit")
+                    .description("Bearer tokens authenticated from the validated-token cache")
+                    .register(registry);
+            FunctionCounter.builder("cbs.auth.token_cache.requests", authentications, JwtAuthenticationCache::misses)
+                    .tag("result", "miss")
+                    .description("Bearer tokens that needed signature verification")
+                    .register(registry);
+            Gauge.builder("cbs.auth.token_cache.size", authentications, JwtAuthenticationCache::size)
+                    .description("Validated tokens held in memory")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder loginMetrics(LoginService loginService, LoginThrottle loginThrottle) {
+        return registry -> {
+            Gauge.builder("cbs.auth.login.pending", loginService, LoginService::pending)
+                    .description("Password checks running or queued on the login executor")
+                    .register(registry);
+            FunctionCounter.builder("cbs.auth.login.throttled", loginThrottle, LoginThrottle::throttledCount)
+                    .description("Login attempts rejected by the per-IP / per-user rate limit")
+                    .register(registry);
+        };
+    }
+}
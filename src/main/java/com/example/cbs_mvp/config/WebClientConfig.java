@@ -6,12 +6,18 @@ import org.springframework.web.reactive.function.client.WebClient;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.observation.ObservationRegistry;
+
 @Configuration
 public class WebClientConfig {
 
+    /**
+     * ObservationRegistry を渡し、eBay・為替などの外部呼び出しを http.client.requests のスパン／タイマーとして記録する
+     * （呼び出し元のトレースに子スパンとしてぶら下がる）
+     */
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder webClientBuilder(ObservationRegistry observationRegistry) {
+        return WebClient.builder().observationRegistry(observationRegistry);
     }
 
     @Bean
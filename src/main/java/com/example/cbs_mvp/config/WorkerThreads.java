@@ -0,0 +1,55 @@
+package com.example.cbs_mvp.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * アプリ独自のワーカースレッドの生成元
+ * spring.threads.virtual.enabled=true のときは仮想スレッド、それ以外はデーモンのプラットフォームスレッドを使う。
+ * （Tomcat・@Scheduled・@Async/非同期MVCの切り替えは Spring Boot 側が同じプロパティで行う）
+ * ワーカースレッドのDB接続は BATCH プールから取る（DbWorkload）。
+ */
+@Component
+public class WorkerThreads {
+
+    private final boolean virtual;
+
+    public WorkerThreads(@Value("${spring.threads.virtual.enabled:false}") boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * スレッド名は "{prefix}-1", "{prefix}-2", ...
+     */
+    public ThreadFactory factory(String prefix) {
+        ThreadFactory base = virtual
+                ? Thread.ofVirtual().name(prefix + "-", 1).factory()
+                : Thread.ofPlatform().name(prefix + "-", 1).daemon(true).factory();
+        return task -> base.newThread(DbWorkload.batch(task));
+    }
+
+    /**
+     * 同時実行数 size の固定プール（仮想スレッドでも同時実行数の上限は維持する）
+     */
+    public ExecutorService fixedPool(String prefix, int size) {
+        return Executors.newFixedThreadPool(size, factory(prefix));
+    }
+
+    /**
+     * 未開始の単独スレッド
+     */
+    public Thread newThread(String name, Runnable task) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name).unstarted(DbWorkload.batch(task));
+        }
+        return Thread.ofPlatform().name(name).daemon(true).unstarted(DbWorkload.batch(task));
+    }
+}
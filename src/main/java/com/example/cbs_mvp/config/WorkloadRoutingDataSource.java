@@ -0,0 +1,18 @@
+package com.example.cbs_mvp.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * 接続を取る時点のスレッドの区分（DbWorkload.current()）でプールを選ぶ。
+ * readOnly のトランザクションも区分どおり（Spring Data の参照メソッドは readOnly なので、
+ * ここで REPORTING に回すとリクエストやバッチの参照が集計用の小さいプールで待たされる）。
+ * REPORTING に回すのは DbWorkload.reporting で囲んだ処理だけ。
+ * LazyConnectionDataSourceProxy で包んで最初のSQLまで接続の取得を遅らせて使う。
+ */
+class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected DbWorkload determineCurrentLookupKey() {
+        return DbWorkload.current();
+    }
+}
@@ -3,7 +3,6 @@ package com.example.cbs_mvp.discovery;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.OffsetDateTime;
-import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +16,9 @@ import com.example.cbs_mvp.ops.SystemFlagService;
 import com.example.cbs_mvp.service.CandidateService;
 import com.example.cbs_mvp.service.DraftService;
 import com.example.cbs_mvp.service.StateTransitionService;
+import com.example.cbs_mvp.tracing.CorrelationIds;
+
+import io.micrometer.observation.annotation.Observed;
 
 /**
  * Discovery → Candidate → Pricing → Gate → Draft の一括処理
@@ -62,6 +64,7 @@ public class DiscoveryDraftOrchestrator {
      * @throws DraftConditionException 条件不足時
      */
     @Transactional
+    @Observed(name = "cbs.discovery.draft", contextualName = "discovery.draft")
     public DraftFromDiscoveryResult createDraft(Long discoveryId, BigDecimal fxRate, BigDecimal targetSellUsd) {
         DiscoveryItem item = discoveryRepo.findById(discoveryId)
                 .orElseThrow(() -> new IllegalArgumentException("DiscoveryItem not found: " + discoveryId));
@@ -173,7 +176,7 @@ public class DiscoveryDraftOrchestrator {
     }
 
     private static String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
     }
 
     private int getMinSafety() {
@@ -14,7 +14,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.example.cbs_mvp.dto.discovery.CsvIngestResultResponse;
+import com.example.cbs_mvp.entity.ImportJob;
+import com.example.cbs_mvp.imports.ImportJobController;
+import com.example.cbs_mvp.imports.ImportJobService;
 import com.example.cbs_mvp.ops.OpsKeyService;
 
 /**
@@ -28,18 +30,19 @@ public class DiscoveryFeedController {
     private static final Logger log = LoggerFactory.getLogger(DiscoveryFeedController.class);
 
     private final OpsKeyService opsKeyService;
-    private final DiscoveryIngestService ingestService;
+    private final ImportJobService importJobs;
 
     public DiscoveryFeedController(
             OpsKeyService opsKeyService,
-            DiscoveryIngestService ingestService) {
+            ImportJobService importJobs) {
         this.opsKeyService = opsKeyService;
-        this.ingestService = ingestService;
+        this.importJobs = importJobs;
     }
 
     /**
      * POST /discovery/feeds/csv
-     * CSVファイルをアップロードしてDiscoveryItemsを一括登録/更新
+     * CSVファイルをアップロードしてDiscoveryItemsを一括登録/更新（非同期の取込ジョブとして登録）
+     * 進捗は GET /imports/{jobId}、行ごとのエラーは GET /imports/{jobId}/errors
      */
     @PostMapping("/csv")
     public ResponseEntity<?> uploadCsv(
@@ -63,16 +66,14 @@ public class DiscoveryFeedController {
         }
 
         try {
-            CsvIngestResultResponse result = ingestService.ingestFromCsv(file.getInputStream());
+            ImportJob job = importJobs.submit(DiscoveryIngestService.JOB_KIND, file.getOriginalFilename(),
+                    file.getInputStream(), false, false);
 
-            log.info("CSV upload complete: inserted={}, updated={}, errors={}",
-                    result.inserted(), result.updated(), result.errors().size());
+            log.info("CSV upload queued: jobId={}, lines={}", job.getJobId(), job.getTotalLines());
 
-            return ResponseEntity.ok(Map.of(
-                    "inserted", result.inserted(),
-                    "updated", result.updated(),
-                    "errors", result.errors(),
-                    "totalProcessed", result.inserted() + result.updated()));
+            Map<String, Object> body = ImportJobController.view(job);
+            body.put("message", "Import queued");
+            return ResponseEntity.accepted().body(body);
 
         } catch (IOException e) {
             log.error("Failed to read CSV file", e);
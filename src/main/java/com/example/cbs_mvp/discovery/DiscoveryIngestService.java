@@ -8,25 +8,36 @@ import java.math.BigDecimal;
 import java.net.URI;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.cbs_mvp.dto.discovery.CsvIngestError;
 import com.example.cbs_mvp.dto.discovery.CsvIngestResultResponse;
 import com.example.cbs_mvp.dto.discovery.DiscoverySeed;
+import com.example.cbs_mvp.entity.ImportJob;
 import com.example.cbs_mvp.fx.FxRateService;
+import com.example.cbs_mvp.imports.ImportChunkProcessor;
 import com.example.cbs_mvp.pricing.PricingCalculator;
+import com.example.cbs_mvp.pricing.PricingPolicy;
 import com.example.cbs_mvp.pricing.PricingRequest;
 import com.example.cbs_mvp.pricing.PricingResponse;
 import com.example.cbs_mvp.service.StateTransitionService;
+import com.example.cbs_mvp.tracing.CorrelationIds;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * Discovery取り込みサービス
@@ -34,7 +45,12 @@ import com.example.cbs_mvp.service.StateTransitionService;
  * - ProfitScore概算計算
  */
 @Service
-public class DiscoveryIngestService {
+public class DiscoveryIngestService implements ImportChunkProcessor {
+
+    /**
+     * import_jobs.kind
+     */
+    public static final String JOB_KIND = "DISCOVERY_CSV";
 
     private static final Logger log = LoggerFactory.getLogger(DiscoveryIngestService.class);
     private static final BigDecimal DEFAULT_FX_RATE = new BigDecimal("150.0");
@@ -45,6 +61,9 @@ public class DiscoveryIngestService {
     private final PricingCalculator pricingCalculator;
     private final FxRateService fxRateService;
     private final StateTransitionService transitions;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate txTemplate;
+    private final UpsertContext perRow = new PerRowContext();
 
     public DiscoveryIngestService(
             DiscoveryItemRepository repository,
@@ -52,13 +71,17 @@ public class DiscoveryIngestService {
             DiscoveryItemValidator validator,
             PricingCalculator pricingCalculator,
             FxRateService fxRateService,
-            StateTransitionService transitions) {
+            StateTransitionService transitions,
+            MeterRegistry meterRegistry,
+            PlatformTransactionManager txManager) {
         this.repository = repository;
         this.scoringService = scoringService;
         this.validator = validator;
         this.pricingCalculator = pricingCalculator;
         this.fxRateService = fxRateService;
         this.transitions = transitions;
+        this.meterRegistry = meterRegistry;
+        this.txTemplate = new TransactionTemplate(txManager);
     }
 
     /**
@@ -81,33 +104,120 @@ public class DiscoveryIngestService {
             String line;
             while ((line = reader.readLine()) != null) {
                 rowNum++;
-                String rawLine = line;
+                Boolean isNew = ingestRow(rowNum, line, errors);
+                if (isNew == null) {
+                    continue;
+                }
+                if (isNew) {
+                    inserted++;
+                } else {
+                    updated++;
+                }
+            }
+        }
 
-                try {
-                    DiscoverySeed seed = parseCsvLine(line);
+        log.info("CSV ingest complete: inserted={}, updated={}, errors={}", inserted, updated, errors.size());
+        return new CsvIngestResultResponse(inserted, updated, errors);
+    }
 
-                    // バリデーション
-                    var validation = validator.validate(seed);
-                    if (!validation.ok()) {
-                        errors.add(new CsvIngestError(rowNum,
-                                String.join("; ", validation.errors()), rawLine));
-                        continue;
-                    }
+    /**
+     * 1行を検証して登録/更新する
+     *
+     * @return true: 新規、false: 更新、null: エラー（errors に追加）
+     */
+    private Boolean ingestRow(int rowNum, String rawLine, List<CsvIngestError> errors) {
+        DiscoverySeed seed = parseRow(rowNum, rawLine, errors);
+        return seed == null ? null : upsertRow(rowNum, rawLine, seed, perRow, errors);
+    }
+
+    /**
+     * @return 検証済みのSeed、null: エラー（errors に追加）
+     */
+    private DiscoverySeed parseRow(int rowNum, String rawLine, List<CsvIngestError> errors) {
+        try {
+            DiscoverySeed seed = parseCsvLine(rawLine);
+
+            // バリデーション
+            var validation = validator.validate(seed);
+            if (!validation.ok()) {
+                errors.add(new CsvIngestError(rowNum,
+                        String.join("; ", validation.errors()), rawLine));
+                return null;
+            }
+            return seed;
+        } catch (Exception e) {
+            errors.add(new CsvIngestError(rowNum, e.getMessage(), rawLine));
+            return null;
+        }
+    }
+
+    private Boolean upsertRow(int rowNum, String rawLine, DiscoverySeed seed, UpsertContext ctx,
+            List<CsvIngestError> errors) {
+        try {
+            return upsert(seed, ctx);
+        } catch (Exception e) {
+            errors.add(new CsvIngestError(rowNum, e.getMessage(), rawLine));
+            return null;
+        }
+    }
+
+    // --- 取込ジョブ（ImportJobService から chunkSize 行ずつ呼ばれる） ---
 
-                    boolean isNew = upsert(seed);
-                    if (isNew) {
-                        inserted++;
-                    } else {
-                        updated++;
+    @Override
+    public String kind() {
+        return JOB_KIND;
+    }
+
+    /**
+     * 列は位置で読むため、ヘッダーの内容は検証しない
+     */
+    @Override
+    public String checkHeader(String headerLine) {
+        return null;
+    }
+
+    /**
+     * チャンクを1トランザクションで登録/更新する（コミットに失敗したチャンクは全行エラー扱い）。
+     * URL で upsert するため、再開時に同じ行をもう一度処理しても重複登録にはならない。
+     * 既存判定と価格パラメータはチャンク分をまとめて読み込む（行ごとに問い合わせると
+     * その都度 flush が走り、INSERT がバッチにまとまらない）。
+     */
+    @Override
+    public ImportChunkProcessor.Result process(ImportJob job, String headerLine, List<ImportChunkProcessor.Line> lines) {
+        List<CsvIngestError> errors = new ArrayList<>();
+        int[] counts = new int[2];
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                List<ParsedRow> rows = new ArrayList<>(lines.size());
+                for (ImportChunkProcessor.Line line : lines) {
+                    DiscoverySeed seed = parseRow(line.lineNumber(), line.text(), errors);
+                    if (seed != null) {
+                        rows.add(new ParsedRow(line.lineNumber(), line.text(), seed));
                     }
-                } catch (Exception e) {
-                    errors.add(new CsvIngestError(rowNum, e.getMessage(), rawLine));
                 }
+                UpsertContext ctx = chunkContext(rows);
+                for (ParsedRow row : rows) {
+                    Boolean isNew = upsertRow(row.rowNum(), row.rawLine(), row.seed(), ctx, errors);
+                    if (isNew != null) {
+                        counts[isNew ? 0 : 1]++;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("CSV ingest chunk failed rows={}", lines.size(), e);
+            errors.clear();
+            counts[0] = 0;
+            counts[1] = 0;
+            for (ImportChunkProcessor.Line line : lines) {
+                errors.add(new CsvIngestError(line.lineNumber(), e.getMessage(), line.text()));
             }
         }
 
-        log.info("CSV ingest complete: inserted={}, updated={}, errors={}", inserted, updated, errors.size());
-        return new CsvIngestResultResponse(inserted, updated, errors);
+        List<ImportChunkProcessor.RowError> rowErrors = errors.stream()
+                .sorted(Comparator.comparingInt(CsvIngestError::row))
+                .map(e -> new ImportChunkProcessor.RowError(e.row(), e.message()))
+                .toList();
+        return new ImportChunkProcessor.Result(counts[0], counts[1], 0, rowErrors);
     }
 
     /**
@@ -116,18 +226,34 @@ public class DiscoveryIngestService {
      * @return true if inserted (new), false if updated (existing)
      */
     public boolean upsert(DiscoverySeed seed) {
+        return upsert(seed, perRow);
+    }
+
+    private boolean upsert(DiscoverySeed seed, UpsertContext ctx) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            boolean isNew = doUpsert(seed, ctx);
+            outcome = isNew ? "inserted" : "updated";
+            return isNew;
+        } finally {
+            sample.stop(meterRegistry.timer("cbs.discovery.upsert", "outcome", outcome));
+        }
+    }
+
+    private boolean doUpsert(DiscoverySeed seed, UpsertContext ctx) {
         // --- URL正規化 ---
         String normalizedUrl = validator.normalizeUrl(seed.sourceUrl());
 
         // --- URL完全一致での重複チェック ---
-        Optional<DiscoveryItem> existingOpt = repository.findBySourceUrl(normalizedUrl);
+        Optional<DiscoveryItem> existingOpt = ctx.findBySourceUrl(normalizedUrl);
 
         // --- URL不一致の場合、タイトル+価格帯で疑似重複判定 ---
         if (existingOpt.isEmpty() && seed.title() != null && !seed.title().isBlank()
                 && seed.priceYen() != null) {
             BigDecimal priceLow = seed.priceYen().multiply(new BigDecimal("0.80"));
             BigDecimal priceHigh = seed.priceYen().multiply(new BigDecimal("1.20"));
-            var titleMatches = repository.findByTitleAndPriceRange(
+            var titleMatches = ctx.findByTitleAndPriceRange(
                     seed.title(), priceLow, priceHigh);
             if (!titleMatches.isEmpty()) {
                 existingOpt = Optional.of(titleMatches.get(0));
@@ -208,7 +334,7 @@ public class DiscoveryIngestService {
         }
 
         // ProfitScore概算計算
-        ProfitEstimate estimate = calculateProfitEstimate(item);
+        ProfitEstimate estimate = ctx.estimate(item);
 
         scoringService.recalculateScores(
                 item,
@@ -229,6 +355,7 @@ public class DiscoveryIngestService {
         }
 
         item = repository.save(item);
+        ctx.saved(item);
 
         if (isNew) {
             transitions.log("DISCOVERY_ITEM", item.getId(), null, "NEW", null, "CSV Ingest", "SYSTEM", cid());
@@ -238,6 +365,13 @@ public class DiscoveryIngestService {
     }
 
     public ProfitEstimate calculateProfitEstimate(DiscoveryItem item) {
+        return calculateProfitEstimate(item, null);
+    }
+
+    /**
+     * @param policy null なら計算のたびに現在のパラメータを読み込む
+     */
+    private ProfitEstimate calculateProfitEstimate(DiscoveryItem item, PricingPolicy policy) {
         try {
             BigDecimal fxRate = DEFAULT_FX_RATE;
             var fxResult = fxRateService.getCurrentRate();
@@ -252,7 +386,9 @@ public class DiscoveryIngestService {
             request.setFxRate(fxRate);
             request.setTargetSellUsd(null);
 
-            PricingResponse response = pricingCalculator.calculate(request);
+            PricingResponse response = policy == null
+                    ? pricingCalculator.calculate(request)
+                    : pricingCalculator.calculate(request, policy);
 
             return new ProfitEstimate(
                     response.getProfitRate(),
@@ -300,7 +436,122 @@ public class DiscoveryIngestService {
     }
 
     private String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
+    }
+
+    /**
+     * 取込チャンク用：URL・タイトルの既存データと価格パラメータをまとめて読み込む
+     */
+    private UpsertContext chunkContext(List<ParsedRow> rows) {
+        Set<String> urls = new HashSet<>();
+        Set<String> titles = new HashSet<>();
+        for (ParsedRow row : rows) {
+            urls.add(validator.normalizeUrl(row.seed().sourceUrl()));
+            if (row.seed().title() != null && !row.seed().title().isBlank()) {
+                titles.add(row.seed().title());
+            }
+        }
+        List<DiscoveryItem> byUrl = urls.isEmpty() ? List.of() : repository.findBySourceUrlIn(urls);
+        List<DiscoveryItem> byTitle = titles.isEmpty() ? List.of() : repository.findActiveByTitleIn(titles);
+
+        PricingPolicy policy = null;
+        try {
+            policy = pricingCalculator.snapshot();
+        } catch (Exception e) {
+            log.warn("Failed to load pricing policy for CSV ingest chunk; falling back to per-row lookup", e);
+        }
+        return new ChunkContext(byUrl, byTitle, policy);
+    }
+
+    private record ParsedRow(int rowNum, String rawLine, DiscoverySeed seed) {
+    }
+
+    /**
+     * upsert の既存判定と利益概算
+     */
+    private interface UpsertContext {
+        Optional<DiscoveryItem> findBySourceUrl(String normalizedUrl);
+
+        List<DiscoveryItem> findByTitleAndPriceRange(String title, BigDecimal priceLow, BigDecimal priceHigh);
+
+        ProfitEstimate estimate(DiscoveryItem item);
+
+        default void saved(DiscoveryItem item) {
+        }
+    }
+
+    /**
+     * 1件ずつの登録：その都度DBを参照する
+     */
+    private final class PerRowContext implements UpsertContext {
+        @Override
+        public Optional<DiscoveryItem> findBySourceUrl(String normalizedUrl) {
+            return repository.findBySourceUrl(normalizedUrl);
+        }
+
+        @Override
+        public List<DiscoveryItem> findByTitleAndPriceRange(String title, BigDecimal priceLow, BigDecimal priceHigh) {
+            return repository.findByTitleAndPriceRange(title, priceLow, priceHigh);
+        }
+
+        @Override
+        public ProfitEstimate estimate(DiscoveryItem item) {
+            return calculateProfitEstimate(item);
+        }
+    }
+
+    /**
+     * 取込チャンク：読み込み済みの既存データに、チャンク内で登録/更新したものを重ねて判定する
+     * （同じチャンクの後ろの行からも、先に登録した行が見える）
+     */
+    private final class ChunkContext implements UpsertContext {
+        private final Map<String, DiscoveryItem> byUrl = new HashMap<>();
+        private final Map<String, List<DiscoveryItem>> byTitle = new HashMap<>();
+        private final PricingPolicy policy;
+
+        ChunkContext(List<DiscoveryItem> existingByUrl, List<DiscoveryItem> existingByTitle, PricingPolicy policy) {
+            for (DiscoveryItem item : existingByUrl) {
+                byUrl.putIfAbsent(item.getSourceUrl(), item);
+            }
+            // updatedAt の新しい順
+            for (DiscoveryItem item : existingByTitle) {
+                byTitle.computeIfAbsent(item.getTitle(), k -> new ArrayList<>()).add(item);
+            }
+            this.policy = policy;
+        }
+
+        @Override
+        public Optional<DiscoveryItem> findBySourceUrl(String normalizedUrl) {
+            return Optional.ofNullable(byUrl.get(normalizedUrl));
+        }
+
+        @Override
+        public List<DiscoveryItem> findByTitleAndPriceRange(String title, BigDecimal priceLow, BigDecimal priceHigh) {
+            return byTitle.getOrDefault(title, List.of()).stream()
+                    .filter(d -> title.equals(d.getTitle()) && !"ARCHIVED".equals(d.getStatus()))
+                    .filter(d -> d.getPriceYen() != null
+                            && d.getPriceYen().compareTo(priceLow) >= 0
+                            && d.getPriceYen().compareTo(priceHigh) <= 0)
+                    .toList();
+        }
+
+        @Override
+        public ProfitEstimate estimate(DiscoveryItem item) {
+            return calculateProfitEstimate(item, policy);
+        }
+
+        /**
+         * 今回更新したものが最新なので先頭に置く
+         */
+        @Override
+        public void saved(DiscoveryItem item) {
+            byUrl.put(item.getSourceUrl(), item);
+            if (item.getTitle() != null) {
+                List<DiscoveryItem> sameTitle = byTitle.computeIfAbsent(item.getTitle(), k -> new ArrayList<>());
+                sameTitle.removeIf(d -> d == item);
+                sameTitle.add(0, item);
+            }
+        }
     }
 
     public record ProfitEstimate(BigDecimal profitRate, boolean gateProfitOk) {
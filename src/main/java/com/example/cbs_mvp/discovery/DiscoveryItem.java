@@ -17,6 +17,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -30,7 +31,8 @@ import lombok.Setter;
 public class DiscoveryItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "discovery_items_id_seq")
+    @SequenceGenerator(name = "discovery_items_id_seq", sequenceName = "discovery_items_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "source_url", nullable = false)
@@ -66,6 +66,22 @@ public interface DiscoveryItemRepository extends JpaRepository<DiscoveryItem, Lo
       @Param("priceLow") java.math.BigDecimal priceLow,
       @Param("priceHigh") java.math.BigDecimal priceHigh);
 
+  /**
+   * 取込チャンクのupsert判定用（URLをまとめて検索）
+   */
+  List<DiscoveryItem> findBySourceUrlIn(java.util.Collection<String> sourceUrls);
+
+  /**
+   * 取込チャンクの疑似重複判定用（タイトルをまとめて検索し、価格帯はアプリ側で絞り込む）
+   */
+  @Query("""
+      SELECT d FROM DiscoveryItem d
+      WHERE d.title IN :titles
+        AND d.status NOT IN ('ARCHIVED')
+      ORDER BY d.updatedAt DESC
+      """)
+  List<DiscoveryItem> findActiveByTitleIn(@Param("titles") java.util.Collection<String> titles);
+
   /**
    * linked_candidate_idで検索
    */
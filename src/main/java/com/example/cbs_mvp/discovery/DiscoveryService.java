@@ -12,9 +12,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.UUID;
 import com.example.cbs_mvp.service.StateTransitionService;
 import com.example.cbs_mvp.dto.discovery.CreateDiscoveryItemRequest;
+import com.example.cbs_mvp.tracing.CorrelationIds;
+
+import io.micrometer.observation.annotation.Observed;
 
 /**
  * Discovery機能のメインサービス
@@ -79,7 +81,7 @@ public class DiscoveryService {
     }
 
     private String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
     }
 
     /**
@@ -103,6 +105,7 @@ public class DiscoveryService {
      * - 価格変動判定
      */
     @Transactional
+    @Observed(name = "cbs.discovery.refresh", contextualName = "refresh")
     public DiscoveryItem refresh(Long id) {
         DiscoveryItem item = repository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("DiscoveryItem not found: " + id));
@@ -3,6 +3,7 @@ package com.example.cbs_mvp.discovery;
 import com.example.cbs_mvp.dto.discovery.DiscoverySeed;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -55,6 +56,7 @@ public class RakutenItemSearchService implements ExternalItemSearchService {
     }
 
     @Override
+    @Observed(name = "cbs.discovery.fetch", lowCardinalityKeyValues = { "source", "RAKUTEN", "mode", "keyword" })
     public List<DiscoverySeed> searchItems(String keyword) {
         if (!isConfigured())
             return List.of();
@@ -73,6 +75,7 @@ public class RakutenItemSearchService implements ExternalItemSearchService {
     }
 
     @Override
+    @Observed(name = "cbs.discovery.fetch", lowCardinalityKeyValues = { "source", "RAKUTEN", "mode", "price_range" })
     public List<DiscoverySeed> searchByPriceRange(int minPrice, int maxPrice) {
         if (!isConfigured())
             return List.of();
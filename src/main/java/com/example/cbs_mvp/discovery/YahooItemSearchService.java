@@ -3,6 +3,7 @@ package com.example.cbs_mvp.discovery;
 import com.example.cbs_mvp.dto.discovery.DiscoverySeed;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -38,6 +39,7 @@ public class YahooItemSearchService implements ExternalItemSearchService {
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
+    @Observed(name = "cbs.discovery.fetch", lowCardinalityKeyValues = { "source", "YAHOO", "mode", "keyword" })
     public List<DiscoverySeed> searchItems(String keyword) {
         if (!isConfigured())
             return List.of();
@@ -52,6 +54,7 @@ public class YahooItemSearchService implements ExternalItemSearchService {
     }
 
     @Override
+    @Observed(name = "cbs.discovery.fetch", lowCardinalityKeyValues = { "source", "YAHOO", "mode", "price_range" })
     public List<DiscoverySeed> searchByPriceRange(int minPrice, int maxPrice) {
         if (!isConfigured())
             return List.of();
@@ -0,0 +1,21 @@
+package com.example.cbs_mvp.ebay;
+
+import java.time.Instant;
+
+/**
+ * 取得済みアクセストークン（不変）。更新時は新しいインスタンスに丸ごと差し替える。
+ *
+ * @param token     アクセストークン
+ * @param scopes    取得時に指定したスコープ（空白区切り）
+ * @param fetchedAt 取得時刻
+ * @param expiresAt 有効期限
+ */
+public record EbayAccessToken(String token, String scopes, Instant fetchedAt, Instant expiresAt) {
+
+    /**
+     * now + marginSeconds の時点でまだ有効か
+     */
+    public boolean isValidFor(Instant now, long marginSeconds) {
+        return token != null && expiresAt != null && now.plusSeconds(marginSeconds).isBefore(expiresAt);
+    }
+}
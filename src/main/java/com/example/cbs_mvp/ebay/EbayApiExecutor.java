@@ -0,0 +1,184 @@
+package com.example.cbs_mvp.ebay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * eBay API 呼び出しの共通実行基盤
+ * - WebClient は1つだけ生成して使い回す
+ * - エンドポイント毎の同時実行数制限（待ちはノンブロッキング）
+ * - リトライはエンドポイント毎に指定する（{@link RetryPolicy}）。ジッタ付き指数バックオフ（Retry-After があればそれに従う）。
+ *   5xx のリトライは冪等な呼び出し（GET・SKU 指定の PUT）のみ。POST は 429（eBay が処理していない）のみ
+ * - エンドポイント別のリクエスト数・レイテンシを {@link EbayApiMetrics} に記録
+ */
+@Component
+public class EbayApiExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(EbayApiExecutor.class);
+
+    private final EbayOAuthService oauthService;
+    private final EbayApiProperties props;
+    private final EbayApiMetrics metrics;
+    private final WebClient webClient;
+    private final Map<String, EndpointLimiter> limiters = new ConcurrentHashMap<>();
+
+    public EbayApiExecutor(
+            EbayOAuthService oauthService,
+            EbayApiProperties props,
+            EbayApiMetrics metrics,
+            WebClient.Builder webClientBuilder) {
+        this.oauthService = oauthService;
+        this.props = props;
+        this.metrics = metrics;
+        this.webClient = webClientBuilder.clone()
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+
+    public WebClient webClient() {
+        return webClient;
+    }
+
+    /**
+     * 失敗時のリトライ方針
+     */
+    public enum RetryPolicy {
+        /** 429/5xx をリトライする。同じリクエストを繰り返しても結果が変わらない呼び出し（GET・SKU 指定の PUT）専用 */
+        IDEMPOTENT,
+        /**
+         * 429 のみリトライする（リクエストは処理されていない）。
+         * 5xx・タイムアウトは eBay 側で受け付け済みの可能性があるため、重複作成を避けてリトライしない
+         */
+        THROTTLED_ONLY,
+        /** リトライしない（呼び出し側が存在確認のうえで再実行する場合） */
+        NONE
+    }
+
+    /**
+     * {@link RetryPolicy#THROTTLED_ONLY} で実行する
+     */
+    public <T> Mono<T> execute(String endpoint, Function<String, Mono<T>> call) {
+        return execute(endpoint, RetryPolicy.THROTTLED_ONLY, call);
+    }
+
+    /**
+     * アクセストークンを取得して call を実行する。
+     *
+     * @param endpoint 同時実行数制限・メトリクスのキー
+     * @param retry    失敗時のリトライ方針
+     * @param call     トークンを受け取りリクエストを組み立てる関数（購読されるまで実行されない）
+     */
+    public <T> Mono<T> execute(String endpoint, RetryPolicy retry, Function<String, Mono<T>> call) {
+        EndpointLimiter limiter = limiters.computeIfAbsent(endpoint,
+                e -> new EndpointLimiter(props.concurrencyFor(e)));
+
+        Mono<T> attempt = limiter.run(() -> {
+            long start = System.nanoTime();
+            return oauthService.accessToken()
+                    .flatMap(call)
+                    .timeout(Duration.ofMillis(props.getTimeoutMs()))
+                    .doOnSuccess(v -> metrics.recordSuccess(endpoint, System.nanoTime() - start))
+                    .doOnError(e -> metrics.recordFailure(endpoint, System.nanoTime() - start, e));
+        });
+
+        if (retry == RetryPolicy.NONE) {
+            return attempt;
+        }
+        return attempt.retryWhen(Retry.from(signals -> signals.concatMap(rs -> {
+            Throwable error = rs.failure();
+            long retries = rs.totalRetries();
+            if (retries >= props.getMaxRetries() || !isRetryable(error, retry)) {
+                return Mono.error(error);
+            }
+            Duration delay = retryDelay(error, retries);
+            metrics.recordRetry(endpoint);
+            log.warn("eBay API retry endpoint={} attempt={} delayMs={} cause={}",
+                    endpoint, retries + 1, delay.toMillis(), error.toString());
+            return Mono.delay(delay);
+        })));
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+        metrics.snapshot().forEach((endpoint, m) -> {
+            Map<String, Object> row = new LinkedHashMap<>(m);
+            EndpointLimiter limiter = limiters.get(endpoint);
+            row.put("maxConcurrency", props.concurrencyFor(endpoint));
+            row.put("inFlight", limiter != null ? limiter.inFlight() : 0);
+            row.put("queued", limiter != null ? limiter.queued() : 0);
+            out.put(endpoint, row);
+        });
+        return out;
+    }
+
+    static boolean isRetryable(Throwable error, RetryPolicy policy) {
+        if (policy == RetryPolicy.NONE || !(error instanceof WebClientResponseException w)) {
+            return false;
+        }
+        int code = w.getStatusCode().value();
+        return code == 429 || (policy == RetryPolicy.IDEMPOTENT && code >= 500);
+    }
+
+    private Duration retryDelay(Throwable error, long retry) {
+        if (error instanceof WebClientResponseException w) {
+            Duration retryAfter = retryAfter(w.getHeaders(), Instant.now());
+            if (retryAfter != null) {
+                return retryAfter.compareTo(Duration.ofMillis(props.getMaxRetryAfterMs())) > 0
+                        ? Duration.ofMillis(props.getMaxRetryAfterMs())
+                        : retryAfter;
+            }
+        }
+        return backoff(retry, props.getInitialBackoffMs(), props.getMaxBackoffMs());
+    }
+
+    /**
+     * 指数バックオフ（上限あり）の 50〜100% の範囲でランダムに待つ
+     */
+    static Duration backoff(long retry, long initialMs, long maxMs) {
+        long exp = initialMs << Math.min(retry, 20);
+        long capped = Math.min(exp <= 0 ? maxMs : exp, maxMs);
+        long half = capped / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(capped - half + 1));
+    }
+
+    /**
+     * Retry-After ヘッダ（秒数 or HTTP-date）を解釈する。なければ null
+     */
+    static Duration retryAfter(HttpHeaders headers, Instant now) {
+        String v = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (v == null || v.isBlank()) {
+            return null;
+        }
+        v = v.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(v)));
+        } catch (NumberFormatException ignore) {
+            // HTTP-date 形式
+        }
+        try {
+            Instant at = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return at.isAfter(now) ? Duration.between(now, at) : Duration.ZERO;
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.cbs_mvp.ebay;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * eBay API 呼び出しのエンドポイント別カウンタ（リクエスト数・エラー数・リトライ数・レイテンシ）
+ * 同じ値を Micrometer にも記録する（ebay.api.requests: endpoint/outcome タグ付きタイマー、ebay.api.retries）。
+ */
+@Component
+public class EbayApiMetrics {
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    public EbayApiMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    void recordSuccess(String endpoint, long latencyNanos) {
+        EndpointStats s = of(endpoint);
+        s.requests.increment();
+        s.latency(latencyNanos);
+        timer(endpoint, "success").record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordFailure(String endpoint, long latencyNanos, Throwable error) {
+        EndpointStats s = of(endpoint);
+        s.requests.increment();
+        s.errors.increment();
+        s.latency(latencyNanos);
+        String outcome = "error";
+        if (error instanceof WebClientResponseException w) {
+            int code = w.getStatusCode().value();
+            if (code == 429) {
+                s.throttled.increment();
+                outcome = "throttled";
+            } else if (code >= 500) {
+                s.serverErrors.increment();
+                outcome = "server_error";
+            } else {
+                outcome = "client_error";
+            }
+        } else if (error instanceof TimeoutException) {
+            outcome = "timeout";
+        }
+        timer(endpoint, outcome).record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordRetry(String endpoint) {
+        of(endpoint).retries.increment();
+        registry.counter("ebay.api.retries", "endpoint", endpoint).increment();
+    }
+
+    private Timer timer(String endpoint, String outcome) {
+        return Timer.builder("ebay.api.requests")
+                .description("eBay API calls (including retries)")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> out = new TreeMap<>();
+        stats.forEach((endpoint, s) -> out.put(endpoint, s.toMap()));
+        return out;
+    }
+
+    private EndpointStats of(String endpoint) {
+        return stats.computeIfAbsent(endpoint, e -> new EndpointStats());
+    }
+
+    private static final class EndpointStats {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder totalLatencyNanos = new LongAdder();
+        final LongAccumulator maxLatencyNanos = new LongAccumulator(Long::max, 0);
+
+        void latency(long nanos) {
+            totalLatencyNanos.add(nanos);
+            maxLatencyNanos.accumulate(nanos);
+        }
+
+        Map<String, Object> toMap() {
+            long n = requests.sum();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("requests", n);
+            m.put("errors", errors.sum());
+            m.put("throttled", throttled.sum());
+            m.put("serverErrors", serverErrors.sum());
+            m.put("retries", retries.sum());
+            m.put("avgLatencyMs", n == 0 ? 0.0 : totalLatencyNanos.sum() / (double) n / 1_000_000.0);
+            m.put("maxLatencyMs", maxLatencyNanos.get() / 1_000_000.0);
+            return m;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.cbs_mvp.ebay;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * eBay API 呼び出しの同時実行数・リトライ設定
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ebay.api")
+public class EbayApiProperties {
+
+    /** エンドポイント毎の同時実行数（個別指定がない場合） */
+    private int maxConcurrency = 8;
+
+    /** エンドポイント毎の同時実行数の上書き（キーは EbayApiExecutor のエンドポイント名） */
+    private Map<String, Integer> endpointConcurrency = new HashMap<>();
+
+    /** 最大リトライ回数（どの失敗をリトライするかは EbayApiExecutor.RetryPolicy による） */
+    private int maxRetries = 3;
+
+    private long initialBackoffMs = 500;
+    private long maxBackoffMs = 10_000;
+
+    /** Retry-After ヘッダの上限（これを超える値は切り詰める） */
+    private long maxRetryAfterMs = 60_000;
+
+    /** 1リクエストのタイムアウト */
+    private long timeoutMs = 30_000;
+
+    public int concurrencyFor(String endpoint) {
+        Integer v = endpointConcurrency.get(endpoint);
+        return Math.max(1, v != null ? v : maxConcurrency);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.cbs_mvp.ebay;
+
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/ebay/api")
+public class EbayApiStatsController {
+
+    private final EbayApiExecutor api;
+
+    public EbayApiStatsController(EbayApiExecutor api) {
+        this.api = api;
+    }
+
+    /**
+     * エンドポイント別のリクエスト数・エラー数・リトライ数・レイテンシ・同時実行数
+     */
+    @GetMapping("/stats")
+    public Map<String, Map<String, Object>> stats() {
+        return api.stats();
+    }
+}
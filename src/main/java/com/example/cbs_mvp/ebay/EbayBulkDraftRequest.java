@@ -0,0 +1,22 @@
+package com.example.cbs_mvp.ebay;
+
+import java.util.Map;
+
+/**
+ * 一括Draft作成の1件分（inventory_item + offer）
+ *
+ * @param sku              SKU
+ * @param inventoryPayload inventory_item 用ペイロード
+ * @param offerPayload     offer 用ペイロード
+ * @param existingOfferId  既存のofferId（あれば offer は作成しない）
+ */
+public record EbayBulkDraftRequest(
+        String sku,
+        Map<String, Object> inventoryPayload,
+        Map<String, Object> offerPayload,
+        String existingOfferId) {
+
+    public boolean needsOffer() {
+        return existingOfferId == null || existingOfferId.isBlank();
+    }
+}
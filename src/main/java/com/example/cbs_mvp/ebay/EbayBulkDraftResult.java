@@ -0,0 +1,26 @@
+package com.example.cbs_mvp.ebay;
+
+/**
+ * 一括Draft作成の1件分の結果
+ *
+ * @param sku        SKU
+ * @param success    inventory_item と offer の両方が成功したか
+ * @param offerId    offerId（既存 or 新規）
+ * @param error      失敗時のエラーメッセージ
+ * @param offerError offer 作成段階での失敗か（EbayClientException#isOfferError と同義）
+ */
+public record EbayBulkDraftResult(
+        String sku,
+        boolean success,
+        String offerId,
+        String error,
+        boolean offerError) {
+
+    public static EbayBulkDraftResult ok(String sku, String offerId) {
+        return new EbayBulkDraftResult(sku, true, offerId, null, false);
+    }
+
+    public static EbayBulkDraftResult failed(String sku, String offerId, String error, boolean offerError) {
+        return new EbayBulkDraftResult(sku, false, offerId, error, offerError);
+    }
+}
@@ -1,9 +1,47 @@
 package com.example.cbs_mvp.ebay;
 
+import java.util.List;
 import java.util.Map;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 public interface EbayClient {
+    /**
+     * eBay Inventory API の bulk 系エンドポイントが1回で受け付ける最大件数
+     */
+    int BULK_MAX_ITEMS = 25;
+
     void putInventoryItem(String sku, Map<String, Object> payload);
     String createOffer(String sku, Map<String, Object> payload);
     boolean checkOfferExists(String offerId);
+
+    /**
+     * bulkCreateOrReplaceInventoryItem + bulkCreateOffer で最大 {@link #BULK_MAX_ITEMS} 件を一括作成。
+     * 1件の失敗で全体を失敗にはせず、リクエストと同じ順序で1件ずつ結果を返す。
+     */
+    List<EbayBulkDraftResult> bulkCreateDrafts(List<EbayBulkDraftRequest> requests);
+
+    // ---- ノンブロッキング版 ----
+    // デフォルト実装は同期版を boundedElastic 上で呼ぶだけ。RealEbayClient は WebClient で直接実装する。
+
+    default Mono<Void> putInventoryItemAsync(String sku, Map<String, Object> payload) {
+        return Mono.<Void>fromRunnable(() -> putInventoryItem(sku, payload))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    default Mono<String> createOfferAsync(String sku, Map<String, Object> payload) {
+        return Mono.fromCallable(() -> createOffer(sku, payload))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    default Mono<Boolean> checkOfferExistsAsync(String offerId) {
+        return Mono.fromCallable(() -> checkOfferExists(offerId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    default Mono<List<EbayBulkDraftResult>> bulkCreateDraftsAsync(List<EbayBulkDraftRequest> requests) {
+        return Mono.fromCallable(() -> bulkCreateDrafts(requests))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
 }
@@ -1,69 +1,216 @@
 package com.example.cbs_mvp.ebay;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
 
+/**
+ * eBay OAuth（client_credentials）トークン管理
+ * - スコープ毎にトークンを保持し、不変の {@link EbayAccessToken} を volatile 参照で公開する
+ * - 期限の REFRESH_AHEAD_SECONDS 前からバックグラウンドで先行リフレッシュするため、
+ *   通常時のリクエストはトークン取得を待たない
+ * - リフレッシュは single-flight：同時に期限切れを検知しても取得リクエストは1本だけ飛び、
+ *   他の呼び出し元は同じ Future を待つ
+ * - 取得リクエストは ebay.oauth.timeout-ms で打ち切る（応答が来ないと待っている呼び出し元がすべて止まるため）。
+ *   失敗・タイムアウトの後は進行中の Future を外すので、次の呼び出しで取り直す
+ */
 @Service
-@RequiredArgsConstructor
 public class EbayOAuthService {
 
     private static final Logger log = LoggerFactory.getLogger(EbayOAuthService.class);
-    private static final long TOKEN_REFRESH_BUFFER_SECONDS = 300; // 5分前にリフレッシュ
+    private static final long TOKEN_REFRESH_BUFFER_SECONDS = 300; // 期限5分前以降は使わない（同期で取り直す）
+    private static final long REFRESH_AHEAD_SECONDS = 900; // 期限15分前からバックグラウンドで取り直す
+
+    /** Inventory / Fulfillment API 用の既定スコープ */
+    public static final String DEFAULT_SCOPES = "https://api.ebay.com/oauth/api_scope "
+            + "https://api.ebay.com/oauth/api_scope/sell.inventory "
+            + "https://api.ebay.com/oauth/api_scope/sell.fulfillment";
 
     private final EbayOAuthConfig config;
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient webClient;
+    private final Clock clock;
+    private final Duration timeout;
+
+    private final Map<String, TokenSlot> slots = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EbayOAuthService(
+            EbayOAuthConfig config,
+            WebClient.Builder webClientBuilder,
+            @Value("${ebay.oauth.timeout-ms:10000}") long timeoutMs) {
+        this(config, webClientBuilder, Clock.systemUTC(), timeoutMs);
+    }
 
-    private String cachedAccessToken;
-    private Instant tokenExpiresAt;
-    private final ReentrantLock tokenLock = new ReentrantLock();
+    EbayOAuthService(EbayOAuthConfig config, WebClient.Builder webClientBuilder, Clock clock) {
+        this(config, webClientBuilder, clock, 10_000);
+    }
+
+    EbayOAuthService(EbayOAuthConfig config, WebClient.Builder webClientBuilder, Clock clock, long timeoutMs) {
+        this.config = config;
+        this.webClient = webClientBuilder.clone().build();
+        this.clock = clock;
+        this.timeout = Duration.ofMillis(Math.max(1, timeoutMs));
+    }
 
     /**
-     * 有効なアクセストークンを取得する。
-     * キャッシュがあり有効期限内ならそれを返す。
-     * 期限切れ or なければ新規取得。
+     * 有効なアクセストークンを取得する（既定スコープ）。
+     * 有効期限内のトークンがあればそれを返す。なければ取得完了まで待つ。
      */
     public String getAccessToken() {
-        tokenLock.lock();
-        try {
-            if (cachedAccessToken != null && tokenExpiresAt != null) {
-                if (Instant.now().plusSeconds(TOKEN_REFRESH_BUFFER_SECONDS).isBefore(tokenExpiresAt)) {
-                    return cachedAccessToken;
-                }
-            }
-            return refreshToken();
-        } finally {
-            tokenLock.unlock();
+        return getAccessToken(DEFAULT_SCOPES);
+    }
+
+    public String getAccessToken(String scopes) {
+        return join(tokenFuture(slot(scopes))).token();
+    }
+
+    /**
+     * ノンブロッキング版（既定スコープ）。
+     */
+    public Mono<String> accessToken() {
+        return accessToken(DEFAULT_SCOPES);
+    }
+
+    public Mono<String> accessToken(String scopes) {
+        TokenSlot slot = slot(scopes);
+        EbayAccessToken current = usable(slot);
+        if (current != null) {
+            return Mono.just(current.token());
         }
+        // 共有の Future なので、購読キャンセルで他の待ち手の取得を止めない
+        return Mono.fromFuture(() -> tokenFuture(slot), true).map(EbayAccessToken::token);
     }
 
     /**
-     * トークンを強制リフレッシュ。
+     * トークンを強制リフレッシュ（既定スコープ）。
+     * 進行中のリフレッシュがあればそれに合流する。
      */
     public String refreshToken() {
-        tokenLock.lock();
-        try {
+        return join(refresh(slot(DEFAULT_SCOPES))).token();
+    }
+
+    /**
+     * 期限が近いトークンを先行してリフレッシュする。
+     * 一度でも使われたスコープのみ対象（スタブ環境では何もしない）。
+     */
+    @Scheduled(fixedDelayString = "${ebay.oauth.refresh-check-ms:60000}")
+    public void refreshAhead() {
+        Instant now = clock.instant();
+        for (TokenSlot slot : slots.values()) {
+            EbayAccessToken current = slot.current;
+            if (current == null || !current.isValidFor(now, REFRESH_AHEAD_SECONDS)) {
+                refresh(slot).exceptionally(ex -> {
+                    log.warn("Background eBay OAuth refresh failed scopes={}: {}", slot.scopes, ex.getMessage());
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * 現在のトークン状態を確認（デバッグ用）
+     */
+    public Map<String, Object> getTokenStatus() {
+        EbayAccessToken current = slots.containsKey(DEFAULT_SCOPES) ? slots.get(DEFAULT_SCOPES).current : null;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("hasToken", current != null);
+        status.put("expiresAt", current != null ? current.expiresAt().toString() : "none");
+        status.put("isValid", current != null && current.isValidFor(clock.instant(), TOKEN_REFRESH_BUFFER_SECONDS));
+        status.put("scopes", slots.size());
+        return status;
+    }
+
+    private TokenSlot slot(String scopes) {
+        String key = scopes == null || scopes.isBlank() ? DEFAULT_SCOPES : scopes.trim();
+        return slots.computeIfAbsent(key, TokenSlot::new);
+    }
+
+    private EbayAccessToken usable(TokenSlot slot) {
+        EbayAccessToken current = slot.current;
+        Instant now = clock.instant();
+        if (current == null || !current.isValidFor(now, TOKEN_REFRESH_BUFFER_SECONDS)) {
+            return null;
+        }
+        if (!current.isValidFor(now, REFRESH_AHEAD_SECONDS)) {
+            // まだ使えるが期限が近い：呼び出し元は待たせず裏で取り直す
+            refresh(slot);
+        }
+        return current;
+    }
+
+    private CompletableFuture<EbayAccessToken> tokenFuture(TokenSlot slot) {
+        EbayAccessToken current = usable(slot);
+        return current != null ? CompletableFuture.completedFuture(current) : refresh(slot);
+    }
+
+    /**
+     * single-flight リフレッシュ。進行中のものがあればその Future を返す。
+     */
+    private CompletableFuture<EbayAccessToken> refresh(TokenSlot slot) {
+        while (true) {
+            CompletableFuture<EbayAccessToken> inFlight = slot.inFlight.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            CompletableFuture<EbayAccessToken> mine = new CompletableFuture<>();
+            if (slot.inFlight.compareAndSet(null, mine)) {
+                start(slot, mine);
+                return mine;
+            }
+        }
+    }
+
+    private void start(TokenSlot slot, CompletableFuture<EbayAccessToken> future) {
+        fetchToken(slot.scopes).subscribe(
+                token -> {
+                    slot.current = token;
+                    slot.inFlight.set(null);
+                    log.info("eBay OAuth token refreshed. Expires at: {}", token.expiresAt());
+                    future.complete(token);
+                },
+                ex -> {
+                    slot.inFlight.set(null);
+                    log.error("Failed to refresh eBay OAuth token", ex);
+                    future.completeExceptionally(ex instanceof EbayClientException
+                            ? ex
+                            : new EbayClientException("OAuth token refresh failed: " + ex.getMessage(), false));
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<EbayAccessToken> fetchToken(String scopes) {
+        return Mono.defer(() -> {
             log.info("Refreshing eBay OAuth token...");
 
             if (config.getClientId() == null || config.getClientId().isBlank()) {
-                throw new EbayClientException("eBay clientId is not configured", false);
+                return Mono.error(new EbayClientException("eBay clientId is not configured", false));
             }
             if (config.getClientSecret() == null || config.getClientSecret().isBlank()) {
-                throw new EbayClientException("eBay clientSecret is not configured", false);
+                return Mono.error(new EbayClientException("eBay clientSecret is not configured", false));
             }
 
             String credentials = config.getClientId() + ":" + config.getClientSecret();
@@ -72,55 +219,51 @@ public class EbayOAuthService {
 
             MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
             formData.add("grant_type", "client_credentials");
-            formData.add("scope", "https://api.ebay.com/oauth/api_scope "
-                    + "https://api.ebay.com/oauth/api_scope/sell.inventory "
-                    + "https://api.ebay.com/oauth/api_scope/sell.fulfillment");
-
-            WebClient client = webClientBuilder.build();
+            formData.add("scope", scopes);
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = client.post()
+            return webClient.post()
                     .uri(config.getTokenEndpoint())
                     .header(HttpHeaders.AUTHORIZATION, "Basic " + encodedCredentials)
                     .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                     .body(BodyInserters.fromFormData(formData))
                     .retrieve()
                     .bodyToMono(Map.class)
-                    .block();
+                    .switchIfEmpty(Mono.error(() -> new EbayClientException(
+                            "Failed to obtain eBay OAuth token: empty response", false)))
+                    .map(response -> {
+                        if (!response.containsKey("access_token")) {
+                            throw new EbayClientException("Failed to obtain eBay OAuth token: empty response", false);
+                        }
+                        Object expiresIn = response.getOrDefault("expires_in", 7200);
+                        long seconds = expiresIn instanceof Number n ? n.longValue() : 7200;
+                        Instant now = clock.instant();
+                        return new EbayAccessToken((String) response.get("access_token"), scopes, now,
+                                now.plusSeconds(seconds));
+                    })
+                    .timeout(timeout)
+                    .onErrorMap(TimeoutException.class, ex -> new EbayClientException(
+                            "eBay OAuth token request timed out after " + timeout.toMillis() + "ms", false));
+        });
+    }
 
-            if (response == null || !response.containsKey("access_token")) {
-                throw new EbayClientException("Failed to obtain eBay OAuth token: empty response", false);
+    private static EbayAccessToken join(CompletableFuture<EbayAccessToken> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
             }
-
-            cachedAccessToken = (String) response.get("access_token");
-            int expiresIn = (Integer) response.getOrDefault("expires_in", 7200);
-            tokenExpiresAt = Instant.now().plusSeconds(expiresIn);
-
-            log.info("eBay OAuth token refreshed. Expires at: {}", tokenExpiresAt);
-            return cachedAccessToken;
-
-        } catch (EbayClientException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Failed to refresh eBay OAuth token", e);
-            throw new EbayClientException("OAuth token refresh failed: " + e.getMessage(), false);
-        } finally {
-            tokenLock.unlock();
+            throw ex;
         }
     }
 
-    /**
-     * 現在のトークン状態を確認（デバッグ用）
-     */
-    public Map<String, Object> getTokenStatus() {
-        return Map.of(
-                "hasToken", cachedAccessToken != null,
-                "expiresAt", tokenExpiresAt != null ? tokenExpiresAt.toString() : "none",
-                "isValid", isTokenValid());
-    }
+    private static final class TokenSlot {
+        final String scopes;
+        volatile EbayAccessToken current;
+        final AtomicReference<CompletableFuture<EbayAccessToken>> inFlight = new AtomicReference<>();
 
-    private boolean isTokenValid() {
-        return cachedAccessToken != null && tokenExpiresAt != null
-                && Instant.now().plusSeconds(TOKEN_REFRESH_BUFFER_SECONDS).isBefore(tokenExpiresAt);
+        TokenSlot(String scopes) {
+            this.scopes = scopes;
+        }
     }
 }
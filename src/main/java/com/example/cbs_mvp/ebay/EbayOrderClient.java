@@ -1,9 +1,45 @@
 package com.example.cbs_mvp.ebay;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 public interface EbayOrderClient {
     void uploadTracking(String ebayOrderKey, String carrier, String tracking);
 
     boolean checkTrackingUploaded(String ebayOrderKey);
 
     java.util.Map<String, Object> getOrder(String ebayOrderKey);
+
+    // ---- ノンブロッキング版 ----
+    // デフォルト実装は同期版を boundedElastic 上で呼ぶだけ。RealEbayOrderClient は WebClient で直接実装する。
+
+    default Mono<Void> uploadTrackingAsync(String ebayOrderKey, String carrier, String tracking) {
+        return Mono.<Void>fromRunnable(() -> uploadTracking(ebayOrderKey, carrier, tracking))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    default Mono<Boolean> checkTrackingUploadedAsync(String ebayOrderKey) {
+        return Mono.fromCallable(() -> checkTrackingUploaded(ebayOrderKey))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    default Mono<java.util.Map<String, Object>> getOrderAsync(String ebayOrderKey) {
+        return Mono.fromCallable(() -> getOrder(ebayOrderKey))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 複数注文の詳細をまとめて取得する。結果は orderId → 注文詳細。
+     * 取得できなかった注文は結果に含めない（呼び出し側でリトライ扱いにする）。
+     * デフォルト実装は1件ずつ並行に取得する。
+     */
+    default Mono<java.util.Map<String, java.util.Map<String, Object>>> getOrdersAsync(
+            java.util.Collection<String> ebayOrderKeys) {
+        return Flux.fromIterable(ebayOrderKeys)
+                .flatMap(key -> getOrderAsync(key)
+                        .map(order -> java.util.Map.entry(key, order))
+                        .onErrorResume(e -> Mono.empty()), 8)
+                .collectMap(java.util.Map.Entry::getKey, java.util.Map.Entry::getValue);
+    }
 }
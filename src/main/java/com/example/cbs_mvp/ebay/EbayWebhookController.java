@@ -1,26 +1,23 @@
 package com.example.cbs_mvp.ebay;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.example.cbs_mvp.entity.EbayDraft;
-import com.example.cbs_mvp.repo.EbayDraftRepository;
-import com.example.cbs_mvp.repo.OrderRepository;
-import com.example.cbs_mvp.fx.FxRateService;
-import com.example.cbs_mvp.service.OrderImportService;
-import com.example.cbs_mvp.service.OrderImportService.SoldImportCommand;
+import com.example.cbs_mvp.service.WebhookInboxService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 
@@ -30,33 +27,24 @@ public class EbayWebhookController {
 
     private static final Logger log = LoggerFactory.getLogger(EbayWebhookController.class);
 
-    private final EbayOrderClient ebayOrderClient;
-    private final OrderRepository orderRepository;
-    private final EbayDraftRepository draftRepository;
-    private final OrderImportService orderImportService;
-    private final FxRateService fxRateService;
+    private final WebhookInboxService webhookInbox;
     private final WebhookSignatureVerifier signatureVerifier;
     private final ObjectMapper objectMapper;
 
+    // カンマ区切りで複数指定可（キーローテーション中は新旧両方を有効にする）
     @Value("${EBAY_WEBHOOK_SECRET:}")
     private String webhookSecret;
 
+    private volatile SecretList secretList = new SecretList(null, List.of());
+
     @Value("${spring.profiles.active:stub}")
     private String activeProfile;
 
     public EbayWebhookController(
-            EbayOrderClient ebayOrderClient,
-            OrderRepository orderRepository,
-            EbayDraftRepository draftRepository,
-            OrderImportService orderImportService,
-            FxRateService fxRateService,
+            WebhookInboxService webhookInbox,
             WebhookSignatureVerifier signatureVerifier,
             ObjectMapper objectMapper) {
-        this.ebayOrderClient = ebayOrderClient;
-        this.orderRepository = orderRepository;
-        this.draftRepository = draftRepository;
-        this.orderImportService = orderImportService;
-        this.fxRateService = fxRateService;
+        this.webhookInbox = webhookInbox;
         this.signatureVerifier = signatureVerifier;
         this.objectMapper = objectMapper;
     }
@@ -64,10 +52,11 @@ public class EbayWebhookController {
     @PostMapping
     public ResponseEntity<?> receiveWebhook(
             @RequestHeader(value = "X-Ebay-Signature", required = false) String signature,
-            @RequestBody String rawBody) {
+            @RequestBody byte[] rawBody) {
 
         // 1. 署名検証
-        boolean isSecretConfigured = webhookSecret != null && !webhookSecret.isBlank();
+        List<String> secrets = secrets();
+        boolean isSecretConfigured = !secrets.isEmpty();
         boolean isProd = "real".equalsIgnoreCase(activeProfile) || "prod".equalsIgnoreCase(activeProfile);
 
         if (!isSecretConfigured) {
@@ -81,7 +70,7 @@ public class EbayWebhookController {
                 log.warn("Webhook署名ヘッダーがありません。リクエストを拒否します。");
                 return ResponseEntity.status(401).body("missing signature");
             }
-            if (!signatureVerifier.verify(rawBody, signature, webhookSecret)) {
+            if (!signatureVerifier.verifyAny(rawBody, signature, secrets)) {
                 log.warn("Webhook署名が不正です。リクエストを拒否します。");
                 return ResponseEntity.status(401).body("invalid signature");
             }
@@ -111,59 +100,41 @@ public class EbayWebhookController {
 
         log.info("Webhook received for orderId={}", orderId);
 
-        // 3. 冪等性チェック
-        if (orderRepository.findByEbayOrderKey(orderId).isPresent()) {
-            log.info("Order {} already exists. Skipping.", orderId);
-            return ResponseEntity.ok().build();
-        }
-
-        // 4. 詳細取得
-        Map<String, Object> orderDetails;
+        // 3. キューに保存して即応答（詳細取得・取込は WebhookInboxWorker が非同期で実施）
         try {
-            orderDetails = ebayOrderClient.getOrder(orderId);
+            webhookInbox.enqueue(orderId, new String(rawBody, StandardCharsets.UTF_8));
         } catch (Exception e) {
-            log.error("Failed to fetch order details for {}", orderId, e);
+            log.error("Failed to enqueue webhook for orderId={}", orderId, e);
             return ResponseEntity.internalServerError().build(); // 500 (Retryable)
         }
 
-        // 5. SKU抽出 & Draft特定
-        String sku = extractSku(orderDetails);
-        if (sku == null) {
-            log.error("SKU not found in order details for {}", orderId);
-            // 処理不能だが、Webhookとしては受信完了とする（リトライさせない）
-            return ResponseEntity.ok().build();
-        }
-
-        Optional<EbayDraft> draftOpt = draftRepository.findBySku(sku);
-        if (draftOpt.isEmpty()) {
-            log.warn("Draft not found for SKU: {} (Order: {})", sku, orderId);
-            // 要件B: 200で受理して監視ログに残す
-            return ResponseEntity.ok().build();
-        }
-        EbayDraft draft = draftOpt.get();
-
-        // 6. Import Sold
-        BigDecimal fxRate = BigDecimal.valueOf(150.0);
-        var rateResult = fxRateService.getCurrentRate();
-        if (rateResult.isSuccess() && rateResult.rate() != null) {
-            fxRate = rateResult.rate();
-        }
+        return ResponseEntity.ok().build();
+    }
 
-        BigDecimal soldPrice = extractSoldPrice(orderDetails);
+    /**
+     * 受信キューの滞留件数と重複判定フィルタのヒット率
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return webhookInbox.stats();
+    }
 
-        try {
-            orderImportService.importSold(new SoldImportCommand(
-                    orderId,
-                    draft.getDraftId(),
-                    soldPrice,
-                    fxRate));
-            log.info("Order imported successfully: {}", orderId);
-        } catch (Exception e) {
-            log.error("Failed to import order {}", orderId, e);
-            return ResponseEntity.internalServerError().build();
+    private List<String> secrets() {
+        SecretList cached = secretList;
+        if (!Objects.equals(cached.raw(), webhookSecret)) {
+            List<String> parsed = webhookSecret == null
+                    ? List.of()
+                    : Arrays.stream(webhookSecret.split(","))
+                            .map(String::trim)
+                            .filter(v -> !v.isEmpty())
+                            .toList();
+            cached = new SecretList(webhookSecret, parsed);
+            secretList = cached;
         }
+        return cached.secrets();
+    }
 
-        return ResponseEntity.ok().build();
+    private record SecretList(String raw, List<String> secrets) {
     }
 
     @SuppressWarnings("unchecked")
@@ -183,33 +154,4 @@ public class EbayWebhookController {
         }
         return null;
     }
-
-    @SuppressWarnings("unchecked")
-    private String extractSku(Map<String, Object> orderDetails) {
-        // lineItems -> [0] -> sku
-        if (orderDetails.containsKey("lineItems")) {
-            List<Map<String, Object>> items = (List<Map<String, Object>>) orderDetails.get("lineItems");
-            if (items != null && !items.isEmpty()) {
-                Map<String, Object> firstItem = items.get(0);
-                return (String) firstItem.get("sku");
-            }
-        }
-        return null;
-    }
-
-    @SuppressWarnings("unchecked")
-    private BigDecimal extractSoldPrice(Map<String, Object> orderDetails) {
-        // pricingSummary -> total -> value
-        if (orderDetails.containsKey("pricingSummary")) {
-            Map<String, Object> pricing = (Map<String, Object>) orderDetails.get("pricingSummary");
-            if (pricing != null && pricing.containsKey("total")) {
-                Map<String, Object> total = (Map<String, Object>) pricing.get("total");
-                if (total != null && total.containsKey("value")) {
-                    return new BigDecimal((String) total.get("value"));
-                }
-            }
-        }
-        // Fallback: lineItems sum?
-        return BigDecimal.ZERO;
-    }
 }
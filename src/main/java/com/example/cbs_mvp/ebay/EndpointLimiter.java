@@ -0,0 +1,93 @@
+package com.example.cbs_mvp.ebay;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * ノンブロッキングな同時実行数制限。
+ * 空きがなければスレッドを止めずに待ち行列に積み、解放時に次の購読者を起こす。
+ */
+final class EndpointLimiter {
+
+    private final int permits;
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private int inFlight;
+
+    EndpointLimiter(int permits) {
+        this.permits = Math.max(1, permits);
+    }
+
+    <T> Mono<T> run(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            AtomicReference<Waiter> ref = new AtomicReference<>();
+            return Mono.<Void>create(sink -> {
+                Waiter w = new Waiter(sink);
+                ref.set(w);
+                sink.onCancel(() -> cancel(w));
+                if (acquire(w)) {
+                    sink.success();
+                }
+            })
+                    .then(Mono.defer(call))
+                    .doFinally(sig -> releaseIfGranted(ref.get()));
+        });
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued() {
+        return waiters.size();
+    }
+
+    private synchronized boolean acquire(Waiter w) {
+        if (inFlight < permits) {
+            inFlight++;
+            w.granted = true;
+            return true;
+        }
+        waiters.add(w);
+        return false;
+    }
+
+    private synchronized void cancel(Waiter w) {
+        if (!w.granted) {
+            waiters.remove(w);
+        }
+    }
+
+    private void releaseIfGranted(Waiter w) {
+        Waiter next;
+        synchronized (this) {
+            if (w == null || !w.granted || w.released) {
+                return;
+            }
+            w.released = true;
+            // 許可を次の待ち手に直接引き継ぐ（inFlight は変わらない）
+            next = waiters.poll();
+            if (next != null) {
+                next.granted = true;
+            } else {
+                inFlight--;
+            }
+        }
+        if (next != null) {
+            next.sink.success();
+        }
+    }
+
+    private static final class Waiter {
+        final MonoSink<Void> sink;
+        boolean granted;
+        boolean released;
+
+        Waiter(MonoSink<Void> sink) {
+            this.sink = sink;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.cbs_mvp.ebay;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -9,10 +13,12 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import com.example.cbs_mvp.ebay.EbayApiExecutor.RetryPolicy;
+
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
 
 @Component
 @Profile("real")
@@ -22,121 +28,284 @@ public class RealEbayClient implements EbayClient {
     private static final Logger log = LoggerFactory.getLogger(RealEbayClient.class);
 
     private final EbayOAuthConfig config;
-    private final EbayOAuthService oauthService;
-    private final WebClient.Builder webClientBuilder;
+    private final EbayApiExecutor api;
+
+    // ---- 同期版（既存の呼び出し元向け。中身はノンブロッキング版を待つだけ） ----
 
     @Override
     public void putInventoryItem(String sku, Map<String, Object> payload) {
-        log.info("PUT inventory_item sku={}", sku);
+        putInventoryItemAsync(sku, payload).block();
+    }
+
+    @Override
+    public String createOffer(String sku, Map<String, Object> payload) {
+        return createOfferAsync(sku, payload).block();
+    }
+
+    @Override
+    public boolean checkOfferExists(String offerId) {
+        return Boolean.TRUE.equals(checkOfferExistsAsync(offerId).block());
+    }
+
+    @Override
+    public List<EbayBulkDraftResult> bulkCreateDrafts(List<EbayBulkDraftRequest> requests) {
+        return bulkCreateDraftsAsync(requests).block();
+    }
 
+    // ---- ノンブロッキング版 ----
+
+    @Override
+    public Mono<Void> putInventoryItemAsync(String sku, Map<String, Object> payload) {
         String url = config.getApiBase() + "/sell/inventory/v1/inventory_item/" + sku;
 
-        try {
-            webClient()
+        return api.execute("inventory_item", RetryPolicy.IDEMPOTENT, token -> {
+            log.info("PUT inventory_item sku={}", sku);
+            return api.webClient()
                     .put()
                     .uri(url)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + oauthService.getAccessToken())
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                     .header("Content-Language", "en-US")
                     .contentType(MediaType.APPLICATION_JSON)
                     .bodyValue(buildInventoryPayload(payload))
                     .retrieve()
-                    .toBodilessEntity()
-                    .block();
-
-            log.info("PUT inventory_item success sku={}", sku);
-
-        } catch (WebClientResponseException e) {
-            log.error("PUT inventory_item failed sku={} status={} body={}",
-                    sku, e.getStatusCode(), e.getResponseBodyAsString());
-            throw new EbayClientException(
-                    "putInventoryItem failed: " + e.getStatusCode() + " - " + e.getResponseBodyAsString(),
-                    false);
-        } catch (Exception e) {
-            log.error("PUT inventory_item error sku={}", sku, e);
-            throw new EbayClientException("putInventoryItem error: " + e.getMessage(), false);
-        }
+                    .toBodilessEntity();
+        })
+                .doOnSuccess(v -> log.info("PUT inventory_item success sku={}", sku))
+                .onErrorMap(e -> !(e instanceof EbayClientException),
+                        e -> failure("putInventoryItem", "sku=" + sku, e, false))
+                .then();
     }
 
     @Override
-    public String createOffer(String sku, Map<String, Object> payload) {
-        log.info("POST offer sku={}", sku);
-
+    @SuppressWarnings("unchecked")
+    public Mono<String> createOfferAsync(String sku, Map<String, Object> payload) {
         String url = config.getApiBase() + "/sell/inventory/v1/offer";
 
-        try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = webClient()
+        // POST（offer 作成）は 5xx で再送すると offer が重複しうるため 429 のみリトライ
+        return api.execute("offer", RetryPolicy.THROTTLED_ONLY, token -> {
+            log.info("POST offer sku={}", sku);
+            return api.webClient()
                     .post()
                     .uri(url)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + oauthService.getAccessToken())
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                     .header("Content-Language", "en-US")
                     .contentType(MediaType.APPLICATION_JSON)
                     .bodyValue(buildOfferPayload(sku, payload))
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-
-            if (response == null || !response.containsKey("offerId")) {
-                throw new EbayClientException("createOffer: no offerId in response", true);
-            }
-
-            String offerId = (String) response.get("offerId");
-            log.info("POST offer success sku={} offerId={}", sku, offerId);
-            return offerId;
-
-        } catch (WebClientResponseException e) {
-            log.error("POST offer failed sku={} status={} body={}",
-                    sku, e.getStatusCode(), e.getResponseBodyAsString());
-            throw new EbayClientException(
-                    "createOffer failed: " + e.getStatusCode() + " - " + e.getResponseBodyAsString(),
-                    true);
-        } catch (EbayClientException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("POST offer error sku={}", sku, e);
-            throw new EbayClientException("createOffer error: " + e.getMessage(), true);
-        }
+                    .bodyToMono(Map.class);
+        })
+                .switchIfEmpty(Mono.error(() -> new EbayClientException("createOffer: no offerId in response", true)))
+                .map(response -> {
+                    Map<String, Object> res = (Map<String, Object>) response;
+                    if (!res.containsKey("offerId")) {
+                        throw new EbayClientException("createOffer: no offerId in response", true);
+                    }
+                    String offerId = (String) res.get("offerId");
+                    log.info("POST offer success sku={} offerId={}", sku, offerId);
+                    return offerId;
+                })
+                .onErrorMap(e -> !(e instanceof EbayClientException),
+                        e -> failure("createOffer", "sku=" + sku, e, true));
     }
 
     @Override
-    public boolean checkOfferExists(String offerId) {
+    public Mono<Boolean> checkOfferExistsAsync(String offerId) {
         if (offerId == null || offerId.isBlank()) {
-            return false;
+            return Mono.just(false);
         }
 
-        log.info("GET offer offerId={}", offerId);
-
         String url = config.getApiBase() + "/sell/inventory/v1/offer/" + offerId;
 
-        try {
-            webClient()
+        return api.execute("offer_get", RetryPolicy.IDEMPOTENT, token -> {
+            log.info("GET offer offerId={}", offerId);
+            return api.webClient()
                     .get()
                     .uri(url)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + oauthService.getAccessToken())
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                     .retrieve()
-                    .toBodilessEntity()
-                    .block();
+                    .toBodilessEntity();
+        })
+                .map(res -> {
+                    log.info("GET offer exists offerId={}", offerId);
+                    return true;
+                })
+                .onErrorResume(e -> {
+                    if (e instanceof WebClientResponseException w && w.getStatusCode() == HttpStatus.NOT_FOUND) {
+                        log.info("GET offer not found offerId={}", offerId);
+                    } else if (e instanceof WebClientResponseException w) {
+                        log.warn("GET offer check failed offerId={} status={}", offerId, w.getStatusCode());
+                    } else {
+                        log.warn("GET offer check error offerId={}", offerId, e);
+                    }
+                    return Mono.just(false); // エラー時はfalseを返して安全側に倒す
+                });
+    }
+
+    @Override
+    public Mono<List<EbayBulkDraftResult>> bulkCreateDraftsAsync(List<EbayBulkDraftRequest> requests) {
+        if (requests.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        if (requests.size() > BULK_MAX_ITEMS) {
+            return Mono.error(new IllegalArgumentException("bulk request exceeds " + BULK_MAX_ITEMS + " items"));
+        }
 
-            log.info("GET offer exists offerId={}", offerId);
-            return true;
+        return Mono.defer(() -> {
+            // SKUごとの結果（未確定は null）
+            Map<String, EbayBulkDraftResult> results = new LinkedHashMap<>();
+            requests.forEach(r -> results.put(r.sku(), null));
 
-        } catch (WebClientResponseException e) {
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                log.info("GET offer not found offerId={}", offerId);
-                return false;
+            // 1) inventory_item 一括作成
+            List<Map<String, Object>> inventoryRequests = new ArrayList<>();
+            for (EbayBulkDraftRequest r : requests) {
+                Map<String, Object> item = new HashMap<>(buildInventoryPayload(r.inventoryPayload()));
+                item.put("sku", r.sku());
+                item.put("locale", "en_US");
+                inventoryRequests.add(item);
             }
-            log.warn("GET offer check failed offerId={} status={}", offerId, e.getStatusCode());
-            return false; // エラー時はfalseを返して安全側に倒す
-        } catch (Exception e) {
-            log.warn("GET offer check error offerId={}", offerId, e);
+
+            // create_or_replace は SKU 指定の PUT の一括版（再送しても同じ結果）なので 5xx もリトライする
+            return postBulk("bulk_inventory_item", RetryPolicy.IDEMPOTENT,
+                    "/sell/inventory/v1/bulk_create_or_replace_inventory_item", inventoryRequests)
+                    .flatMap(responses -> {
+                        Map<String, Map<String, Object>> bySku = indexBySku(responses);
+                        for (EbayBulkDraftRequest r : requests) {
+                            Map<String, Object> res = bySku.get(r.sku());
+                            if (!isSuccess(res)) {
+                                results.put(r.sku(), EbayBulkDraftResult.failed(r.sku(), r.existingOfferId(),
+                                        "bulkCreateOrReplaceInventoryItem failed: " + errorsOf(res), false));
+                            }
+                        }
+                        return createOffers(requests, results);
+                    })
+                    .onErrorResume(e -> !(e instanceof IllegalArgumentException), e -> {
+                        String msg = errorMessage("bulkCreateOrReplaceInventoryItem", e);
+                        return Mono.just(failAll(requests, msg, false));
+                    });
+        });
+    }
+
+    /**
+     * 2) offer 一括作成（inventory成功かつ offer 未作成のもののみ）
+     */
+    private Mono<List<EbayBulkDraftResult>> createOffers(
+            List<EbayBulkDraftRequest> requests, Map<String, EbayBulkDraftResult> results) {
+        List<EbayBulkDraftRequest> offerTargets = new ArrayList<>();
+        for (EbayBulkDraftRequest r : requests) {
+            if (results.get(r.sku()) != null) {
+                continue;
+            }
+            if (r.needsOffer()) {
+                offerTargets.add(r);
+            } else {
+                results.put(r.sku(), EbayBulkDraftResult.ok(r.sku(), r.existingOfferId()));
+            }
+        }
+        if (offerTargets.isEmpty()) {
+            return Mono.just(done(results));
+        }
+
+        List<Map<String, Object>> offerRequests = new ArrayList<>();
+        for (EbayBulkDraftRequest r : offerTargets) {
+            offerRequests.add(buildOfferPayload(r.sku(), r.offerPayload()));
+        }
+
+        // offer 作成は再送すると重複しうるため 429 のみリトライ
+        return postBulk("bulk_offer", RetryPolicy.THROTTLED_ONLY, "/sell/inventory/v1/bulk_create_offer", offerRequests)
+                .map(responses -> {
+                    Map<String, Map<String, Object>> bySku = indexBySku(responses);
+                    for (EbayBulkDraftRequest r : offerTargets) {
+                        Map<String, Object> res = bySku.get(r.sku());
+                        Object offerId = res != null ? res.get("offerId") : null;
+                        if (isSuccess(res) && offerId != null) {
+                            results.put(r.sku(), EbayBulkDraftResult.ok(r.sku(), String.valueOf(offerId)));
+                        } else {
+                            results.put(r.sku(), EbayBulkDraftResult.failed(r.sku(), null,
+                                    "bulkCreateOffer failed: " + errorsOf(res), true));
+                        }
+                    }
+                    return done(results);
+                })
+                .onErrorResume(e -> {
+                    String msg = errorMessage("bulkCreateOffer", e);
+                    offerTargets.forEach(r -> results.put(r.sku(), EbayBulkDraftResult.failed(r.sku(), null, msg, true)));
+                    return Mono.just(done(results));
+                });
+    }
+
+    private static List<EbayBulkDraftResult> done(Map<String, EbayBulkDraftResult> results) {
+        long ok = results.values().stream().filter(EbayBulkDraftResult::success).count();
+        log.info("bulk draft done count={} success={}", results.size(), ok);
+        return new ArrayList<>(results.values());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<List<Map<String, Object>>> postBulk(String endpoint, RetryPolicy retry, String path,
+            List<Map<String, Object>> requests) {
+        return api.execute(endpoint, retry, token -> {
+            log.info("POST {} count={}", path, requests.size());
+            return api.webClient()
+                    .post()
+                    .uri(config.getApiBase() + path)
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                    .header("Content-Language", "en-US")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(Map.of("requests", requests))
+                    .retrieve()
+                    .bodyToMono(Map.class);
+        })
+                .map(response -> response.get("responses") instanceof List
+                        ? (List<Map<String, Object>>) response.get("responses")
+                        : List.<Map<String, Object>>of())
+                .defaultIfEmpty(List.of());
+    }
+
+    private static Map<String, Map<String, Object>> indexBySku(List<Map<String, Object>> responses) {
+        Map<String, Map<String, Object>> bySku = new HashMap<>();
+        for (Map<String, Object> res : responses) {
+            Object sku = res.get("sku");
+            if (sku != null) {
+                bySku.put(String.valueOf(sku), res);
+            }
+        }
+        return bySku;
+    }
+
+    private static boolean isSuccess(Map<String, Object> res) {
+        if (res == null) {
             return false;
         }
+        Object status = res.get("statusCode");
+        int code = status instanceof Number n ? n.intValue() : -1;
+        return code >= 200 && code < 300;
+    }
+
+    private static String errorsOf(Map<String, Object> res) {
+        if (res == null) {
+            return "no response for sku";
+        }
+        return res.get("statusCode") + " - " + res.getOrDefault("errors", "");
+    }
+
+    private static List<EbayBulkDraftResult> failAll(List<EbayBulkDraftRequest> requests, String msg,
+            boolean offerError) {
+        return requests.stream()
+                .map(r -> EbayBulkDraftResult.failed(r.sku(), r.existingOfferId(), msg, offerError))
+                .toList();
+    }
+
+    private static String errorMessage(String operation, Throwable e) {
+        if (e instanceof WebClientResponseException w) {
+            log.error("{} failed status={} body={}", operation, w.getStatusCode(), w.getResponseBodyAsString());
+            return operation + " failed: " + w.getStatusCode() + " - " + w.getResponseBodyAsString();
+        }
+        log.error("{} error", operation, e);
+        return operation + " error: " + e.getMessage();
     }
 
-    private WebClient webClient() {
-        return webClientBuilder
-                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+    private static EbayClientException failure(String operation, String context, Throwable e, boolean offerError) {
+        log.error("{} failed {}", operation, context);
+        return new EbayClientException(errorMessage(operation, e), offerError);
     }
 
     private Map<String, Object> buildInventoryPayload(Map<String, Object> input) {
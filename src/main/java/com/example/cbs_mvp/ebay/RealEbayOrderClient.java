@@ -1,5 +1,8 @@
 package com.example.cbs_mvp.ebay;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -9,10 +12,13 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import com.example.cbs_mvp.ebay.EbayApiExecutor.RetryPolicy;
+
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Component
 @Profile("real")
@@ -21,18 +27,39 @@ public class RealEbayOrderClient implements EbayOrderClient {
 
     private static final Logger log = LoggerFactory.getLogger(RealEbayOrderClient.class);
 
+    private static final int GET_ORDERS_MAX_IDS = 50;
+
     private final EbayOAuthConfig config;
-    private final EbayOAuthService oauthService;
-    private final WebClient.Builder webClientBuilder;
+    private final EbayApiExecutor api;
+
+    // ---- 同期版（既存の呼び出し元向け。中身はノンブロッキング版を待つだけ） ----
 
     @Override
     public void uploadTracking(String ebayOrderKey, String carrier, String tracking) {
-        log.info("POST shipping_fulfillment orderKey={} carrier={} tracking={}",
-                ebayOrderKey, carrier, tracking);
+        uploadTrackingAsync(ebayOrderKey, carrier, tracking).block();
+    }
+
+    @Override
+    public boolean checkTrackingUploaded(String ebayOrderKey) {
+        return Boolean.TRUE.equals(checkTrackingUploadedAsync(ebayOrderKey).block());
+    }
 
+    @Override
+    public Map<String, Object> getOrder(String ebayOrderKey) {
+        return getOrderAsync(ebayOrderKey).block();
+    }
+
+    // ---- ノンブロッキング版 ----
+
+    @Override
+    public Mono<Void> uploadTrackingAsync(String ebayOrderKey, String carrier, String tracking) {
         String url = config.getApiBase() + "/sell/fulfillment/v1/order/" + ebayOrderKey + "/shipping_fulfillment";
 
-        try {
+        // リトライしない: 再実行は TrackingService が登録済みかを確認したうえで行う（重複登録を避ける）
+        return api.execute("shipping_fulfillment", RetryPolicy.NONE, token -> {
+            log.info("POST shipping_fulfillment orderKey={} carrier={} tracking={}",
+                    ebayOrderKey, carrier, tracking);
+
             Map<String, Object> payload = Map.of(
                     "lineItems", List.of(
                             Map.of(
@@ -42,99 +69,125 @@ public class RealEbayOrderClient implements EbayOrderClient {
                     "shippingCarrierCode", mapCarrierCode(carrier),
                     "trackingNumber", tracking);
 
-            webClient()
+            return api.webClient()
                     .post()
                     .uri(url)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + oauthService.getAccessToken())
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                     .contentType(MediaType.APPLICATION_JSON)
                     .bodyValue(payload)
                     .retrieve()
-                    .toBodilessEntity()
-                    .block();
-
-            log.info("POST shipping_fulfillment success orderKey={}", ebayOrderKey);
-
-        } catch (WebClientResponseException e) {
-            log.error("POST shipping_fulfillment failed orderKey={} status={} body={}",
-                    ebayOrderKey, e.getStatusCode(), e.getResponseBodyAsString());
-
-            boolean isRetryable = e.getStatusCode().is5xxServerError()
-                    || e.getStatusCode().value() == 429;
-
-            throw new EbayOrderClientException(
-                    "uploadTracking failed: " + e.getStatusCode() + " - " + e.getResponseBodyAsString(),
-                    isRetryable);
-        } catch (Exception e) {
-            log.error("POST shipping_fulfillment error orderKey={}", ebayOrderKey, e);
-            throw new EbayOrderClientException("uploadTracking error: " + e.getMessage(), true);
-        }
+                    .toBodilessEntity();
+        })
+                .doOnSuccess(v -> log.info("POST shipping_fulfillment success orderKey={}", ebayOrderKey))
+                .onErrorMap(e -> !(e instanceof EbayOrderClientException), e -> {
+                    if (e instanceof WebClientResponseException w) {
+                        log.error("POST shipping_fulfillment failed orderKey={} status={} body={}",
+                                ebayOrderKey, w.getStatusCode(), w.getResponseBodyAsString());
+
+                        boolean isRetryable = w.getStatusCode().is5xxServerError()
+                                || w.getStatusCode().value() == 429;
+
+                        return new EbayOrderClientException(
+                                "uploadTracking failed: " + w.getStatusCode() + " - " + w.getResponseBodyAsString(),
+                                isRetryable);
+                    }
+                    log.error("POST shipping_fulfillment error orderKey={}", ebayOrderKey, e);
+                    return new EbayOrderClientException("uploadTracking error: " + e.getMessage(), true);
+                })
+                .then();
     }
 
     @Override
-    public boolean checkTrackingUploaded(String ebayOrderKey) {
+    @SuppressWarnings("unchecked")
+    public Mono<Boolean> checkTrackingUploadedAsync(String ebayOrderKey) {
         if (ebayOrderKey == null || ebayOrderKey.isBlank()) {
-            return false;
+            return Mono.just(false);
         }
 
-        log.info("GET shipping_fulfillment orderKey={}", ebayOrderKey);
-
         String url = config.getApiBase() + "/sell/fulfillment/v1/order/" + ebayOrderKey + "/shipping_fulfillment";
 
-        try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = webClient()
+        return api.execute("shipping_fulfillment_get", RetryPolicy.IDEMPOTENT, token -> {
+            log.info("GET shipping_fulfillment orderKey={}", ebayOrderKey);
+            return api.webClient()
                     .get()
                     .uri(url)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + oauthService.getAccessToken())
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-
-            if (response == null) {
-                return false;
-            }
-
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> fulfillments = (List<Map<String, Object>>) response.get("fulfillments");
-            boolean hasTracking = fulfillments != null && !fulfillments.isEmpty();
-
-            log.info("GET shipping_fulfillment orderKey={} hasTracking={}", ebayOrderKey, hasTracking);
-            return hasTracking;
-
-        } catch (WebClientResponseException e) {
-            log.warn("GET shipping_fulfillment check failed orderKey={} status={}",
-                    ebayOrderKey, e.getStatusCode());
-            return false;
-        } catch (Exception e) {
-            log.warn("GET shipping_fulfillment check error orderKey={}", ebayOrderKey, e);
-            return false;
-        }
+                    .bodyToMono(Map.class);
+        })
+                .map(response -> {
+                    List<Map<String, Object>> fulfillments = (List<Map<String, Object>>) response.get("fulfillments");
+                    boolean hasTracking = fulfillments != null && !fulfillments.isEmpty();
+
+                    log.info("GET shipping_fulfillment orderKey={} hasTracking={}", ebayOrderKey, hasTracking);
+                    return hasTracking;
+                })
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> {
+                    if (e instanceof WebClientResponseException w) {
+                        log.warn("GET shipping_fulfillment check failed orderKey={} status={}",
+                                ebayOrderKey, w.getStatusCode());
+                    } else {
+                        log.warn("GET shipping_fulfillment check error orderKey={}", ebayOrderKey, e);
+                    }
+                    return Mono.just(false);
+                });
     }
 
     @Override
-    public Map<String, Object> getOrder(String ebayOrderKey) {
-        log.info("GET order orderKey={}", ebayOrderKey);
+    @SuppressWarnings("unchecked")
+    public Mono<Map<String, Object>> getOrderAsync(String ebayOrderKey) {
         String url = config.getApiBase() + "/sell/fulfillment/v1/order/" + ebayOrderKey;
-        try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = webClient()
+
+        return api.execute("order", RetryPolicy.IDEMPOTENT, token -> {
+            log.info("GET order orderKey={}", ebayOrderKey);
+            return api.webClient()
                     .get()
                     .uri(url)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + oauthService.getAccessToken())
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-            return response;
-        } catch (Exception e) {
-            log.error("GET order failed orderKey={}", ebayOrderKey, e);
-            throw new EbayOrderClientException("getOrder failed: " + e.getMessage(), true);
-        }
+                    .bodyToMono(Map.class);
+        })
+                .map(response -> (Map<String, Object>) response)
+                .onErrorMap(e -> !(e instanceof EbayOrderClientException), e -> {
+                    log.error("GET order failed orderKey={}", ebayOrderKey, e);
+                    return new EbayOrderClientException("getOrder failed: " + e.getMessage(), true);
+                });
     }
 
-    private WebClient webClient() {
-        return webClientBuilder
-                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+    /**
+     * getOrders（orderIds 指定、最大50件/回）でまとめて取得する
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Mono<Map<String, Map<String, Object>>> getOrdersAsync(Collection<String> ebayOrderKeys) {
+        List<String> keys = new ArrayList<>(new LinkedHashSet<>(ebayOrderKeys));
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += GET_ORDERS_MAX_IDS) {
+            chunks.add(keys.subList(i, Math.min(i + GET_ORDERS_MAX_IDS, keys.size())));
+        }
+
+        return Flux.fromIterable(chunks)
+                .flatMap(chunk -> api.execute("orders", RetryPolicy.IDEMPOTENT, token -> {
+                    log.info("GET orders count={}", chunk.size());
+                    return api.webClient()
+                            .get()
+                            .uri(config.getApiBase() + "/sell/fulfillment/v1/order?orderIds={ids}",
+                                    String.join(",", chunk))
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .retrieve()
+                            .bodyToMono(Map.class);
+                }))
+                .flatMapIterable(response -> {
+                    Object orders = response.get("orders");
+                    return orders instanceof List ? (List<Map<String, Object>>) orders : List.<Map<String, Object>>of();
+                })
+                .filter(order -> order.get("orderId") != null)
+                .collectMap(order -> String.valueOf(order.get("orderId")), order -> order)
+                .onErrorMap(e -> !(e instanceof EbayOrderClientException), e -> {
+                    log.error("GET orders failed count={}", keys.size(), e);
+                    return new EbayOrderClientException("getOrders failed: " + e.getMessage(), true);
+                });
     }
 
     private String mapCarrierCode(String carrier) {
@@ -1,5 +1,7 @@
 package com.example.cbs_mvp.ebay;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import com.example.cbs_mvp.ops.SystemFlagService;
@@ -45,4 +47,25 @@ public class StubEbayClient implements EbayClient {
         }
         return true;
     }
+
+    @Override
+    public List<EbayBulkDraftResult> bulkCreateDrafts(List<EbayBulkDraftRequest> requests) {
+        if (requests.size() > BULK_MAX_ITEMS) {
+            throw new IllegalArgumentException("bulk request exceeds " + BULK_MAX_ITEMS + " items");
+        }
+        List<EbayBulkDraftResult> results = new ArrayList<>(requests.size());
+        for (EbayBulkDraftRequest req : requests) {
+            String offerId = req.existingOfferId();
+            try {
+                putInventoryItem(req.sku(), req.inventoryPayload());
+                if (req.needsOffer()) {
+                    offerId = createOffer(req.sku(), req.offerPayload());
+                }
+                results.add(EbayBulkDraftResult.ok(req.sku(), offerId));
+            } catch (EbayClientException ex) {
+                results.add(EbayBulkDraftResult.failed(req.sku(), offerId, ex.getMessage(), ex.isOfferError()));
+            }
+        }
+        return results;
+    }
 }
@@ -1,6 +1,10 @@
 package com.example.cbs_mvp.ebay;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -11,12 +15,21 @@ import org.springframework.stereotype.Component;
 /**
  * Webhook署名検証ユーティリティ。
  * HMAC-SHA256 でリクエストボディの整合性を検証する。
+ *
+ * シークレット毎に初期化済みの Mac（原型）を1つ持ち、検証のたびに clone して使う（鍵の初期化を毎回しない）。
+ * スレッド毎のキャッシュは持たない（仮想スレッドではリクエスト毎にスレッドが変わり、毎回作り直しになるため）。
+ * 署名（hex）はデコード用の配列を作らずに計算結果と直接比較する（定数時間）。
  */
 @Component
 public class WebhookSignatureVerifier {
 
     private static final Logger log = LoggerFactory.getLogger(WebhookSignatureVerifier.class);
     private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final int MAX_CACHED_SECRETS = 8;
+
+    // シークレット → 初期化済みの Mac（原型。update せず clone 元としてのみ使う）
+    private final ConcurrentHashMap<String, Mac> prototypes = new ConcurrentHashMap<>();
 
     /**
      * HMAC-SHA256署名を検証する。
@@ -27,46 +40,121 @@ public class WebhookSignatureVerifier {
      * @return 署名が一致すれば true
      */
     public boolean verify(String payload, String signature, String secret) {
+        if (payload == null) {
+            return false;
+        }
+        return verify(payload.getBytes(StandardCharsets.UTF_8), signature, secret);
+    }
+
+    /**
+     * リクエストボディの生バイト列で検証する（文字列への変換なし）。
+     */
+    public boolean verify(byte[] payload, String signature, String secret) {
         if (payload == null || signature == null || secret == null) {
             return false;
         }
         try {
-            // 正規化: sha256= プレフィックスの除去
-            String targetSignature = signature.trim();
-            if (targetSignature.toLowerCase().startsWith("sha256=")) {
-                targetSignature = targetSignature.substring(7);
-            }
+            Mac mac = mac(secret);
+            mac.update(payload);
+            return matches(mac, signature);
+        } catch (Exception e) {
+            log.error("HMAC署名検証中にエラーが発生しました", e);
+            return false;
+        }
+    }
 
-            Mac mac = Mac.getInstance(ALGORITHM);
-            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
-            byte[] computedHash = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    public boolean verify(ByteBuffer payload, String signature, String secret) {
+        if (payload == null || signature == null || secret == null) {
+            return false;
+        }
+        try {
+            Mac mac = mac(secret);
+            mac.update(payload.duplicate());
+            return matches(mac, signature);
+        } catch (Exception e) {
+            log.error("HMAC署名検証中にエラーが発生しました", e);
+            return false;
+        }
+    }
 
-            // 署名をバイト配列にデコードして比較（定数時間比較）
-            byte[] providedHash = hexToBytes(targetSignature);
-            if (providedHash == null) {
-                return false;
+    /**
+     * キーローテーション用。有効なシークレットのいずれかで一致すれば true。
+     */
+    public boolean verifyAny(byte[] payload, String signature, List<String> secrets) {
+        if (secrets == null) {
+            return false;
+        }
+        for (int i = 0; i < secrets.size(); i++) {
+            if (verify(payload, signature, secrets.get(i))) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            return java.security.MessageDigest.isEqual(computedHash, providedHash);
-        } catch (Exception e) {
-            log.error("HMAC署名検証中にエラーが発生しました", e);
+    private static boolean matches(Mac mac, String signature) {
+        byte[] computed = mac.doFinal();
+
+        // 正規化: 前後空白と sha256= プレフィックスの除去（部分文字列は作らない）
+        int start = 0;
+        int end = signature.length();
+        while (start < end && signature.charAt(start) <= ' ') start++;
+        while (end > start && signature.charAt(end - 1) <= ' ') end--;
+        if (end - start >= 7 && signature.regionMatches(true, start, "sha256=", 0, 7)) {
+            start += 7;
+        }
+        if (end - start != MAC_LENGTH * 2) {
             return false;
         }
+        return constantTimeHexEquals(computed, signature, start);
     }
 
-    private static byte[] hexToBytes(String hex) {
-        if (hex == null || hex.length() % 2 != 0) {
-            return null;
+    /**
+     * hex 文字列をデコードしながら比較する。不一致・不正文字があっても最後まで走査する。
+     */
+    static boolean constantTimeHexEquals(byte[] expected, CharSequence hex, int offset) {
+        int diff = 0;
+        for (int i = 0; i < expected.length; i++) {
+            int hi = hexValue(hex.charAt(offset + 2 * i));
+            int lo = hexValue(hex.charAt(offset + 2 * i + 1));
+            diff |= (hi | lo) & 0x100; // 不正文字
+            diff |= ((hi << 4) | lo) ^ (expected[i] & 0xff);
         }
-        byte[] bytes = new byte[hex.length() / 2];
-        for (int i = 0; i < hex.length(); i += 2) {
-            int hi = Character.digit(hex.charAt(i), 16);
-            int lo = Character.digit(hex.charAt(i + 1), 16);
-            if (hi < 0 || lo < 0) {
-                return null;
+        return diff == 0;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return 0x100;
+    }
+
+    /**
+     * このリクエスト専用の Mac（原型の clone）
+     */
+    private Mac mac(String secret) {
+        Mac prototype = prototypes.get(secret);
+        if (prototype == null) {
+            if (prototypes.size() >= MAX_CACHED_SECRETS) {
+                prototypes.clear(); // ローテーション済みの古いシークレットを溜め込まない
             }
-            bytes[i / 2] = (byte) ((hi << 4) + lo);
+            prototype = prototypes.computeIfAbsent(secret, WebhookSignatureVerifier::newMac);
+        }
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            return newMac(secret); // clone 非対応のプロバイダでは毎回初期化する
+        }
+    }
+
+    private static Mac newMac(String secret) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
         }
-        return bytes;
     }
 }
@@ -16,7 +16,8 @@ import lombok.Setter;
 public class CashLedger {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cash_ledger_cash_id_seq")
+    @SequenceGenerator(name = "cash_ledger_cash_id_seq", sequenceName = "cash_ledger_cash_id_seq", allocationSize = 50)
     @Column(name = "cash_id")
     private Long cashId;
 
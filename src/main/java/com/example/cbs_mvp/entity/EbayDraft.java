@@ -10,6 +10,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -23,7 +24,8 @@ import lombok.Setter;
 public class EbayDraft {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ebay_drafts_draft_id_seq")
+    @SequenceGenerator(name = "ebay_drafts_draft_id_seq", sequenceName = "ebay_drafts_draft_id_seq", allocationSize = 50)
     @Column(name = "draft_id")
     private Long draftId;
 
@@ -9,6 +9,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,7 +23,8 @@ import lombok.Setter;
 public class Fulfillment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fulfillment_fulfill_id_seq")
+    @SequenceGenerator(name = "fulfillment_fulfill_id_seq", sequenceName = "fulfillment_fulfill_id_seq", allocationSize = 50)
     @Column(name = "fulfill_id")
     private Long fulfillId;
 
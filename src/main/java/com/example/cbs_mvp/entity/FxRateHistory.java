@@ -9,6 +9,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 
@@ -21,7 +22,8 @@ import lombok.Data;
 public class FxRateHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fx_rate_history_history_id_seq")
+    @SequenceGenerator(name = "fx_rate_history_history_id_seq", sequenceName = "fx_rate_history_history_id_seq", allocationSize = 50)
     @Column(name = "history_id")
     private Long id;
 
@@ -0,0 +1,119 @@
+package com.example.cbs_mvp.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "import_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_jobs_job_id_seq")
+    @SequenceGenerator(name = "import_jobs_job_id_seq", sequenceName = "import_jobs_job_id_seq", allocationSize = 50)
+    @Column(name = "job_id")
+    private Long jobId;
+
+    @Column(name = "kind", nullable = false, length = 30)
+    private String kind;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "filename", length = 255)
+    private String filename;
+
+    @Column(name = "spool_path", nullable = false, columnDefinition = "TEXT")
+    private String spoolPath;
+
+    @Column(name = "total_lines", nullable = false)
+    private int totalLines;
+
+    @Column(name = "skip_duplicates", nullable = false)
+    private boolean skipDuplicates;
+
+    @Column(name = "auto_filter_profit", nullable = false)
+    private boolean autoFilterProfit;
+
+    @Column(name = "fx_rate", precision = 10, scale = 4)
+    private BigDecimal fxRate;
+
+    @Column(name = "checkpoint_line", nullable = false)
+    private int checkpointLine;
+
+    @Column(name = "success_count", nullable = false)
+    private int successCount;
+
+    @Column(name = "updated_count", nullable = false)
+    private int updatedCount;
+
+    @Column(name = "skipped_count", nullable = false)
+    private int skippedCount;
+
+    @Column(name = "error_count", nullable = false)
+    private int errorCount;
+
+    @Column(name = "error_file_bytes", nullable = false)
+    private long errorFileBytes;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "correlation_id", length = 64)
+    private String correlationId;
+
+    @Column(name = "owner_instance", length = 100)
+    private String ownerInstance;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    void prePersist() {
+        LocalDateTime now = LocalDateTime.now();
+        if (status == null) status = "QUEUED";
+        if (checkpointLine == 0) checkpointLine = 1;
+        if (createdAt == null) createdAt = now;
+        if (updatedAt == null) updatedAt = now;
+    }
+
+    /**
+     * 処理済みのデータ行数（ヘッダーを除く）
+     */
+    public int getProcessedLines() {
+        return Math.max(0, checkpointLine - 1);
+    }
+
+    public boolean isFinished() {
+        return "COMPLETED".equals(status) || "FAILED".equals(status) || "CANCELLED".equals(status);
+    }
+}
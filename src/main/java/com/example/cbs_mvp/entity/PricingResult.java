@@ -9,6 +9,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,7 +23,8 @@ import lombok.Setter;
 public class PricingResult {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pricing_results_pricing_id_seq")
+    @SequenceGenerator(name = "pricing_results_pricing_id_seq", sequenceName = "pricing_results_pricing_id_seq", allocationSize = 50)
     @Column(name = "pricing_id")
     private Long pricingId;
 
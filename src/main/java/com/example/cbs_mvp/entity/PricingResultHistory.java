@@ -12,6 +12,7 @@ import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -24,7 +25,8 @@ import lombok.NoArgsConstructor;
 public class PricingResultHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pricing_results_history_history_id_seq")
+    @SequenceGenerator(name = "pricing_results_history_history_id_seq", sequenceName = "pricing_results_history_history_id_seq", allocationSize = 50)
     @Column(name = "history_id")
     private Long historyId;
 
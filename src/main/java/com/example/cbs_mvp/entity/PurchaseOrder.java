@@ -15,7 +15,8 @@ import lombok.Setter;
 public class PurchaseOrder {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchase_orders_po_id_seq")
+    @SequenceGenerator(name = "purchase_orders_po_id_seq", sequenceName = "purchase_orders_po_id_seq", allocationSize = 50)
     @Column(name = "po_id")
     private Long poId;
 
@@ -14,7 +14,8 @@ import lombok.Setter;
 public class StateTransition {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "state_transitions_log_id_seq")
+    @SequenceGenerator(name = "state_transitions_log_id_seq", sequenceName = "state_transitions_log_id_seq", allocationSize = 50)
     @Column(name = "log_id")
     private Long logId;
 
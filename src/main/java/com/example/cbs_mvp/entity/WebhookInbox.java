@@ -0,0 +1,64 @@
+package com.example.cbs_mvp.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "webhook_inbox")
+@Getter
+@Setter
+@NoArgsConstructor
+public class WebhookInbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "webhook_inbox_inbox_id_seq")
+    @SequenceGenerator(name = "webhook_inbox_inbox_id_seq", sequenceName = "webhook_inbox_inbox_id_seq", allocationSize = 50)
+    @Column(name = "inbox_id")
+    private Long inboxId;
+
+    @Column(name = "ebay_order_key", nullable = false, length = 64)
+    private String ebayOrderKey;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    void prePersist() {
+        LocalDateTime now = LocalDateTime.now();
+        if (status == null) status = "PENDING";
+        if (receivedAt == null) receivedAt = now;
+        if (nextAttemptAt == null) nextAttemptAt = now;
+    }
+}
@@ -2,7 +2,6 @@ package com.example.cbs_mvp.exception;
 
 import java.time.LocalDateTime;
 import java.util.Map;
-import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +10,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import com.example.cbs_mvp.tracing.CorrelationIds;
+
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -44,7 +45,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGeneralError(Exception ex) {
-        String correlationId = UUID.randomUUID().toString();
+        String correlationId = CorrelationIds.current();
         log.error("Unexpected error (CorrelationId: {})", correlationId, ex);
         return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_ERROR",
                 "An unexpected error occurred. Ref: " + correlationId);
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import lombok.RequiredArgsConstructor;
@@ -16,6 +17,7 @@ import lombok.RequiredArgsConstructor;
 public class FxController {
 
     private final FxRateService fxRateService;
+    private final FxStatsService fxStatsService;
 
     /**
      * 現在の為替レートを取得
@@ -37,6 +39,35 @@ public class FxController {
         }
     }
 
+    /**
+     * 全通貨ペアの為替レートを取得（USD/GBP/EUR/AUD → JPY）
+     */
+    @GetMapping("/rates")
+    public ResponseEntity<?> getRates() {
+        FxRateTable table = fxRateService.getRateTable();
+        java.util.Map<String, Object> response = new java.util.HashMap<>();
+        response.put("rates", table.rates());
+        response.put("updatedAt", table.updatedAt() != null ? table.updatedAt().toString() : null);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 為替レートのローリング統計（min/max、EWMA、ボラティリティ）
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats(@RequestParam(value = "pair", required = false) String pair) {
+        if (pair != null && !pair.isBlank()) {
+            FxStats stats = fxStatsService.stats(pair);
+            if (stats == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "no stats for pair: " + pair));
+            }
+            return ResponseEntity.ok(stats);
+        }
+        return ResponseEntity.ok(Map.of(
+                "pairs", fxStatsService.allStats(),
+                "fxBuffer", fxStatsService.fxBuffer()));
+    }
+
     /**
      * 為替レートを手動で更新
      */
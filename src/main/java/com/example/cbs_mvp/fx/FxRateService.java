@@ -3,7 +3,10 @@ package com.example.cbs_mvp.fx;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,26 +28,49 @@ public class FxRateService {
     private static final Logger log = LoggerFactory.getLogger(FxRateService.class);
     private static final String FX_RATE_FLAG = "FX_RATE";
     private static final String FX_RATE_UPDATED_AT_FLAG = "FX_RATE_UPDATED_AT";
+    private static final String FX_RATE_PAIR_FLAG_PREFIX = "FX_RATE_"; // FX_RATE_GBP_JPY など
     private static final BigDecimal ANOMALY_THRESHOLD_PERCENT = new BigDecimal("5.0"); // 5%変動で警告
+    private static final int RATE_SCALE = 4;
 
     private final SystemFlagService flagService;
     private final WebClient.Builder webClientBuilder;
     private final FxRateHistoryRepository historyRepo;
     private final com.example.cbs_mvp.service.CandidateService candidateService;
+    private final FxStatsService fxStats;
 
     @Value("${fx.api-key:}")
     private String apiKey;
 
+    /**
+     * 主ペアの基軸通貨（EBAY_US 用。getCurrentRate() が返すペア）
+     */
     @Value("${fx.base-currency:USD}")
     private String baseCurrency;
 
+    /**
+     * 取得対象の基軸通貨一覧（各マーケットプレイスの販売通貨）
+     */
+    @Value("${fx.base-currencies:USD,GBP,EUR,AUD}")
+    private String[] baseCurrencies;
+
     @Value("${fx.target-currency:JPY}")
     private String targetCurrency;
 
     /**
-     * 毎日9時（日本時間）に為替レートを更新
+     * 公開中のレート表。更新時は丸ごと差し替える（読み取りはロック不要）
+     * null は未ロード（初回参照時に system_flags から読み込む）
+     */
+    private final AtomicReference<FxRateTable> table = new AtomicReference<>();
+
+    /**
+     * 実行中の更新（同時に呼ばれた更新は、実行中の更新の結果を待って共有する）
+     */
+    private final AtomicReference<CompletableFuture<FxRateResult>> refreshing = new AtomicReference<>();
+
+    /**
+     * 日中の定期更新（デフォルト: 9時〜21時の3時間おき、日本時間）
      */
-    @Scheduled(cron = "0 0 9 * * *", zone = "Asia/Tokyo")
+    @Scheduled(cron = "${fx.refresh-cron:0 0 9-21/3 * * *}", zone = "Asia/Tokyo")
     public void scheduledUpdate() {
         log.info("Scheduled FX rate update starting...");
         try {
@@ -55,38 +81,81 @@ public class FxRateService {
     }
 
     /**
-     * 為替レートを手動で更新
+     * 為替レートを手動で更新（全ペアを1回のAPI呼び出しで取得し、一括で公開する）
+     * ロックは取らない。API 呼び出し中もレートの参照は公開中のレート表を読むだけで待たない。
+     * 更新が実行中なら新たに取得せず、その結果を返す
+     *
+     * @return 主ペア（baseCurrency/targetCurrency）の結果
      */
     public FxRateResult refreshRate() {
-        log.info("Refreshing FX rate {} -> {}", baseCurrency, targetCurrency);
+        CompletableFuture<FxRateResult> mine = new CompletableFuture<>();
+        CompletableFuture<FxRateResult> running = refreshing.compareAndExchange(null, mine);
+        if (running != null) {
+            log.info("FX rate refresh already in progress; waiting for its result");
+            return running.join();
+        }
+        FxRateResult result = null;
+        try {
+            result = doRefresh();
+            return result;
+        } finally {
+            refreshing.set(null);
+            mine.complete(result != null ? result : new FxRateResult(null, null, "FX rate refresh failed"));
+        }
+    }
+
+    private FxRateResult doRefresh() {
+        log.info("Refreshing FX rates {} -> {}", String.join(",", baseCurrencies()), targetCurrency);
 
         try {
-            BigDecimal rate = fetchRateFromApi();
+            Map<String, BigDecimal> fetched = fetchRatesFromApi();
+            String primaryPair = FxRateTable.pair(baseCurrency, targetCurrency);
 
-            if (rate == null || rate.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new RuntimeException("Invalid rate received: " + rate);
+            BigDecimal primaryRate = fetched.get(primaryPair);
+            if (primaryRate == null || primaryRate.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new RuntimeException("Invalid rate received: " + primaryRate);
             }
 
-            // 履歴記録と異常検知
-            boolean isAnomaly = recordHistory(rate);
+            Instant now = Instant.now();
+            Map<String, BigDecimal> next = new LinkedHashMap<>(table().rates());
+            for (Map.Entry<String, BigDecimal> e : fetched.entrySet()) {
+                BigDecimal rate = e.getValue();
+                if (rate == null || rate.compareTo(BigDecimal.ZERO) <= 0) {
+                    log.warn("Invalid rate received for {}: {} (skipped)", e.getKey(), rate);
+                    continue;
+                }
+                String[] currencies = e.getKey().split("/");
+
+                // 履歴記録と異常検知
+                boolean isAnomaly = recordHistory(currencies[0], currencies[1], rate);
 
-            flagService.set(FX_RATE_FLAG, rate.setScale(4, RoundingMode.HALF_UP).toPlainString());
-            flagService.set(FX_RATE_UPDATED_AT_FLAG, Instant.now().toString());
+                String scaled = rate.setScale(RATE_SCALE, RoundingMode.HALF_UP).toPlainString();
+                if (e.getKey().equals(primaryPair)) {
+                    flagService.set(FX_RATE_FLAG, scaled);
+                } else {
+                    flagService.set(pairFlag(currencies[0], currencies[1]), scaled);
+                }
+                next.put(e.getKey(), new BigDecimal(scaled));
+
+                log.info("FX rate updated: {} {} = {} {}{}",
+                        "1", currencies[0], rate, currencies[1],
+                        isAnomaly ? " [⚠️ ANOMALY DETECTED]" : "");
+            }
+            flagService.set(FX_RATE_UPDATED_AT_FLAG, now.toString());
 
-            log.info("FX rate updated: {} {} = {} {}{}",
-                    "1", baseCurrency, rate, targetCurrency,
-                    isAnomaly ? " [⚠️ ANOMALY DETECTED]" : "");
+            // 全ペアを一括で公開
+            table.set(new FxRateTable(next, now));
 
             // Trigger Auto-Recalc
             try {
                 if (candidateService != null) {
-                    candidateService.recalcAllActiveCandidates(rate);
+                    candidateService.recalcAllActiveCandidates(primaryRate);
                 }
             } catch (Exception e) {
                 log.error("Failed to trigger auto-recalc", e);
             }
 
-            return new FxRateResult(rate, Instant.now(), null);
+            return new FxRateResult(primaryRate, now, null);
 
         } catch (Exception e) {
             log.error("Failed to refresh FX rate", e);
@@ -99,20 +168,23 @@ public class FxRateService {
      * 
      * @return true if anomaly detected
      */
-    private boolean recordHistory(BigDecimal newRate) {
+    private boolean recordHistory(String base, String target, BigDecimal newRate) {
         FxRateHistory history = new FxRateHistory();
-        history.setBaseCurrency(baseCurrency);
-        history.setTargetCurrency(targetCurrency);
+        history.setBaseCurrency(base);
+        history.setTargetCurrency(target);
         history.setRate(newRate);
         history.setSource("ExchangeRate-API");
 
-        // 前回レートとの比較
-        var lastOpt = historyRepo.findTopByBaseCurrencyAndTargetCurrencyOrderByFetchedAtDesc(
-                baseCurrency, targetCurrency);
+        // 前回レートとの比較（公開中のレート表を優先し、無ければ履歴から）
+        BigDecimal lastRate = table().rate(base, target);
+        if (lastRate == null) {
+            lastRate = historyRepo.findTopByBaseCurrencyAndTargetCurrencyOrderByFetchedAtDesc(base, target)
+                    .map(FxRateHistory::getRate)
+                    .orElse(null);
+        }
 
         boolean isAnomaly = false;
-        if (lastOpt.isPresent()) {
-            BigDecimal lastRate = lastOpt.get().getRate();
+        if (lastRate != null && lastRate.signum() > 0) {
             BigDecimal changePercent = newRate.subtract(lastRate)
                     .divide(lastRate, 6, RoundingMode.HALF_UP)
                     .multiply(new BigDecimal("100"));
@@ -124,54 +196,104 @@ public class FxRateService {
                 isAnomaly = true;
                 history.setAnomaly(true);
                 log.error("🚨 FX Rate ANOMALY: {} {} = {} {} (変化率: {}%) - 手動確認が必要",
-                        "1", baseCurrency, newRate, targetCurrency, changePercent.setScale(2, RoundingMode.HALF_UP));
+                        "1", base, newRate, target, changePercent.setScale(2, RoundingMode.HALF_UP));
             }
         }
 
         historyRepo.save(history);
+        fxStats.record(base, target, history.getFetchedAt(), newRate);
         return isAnomaly;
     }
 
     /**
-     * 現在の為替レートを取得
+     * 現在の為替レートを取得（主ペア）
      */
     public FxRateResult getCurrentRate() {
-        String rateStr = flagService.get(FX_RATE_FLAG);
-        String updatedAtStr = flagService.get(FX_RATE_UPDATED_AT_FLAG);
-
-        if (rateStr == null || rateStr.isBlank()) {
+        FxRateTable t = table();
+        BigDecimal rate = t.rate(baseCurrency, targetCurrency);
+        if (rate == null) {
             return new FxRateResult(null, null, "FX rate not set");
         }
+        return new FxRateResult(rate, t.updatedAt(), null);
+    }
+
+    /**
+     * 指定ペアのレート（例: "GBP/JPY"）。未取得なら null。
+     * 公開中のレート表を参照するだけなのでロック・DBアクセスなし。
+     */
+    public BigDecimal rate(String pair) {
+        return table().rate(pair);
+    }
 
+    public BigDecimal rate(String base, String target) {
+        return table().rate(base, target);
+    }
+
+    /**
+     * 公開中のレート表（全ペア）
+     */
+    public FxRateTable getRateTable() {
+        return table();
+    }
+
+    private FxRateTable table() {
+        FxRateTable t = table.get();
+        return t != null ? t : warmFromFlags();
+    }
+
+    /**
+     * 起動直後の初回参照時のみ、前回保存したレートを system_flags から読み込む
+     * ロックは取らない（同時に読み込んだ場合は先に公開した方を使う。更新で公開済みなら読み込み結果は捨てる）
+     */
+    private FxRateTable warmFromFlags() {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        Instant updatedAt = null;
         try {
-            BigDecimal rate = new BigDecimal(rateStr);
-            Instant updatedAt = updatedAtStr != null && !updatedAtStr.isBlank()
-                    ? Instant.parse(updatedAtStr)
-                    : null;
-            return new FxRateResult(rate, updatedAt, null);
+            for (String base : baseCurrencies()) {
+                String key = base.equals(baseCurrency) ? FX_RATE_FLAG : pairFlag(base, targetCurrency);
+                String rateStr = flagService.get(key);
+                if (rateStr != null && !rateStr.isBlank()) {
+                    rates.put(FxRateTable.pair(base, targetCurrency), new BigDecimal(rateStr.trim()));
+                }
+            }
+            String updatedAtStr = flagService.get(FX_RATE_UPDATED_AT_FLAG);
+            if (updatedAtStr != null && !updatedAtStr.isBlank()) {
+                updatedAt = Instant.parse(updatedAtStr.trim());
+            }
         } catch (Exception e) {
-            return new FxRateResult(null, null, "Invalid stored rate: " + e.getMessage());
+            log.warn("Invalid stored FX rate ignored: {}", e.getMessage());
         }
+        table.compareAndSet(null, new FxRateTable(rates, updatedAt));
+        return table.get();
     }
 
-    private BigDecimal fetchRateFromApi() {
+    private Map<String, BigDecimal> fetchRatesFromApi() {
         // ExchangeRate-API (無料プラン対応)
         // https://www.exchangerate-api.com/
 
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+
         if (apiKey == null || apiKey.isBlank()) {
             log.warn("FX API key not configured, using fallback rate");
-            // フォールバック: 手動設定されたレートを使用
-            String manualRate = flagService.get("FX_MANUAL_RATE");
-            if (manualRate != null && !manualRate.isBlank()) {
-                return new BigDecimal(manualRate);
+            for (String base : baseCurrencies()) {
+                // フォールバック: 手動設定されたレートを使用（FX_MANUAL_RATE は主ペア用）
+                String manualRate = base.equals(baseCurrency)
+                        ? flagService.get("FX_MANUAL_RATE")
+                        : flagService.get("FX_MANUAL_RATE_" + base);
+                if (manualRate != null && !manualRate.isBlank()) {
+                    result.put(FxRateTable.pair(base, targetCurrency), new BigDecimal(manualRate.trim()));
+                } else if (base.equals(baseCurrency)) {
+                    // デフォルト値
+                    result.put(FxRateTable.pair(base, targetCurrency), new BigDecimal("150.00"));
+                }
             }
-            // デフォルト値
-            return new BigDecimal("150.00");
+            return result;
         }
 
+        // 主ペアの基軸通貨で latest を1回取得し、他の通貨はクロスレートで算出する
         String url = String.format(
-                "https://v6.exchangerate-api.com/v6/%s/pair/%s/%s",
-                apiKey, baseCurrency, targetCurrency);
+                "https://v6.exchangerate-api.com/v6/%s/latest/%s",
+                apiKey, baseCurrency);
 
         try {
             @SuppressWarnings("unchecked")
@@ -186,19 +308,38 @@ public class FxRateService {
                 throw new RuntimeException("Empty response from FX API");
             }
 
-            String result = (String) response.get("result");
-            if (!"success".equals(result)) {
+            String status = (String) response.get("result");
+            if (!"success".equals(status)) {
                 throw new RuntimeException("FX API error: " + response.get("error-type"));
             }
 
+            @SuppressWarnings("unchecked")
+            Map<String, Object> conversionRates = (Map<String, Object>) response.get("conversion_rates");
+            if (conversionRates == null) {
+                throw new RuntimeException("Invalid rate format: conversion_rates missing");
+            }
+
             // 精度を保つため文字列経由でBigDecimalに変換
-            Object rateObj = response.get("conversion_rate");
-            if (rateObj != null) {
-                // String.valueOf で文字列化してからBigDecimalに変換（精度劣化回避）
-                return new BigDecimal(String.valueOf(rateObj));
+            BigDecimal anchorToTarget = toDecimal(conversionRates.get(targetCurrency));
+            if (anchorToTarget == null) {
+                throw new RuntimeException("Invalid rate format: " + conversionRates.get(targetCurrency));
             }
 
-            throw new RuntimeException("Invalid rate format: " + rateObj);
+            for (String base : baseCurrencies()) {
+                if (base.equals(baseCurrency)) {
+                    result.put(FxRateTable.pair(base, targetCurrency), anchorToTarget);
+                    continue;
+                }
+                BigDecimal anchorToBase = toDecimal(conversionRates.get(base));
+                if (anchorToBase == null || anchorToBase.signum() <= 0) {
+                    log.warn("FX API response has no rate for {}", base);
+                    continue;
+                }
+                // base→target = (anchor→target) / (anchor→base)
+                result.put(FxRateTable.pair(base, targetCurrency),
+                        anchorToTarget.divide(anchorToBase, 8, RoundingMode.HALF_UP));
+            }
+            return result;
 
         } catch (Exception e) {
             log.error("FX API call failed", e);
@@ -206,6 +347,27 @@ public class FxRateService {
         }
     }
 
+    private String[] baseCurrencies() {
+        // 主ペアの基軸通貨は常に先頭に含める
+        String[] configured = baseCurrencies == null ? new String[0] : baseCurrencies;
+        return java.util.stream.Stream.concat(
+                java.util.stream.Stream.of(baseCurrency),
+                java.util.Arrays.stream(configured))
+                .map(s -> s.trim().toUpperCase())
+                .filter(s -> !s.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private static String pairFlag(String base, String target) {
+        return FX_RATE_PAIR_FLAG_PREFIX + base + "_" + target;
+    }
+
+    private static BigDecimal toDecimal(Object v) {
+        // String.valueOf で文字列化してからBigDecimalに変換（精度劣化回避）
+        return v == null ? null : new BigDecimal(String.valueOf(v));
+    }
+
     public record FxRateResult(BigDecimal rate, Instant updatedAt, String error) {
         public boolean isSuccess() {
             return error == null && rate != null;
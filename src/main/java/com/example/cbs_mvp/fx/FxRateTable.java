@@ -0,0 +1,54 @@
+package com.example.cbs_mvp.fx;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 為替レート表（不変オブジェクト）
+ *
+ * 更新時は新しいインスタンスを丸ごと作って差し替える。
+ * 読み取り側はロック不要・DBアクセスなしで参照できる。
+ * キーは "USD/JPY" 形式の通貨ペア。
+ */
+public final class FxRateTable {
+
+    public static final FxRateTable EMPTY = new FxRateTable(Map.of(), null);
+
+    private final Map<String, BigDecimal> rates;
+    private final Instant updatedAt;
+
+    public FxRateTable(Map<String, BigDecimal> rates, Instant updatedAt) {
+        this.rates = Collections.unmodifiableMap(new LinkedHashMap<>(rates));
+        this.updatedAt = updatedAt;
+    }
+
+    public static String pair(String base, String target) {
+        return base.trim().toUpperCase() + "/" + target.trim().toUpperCase();
+    }
+
+    /**
+     * @return レート。未取得のペアは null
+     */
+    public BigDecimal rate(String pair) {
+        return pair == null ? null : rates.get(pair.trim().toUpperCase());
+    }
+
+    public BigDecimal rate(String base, String target) {
+        return rates.get(pair(base, target));
+    }
+
+    public Map<String, BigDecimal> rates() {
+        return rates;
+    }
+
+    public Instant updatedAt() {
+        return updatedAt;
+    }
+
+    public boolean isEmpty() {
+        return rates.isEmpty();
+    }
+}
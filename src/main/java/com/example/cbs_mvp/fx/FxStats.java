@@ -0,0 +1,38 @@
+package com.example.cbs_mvp.fx;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * 通貨ペアごとのローリング統計（不変スナップショット）
+ *
+ * @param pair            通貨ペア（例: "USD/JPY"）
+ * @param count           ウィンドウ内のサンプル数
+ * @param windowDays      ウィンドウ長（日）
+ * @param lastRate        最新レート
+ * @param lastAt          最新レートの取得時刻
+ * @param min             ウィンドウ内の最小レート
+ * @param max             ウィンドウ内の最大レート
+ * @param ewma            レートの指数移動平均
+ * @param volatilityDaily 対数リターンの標準偏差（1日換算、ウィンドウ内）
+ * @param ewmaVolatility  対数リターンのEWMAボラティリティ（1日換算、RiskMetrics方式）
+ */
+public record FxStats(
+        String pair,
+        int count,
+        int windowDays,
+        BigDecimal lastRate,
+        Instant lastAt,
+        BigDecimal min,
+        BigDecimal max,
+        BigDecimal ewma,
+        double volatilityDaily,
+        double ewmaVolatility) {
+
+    /**
+     * 判断に使えるだけのリターンが揃っているか
+     */
+    public boolean hasVolatility() {
+        return count >= 3;
+    }
+}
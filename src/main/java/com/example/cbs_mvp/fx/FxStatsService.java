@@ -0,0 +1,249 @@
+package com.example.cbs_mvp.fx;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.cbs_mvp.entity.FxRateHistory;
+import com.example.cbs_mvp.ops.SystemFlagService;
+import com.example.cbs_mvp.repo.FxRateHistoryRepository;
+
+/**
+ * FXレートの時系列統計サービス
+ * - 通貨ペアごとにローリングウィンドウ（デフォルト30日）の統計を逐次更新
+ * - min/max、EWMA、ボラティリティはレート更新時にO(1)（償却）で更新
+ * - 参照側は不変スナップショットを読むだけ（ロック・DBアクセスなし）
+ * - 起動時のみ fx_rate_history（fetched_at の BRIN インデックス）から復元
+ */
+@Service
+public class FxStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(FxStatsService.class);
+    private static final double MILLIS_PER_DAY = 86_400_000d;
+    private static final double EWMA_LAMBDA = 0.94; // RiskMetrics
+    private static final double EWMA_RATE_ALPHA = 0.2;
+
+    private static final String FLAG_FX_BUFFER = "FX_BUFFER";
+    private static final String FLAG_FX_BUFFER_MODE = "FX_BUFFER_MODE"; // STATIC / VOLATILITY
+    private static final String FLAG_FX_BUFFER_VOL_MULTIPLIER = "FX_BUFFER_VOL_MULTIPLIER";
+    private static final String FLAG_FX_BUFFER_HORIZON_DAYS = "FX_BUFFER_HORIZON_DAYS";
+    private static final String FLAG_FX_BUFFER_MAX = "FX_BUFFER_MAX";
+
+    private final FxRateHistoryRepository historyRepo;
+    private final SystemFlagService flags;
+
+    private final Map<String, RollingSeries> series = new ConcurrentHashMap<>();
+    private final Map<String, FxStats> snapshots = new ConcurrentHashMap<>();
+
+    @Value("${fx.stats.window-days:30}")
+    private int windowDays = 30;
+
+    @Value("${fx.base-currency:USD}")
+    private String baseCurrency = "USD";
+
+    @Value("${fx.target-currency:JPY}")
+    private String targetCurrency = "JPY";
+
+    public FxStatsService(FxRateHistoryRepository historyRepo, SystemFlagService flags) {
+        this.historyRepo = historyRepo;
+        this.flags = flags;
+    }
+
+    /**
+     * 起動時にウィンドウ分の履歴を読み込んで統計を復元
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            Instant since = Instant.now().minus(Duration.ofDays(windowDays));
+            int loaded = 0;
+            for (FxRateHistory h : historyRepo.findByFetchedAtAfterOrderByFetchedAtAsc(since)) {
+                record(h.getBaseCurrency(), h.getTargetCurrency(), h.getFetchedAt(), h.getRate());
+                loaded++;
+            }
+            log.info("FX stats warmed up: {} samples, {} pairs", loaded, snapshots.size());
+        } catch (Exception e) {
+            log.warn("FX stats warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 新しいレートを取り込み、スナップショットを更新
+     */
+    public FxStats record(String base, String target, Instant at, BigDecimal rate) {
+        if (base == null || target == null || rate == null || rate.signum() <= 0) {
+            return null;
+        }
+        String pair = FxRateTable.pair(base, target);
+        long epochMillis = (at != null ? at : Instant.now()).toEpochMilli();
+        RollingSeries s = series.computeIfAbsent(pair, k -> new RollingSeries());
+        FxStats stats;
+        synchronized (s) {
+            s.add(epochMillis, rate.doubleValue(), windowDays * (long) MILLIS_PER_DAY);
+            stats = s.snapshot(pair, windowDays);
+        }
+        snapshots.put(pair, stats);
+        return stats;
+    }
+
+    public FxStats stats(String pair) {
+        return pair == null ? null : snapshots.get(pair.trim().toUpperCase());
+    }
+
+    public Map<String, FxStats> allStats() {
+        return new TreeMap<>(snapshots);
+    }
+
+    /**
+     * 価格計算用のFXバッファ
+     * - FX_BUFFER_MODE=STATIC（デフォルト）: FX_BUFFER をそのまま使う
+     * - FX_BUFFER_MODE=VOLATILITY: 主ペアの直近ボラティリティから算出
+     *   buffer = clamp(multiplier × dailyVol × √horizonDays, FX_BUFFER, FX_BUFFER_MAX)
+     * 履歴テーブルは参照しない（メモリ上のスナップショットのみ）
+     */
+    public BigDecimal fxBuffer() {
+        BigDecimal staticBuffer = bd(flags.get(FLAG_FX_BUFFER), "0.03");
+        if (!"VOLATILITY".equalsIgnoreCase(s(flags.get(FLAG_FX_BUFFER_MODE), "STATIC"))) {
+            return staticBuffer;
+        }
+        FxStats st = stats(FxRateTable.pair(baseCurrency, targetCurrency));
+        if (st == null || !st.hasVolatility()) {
+            return staticBuffer;
+        }
+        double multiplier = bd(flags.get(FLAG_FX_BUFFER_VOL_MULTIPLIER), "2.33").doubleValue();
+        double horizonDays = bd(flags.get(FLAG_FX_BUFFER_HORIZON_DAYS), "7").doubleValue();
+        BigDecimal max = bd(flags.get(FLAG_FX_BUFFER_MAX), "0.10");
+
+        double vol = Math.max(st.volatilityDaily(), st.ewmaVolatility());
+        BigDecimal derived = BigDecimal.valueOf(multiplier * vol * Math.sqrt(Math.max(horizonDays, 0d)))
+                .setScale(4, RoundingMode.CEILING);
+        return derived.max(staticBuffer).min(max.max(staticBuffer));
+    }
+
+    private static BigDecimal bd(String s, String def) {
+        String v = (s == null || s.isBlank()) ? def : s.trim();
+        return new BigDecimal(v);
+    }
+
+    private static String s(String v, String def) {
+        return (v == null || v.isBlank()) ? def : v.trim();
+    }
+
+    /**
+     * 1通貨ペア分の時系列。呼び出し側で同期すること。
+     * リターンは取得間隔の違いを吸収するため √日 で正規化（1日換算）。
+     */
+    private static final class RollingSeries {
+        private final Deque<Sample> samples = new ArrayDeque<>();
+        private final Deque<Sample> minQ = new ArrayDeque<>(); // レート昇順の単調キュー
+        private final Deque<Sample> maxQ = new ArrayDeque<>(); // レート降順の単調キュー
+        private double sumReturn;
+        private double sumReturnSq;
+        private int returnCount;
+        private double ewmaRate = Double.NaN;
+        private double ewmaVariance = Double.NaN;
+
+        void add(long epochMillis, double rate, long windowMillis) {
+            Sample last = samples.peekLast();
+            if (last != null && epochMillis < last.epochMillis) {
+                return; // 追記のみ（過去データは無視）
+            }
+            double ret = Double.NaN;
+            if (last != null) {
+                double days = Math.max(epochMillis - last.epochMillis, 1L) / MILLIS_PER_DAY;
+                ret = Math.log(rate / last.rate) / Math.sqrt(days);
+                sumReturn += ret;
+                sumReturnSq += ret * ret;
+                returnCount++;
+                ewmaVariance = Double.isNaN(ewmaVariance)
+                        ? ret * ret
+                        : EWMA_LAMBDA * ewmaVariance + (1 - EWMA_LAMBDA) * ret * ret;
+            }
+            ewmaRate = Double.isNaN(ewmaRate) ? rate : EWMA_RATE_ALPHA * rate + (1 - EWMA_RATE_ALPHA) * ewmaRate;
+
+            Sample sample = new Sample(epochMillis, rate, ret);
+            samples.addLast(sample);
+            while (!minQ.isEmpty() && minQ.peekLast().rate >= rate) {
+                minQ.pollLast();
+            }
+            minQ.addLast(sample);
+            while (!maxQ.isEmpty() && maxQ.peekLast().rate <= rate) {
+                maxQ.pollLast();
+            }
+            maxQ.addLast(sample);
+
+            evict(epochMillis - windowMillis);
+        }
+
+        private void evict(long cutoff) {
+            while (samples.size() > 1 && samples.peekFirst().epochMillis < cutoff) {
+                Sample old = samples.pollFirst();
+                if (minQ.peekFirst() == old) {
+                    minQ.pollFirst();
+                }
+                if (maxQ.peekFirst() == old) {
+                    maxQ.pollFirst();
+                }
+                // 先頭になったサンプルのリターンはウィンドウ外の値を参照しているので外す
+                Sample head = samples.peekFirst();
+                if (!Double.isNaN(head.ret)) {
+                    sumReturn -= head.ret;
+                    sumReturnSq -= head.ret * head.ret;
+                    returnCount--;
+                    head.ret = Double.NaN;
+                }
+            }
+        }
+
+        FxStats snapshot(String pair, int windowDays) {
+            Sample last = samples.peekLast();
+            double vol = 0d;
+            if (returnCount > 1) {
+                double mean = sumReturn / returnCount;
+                double variance = (sumReturnSq - returnCount * mean * mean) / (returnCount - 1);
+                vol = Math.sqrt(Math.max(variance, 0d));
+            }
+            double ewmaVol = Double.isNaN(ewmaVariance) ? 0d : Math.sqrt(ewmaVariance);
+            return new FxStats(
+                    pair,
+                    samples.size(),
+                    windowDays,
+                    decimal(last.rate),
+                    Instant.ofEpochMilli(last.epochMillis),
+                    decimal(minQ.peekFirst().rate),
+                    decimal(maxQ.peekFirst().rate),
+                    decimal(ewmaRate),
+                    vol,
+                    ewmaVol);
+        }
+
+        private static BigDecimal decimal(double v) {
+            return BigDecimal.valueOf(v).setScale(4, RoundingMode.HALF_UP);
+        }
+    }
+
+    private static final class Sample {
+        final long epochMillis;
+        final double rate;
+        double ret;
+
+        Sample(long epochMillis, double rate, double ret) {
+            this.epochMillis = epochMillis;
+            this.rate = rate;
+            this.ret = ret;
+        }
+    }
+}
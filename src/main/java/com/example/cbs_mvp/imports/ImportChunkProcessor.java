@@ -0,0 +1,51 @@
+package com.example.cbs_mvp.imports;
+
+import java.util.List;
+
+import com.example.cbs_mvp.entity.ImportJob;
+
+/**
+ * 取込ジョブの種類ごとの処理（ImportJobService がファイルを読み、chunkSize 行ずつ渡す）
+ * 1回の process 呼び出しで書いた内容はそのチャンク内でコミットすること（戻った時点でチェックポイントを記録する）。
+ * チェックポイント前に停止したチャンクは再開時にもう一度渡されるため、同じ行を2回処理しても結果が変わらないようにする
+ * （例: 追加した行にジョブIDと行番号を残し、再処理では追加済みとして数える。CandidateCsvImportService 参照）。
+ */
+public interface ImportChunkProcessor {
+
+    /**
+     * import_jobs.kind
+     */
+    String kind();
+
+    /**
+     * ヘッダー行の検証（BOM 除去済み）
+     *
+     * @return ファイル全体のエラー。正常なら null
+     */
+    String checkHeader(String headerLine);
+
+    /**
+     * ジョブの開始時（再開時を含む）に1回呼ばれる。ジョブ全体で共有する値の準備に使う。
+     * 例外を投げるとジョブは FAILED になる。
+     */
+    default void prepare(ImportJob job) {
+    }
+
+    Result process(ImportJob job, String headerLine, List<Line> lines);
+
+    /**
+     * @param lineNumber ファイル先頭（ヘッダー）を 1 とした行番号
+     */
+    record Line(int lineNumber, String text) {
+    }
+
+    record RowError(int lineNumber, String message) {
+    }
+
+    /**
+     * @param success 追加した行数
+     * @param updated 既存を更新した行数
+     */
+    record Result(int success, int updated, int skipped, List<RowError> errors) {
+    }
+}
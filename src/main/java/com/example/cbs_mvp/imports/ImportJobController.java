@@ -0,0 +1,113 @@
+package com.example.cbs_mvp.imports;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.cbs_mvp.entity.ImportJob;
+
+/**
+ * CSV取込ジョブの進捗・取消・エラーCSV
+ * ジョブの登録は各アップロードAPI（/candidates/import-csv, /discovery/feeds/csv）で行う。
+ */
+@RestController
+@RequestMapping("/imports")
+public class ImportJobController {
+
+    private final ImportJobService jobs;
+
+    public ImportJobController(ImportJobService jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * GET /imports
+     * 直近のジョブ（新しい順に最大50件）
+     */
+    @GetMapping
+    public ResponseEntity<?> list() {
+        return ResponseEntity.ok(jobs.recent().stream().map(ImportJobController::view).toList());
+    }
+
+    /**
+     * GET /imports/{id}
+     * 進捗（processedLines / totalLines）と件数
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(@PathVariable Long id) {
+        return jobs.find(id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(view(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "import job not found")));
+    }
+
+    /**
+     * POST /imports/{id}/cancel
+     * 未開始なら即取消、実行中なら次のチャンクの前に止める（コミット済みのチャンクは残る）
+     */
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancel(@PathVariable Long id) {
+        if (jobs.find(id).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "import job not found"));
+        }
+        if (!jobs.cancel(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "import job already finished"));
+        }
+        return ResponseEntity.accepted().body(view(jobs.find(id).orElseThrow()));
+    }
+
+    /**
+     * GET /imports/{id}/errors
+     * 行ごとのエラー（line,error の CSV）
+     */
+    @GetMapping("/{id}/errors")
+    public ResponseEntity<?> errors(@PathVariable Long id) {
+        Path file = jobs.errorFile(id);
+        if (jobs.find(id).isEmpty() || !Files.exists(file)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "error file not found"));
+        }
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"import-" + id + "-errors.csv\"")
+                .body(new FileSystemResource(file));
+    }
+
+    public static Map<String, Object> view(ImportJob job) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("jobId", job.getJobId());
+        body.put("kind", job.getKind());
+        body.put("status", job.getStatus());
+        body.put("filename", job.getFilename());
+        int dataLines = Math.max(0, job.getTotalLines() - 1);
+        body.put("totalLines", dataLines);
+        body.put("processedLines", job.getProcessedLines());
+        body.put("progress", dataLines == 0 ? (job.isFinished() ? 1.0 : 0.0)
+                : Math.min(1.0, (double) job.getProcessedLines() / dataLines));
+        body.put("successCount", job.getSuccessCount());
+        body.put("updatedCount", job.getUpdatedCount());
+        body.put("skippedCount", job.getSkippedCount());
+        body.put("errorCount", job.getErrorCount());
+        body.put("cancelRequested", job.isCancelRequested());
+        body.put("lastError", job.getLastError());
+        body.put("createdAt", job.getCreatedAt());
+        body.put("startedAt", job.getStartedAt());
+        body.put("finishedAt", job.getFinishedAt());
+        body.put("statusUrl", "/imports/" + job.getJobId());
+        body.put("errorsUrl", "/imports/" + job.getJobId() + "/errors");
+        return body;
+    }
+}
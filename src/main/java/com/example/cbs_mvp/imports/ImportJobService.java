@@ -0,0 +1,361 @@
+package com.example.cbs_mvp.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.cbs_mvp.entity.ImportJob;
+import com.example.cbs_mvp.imports.ImportChunkProcessor.Line;
+import com.example.cbs_mvp.imports.ImportChunkProcessor.Result;
+import com.example.cbs_mvp.imports.ImportChunkProcessor.RowError;
+import com.example.cbs_mvp.live.LiveEvent;
+import com.example.cbs_mvp.live.LiveEventBus;
+import com.example.cbs_mvp.repo.ImportJobRepository;
+import com.example.cbs_mvp.tracing.CorrelationIds;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * CSV取込ジョブ
+ * - 受付: アップロードを spool-dir に保存して import_jobs に QUEUED で登録する（HTTP リクエスト内では処理しない）
+ * - 実行: ImportJobWorker が取得したジョブを chunkSize 行ずつ ImportChunkProcessor に渡し、
+ *   チャンクごとにチェックポイント（処理済み行・件数・エラーCSVの長さ）を記録する
+ * - 再開: リースが切れた RUNNING ジョブはチェックポイントの次の行から処理し直す
+ *   （リースは ImportJobWorker が実行中のあいだ定期的に延長する）
+ * - 実行インスタンス: spool-dir がローカルディスクの場合（shared-spool=false）、ジョブはアップロードを受けた
+ *   インスタンスだけが取得・再開する
+ * - エラー: 行ごとのエラーはメモリに溜めず、ジョブごとのエラーCSV（line,error）に追記する
+ * - 進捗: チェックポイントと終了のたびに import-job 通知（GET /imports/{id} と同じ内容）を出す
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+    private static final String ERROR_CSV_HEADER = "line,error\n";
+
+    private final ImportJobRepository repo;
+    private final Map<String, ImportChunkProcessor> processors = new HashMap<>();
+    private final ObservationRegistry observations;
+    private final LiveEventBus live;
+    private final Path spoolDir;
+    private final int chunkSize;
+    private final long leaseSeconds;
+    private final String instanceId;
+    private final boolean sharedSpool;
+
+    public ImportJobService(
+            ImportJobRepository repo,
+            List<ImportChunkProcessor> processors,
+            ObservationRegistry observations,
+            LiveEventBus live,
+            @Value("${imports.spool-dir:./imports}") String spoolDir,
+            @Value("${imports.chunk-size:1000}") int chunkSize,
+            @Value("${imports.lease-seconds:300}") long leaseSeconds,
+            @Value("${imports.instance-id:${HOSTNAME:local}}") String instanceId,
+            @Value("${imports.shared-spool:false}") boolean sharedSpool) {
+        this.repo = repo;
+        for (ImportChunkProcessor p : processors) {
+            this.processors.put(p.kind(), p);
+        }
+        this.observations = observations;
+        this.live = live;
+        this.spoolDir = Path.of(spoolDir);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.leaseSeconds = leaseSeconds;
+        this.instanceId = instanceId;
+        this.sharedSpool = sharedSpool;
+    }
+
+    /**
+     * アップロードをローカルに保存してジョブを登録する
+     */
+    public ImportJob submit(String kind, String filename, InputStream in, boolean skipDuplicates,
+            boolean autoFilterProfit) throws IOException {
+        if (!processors.containsKey(kind)) {
+            throw new IllegalArgumentException("unknown import kind: " + kind);
+        }
+        Files.createDirectories(spoolDir);
+        Path spool = Files.createTempFile(spoolDir, "upload-", ".csv");
+        try {
+            int totalLines = spool(in, spool);
+
+            ImportJob job = new ImportJob();
+            job.setKind(kind);
+            job.setFilename(filename);
+            job.setSpoolPath(spool.toAbsolutePath().toString());
+            job.setTotalLines(totalLines);
+            job.setSkipDuplicates(skipDuplicates);
+            job.setAutoFilterProfit(autoFilterProfit);
+            job.setCorrelationId(CorrelationIds.current());
+            job.setOwnerInstance(instanceId);
+            job = repo.save(job);
+            log.info("Import job queued: id={}, kind={}, lines={}, file={}", job.getJobId(), kind, totalLines,
+                    filename);
+            return job;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+    }
+
+    public Optional<ImportJob> find(Long jobId) {
+        return repo.findById(jobId);
+    }
+
+    public List<ImportJob> recent() {
+        return repo.findTop50ByOrderByJobIdDesc();
+    }
+
+    /**
+     * 未開始ならその場で CANCELLED、実行中なら次のチャンクの前に止める
+     *
+     * @return 取消を受け付けたか（終了済みのジョブは false）
+     */
+    public boolean cancel(Long jobId) {
+        ImportJob job = repo.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("import job not found: " + jobId));
+        if (repo.cancelQueued(jobId) > 0) {
+            deleteQuietly(Path.of(job.getSpoolPath()));
+            log.info("Import job cancelled before start: id={}", jobId);
+            publishFinished(jobId);
+            return true;
+        }
+        return repo.requestCancel(jobId) > 0;
+    }
+
+    /**
+     * ジョブのエラーCSV（無ければ存在しないパス）
+     */
+    public Path errorFile(Long jobId) {
+        return spoolDir.resolve("import-" + jobId + "-errors.csv");
+    }
+
+    /**
+     * 実行するジョブを1件取得する（待機中、またはリースが切れた実行中）
+     */
+    public Optional<ImportJob> claimNext() {
+        return repo.claimNext(LocalDateTime.now().minusSeconds(leaseSeconds), instanceId, sharedSpool)
+                .stream().findFirst();
+    }
+
+    /**
+     * 実行中のジョブのリースを延長する
+     */
+    public void renewLeases(Collection<Long> jobIds) {
+        if (!jobIds.isEmpty()) {
+            repo.renewLeases(jobIds);
+        }
+    }
+
+    /**
+     * ジョブをチェックポイントの次の行から最後まで処理する。
+     * スレッドが割り込まれた場合（シャットダウン）はチャンクの区切りで止め、待機中に戻す。
+     */
+    public void run(ImportJob job) {
+        Long id = job.getJobId();
+        ImportChunkProcessor processor = processors.get(job.getKind());
+        if (processor == null) {
+            repo.finish(id, "FAILED", "unknown import kind: " + job.getKind());
+            publishFinished(id);
+            return;
+        }
+        Path spool = Path.of(job.getSpoolPath());
+        log.info("Import job started: id={}, kind={}, resumeAfterLine={}", id, job.getKind(), job.getCheckpointLine());
+
+        String outcome;
+        try {
+            processor.prepare(job);
+            if (job.getFxRate() != null) {
+                repo.recordFxRate(id, job.getFxRate());
+            }
+            outcome = process(job, processor, spool);
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                outcome = "INTERRUPTED";
+            } else {
+                log.error("Import job failed: id={}", id, e);
+                repo.finish(id, "FAILED", e.getMessage());
+                publishFinished(id);
+                return;
+            }
+        }
+
+        switch (outcome) {
+            case "INTERRUPTED" -> {
+                repo.requeue(id);
+                log.info("Import job interrupted, requeued: id={}", id);
+            }
+            case "CANCELLED" -> {
+                repo.finish(id, "CANCELLED", null);
+                deleteQuietly(spool);
+                log.info("Import job cancelled: id={}", id);
+            }
+            default -> {
+                repo.finish(id, "COMPLETED", null);
+                deleteQuietly(spool);
+                log.info("Import job completed: id={}, success={}, updated={}, skipped={}, errors={}", id,
+                        job.getSuccessCount(), job.getUpdatedCount(), job.getSkippedCount(), job.getErrorCount());
+            }
+        }
+        publishFinished(id);
+    }
+
+    // 終了後の状態は import_jobs から読み直す（status・finished_at は UPDATE 文で設定している）
+    private void publishFinished(Long jobId) {
+        if (live.isActive()) {
+            repo.findById(jobId).ifPresent(j -> live.publish(
+                    new LiveEvent("import-job", String.valueOf(jobId), ImportJobController.view(j))));
+        }
+    }
+
+    private String process(ImportJob job, ImportChunkProcessor processor, Path spool) throws IOException {
+        Long id = job.getJobId();
+        Path errorFile = errorFile(id);
+        resetErrorFile(errorFile, job.getErrorFileBytes());
+
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8);
+                Writer errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("Empty file");
+            }
+            if (header.startsWith("\uFEFF")) {
+                header = header.substring(1);
+            }
+            String headerError = processor.checkHeader(header);
+            if (headerError != null) {
+                throw new IllegalArgumentException(headerError);
+            }
+
+            // チェックポイントまで読み飛ばす
+            int lineNumber = 1;
+            while (lineNumber < job.getCheckpointLine() && reader.readLine() != null) {
+                lineNumber++;
+            }
+
+            List<Line> chunk = new ArrayList<>(Math.min(chunkSize, 4096));
+            boolean eof = false;
+            while (!eof) {
+                String raw = reader.readLine();
+                if (raw == null) {
+                    eof = true;
+                } else {
+                    lineNumber++;
+                    chunk.add(new Line(lineNumber, raw));
+                }
+                if (chunk.isEmpty() || (!eof && chunk.size() < chunkSize)) {
+                    continue;
+                }
+
+                if (Thread.currentThread().isInterrupted()) {
+                    return "INTERRUPTED";
+                }
+                if (Boolean.TRUE.equals(repo.isCancelRequested(id))) {
+                    return "CANCELLED";
+                }
+
+                String header0 = header;
+                Result result = Observation.createNotStarted("cbs.import.chunk", observations)
+                        .contextualName("import.chunk")
+                        .lowCardinalityKeyValue("kind", job.getKind())
+                        .highCardinalityKeyValue("job", String.valueOf(id))
+                        .observe(() -> processor.process(job, header0, chunk));
+
+                for (RowError e : result.errors()) {
+                    errors.write(csv(e.lineNumber()) + "," + csv(e.message()) + "\n");
+                }
+                errors.flush();
+
+                job.setCheckpointLine(lineNumber);
+                job.setSuccessCount(job.getSuccessCount() + result.success());
+                job.setUpdatedCount(job.getUpdatedCount() + result.updated());
+                job.setSkippedCount(job.getSkippedCount() + result.skipped());
+                job.setErrorCount(job.getErrorCount() + result.errors().size());
+                job.setErrorFileBytes(Files.size(errorFile));
+                repo.checkpoint(id, job.getCheckpointLine(), job.getSuccessCount(), job.getUpdatedCount(),
+                        job.getSkippedCount(), job.getErrorCount(), job.getErrorFileBytes());
+                if (live.isActive()) {
+                    live.publish(new LiveEvent("import-job", String.valueOf(id), ImportJobController.view(job)));
+                }
+                chunk.clear();
+            }
+        }
+        return "COMPLETED";
+    }
+
+    /**
+     * 最初の実行ならヘッダーだけのファイルを作り、再開ならチェックポイント時点の長さまで切り詰める
+     * （チェックポイント前に書いたエラーは、そのチャンクを処理し直すときにもう一度書かれる）
+     */
+    private static void resetErrorFile(Path errorFile, long checkpointBytes) throws IOException {
+        if (checkpointBytes <= 0 || !Files.exists(errorFile)) {
+            Files.writeString(errorFile, ERROR_CSV_HEADER, StandardCharsets.UTF_8);
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(errorFile, StandardOpenOption.WRITE)) {
+            ch.truncate(checkpointBytes);
+        }
+    }
+
+    /**
+     * @return 行数（最終行が改行で終わらない場合も1行と数える）
+     */
+    private static int spool(InputStream in, Path target) throws IOException {
+        int lines = 0;
+        int last = '\n';
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream src = in; OutputStream out = Files.newOutputStream(target)) {
+            int n;
+            while ((n = src.read(buf)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    if (buf[i] == '\n') {
+                        lines++;
+                    }
+                }
+                last = buf[n - 1];
+                out.write(buf, 0, n);
+            }
+        }
+        return last == '\n' ? lines : lines + 1;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled upload: {}", path, e);
+        }
+    }
+
+    private static String csv(Object v) {
+        if (v == null) return "";
+        String s = String.valueOf(v);
+        boolean needsQuote = s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r");
+        if (needsQuote) {
+            s = s.replace("\"", "\"\"");
+            return "\"" + s + "\"";
+        }
+        return s;
+    }
+}
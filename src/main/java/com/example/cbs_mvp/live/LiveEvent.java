@@ -0,0 +1,23 @@
+package com.example.cbs_mvp.live;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 画面へ送る変更通知（SSE の event 名 = type）
+ * - key: 同じ type・key の通知は送信前に最後の1件にまとめる（null は件数だけの通知など）
+ * - data: JSON にして送る。値は null を含んでもよい
+ */
+public record LiveEvent(String type, String key, Map<String, Object> data) {
+
+    /**
+     * data を「名前, 値, 名前, 値, ...」で組み立てる
+     */
+    public static LiveEvent of(String type, Object key, Object... keyValues) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            data.put(String.valueOf(keyValues[i]), keyValues[i + 1]);
+        }
+        return new LiveEvent(type, key == null ? null : String.valueOf(key), data);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.cbs_mvp.live;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 書き込み側から画面への変更通知を受け付けるプロセス内のキュー
+ * - 購読者がいないときは何もしない（書き込みの経路に負担をかけない）
+ * - トランザクション内から発行した場合はコミット後にキューへ入れる（ロールバックした変更は通知しない）
+ * - キューは capacity 件まで。溢れた場合は以降を捨て、次の drain で resync（全体の再読み込み）を1件だけ出す
+ * - drain では同じ type・key を最後の1件にまとめ、type ごとに max-per-type 件を超えたら件数だけの通知にする
+ */
+@Component
+public class LiveEventBus {
+
+    /** キューが溢れた後に出す通知。画面は表示中のデータをすべて読み直す */
+    public static final String RESYNC = "resync";
+
+    private final LiveFeedHub hub;
+    private final BlockingQueue<LiveEvent> queue;
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private final int maxPerType;
+
+    public LiveEventBus(
+            LiveFeedHub hub,
+            @Value("${live.queue-capacity:10000}") int capacity,
+            @Value("${live.max-events-per-type:200}") int maxPerType) {
+        this.hub = hub;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.maxPerType = Math.max(1, maxPerType);
+    }
+
+    /**
+     * 購読者がいるか（通知の中身を作るのに問い合わせが要る場合、先に確認する）
+     */
+    public boolean isActive() {
+        return hub.hasSubscribers();
+    }
+
+    public void publish(LiveEvent event) {
+        if (event == null || !hub.hasSubscribers()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * 溜まった通知を取り出してまとめる（LiveFeedDispatcher から呼ぶ）
+     */
+    public List<LiveEvent> drain() {
+        Map<String, LiveEvent> latest = new LinkedHashMap<>();
+        Map<String, Integer> perType = new LinkedHashMap<>();
+        LiveEvent event;
+        while ((event = queue.poll()) != null) {
+            String id = event.type() + "\u0000" + event.key();
+            // 後の通知を後ろへ（まとめた後も最後に変わった順に並ぶ）
+            if (latest.remove(id) == null) {
+                perType.merge(event.type(), 1, Integer::sum);
+            }
+            latest.put(id, event);
+        }
+
+        List<LiveEvent> events = new ArrayList<>(latest.size() + 1);
+        Map<String, Boolean> truncated = new LinkedHashMap<>();
+        for (LiveEvent e : latest.values()) {
+            int count = perType.get(e.type());
+            if (count <= maxPerType) {
+                events.add(e);
+            } else if (truncated.putIfAbsent(e.type(), Boolean.TRUE) == null) {
+                events.add(LiveEvent.of(e.type(), null, "count", count, "truncated", true));
+            }
+        }
+        if (overflowed.getAndSet(false)) {
+            events.add(LiveEvent.of(RESYNC, null));
+        }
+        return events;
+    }
+
+    /**
+     * 未送信の通知を捨てる（購読者がいなくなったとき）
+     */
+    public void clear() {
+        queue.clear();
+        overflowed.set(false);
+    }
+
+    private void enqueue(LiveEvent event) {
+        if (!queue.offer(event)) {
+            overflowed.set(true);
+        }
+    }
+}
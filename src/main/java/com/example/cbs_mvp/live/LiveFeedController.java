@@ -0,0 +1,40 @@
+package com.example.cbs_mvp.live;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 画面向けの変更通知（Server-Sent Events）
+ */
+@RestController
+@RequestMapping("/live")
+public class LiveFeedController {
+
+    private final LiveFeedHub hub;
+
+    public LiveFeedController(LiveFeedHub hub) {
+        this.hub = hub;
+    }
+
+    /**
+     * GET /live/stream
+     * event: candidate / draft / discovery / killswitch / import-job / dashboard / resync
+     * data: JSON。購読数の上限に達している場合は 503（Retry-After 付き）
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<?> stream() {
+        return hub.subscribe()
+                .<ResponseEntity<?>>map(emitter -> ResponseEntity.ok()
+                        // リバースプロキシでバッファさせない
+                        .header("X-Accel-Buffering", "no")
+                        .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                        .body(emitter))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .build());
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.cbs_mvp.live;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.cbs_mvp.config.WorkerThreads;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * /live/stream の購読者（SseEmitter）の登録簿
+ * - 購読数は max-subscribers まで（超えたら受け付けない）
+ * - 通知は1件ごとに1回だけ JSON にして、全購読者へ同じフレームを渡す
+ * - 書き込みは購読者ごとのキュー（subscriber-queue 件まで）と送信タスクで行い、呼び出し元（LiveFeedDispatcher）は待たない。
+ *   止まった接続があっても他の購読者への送信は遅れない
+ * - キューが溢れた購読者、1回の書き込みが send-timeout-ms を超えている購読者は遅れているとみなして外す
+ *   （接続は閉じ、画面は再接続して読み直す）
+ * - 書き込みに失敗した購読者（切断済み）はその場で外す
+ */
+@Component
+public class LiveFeedHub {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveFeedHub.class);
+
+    private static final MediaType TEXT_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+
+    private final Map<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final ExecutorService sender;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final int queueCapacity;
+    private final long sendTimeoutNanos;
+
+    @Autowired
+    public LiveFeedHub(
+            ObjectMapper objectMapper,
+            WorkerThreads workerThreads,
+            @Value("${live.max-subscribers:50}") int maxSubscribers,
+            @Value("${live.timeout-ms:1800000}") long timeoutMs,
+            @Value("${live.subscriber-queue:256}") int queueCapacity,
+            @Value("${live.send-timeout-ms:10000}") long sendTimeoutMs) {
+        // 送信タスクは購読者ごとに高々1つなので、スレッド数は購読数を超えない
+        this(objectMapper, Executors.newCachedThreadPool(workerThreads.factory("live-send")),
+                maxSubscribers, timeoutMs, queueCapacity, sendTimeoutMs);
+    }
+
+    LiveFeedHub(ObjectMapper objectMapper, ExecutorService sender, int maxSubscribers, long timeoutMs,
+            int queueCapacity, long sendTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.sender = sender;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * @return 上限に達している場合は空
+     */
+    public Optional<SseEmitter> subscribe() {
+        return register(new SseEmitter(timeoutMs));
+    }
+
+    Optional<SseEmitter> register(SseEmitter emitter) {
+        if (subscribers.size() >= maxSubscribers) {
+            return Optional.empty();
+        }
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> {
+            subscribers.remove(emitter);
+            emitter.complete();
+        });
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.put(emitter, new Subscriber(emitter, queueCapacity));
+        log.debug("Live feed subscribed: subscribers={}", subscribers.size());
+        return Optional.of(emitter);
+    }
+
+    public int subscribers() {
+        return subscribers.size();
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    public void broadcast(List<LiveEvent> events) {
+        if (events.isEmpty() || subscribers.isEmpty()) {
+            return;
+        }
+        List<Set<DataWithMediaType>> frames = events.stream().map(this::frame).toList();
+        long now = System.nanoTime();
+        for (Subscriber s : subscribers.values()) {
+            enqueue(s, frames, now);
+        }
+    }
+
+    /**
+     * コメント行だけを送る（プロキシのアイドル切断を防ぎ、切断済みの購読者を見つける）
+     */
+    public void heartbeat() {
+        List<Set<DataWithMediaType>> frames = List.of(SseEmitter.event().comment("hb").build());
+        long now = System.nanoTime();
+        for (Subscriber s : subscribers.values()) {
+            enqueue(s, frames, now);
+        }
+    }
+
+    private void enqueue(Subscriber s, List<Set<DataWithMediaType>> frames, long now) {
+        long since = s.sendingSince;
+        if (since != 0 && now - since > sendTimeoutNanos) {
+            drop(s, "send timed out");
+            return;
+        }
+        for (Set<DataWithMediaType> frame : frames) {
+            if (!s.queue.offer(frame)) {
+                drop(s, "queue full");
+                return;
+            }
+        }
+        schedule(s);
+    }
+
+    private void schedule(Subscriber s) {
+        if (!s.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(() -> drain(s));
+        } catch (RejectedExecutionException e) {
+            // 停止中: 送れないので外すだけ（接続はコンテナが閉じる）
+            s.scheduled.set(false);
+            s.closed = true;
+            subscribers.remove(s.emitter);
+        }
+    }
+
+    // 購読者ごとに1スレッドだけが実行する（scheduled で排他）
+    private void drain(Subscriber s) {
+        try {
+            Set<DataWithMediaType> frame;
+            while (!s.closed && (frame = s.queue.poll()) != null) {
+                s.sendingSince = System.nanoTime();
+                try {
+                    s.emitter.send(frame);
+                } catch (IOException | IllegalStateException e) {
+                    drop(s, e.toString());
+                } finally {
+                    s.sendingSince = 0;
+                }
+            }
+            if (s.closed && s.completed.compareAndSet(false, true)) {
+                // 遅れて外した購読者の接続を閉じる（書き込みと同じスレッドで行い、止まった書き込みを待つのはこのタスクだけ）
+                s.emitter.complete();
+            }
+        } finally {
+            s.scheduled.set(false);
+        }
+        // scheduled を戻す前に積まれた分を取りこぼさない
+        if (!s.queue.isEmpty() && !s.closed) {
+            schedule(s);
+        }
+    }
+
+    private Set<DataWithMediaType> frame(LiveEvent event) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event.data());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("live event is not serializable: " + event.type(), e);
+        }
+        return SseEmitter.event().name(event.type()).data(json, TEXT_UTF8).build();
+    }
+
+    // 書き込みの失敗はコンテナ側でも検知されて onError / onCompletion が呼ばれる。
+    // 遅れによる切り離しは送信タスクが接続を閉じる（ここで complete すると止まった書き込みを待ってしまう）
+    private void drop(Subscriber s, String reason) {
+        s.closed = true;
+        s.queue.clear();
+        if (subscribers.remove(s.emitter) != null) {
+            log.debug("Live feed subscriber dropped: {}", reason);
+        }
+        schedule(s);
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile long sendingSince;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.cbs_mvp.ops;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * 常時 JFR 記録と、指定期間のダンプ・集計
+ * - 起動時に継続記録を開始する（既定の設定 "default" は低オーバーヘッド。ディスク上で maxAge / maxSize を超えた分は捨てられる）
+ * - dump: 継続記録から直近 window 分だけを dumpDir に .jfr として書き出す（古いものから maxDumps 件を超えた分は削除）
+ * - summarize: .jfr からホットメソッド・割り当て箇所・ロック競合の上位と、監視対象クラスの内訳を集計する
+ */
+@Component
+public class FlightRecorderService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderService.class);
+    private static final String APP_PACKAGE = "com.example.cbs_mvp.";
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9._-]+\\.jfr");
+    private static final DateTimeFormatter FILE_TS =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+
+    private final boolean enabled;
+    private final String settings;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final Path dumpDir;
+    private final int maxDumps;
+    private final List<String> watchClasses;
+
+    private volatile Recording continuous;
+    private final ReentrantLock dumpLock = new ReentrantLock();
+
+    public FlightRecorderService(
+            @Value("${ops.jfr.enabled:true}") boolean enabled,
+            @Value("${ops.jfr.settings:default}") String settings,
+            @Value("${ops.jfr.max-age-minutes:360}") long maxAgeMinutes,
+            @Value("${ops.jfr.max-size-mb:256}") long maxSizeMb,
+            @Value("${ops.jfr.dump-dir:./jfr}") String dumpDir,
+            @Value("${ops.jfr.max-dumps:20}") int maxDumps,
+            @Value("${ops.jfr.watch-classes:PricingCalculator,DiscoveryIngestService}") List<String> watchClasses) {
+        this.enabled = enabled;
+        this.settings = settings;
+        this.maxAge = Duration.ofMinutes(Math.max(1, maxAgeMinutes));
+        this.maxSizeBytes = Math.max(1, maxSizeMb) * 1024 * 1024;
+        this.dumpDir = Paths.get(dumpDir).toAbsolutePath().normalize();
+        this.maxDumps = Math.max(1, maxDumps);
+        this.watchClasses = watchClasses.stream().map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            log.info("[JFR] continuous recording disabled");
+            return;
+        }
+        try {
+            Recording r = new Recording(Configuration.getConfiguration(settings));
+            r.setName("cbs-continuous");
+            r.setToDisk(true);
+            r.setMaxAge(maxAge);
+            r.setMaxSize(maxSizeBytes);
+            r.start();
+            continuous = r;
+            log.info("[JFR] continuous recording started settings={} maxAge={} maxSizeMb={}",
+                    settings, maxAge, maxSizeBytes / 1024 / 1024);
+        } catch (IOException | ParseException | RuntimeException ex) {
+            log.warn("[JFR] continuous recording unavailable: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        Recording r = continuous;
+        continuous = null;
+        if (r != null) {
+            r.close();
+        }
+    }
+
+    public boolean isRecording() {
+        Recording r = continuous;
+        return r != null && r.getState() == RecordingState.RUNNING;
+    }
+
+    public Duration maxAge() {
+        return maxAge;
+    }
+
+    public record RecordingInfo(String name, long sizeBytes, Instant createdAt) {
+    }
+
+    /**
+     * 継続記録のうち直近 window 分を書き出す
+     *
+     * @throws IllegalStateException 継続記録が動いていない
+     */
+    public RecordingInfo dump(Duration window) throws IOException {
+        // ファイル書き出しの間もキャリアスレッドを占有しないよう、synchronized ではなく ReentrantLock で直列化する
+        dumpLock.lock();
+        try {
+            return dumpLocked(window);
+        } finally {
+            dumpLock.unlock();
+        }
+    }
+
+    private RecordingInfo dumpLocked(Duration window) throws IOException {
+        Recording r = continuous;
+        if (r == null || r.getState() != RecordingState.RUNNING) {
+            throw new IllegalStateException("continuous recording is not running");
+        }
+        Files.createDirectories(dumpDir);
+
+        Instant end = Instant.now();
+        Instant begin = end.minus(window);
+        Path target = dumpDir.resolve("cbs-" + FILE_TS.format(end) + "-" + window.toMinutes() + "m.jfr");
+        Path tmp = Files.createTempFile(dumpDir, "dump-", ".tmp");
+        try {
+            r.dump(tmp);
+            try (RecordingFile all = new RecordingFile(tmp)) {
+                all.write(target, e -> !e.getEndTime().isBefore(begin));
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        prune();
+        log.info("[JFR] dumped window={} to {}", window, target);
+        return info(target);
+    }
+
+    /**
+     * 書き出し済みの記録（新しい順）
+     */
+    public List<RecordingInfo> list() throws IOException {
+        if (!Files.isDirectory(dumpDir)) {
+            return List.of();
+        }
+        List<RecordingInfo> out = new ArrayList<>();
+        for (Path p : dumpFiles()) {
+            out.add(info(p));
+        }
+        return out;
+    }
+
+    /**
+     * @throws IllegalArgumentException ファイル名が不正
+     */
+    public Optional<Path> find(String name) {
+        if (name == null || !FILE_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("invalid recording name: " + name);
+        }
+        Path p = dumpDir.resolve(name).normalize();
+        if (!p.startsWith(dumpDir) || !Files.isRegularFile(p)) {
+            return Optional.empty();
+        }
+        return Optional.of(p);
+    }
+
+    public record Top(String site, long value) {
+    }
+
+    public record Contention(String site, long events, double totalMs, double maxMs) {
+    }
+
+    public record Watched(long executionSamples, long allocatedBytes) {
+    }
+
+    public record Summary(
+            String name,
+            Instant from,
+            Instant to,
+            long executionSamples,
+            List<Top> hotMethods,
+            List<Top> hotAppMethods,
+            List<Top> allocationSites,
+            List<Top> allocationClasses,
+            List<Contention> lockContention,
+            Map<String, Watched> watched) {
+    }
+
+    /**
+     * ExecutionSample / ObjectAllocationSample / JavaMonitorEnter / ThreadPark を集計する。
+     * 「アプリ側の箇所」はスタックを上からたどって最初に見つかった com.example.cbs_mvp のフレーム。
+     */
+    public Summary summarize(Path file, int top) throws IOException {
+        Map<String, Long> hot = new HashMap<>();
+        Map<String, Long> hotApp = new HashMap<>();
+        Map<String, Long> allocSites = new HashMap<>();
+        Map<String, Long> allocClasses = new HashMap<>();
+        Map<String, double[]> locks = new HashMap<>(); // [件数, 合計ms, 最大ms]
+        Map<String, long[]> watch = new LinkedHashMap<>(); // [サンプル数, 割り当てバイト]
+        watchClasses.forEach(c -> watch.put(c, new long[2]));
+        long samples = 0;
+        Instant from = null;
+        Instant to = null;
+
+        try (RecordingFile rf = new RecordingFile(file)) {
+            while (rf.hasMoreEvents()) {
+                RecordedEvent e = rf.readEvent();
+                from = from == null || e.getStartTime().isBefore(from) ? e.getStartTime() : from;
+                to = to == null || e.getEndTime().isAfter(to) ? e.getEndTime() : to;
+
+                RecordedStackTrace stack = e.getStackTrace();
+                switch (e.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> {
+                        samples++;
+                        if (stack == null || stack.getFrames().isEmpty()) {
+                            continue;
+                        }
+                        hot.merge(frame(stack.getFrames().get(0)), 1L, Long::sum);
+                        String app = appFrame(stack);
+                        if (app != null) {
+                            hotApp.merge(app, 1L, Long::sum);
+                        }
+                        for (String cls : watchedIn(stack)) {
+                            watch.get(cls)[0]++;
+                        }
+                    }
+                    case "jdk.ObjectAllocationSample" -> {
+                        long weight = e.getLong("weight");
+                        RecordedClass type = e.getClass("objectClass");
+                        allocClasses.merge(type == null ? "?" : type.getName(), weight, Long::sum);
+                        allocSites.merge(site(stack), weight, Long::sum);
+                        for (String cls : watchedIn(stack)) {
+                            watch.get(cls)[1] += weight;
+                        }
+                    }
+                    case "jdk.JavaMonitorEnter", "jdk.ThreadPark" -> {
+                        String field = e.hasField("monitorClass") ? "monitorClass" : "parkedClass";
+                        RecordedClass monitor = e.getClass(field);
+                        String key = (monitor == null ? e.getEventType().getName() : monitor.getName())
+                                + " @ " + site(stack);
+                        double ms = e.getDuration().toNanos() / 1_000_000.0;
+                        double[] a = locks.computeIfAbsent(key, k -> new double[3]);
+                        a[0]++;
+                        a[1] += ms;
+                        a[2] = Math.max(a[2], ms);
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        Map<String, Watched> watched = new LinkedHashMap<>();
+        watch.forEach((k, v) -> watched.put(k, new Watched(v[0], v[1])));
+
+        List<Contention> contention = locks.entrySet().stream()
+                .sorted((x, y) -> Double.compare(y.getValue()[1], x.getValue()[1]))
+                .limit(top)
+                .map(en -> new Contention(en.getKey(), (long) en.getValue()[0], en.getValue()[1], en.getValue()[2]))
+                .toList();
+
+        return new Summary(
+                file.getFileName().toString(),
+                from,
+                to,
+                samples,
+                top(hot, top),
+                top(hotApp, top),
+                top(allocSites, top),
+                top(allocClasses, top),
+                contention,
+                watched);
+    }
+
+    private List<String> watchedIn(RecordedStackTrace stack) {
+        if (stack == null || watchClasses.isEmpty()) {
+            return List.of();
+        }
+        List<String> hit = new ArrayList<>(1);
+        for (String cls : watchClasses) {
+            String suffix = "." + cls;
+            for (RecordedFrame f : stack.getFrames()) {
+                if (f.isJavaFrame() && f.getMethod().getType().getName().endsWith(suffix)) {
+                    hit.add(cls);
+                    break;
+                }
+            }
+        }
+        return hit;
+    }
+
+    private static List<Top> top(Map<String, Long> counts, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(e -> new Top(e.getKey(), e.getValue()))
+                .toList();
+    }
+
+    /**
+     * アプリ側のフレームがあればそれを、なければ先頭フレーム
+     */
+    private static String site(RecordedStackTrace stack) {
+        if (stack == null || stack.getFrames().isEmpty()) {
+            return "?";
+        }
+        String app = appFrame(stack);
+        return app != null ? app : frame(stack.getFrames().get(0));
+    }
+
+    private static String appFrame(RecordedStackTrace stack) {
+        for (RecordedFrame f : stack.getFrames()) {
+            if (f.isJavaFrame() && f.getMethod().getType().getName().startsWith(APP_PACKAGE)) {
+                return frame(f);
+            }
+        }
+        return null;
+    }
+
+    private static String frame(RecordedFrame f) {
+        return f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber();
+    }
+
+    private List<Path> dumpFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dumpDir)) {
+            return files
+                    .filter(p -> FILE_NAME.matcher(p.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing(FlightRecorderService::modifiedAt).reversed())
+                    .toList();
+        }
+    }
+
+    private void prune() throws IOException {
+        List<Path> files = dumpFiles();
+        for (int i = maxDumps; i < files.size(); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private static RecordingInfo info(Path p) throws IOException {
+        return new RecordingInfo(p.getFileName().toString(), Files.size(p), modifiedAt(p));
+    }
+
+    private static Instant modifiedAt(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toInstant();
+        } catch (IOException ex) {
+            return Instant.EPOCH;
+        }
+    }
+}
@@ -6,10 +6,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 import com.example.cbs_mvp.entity.StateTransition;
+import com.example.cbs_mvp.live.LiveEvent;
+import com.example.cbs_mvp.live.LiveEventBus;
 import com.example.cbs_mvp.repo.StateTransitionRepository;
+import com.example.cbs_mvp.tracing.CorrelationIds;
 
 @Service
 public class KillSwitchService {
@@ -21,10 +23,13 @@ public class KillSwitchService {
 
     private final SystemFlagRepository flagRepo;
     private final StateTransitionRepository transitionRepo;
+    private final LiveEventBus live;
 
-    public KillSwitchService(SystemFlagRepository flagRepo, StateTransitionRepository transitionRepo) {
+    public KillSwitchService(SystemFlagRepository flagRepo, StateTransitionRepository transitionRepo,
+            LiveEventBus live) {
         this.flagRepo = flagRepo;
         this.transitionRepo = transitionRepo;
+        this.live = live;
     }
 
     public boolean isPaused() {
@@ -63,6 +68,7 @@ public class KillSwitchService {
         log.error("KILL SWITCH ACTIVATED: {}", reasonDetail);
 
         saveTransition("RUNNING", "PAUSED", reasonCode, reasonDetail, actor);
+        live.publish(LiveEvent.of("killswitch", KEY_PAUSED, "paused", true, "reason", nz(reasonDetail)));
     }
 
     @Transactional
@@ -72,6 +78,7 @@ public class KillSwitchService {
         log.info("System Resumed manually.");
 
         saveTransition("PAUSED", "RUNNING", "RESUME", "Manual resume", "USER");
+        live.publish(LiveEvent.of("killswitch", KEY_PAUSED, "paused", false, "reason", ""));
     }
 
     private void saveFlag(String key, String val) {
@@ -90,7 +97,7 @@ public class KillSwitchService {
         st.setReasonCode(reasonCode);
         st.setReasonDetail(reasonDetail);
         st.setActor(actor == null ? "SYSTEM" : actor);
-        st.setCorrelationId(UUID.randomUUID().toString().replace("-", ""));
+        st.setCorrelationId(CorrelationIds.current());
         st.setCreatedAt(LocalDateTime.now());
         transitionRepo.save(st);
     }
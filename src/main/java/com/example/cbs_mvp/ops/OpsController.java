@@ -1,26 +1,28 @@
 package com.example.cbs_mvp.ops;
 
 import com.example.cbs_mvp.repo.CashLedgerRepository;
-import com.example.cbs_mvp.repo.EbayDraftRepository;
-import com.example.cbs_mvp.repo.PurchaseOrderRepository;
-import com.example.cbs_mvp.repo.StateTransitionRepository;
 import com.example.cbs_mvp.service.StateTransitionService;
-import com.example.cbs_mvp.entity.StateTransition;
+import com.example.cbs_mvp.tracing.CorrelationIds;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/ops")
@@ -31,13 +33,10 @@ public class OpsController {
     private final OpsKeyService opsKeyService;
     private final KillSwitchService killSwitchService;
     private final SystemFlagService flags;
-    private final PurchaseOrderRepository poRepo;
     private final CashLedgerRepository cashLedgerRepo;
-    private final EbayDraftRepository draftRepo;
     private final StateTransitionService transitions;
-    private final StateTransitionRepository transitionRepo;
-    private final com.example.cbs_mvp.repo.CandidateRepository candidateRepo;
-    private final com.example.cbs_mvp.repo.PricingResultRepository pricingResultRepo;
+    private final ReportingService reporting;
+    private final FlightRecorderService flightRecorder;
 
     @Value("${OPS_DEFAULT_KEY:}")
     private String opsDefaultKey;
@@ -46,23 +45,17 @@ public class OpsController {
             OpsKeyService opsKeyService,
             KillSwitchService killSwitchService,
             SystemFlagService flags,
-            PurchaseOrderRepository poRepo,
             CashLedgerRepository cashLedgerRepo,
-            EbayDraftRepository draftRepo,
             StateTransitionService transitions,
-            StateTransitionRepository transitionRepo,
-            com.example.cbs_mvp.repo.CandidateRepository candidateRepo,
-            com.example.cbs_mvp.repo.PricingResultRepository pricingResultRepo) {
+            ReportingService reporting,
+            FlightRecorderService flightRecorder) {
         this.opsKeyService = opsKeyService;
         this.killSwitchService = killSwitchService;
         this.flags = flags;
-        this.poRepo = poRepo;
         this.cashLedgerRepo = cashLedgerRepo;
-        this.draftRepo = draftRepo;
         this.transitions = transitions;
-        this.transitionRepo = transitionRepo;
-        this.candidateRepo = candidateRepo;
-        this.pricingResultRepo = pricingResultRepo;
+        this.reporting = reporting;
+        this.flightRecorder = flightRecorder;
     }
 
     @PostConstruct
@@ -130,25 +123,20 @@ public class OpsController {
                     .body(Map.of("error", "X-OPS-KEY or JWT required"));
         }
 
-        BigDecimal openCommitments = nz(poRepo.calculateOpenCommitments());
-        BigDecimal sales30dYen = nz(sumSales30d());
+        ReportingService.OpsSummary s = reporting.summary();
         BigDecimal sales30dFlagYen = bd(flags.get("RECENT_SALES_30D"), "0");
-
-        int draftFailedLast10 = countDraftFailedLast10();
-        int poFailedLast10 = countPoFailedLast10();
-        int trackingFailedLast10 = countTrackingFailedLast10();
-        int lastFailureCount = draftFailedLast10 + poFailedLast10 + trackingFailedLast10;
+        int lastFailureCount = s.draftFailedLast10() + s.poFailedLast10() + s.trackingFailedLast10();
 
         return ResponseEntity.ok(Map.ofEntries(
                 Map.entry("paused", killSwitchService.isPaused()),
                 Map.entry("pauseReason", killSwitchService.getReason()),
                 Map.entry("pauseUpdatedAt", killSwitchService.getUpdatedAt()),
-                Map.entry("openCommitmentsYen", openCommitments),
-                Map.entry("sales30dYen", sales30dYen),
+                Map.entry("openCommitmentsYen", s.openCommitmentsYen()),
+                Map.entry("sales30dYen", s.sales30dYen()),
                 Map.entry("sales30dFlagYen", sales30dFlagYen),
-                Map.entry("draftFailedLast10", draftFailedLast10),
-                Map.entry("poFailedLast10", poFailedLast10),
-                Map.entry("trackingFailedLast10", trackingFailedLast10),
+                Map.entry("draftFailedLast10", s.draftFailedLast10()),
+                Map.entry("poFailedLast10", s.poFailedLast10()),
+                Map.entry("trackingFailedLast10", s.trackingFailedLast10()),
                 Map.entry("lastFailureCount", lastFailureCount),
                 Map.entry("ts", Instant.now().toString())));
     }
@@ -198,31 +186,6 @@ public class OpsController {
         return cashLedgerRepo.sumAmountByEventTypeSince("SALE", fromDate);
     }
 
-    private int countDraftFailedLast10() {
-        var recentDrafts = draftRepo.findRecentByCreatedAt(PageRequest.of(0, 10));
-        return (int) recentDrafts.stream()
-                .filter(draft -> "EBAY_DRAFT_FAILED".equals(draft.getState()))
-                .count();
-    }
-
-    private int countPoFailedLast10() {
-        var recentPos = poRepo.findRecent(PageRequest.of(0, 10));
-        return (int) recentPos.stream()
-                .filter(po -> "PROCUREMENT_FAILED".equals(po.getState()))
-                .count();
-    }
-
-    private int countTrackingFailedLast10() {
-        var recent = transitionRepo.findRecentByEntityTypeAndReasonCode(
-                "ORDER",
-                "EBAY_TRACKING_UPLOAD_FAILED",
-                PageRequest.of(0, 10));
-        return (int) recent.stream()
-                .map(StateTransition::getEntityId)
-                .distinct()
-                .count();
-    }
-
     @GetMapping("/dashboard/stats")
     public ResponseEntity<?> dashboardStats(@RequestHeader(value = "X-OPS-KEY", required = false) String opsKey) {
         if (!opsKeyService.isValid(opsKey)) {
@@ -241,29 +204,104 @@ public class OpsController {
             }
         }
 
-        // 1. Stats from PricingResults (DRAFT_READY)
-        var prStats = pricingResultRepo.findStatsByState("DRAFT_READY");
-        BigDecimal avgProfitRate = nz(prStats.getAvgProfitRate());
-        BigDecimal totalProfitYen = nz(prStats.getTotalProfitYen());
-        BigDecimal totalSalesYen = nz(prStats.getTotalSalesYen());
+        // DRAFT_READY の価格計算結果の集計と、通過率（DRAFT_READY / 判定済み候補）
+        ReportingService.DashboardStats stats = reporting.dashboard();
 
-        // 2. Counts for Pass Rate
-        long countDraftReady = candidateRepo.countByState("DRAFT_READY");
-        long countTotalObj = candidateRepo.countByStateIn(java.util.List.of("CANDIDATE", "DRAFT_READY", "REJECTED"));
+        return ResponseEntity.ok(Map.of(
+                "avgProfitRate", stats.avgProfitRate(),
+                "totalProfitYen", stats.totalProfitYen(),
+                "totalSalesYen", stats.totalSalesYen(),
+                "countDraftReady", stats.countDraftReady(),
+                "countTotalScope", stats.countTotalScope(),
+                "passRate", stats.passRate()));
+    }
 
-        double passRate = (countTotalObj == 0) ? 0.0 : (double) countDraftReady / countTotalObj;
+    /**
+     * 集計表を元の表から数え直す（TRUNCATE や手作業の修正など、トリガーを通らない変更の後に使う）
+     */
+    @PostMapping("/reporting/rebuild")
+    public ResponseEntity<?> rebuildReporting(@RequestHeader(value = "X-OPS-KEY", required = false) String opsKey) {
+        if (!opsKeyService.isValid(opsKey)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "invalid ops key"));
+        }
+        reporting.rebuild();
+        transitions.log("SYSTEM", 0L, null, "REPORTING_REBUILD", "REPORTING_REBUILD", null, "OPS", cid());
+        return ResponseEntity.ok(Map.of("rebuilt", true, "ts", Instant.now().toString()));
+    }
+
+    /**
+     * JFR 継続記録から直近 minutes 分を書き出す
+     */
+    @PostMapping("/jfr/dump")
+    public ResponseEntity<?> jfrDump(
+            @RequestHeader(value = "X-OPS-KEY", required = false) String opsKey,
+            @RequestParam(defaultValue = "10") int minutes) {
+        if (!opsKeyService.isValid(opsKey)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "invalid ops key"));
+        }
+        long maxMinutes = flightRecorder.maxAge().toMinutes();
+        Duration window = Duration.ofMinutes(Math.max(1, Math.min(minutes, maxMinutes)));
+        try {
+            return ResponseEntity.ok(flightRecorder.dump(window));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+        } catch (IOException ex) {
+            log.error("[JFR] dump failed", ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "dump failed"));
+        }
+    }
 
+    @GetMapping("/jfr/recordings")
+    public ResponseEntity<?> jfrRecordings(@RequestHeader(value = "X-OPS-KEY", required = false) String opsKey)
+            throws IOException {
+        if (!opsKeyService.isValid(opsKey)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "invalid ops key"));
+        }
         return ResponseEntity.ok(Map.of(
-                "avgProfitRate", avgProfitRate,
-                "totalProfitYen", totalProfitYen,
-                "totalSalesYen", totalSalesYen,
-                "countDraftReady", countDraftReady,
-                "countTotalScope", countTotalObj,
-                "passRate", passRate));
+                "recording", flightRecorder.isRecording(),
+                "recordings", flightRecorder.list()));
+    }
+
+    /**
+     * 記録の集計（ホットメソッド・割り当て箇所・ロック競合の上位と、監視対象クラスの内訳）
+     */
+    @GetMapping("/jfr/recordings/{name}/summary")
+    public ResponseEntity<?> jfrSummary(
+            @RequestHeader(value = "X-OPS-KEY", required = false) String opsKey,
+            @PathVariable String name,
+            @RequestParam(defaultValue = "20") int top) throws IOException {
+        if (!opsKeyService.isValid(opsKey)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "invalid ops key"));
+        }
+        Optional<Path> file = flightRecorder.find(name);
+        if (file.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(flightRecorder.summarize(file.get(), Math.max(1, Math.min(top, 200))));
+    }
+
+    /**
+     * .jfr のダウンロード（JDK Mission Control で開く用）
+     */
+    @GetMapping("/jfr/recordings/{name}")
+    public ResponseEntity<?> jfrDownload(
+            @RequestHeader(value = "X-OPS-KEY", required = false) String opsKey,
+            @PathVariable String name) {
+        if (!opsKeyService.isValid(opsKey)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "invalid ops key"));
+        }
+        Optional<Path> file = flightRecorder.find(name);
+        if (file.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+                .body(new FileSystemResource(file.get()));
     }
 
     private static String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
     }
 
     private static BigDecimal nz(BigDecimal v) {
@@ -0,0 +1,129 @@
+package com.example.cbs_mvp.ops;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.cbs_mvp.config.DbWorkload;
+import com.example.cbs_mvp.repo.ReportingJdbcRepository;
+import com.example.cbs_mvp.repo.ReportingJdbcRepository.RecentFailures;
+
+/**
+ * /ops/summary・/ops/dashboard/stats の集計値
+ * 書き込み時にトリガーが更新する集計表を読むだけなので、ポーリングの回数が増えても元の表は走査しない。
+ * 読み取りは DbWorkload.reporting で囲み、REPORTING プールの接続を使う（画面・バッチのプールを使わない）。
+ */
+@Service
+public class ReportingService {
+
+    static final String OPEN_COMMITMENTS = "ops.open_commitments_yen";
+    static final String DRAFT_READY_PRICED = "dashboard.draft_ready.priced";
+    static final String DRAFT_READY_PROFIT_RATE_SUM = "dashboard.draft_ready.profit_rate_sum";
+    static final String DRAFT_READY_PROFIT = "dashboard.draft_ready.profit_yen";
+    static final String DRAFT_READY_SALES = "dashboard.draft_ready.sales_yen";
+    static final String CASH_SALE = "cash.SALE";
+
+    private static final String STATE_PREFIX = "candidates.state.";
+    // 通過率の分母（価格計算で判定済みの候補）
+    private static final List<String> PASS_RATE_SCOPE = List.of("CANDIDATE", "DRAFT_READY", "REJECTED");
+    private static final int FAILURE_WINDOW = 10;
+    private static final int SALES_WINDOW_DAYS = 30;
+
+    private final ReportingJdbcRepository reportingRepo;
+
+    public ReportingService(ReportingJdbcRepository reportingRepo) {
+        this.reportingRepo = reportingRepo;
+    }
+
+    public record OpsSummary(
+            BigDecimal openCommitmentsYen,
+            BigDecimal sales30dYen,
+            int draftFailedLast10,
+            int poFailedLast10,
+            int trackingFailedLast10) {
+    }
+
+    public record DashboardStats(
+            BigDecimal avgProfitRate,
+            BigDecimal totalProfitYen,
+            BigDecimal totalSalesYen,
+            long countDraftReady,
+            long countTotalScope) {
+
+        public double passRate() {
+            return countTotalScope == 0 ? 0.0 : (double) countDraftReady / countTotalScope;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public OpsSummary summary() {
+        return DbWorkload.reporting(() -> {
+            Map<String, BigDecimal> counters = reportingRepo.counters(List.of(OPEN_COMMITMENTS));
+            BigDecimal sales = reportingRepo.sumDailySince(CASH_SALE,
+                    LocalDate.now().minusDays(SALES_WINDOW_DAYS));
+            RecentFailures failures = reportingRepo.recentFailures(FAILURE_WINDOW);
+            return new OpsSummary(
+                    yen(counters.get(OPEN_COMMITMENTS)),
+                    yen(sales),
+                    failures.draftFailed(),
+                    failures.poFailed(),
+                    failures.trackingFailed());
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal openCommitmentsYen() {
+        return DbWorkload.reporting(
+                () -> yen(reportingRepo.counters(List.of(OPEN_COMMITMENTS)).get(OPEN_COMMITMENTS)));
+    }
+
+    @Transactional(readOnly = true)
+    public DashboardStats dashboard() {
+        List<String> metrics = new ArrayList<>(List.of(
+                DRAFT_READY_PRICED, DRAFT_READY_PROFIT_RATE_SUM, DRAFT_READY_PROFIT, DRAFT_READY_SALES));
+        PASS_RATE_SCOPE.forEach(state -> metrics.add(STATE_PREFIX + state));
+        Map<String, BigDecimal> counters = DbWorkload.reporting(() -> reportingRepo.counters(metrics));
+
+        long priced = count(counters.get(DRAFT_READY_PRICED));
+        BigDecimal avgProfitRate = priced == 0
+                ? BigDecimal.ZERO
+                : nz(counters.get(DRAFT_READY_PROFIT_RATE_SUM)).divide(BigDecimal.valueOf(priced), 4,
+                        RoundingMode.HALF_UP);
+        long scope = PASS_RATE_SCOPE.stream()
+                .mapToLong(state -> count(counters.get(STATE_PREFIX + state)))
+                .sum();
+        return new DashboardStats(
+                avgProfitRate,
+                yen(counters.get(DRAFT_READY_PROFIT)),
+                yen(counters.get(DRAFT_READY_SALES)),
+                count(counters.get(STATE_PREFIX + "DRAFT_READY")),
+                scope);
+    }
+
+    /**
+     * 元の表から数え直す（トリガーを通らない変更の後の復旧用）
+     */
+    @Transactional
+    public void rebuild() {
+        reportingRepo.rebuild();
+    }
+
+    private static BigDecimal nz(BigDecimal v) {
+        return v == null ? BigDecimal.ZERO : v;
+    }
+
+    // 元の列と同じ小数2桁
+    private static BigDecimal yen(BigDecimal v) {
+        return nz(v).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static long count(BigDecimal v) {
+        return nz(v).longValue();
+    }
+}
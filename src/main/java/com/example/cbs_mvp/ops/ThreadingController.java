@@ -0,0 +1,44 @@
+package com.example.cbs_mvp.ops;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.cbs_mvp.config.WorkerThreads;
+
+/**
+ * スレッド実行モード（仮想/プラットフォーム）とピン留めの発生状況
+ */
+@RestController
+@RequestMapping("/ops/threads")
+public class ThreadingController {
+
+    private final WorkerThreads workerThreads;
+    private final ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor;
+
+    public ThreadingController(
+            WorkerThreads workerThreads,
+            ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor) {
+        this.workerThreads = workerThreads;
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    @GetMapping
+    public Map<String, Object> status() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("mode", workerThreads.isVirtual() ? "VIRTUAL" : "PLATFORM");
+        // プラットフォームスレッドのみの数（仮想スレッドは含まれない）
+        m.put("platformThreads", threads.getThreadCount());
+        m.put("peakPlatformThreads", threads.getPeakThreadCount());
+        VirtualThreadPinningMonitor monitor = pinningMonitor.getIfAvailable();
+        m.put("pinning", monitor == null ? null : monitor.stats());
+        return m;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.cbs_mvp.ops;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * 仮想スレッドのピン留め（キャリアスレッドを手放せない待ち）を JFR の jdk.VirtualThreadPinned で検知する。
+ * 閾値を超えた待ちをログに出し、発生箇所（アプリのスタックフレーム）ごとの件数を /ops/threads で返す。
+ * 仮想スレッドモード（spring.threads.virtual.enabled=true）のときだけ有効。
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.example.cbs_mvp.";
+    private static final int MAX_SITES = 50;
+
+    @Value("${ops.threads.pinned-threshold-ms:20}")
+    private long thresholdMs;
+
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final AtomicLong maxPinnedNanos = new AtomicLong();
+    private final Map<String, LongAdder> bySite = new ConcurrentHashMap<>();
+    private volatile RecordingStream stream;
+
+    @PostConstruct
+    void start() {
+        try {
+            RecordingStream rs = new RecordingStream();
+            rs.enable(EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+            rs.onEvent(EVENT, this::onPinned);
+            rs.startAsync();
+            stream = rs;
+            log.info("[VirtualThreads] pinning monitor started threshold={}ms", thresholdMs);
+        } catch (RuntimeException ex) {
+            log.warn("[VirtualThreads] pinning monitor unavailable: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        RecordingStream rs = stream;
+        if (rs != null) {
+            rs.close();
+        }
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinnedEvents.increment();
+        long nanos = event.getDuration().toNanos();
+        maxPinnedNanos.accumulateAndGet(nanos, Math::max);
+
+        String site = site(event.getStackTrace());
+        LongAdder counter = bySite.get(site);
+        if (counter == null && bySite.size() < MAX_SITES) {
+            counter = bySite.computeIfAbsent(site, k -> new LongAdder());
+        }
+        if (counter != null) {
+            counter.increment();
+        }
+
+        String thread = event.getThread() == null ? "" : event.getThread().getJavaName();
+        log.warn("[VirtualThreads] pinned {}ms thread={} at {}", nanos / 1_000_000, thread, site);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> sites = new LinkedHashMap<>();
+        bySite.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(e -> sites.put(e.getKey(), e.getValue().sum()));
+
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("monitoring", stream != null);
+        m.put("thresholdMs", thresholdMs);
+        m.put("pinnedEvents", pinnedEvents.sum());
+        m.put("maxPinnedMs", maxPinnedNanos.get() / 1_000_000);
+        m.put("sites", sites);
+        return m;
+    }
+
+    /**
+     * 最初に現れるアプリのフレーム（なければ先頭フレーム）
+     */
+    private static String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        RecordedFrame chosen = null;
+        for (RecordedFrame f : frames) {
+            if (f.getMethod() != null && f.getMethod().getType().getName().startsWith(APP_PACKAGE)) {
+                chosen = f;
+                break;
+            }
+        }
+        if (chosen == null && !frames.isEmpty()) {
+            chosen = frames.get(0);
+        }
+        if (chosen == null || chosen.getMethod() == null) {
+            return "unknown";
+        }
+        return chosen.getMethod().getType().getName() + "." + chosen.getMethod().getName()
+                + ":" + chosen.getLineNumber();
+    }
+}
@@ -5,8 +5,10 @@ import java.math.RoundingMode;
 
 import org.springframework.stereotype.Component;
 
+import com.example.cbs_mvp.fx.FxStatsService;
 import com.example.cbs_mvp.ops.SystemFlagService;
 
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 
 @Component
@@ -16,46 +18,80 @@ public class PricingCalculator {
     private final ShipCostTable shipCostTable;
     private final SystemFlagService flags;
     private final com.example.cbs_mvp.repo.PricingRuleRepository pricingRuleRepo;
+    private final FxStatsService fxStats;
 
+    @Observed(name = "cbs.pricing.calculate", contextualName = "pricing.calculate")
     public PricingResponse calculate(PricingRequest in) {
+        return calculate(in, snapshot());
+    }
+
+    /**
+     * 現在のパラメータ（system_flags・pricing_rules・為替バッファ）を読み込む
+     */
+    public PricingPolicy snapshot() {
         // Params（system_flags から読む。無ければデフォルト）
-        BigDecimal fxBuffer = bd(flags.get("FX_BUFFER"), "0.03");
-        BigDecimal domesticShip = bd(flags.get("DOMESTIC_SHIP"), "800");
-        BigDecimal packingMisc = bd(flags.get("PACKING_MISC"), "300");
-        BigDecimal plInbound = bd(flags.get("PL_INBOUND"), "200");
-        BigDecimal plPickPack = bd(flags.get("PL_PICKPACK"), "500");
-        BigDecimal ebayFeeRate = bd(flags.get("EBAY_FEE_RATE"), "0.15");
-        BigDecimal refundResRate = bd(flags.get("REFUND_RES_RATE"), "0.05");
-        BigDecimal profitMinYen = bd(flags.get("PROFIT_MIN_YEN"), "3000");
-        BigDecimal profitMinRate = bd(flags.get("PROFIT_MIN_RATE"), "0.20"); // 0.20
-        BigDecimal defaultWeight = bd(flags.get("DEFAULT_WEIGHT_KG"), "1.500");
-        String defaultSize = s(flags.get("DEFAULT_SIZE_TIER"), "XL");
+        // FX_BUFFER_MODE=VOLATILITY なら直近ボラティリティから算出（メモリ上の統計のみ参照）
+        java.util.List<PricingPolicy.Rule> rules = pricingRuleRepo
+                .findAll(org.springframework.data.domain.Sort.by("priority").descending())
+                .stream()
+                .map(r -> new PricingPolicy.Rule(r.getConditionType(), r.getConditionMin(), r.getConditionMax(),
+                        r.getTargetField(), r.getAdjustmentValue()))
+                .toList();
+
+        return new PricingPolicy(
+                fxStats.fxBuffer(),
+                bd(flags.get("DOMESTIC_SHIP"), "800"),
+                bd(flags.get("PACKING_MISC"), "300"),
+                bd(flags.get("PL_INBOUND"), "200"),
+                bd(flags.get("PL_PICKPACK"), "500"),
+                bd(flags.get("EBAY_FEE_RATE"), "0.15"),
+                bd(flags.get("REFUND_RES_RATE"), "0.05"),
+                bd(flags.get("PROFIT_MIN_YEN"), "3000"),
+                bd(flags.get("PROFIT_MIN_RATE"), "0.20"),
+                bd(flags.get("DEFAULT_WEIGHT_KG"), "1.500"),
+                s(flags.get("DEFAULT_SIZE_TIER"), "XL"),
+                bd(flags.get("MAX_WORST_CASE_LOSS"), "30000"),
+                rules);
+    }
 
-        // Apply Rules
-        java.util.List<com.example.cbs_mvp.entity.PricingRule> rules = pricingRuleRepo
-                .findAll(org.springframework.data.domain.Sort.by("priority").descending());
+    /**
+     * スナップショット済みのパラメータで計算する（DB・フラグを参照しない。並列実行可）
+     */
+    public PricingResponse calculate(PricingRequest in, PricingPolicy policy) {
+        BigDecimal fxBuffer = policy.fxBuffer();
+        BigDecimal domesticShip = policy.domesticShip();
+        BigDecimal packingMisc = policy.packingMisc();
+        BigDecimal plInbound = policy.plInbound();
+        BigDecimal plPickPack = policy.plPickPack();
+        BigDecimal ebayFeeRate = policy.ebayFeeRate();
+        BigDecimal refundResRate = policy.refundResRate();
+        BigDecimal profitMinYen = policy.profitMinYen();
+        BigDecimal profitMinRate = policy.profitMinRate();
+        BigDecimal defaultWeight = policy.defaultWeight();
+        String defaultSize = policy.defaultSize();
 
-        for (com.example.cbs_mvp.entity.PricingRule r : rules) {
+        // Apply Rules
+        for (PricingPolicy.Rule r : policy.rules()) {
             boolean match = false;
-            if ("SOURCE_PRICE".equals(r.getConditionType())) {
+            if ("SOURCE_PRICE".equals(r.conditionType())) {
                 BigDecimal p = nz(in.getSourcePriceYen());
-                boolean minOk = r.getConditionMin() == null || p.compareTo(r.getConditionMin()) >= 0;
-                boolean maxOk = r.getConditionMax() == null || p.compareTo(r.getConditionMax()) < 0; // Less than
-                                                                                                     // strictly for
-                                                                                                     // ranges
+                boolean minOk = r.conditionMin() == null || p.compareTo(r.conditionMin()) >= 0;
+                boolean maxOk = r.conditionMax() == null || p.compareTo(r.conditionMax()) < 0; // Less than
+                                                                                                 // strictly for
+                                                                                                 // ranges
                 match = minOk && maxOk;
-            } else if ("WEIGHT".equals(r.getConditionType())) {
+            } else if ("WEIGHT".equals(r.conditionType())) {
                 BigDecimal w = (in.getWeightKg() == null) ? defaultWeight : in.getWeightKg();
-                boolean minOk = r.getConditionMin() == null || w.compareTo(r.getConditionMin()) >= 0;
-                boolean maxOk = r.getConditionMax() == null || w.compareTo(r.getConditionMax()) < 0;
+                boolean minOk = r.conditionMin() == null || w.compareTo(r.conditionMin()) >= 0;
+                boolean maxOk = r.conditionMax() == null || w.compareTo(r.conditionMax()) < 0;
                 match = minOk && maxOk;
             }
 
             if (match) {
-                if ("PROFIT_MIN_YEN".equals(r.getTargetField())) {
-                    profitMinYen = r.getAdjustmentValue();
-                } else if ("PROFIT_MIN_RATE".equals(r.getTargetField())) {
-                    profitMinRate = r.getAdjustmentValue();
+                if ("PROFIT_MIN_YEN".equals(r.targetField())) {
+                    profitMinYen = r.adjustmentValue();
+                } else if ("PROFIT_MIN_RATE".equals(r.targetField())) {
+                    profitMinRate = r.adjustmentValue();
                 }
             }
         }
@@ -114,7 +150,7 @@ public class PricingCalculator {
         boolean gateProfitOk = profitAmountOk && profitRateOk;
 
         // Exposure Gate (optional guardrail)
-        BigDecimal maxWorstCaseLoss = bd(flags.get("MAX_WORST_CASE_LOSS"), "30000");
+        BigDecimal maxWorstCaseLoss = policy.maxWorstCaseLoss();
         // 最悪損失 = 仕入 + 送料 + 手数料 − 回収見込み（返品なし想定） (Salvage = 0)
         BigDecimal worstCaseLossJpy = expectedCostJpy.add(feesAndReserve); // Very simplified worst case scenario
         boolean exposureRisk = worstCaseLossJpy.compareTo(maxWorstCaseLoss) > 0;
@@ -0,0 +1,39 @@
+package com.example.cbs_mvp.pricing;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 価格計算のパラメータ一式（system_flags・pricing_rules・為替バッファのスナップショット）
+ * 不変なので、一括計算では1回だけ読み込んで全件・全スレッドで共有できる。
+ */
+public record PricingPolicy(
+        BigDecimal fxBuffer,
+        BigDecimal domesticShip,
+        BigDecimal packingMisc,
+        BigDecimal plInbound,
+        BigDecimal plPickPack,
+        BigDecimal ebayFeeRate,
+        BigDecimal refundResRate,
+        BigDecimal profitMinYen,
+        BigDecimal profitMinRate,
+        BigDecimal defaultWeight,
+        String defaultSize,
+        BigDecimal maxWorstCaseLoss,
+        List<Rule> rules) {
+
+    public PricingPolicy {
+        rules = List.copyOf(rules);
+    }
+
+    /**
+     * pricing_rules の1行（priority 降順に並べたもの）
+     */
+    public record Rule(
+            String conditionType,
+            BigDecimal conditionMin,
+            BigDecimal conditionMax,
+            String targetField,
+            BigDecimal adjustmentValue) {
+    }
+}
@@ -3,7 +3,6 @@ package com.example.cbs_mvp.procurement;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,6 +12,7 @@ import com.example.cbs_mvp.entity.PurchaseOrder;
 import com.example.cbs_mvp.repo.CashLedgerRepository;
 import com.example.cbs_mvp.repo.PurchaseOrderRepository;
 import com.example.cbs_mvp.service.StateTransitionService;
+import com.example.cbs_mvp.tracing.CorrelationIds;
 
 import lombok.RequiredArgsConstructor;
 
@@ -57,7 +57,7 @@ public class ProcurementService {
         ledgerRepo.save(cl);
 
         // 3) state_transitions（監査ログ）
-        String cid = UUID.randomUUID().toString().replace("-", "");
+        String cid = CorrelationIds.current();
         transitions.log("PO", po.getPoId(), null, "REQUESTED", "CREATE_PO", null, "SYSTEM", cid);
 
         return po;
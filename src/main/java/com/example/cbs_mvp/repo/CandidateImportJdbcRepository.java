@@ -0,0 +1,178 @@
+package com.example.cbs_mvp.repo;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 候補CSV取込の一括読み書き（JDBC）
+ * - 既存URLの判定は source_url = ANY(?) でまとめて問い合わせる（idx_candidates_source_url_hash）
+ * - candidates / state_transitions の追加は JDBC バッチ
+ * - 取込ジョブで追加した候補には import_job_id / import_line を残す（再開時に前回追加済みの行を見分ける）
+ * トランザクションは呼び出し側で管理する。
+ */
+@Repository
+public class CandidateImportJdbcRepository {
+
+    private static final String SELECT_EXISTING = """
+            SELECT source_url FROM candidates WHERE source_url = ANY(?)
+            """;
+
+    private static final String SELECT_EXISTING_DETAIL = """
+            SELECT source_url, candidate_id, state, import_job_id, import_line FROM candidates
+            WHERE source_url = ANY(?)
+            """;
+
+    private static final String INSERT_CANDIDATE = """
+            INSERT INTO candidates(source_url, source_price_yen, weight_kg, size_tier, state, import_job_id, import_line,
+                                   created_at, updated_at)
+            VALUES (?, ?, ?, ?, 'CANDIDATE', ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_TRANSITION = """
+            INSERT INTO state_transitions(entity_type, entity_id, from_state, to_state, reason_code,
+                                          reason_detail, actor, correlation_id, created_at)
+            VALUES ('CANDIDATE', ?, NULL, 'CANDIDATE', 'CSV_IMPORT', ?, 'SYSTEM', ?, ?)
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public CandidateImportJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * @param sizeTier null の場合は既定値 XL
+     */
+    public record NewCandidate(
+            int lineNumber,
+            String sourceUrl,
+            BigDecimal sourcePriceYen,
+            BigDecimal weightKg,
+            String sizeTier) {
+    }
+
+    /**
+     * 既存の候補
+     *
+     * @param importJobId 取込ジョブで追加した候補ならそのジョブID（それ以外は null）
+     * @param importLine  取込ジョブで追加した候補ならCSVの行番号
+     */
+    public record ExistingCandidate(long candidateId, String state, Long importJobId, Integer importLine) {
+
+        /**
+         * 同じジョブの同じ行から追加した候補か（チェックポイント前に停止したチャンクを処理し直している）
+         */
+        public boolean importedBy(Long jobId, int lineNumber) {
+            return jobId != null && jobId.equals(importJobId) && importLine != null && importLine == lineNumber;
+        }
+    }
+
+    /**
+     * 渡したURLのうち candidates に既に存在するもの（URL → 既存の候補）
+     */
+    public Map<String, ExistingCandidate> findExisting(Collection<String> urls) {
+        Map<String, ExistingCandidate> existing = new HashMap<>();
+        if (urls.isEmpty()) {
+            return existing;
+        }
+        String[] values = urls.toArray(new String[0]);
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_EXISTING_DETAIL);
+            ps.setArray(1, con.createArrayOf("text", values));
+            return ps;
+        }, rs -> {
+            existing.put(rs.getString(1), new ExistingCandidate(rs.getLong(2), rs.getString(3),
+                    rs.getObject(4, Long.class), rs.getObject(5, Integer.class)));
+        });
+        return existing;
+    }
+
+    /**
+     * 渡したURLのうち candidates に既に存在するもの
+     */
+    public Set<String> findExistingSourceUrls(Collection<String> urls) {
+        Set<String> existing = new HashSet<>();
+        if (urls.isEmpty()) {
+            return existing;
+        }
+        String[] values = urls.toArray(new String[0]);
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_EXISTING);
+            ps.setArray(1, con.createArrayOf("text", values));
+            return ps;
+        }, rs -> {
+            existing.add(rs.getString(1));
+        });
+        return existing;
+    }
+
+    /**
+     * 候補を追加し、CSV_IMPORT の遷移ログを記録する
+     *
+     * @param importJobId 取込ジョブから追加する場合のジョブID（各行の行番号と一緒に記録する）。それ以外は null
+     * @return 採番された candidate_id（rows と同じ順）
+     */
+    public List<Long> insert(List<NewCandidate> rows, Long importJobId, String correlationId, LocalDateTime now) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Timestamp ts = Timestamp.valueOf(now);
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbc.batchUpdate(
+                con -> con.prepareStatement(INSERT_CANDIDATE, new String[] { "candidate_id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        NewCandidate c = rows.get(i);
+                        ps.setString(1, c.sourceUrl());
+                        ps.setBigDecimal(2, c.sourcePriceYen());
+                        ps.setBigDecimal(3, c.weightKg());
+                        ps.setString(4, c.sizeTier() == null ? "XL" : c.sizeTier());
+                        if (importJobId != null) {
+                            ps.setLong(5, importJobId);
+                            ps.setInt(6, c.lineNumber());
+                        } else {
+                            ps.setNull(5, Types.BIGINT);
+                            ps.setNull(6, Types.INTEGER);
+                        }
+                        ps.setTimestamp(7, ts);
+                        ps.setTimestamp(8, ts);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Map<String, Object> key : keys.getKeyList()) {
+            ids.add(((Number) key.get("candidate_id")).longValue());
+        }
+
+        List<Object[]> transitions = new ArrayList<>(rows.size());
+        for (int i = 0; i < ids.size(); i++) {
+            transitions.add(new Object[] {
+                    ids.get(i), "imported from CSV line " + rows.get(i).lineNumber(), correlationId, ts });
+        }
+        jdbc.batchUpdate(INSERT_TRANSITION, transitions);
+        return ids;
+    }
+}
@@ -1,14 +1,20 @@
 package com.example.cbs_mvp.repo;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.cbs_mvp.entity.Candidate;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface CandidateRepository extends JpaRepository<Candidate, Long> {
     List<Candidate> findByState(String state, Pageable pageable);
@@ -20,4 +26,11 @@ public interface CandidateRepository extends JpaRepository<Candidate, Long> {
     long countByState(String state);
 
     long countByStateIn(List<String> states);
+
+    /**
+     * 行ロック（SELECT ... FOR UPDATE）を取って読み直す。トランザクション内で呼ぶこと
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Candidate c where c.candidateId in :ids")
+    List<Candidate> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 }
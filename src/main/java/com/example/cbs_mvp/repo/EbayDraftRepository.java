@@ -1,5 +1,6 @@
 package com.example.cbs_mvp.repo;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +14,7 @@ import com.example.cbs_mvp.entity.EbayDraft;
 @Repository
 public interface EbayDraftRepository extends JpaRepository<EbayDraft, Long> {
     Optional<EbayDraft> findBySku(String sku);
+    List<EbayDraft> findBySkuIn(Collection<String> skus);
     Optional<EbayDraft> findByCandidateId(Long candidateId);
 
     @Query("SELECT d FROM EbayDraft d ORDER BY d.updatedAt DESC")
@@ -1,5 +1,7 @@
 package com.example.cbs_mvp.repo;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,4 +12,6 @@ import com.example.cbs_mvp.entity.Fulfillment;
 @Repository
 public interface FulfillmentRepository extends JpaRepository<Fulfillment, Long> {
     Optional<Fulfillment> findByOrderId(Long orderId);
+
+    List<Fulfillment> findByOrderIdIn(Collection<Long> orderIds);
 }
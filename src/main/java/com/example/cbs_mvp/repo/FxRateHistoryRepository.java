@@ -26,6 +26,11 @@ public interface FxRateHistoryRepository extends JpaRepository<FxRateHistory, Lo
         List<FxRateHistory> findByBaseCurrencyAndTargetCurrencyAndFetchedAtBetweenOrderByFetchedAtDesc(
                         String baseCurrency, String targetCurrency, Instant from, Instant to);
 
+        /**
+         * 指定時刻以降の全ペアの履歴（時系列順。fetched_at の BRIN インデックスを利用）
+         */
+        List<FxRateHistory> findByFetchedAtAfterOrderByFetchedAtAsc(Instant since);
+
         /**
          * 異常レートの一覧（最新100件）
          */
@@ -0,0 +1,134 @@
+package com.example.cbs_mvp.repo;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.cbs_mvp.entity.ImportJob;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    /**
+     * 待機中のジョブ、またはリースが切れた実行中ジョブ（再起動・異常終了）を1件取得して RUNNING にする。
+     * SKIP LOCKED により複数インスタンスが同じジョブを取り合わない。
+     * anyInstance=false の場合は自インスタンス（owner）がアップロードを保存したジョブだけを取得する
+     * （spool-dir がローカルディスクで、他のインスタンスからはファイルが読めないため）。
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE import_jobs
+            SET status = 'RUNNING', locked_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP,
+                started_at = COALESCE(started_at, CURRENT_TIMESTAMP)
+            WHERE job_id IN (
+              SELECT job_id FROM import_jobs
+              WHERE (status = 'QUEUED' OR (status = 'RUNNING' AND locked_at < :staleBefore))
+                AND (:anyInstance OR owner_instance IS NULL OR owner_instance = :owner)
+              ORDER BY job_id
+              LIMIT 1
+              FOR UPDATE SKIP LOCKED
+            )
+            RETURNING *
+            """, nativeQuery = true)
+    List<ImportJob> claimNext(@Param("staleBefore") LocalDateTime staleBefore,
+            @Param("owner") String owner,
+            @Param("anyInstance") boolean anyInstance);
+
+    /**
+     * 実行中のジョブのリースを延長する（チャンクの処理に時間がかかっても他のワーカーに取得されないよう、定期的に呼ぶ）
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE import_jobs SET locked_at = CURRENT_TIMESTAMP
+            WHERE job_id IN (:ids) AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int renewLeases(@Param("ids") Collection<Long> ids);
+
+    /**
+     * チャンクのコミット後に進捗を記録する（リースの延長を兼ねる）
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE import_jobs
+            SET checkpoint_line = :line, success_count = :success, updated_count = :updated,
+                skipped_count = :skipped, error_count = :errors, error_file_bytes = :errorBytes,
+                locked_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP
+            WHERE job_id = :id
+            """, nativeQuery = true)
+    int checkpoint(@Param("id") Long id,
+            @Param("line") int line,
+            @Param("success") int success,
+            @Param("updated") int updated,
+            @Param("skipped") int skipped,
+            @Param("errors") int errors,
+            @Param("errorBytes") long errorBytes);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE import_jobs SET fx_rate = :fxRate, updated_at = CURRENT_TIMESTAMP WHERE job_id = :id",
+            nativeQuery = true)
+    int recordFxRate(@Param("id") Long id, @Param("fxRate") BigDecimal fxRate);
+
+    @Query("select j.cancelRequested from ImportJob j where j.jobId = :id")
+    Boolean isCancelRequested(@Param("id") Long id);
+
+    /**
+     * 終了状態（COMPLETED / FAILED / CANCELLED）にする
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE import_jobs
+            SET status = :status, last_error = :lastError, locked_at = NULL,
+                finished_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP
+            WHERE job_id = :id
+            """, nativeQuery = true)
+    int finish(@Param("id") Long id, @Param("status") String status, @Param("lastError") String lastError);
+
+    /**
+     * シャットダウン時：チェックポイントから再開できるよう待機中に戻す
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE import_jobs SET status = 'QUEUED', locked_at = NULL, updated_at = CURRENT_TIMESTAMP
+            WHERE job_id = :id AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int requeue(@Param("id") Long id);
+
+    /**
+     * 未開始のジョブはその場で取り消す
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query(value = """
+            UPDATE import_jobs
+            SET status = 'CANCELLED', cancel_requested = TRUE, finished_at = CURRENT_TIMESTAMP,
+                updated_at = CURRENT_TIMESTAMP
+            WHERE job_id = :id AND status = 'QUEUED'
+            """, nativeQuery = true)
+    int cancelQueued(@Param("id") Long id);
+
+    /**
+     * 実行中のジョブは次のチャンクの前に止まるよう要求する
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query(value = """
+            UPDATE import_jobs SET cancel_requested = TRUE, updated_at = CURRENT_TIMESTAMP
+            WHERE job_id = :id AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int requestCancel(@Param("id") Long id);
+
+    List<ImportJob> findTop50ByOrderByJobIdDesc();
+}
@@ -1,6 +1,6 @@
 package com.example.cbs_mvp.repo;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,18 +18,27 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
         Optional<Order> findByEbayOrderKey(String ebayOrderKey);
 
+        @Query("SELECT o.ebayOrderKey FROM Order o WHERE o.ebayOrderKey IN :keys")
+        List<String> findExistingEbayOrderKeys(@Param("keys") Collection<String> keys);
+
+        /** 起動時の重複判定フィルタ構築用（order_id によるキーセットページング） */
+        @Query("SELECT o.orderId, o.ebayOrderKey FROM Order o WHERE o.orderId > :afterId ORDER BY o.orderId")
+        List<Object[]> findOrderKeysAfter(@Param("afterId") long afterId, Pageable pageable);
+
+        /** 起動時の追跡番号アップロード予定の復元用（order_id によるキーセットページング） */
         @Query("""
-                        SELECT DISTINCT o FROM Order o
-                        JOIN Fulfillment f ON f.orderId = o.orderId
+                        SELECT o.orderId, o.trackingNextRetryAt FROM Order o
                         WHERE o.state = :state
+                          AND o.orderId > :afterId
                           AND o.trackingRetryTerminalAt IS NULL
-                          AND (o.trackingNextRetryAt IS NULL OR o.trackingNextRetryAt <= :now)
-                          AND f.outboundTracking IS NOT NULL
-                          AND f.outboundTracking <> ''
-                        ORDER BY o.updatedAt ASC
+                          AND EXISTS (SELECT 1 FROM Fulfillment f
+                                      WHERE f.orderId = o.orderId
+                                        AND f.outboundTracking IS NOT NULL
+                                        AND f.outboundTracking <> '')
+                        ORDER BY o.orderId
                         """)
-        List<Order> findTrackingRetryTargets(
+        List<Object[]> findPendingTrackingUploadsAfter(
                         @Param("state") String state,
-                        @Param("now") LocalDateTime now,
+                        @Param("afterId") long afterId,
                         Pageable pageable);
 }
@@ -0,0 +1,81 @@
+package com.example.cbs_mvp.repo;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 3PL向け発注CSV出力用の JDBC アクセス
+ * REQUESTED の発注を1文で SHIPPED_TO_3PL に更新し（state_transitions も同時に記録）、
+ * 更新した行を RETURNING でカーソル（fetch size 指定）越しに1行ずつ返す。
+ * トランザクションは呼び出し側で管理する（fetch size はトランザクション内でのみ有効）。
+ */
+@Repository
+public class PoExportJdbcRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String SHIP_REQUESTED = """
+            WITH moved AS (
+                UPDATE purchase_orders p
+                   SET state = 'SHIPPED_TO_3PL', updated_at = CURRENT_TIMESTAMP
+                 WHERE p.po_id IN (
+                       SELECT po_id FROM purchase_orders
+                        WHERE state = 'REQUESTED'
+                        ORDER BY po_id
+                        LIMIT ?
+                        FOR UPDATE SKIP LOCKED)
+                RETURNING p.po_id, p.order_id, p.ship_to_3pl_address, p.inbound_tracking, p.expected_total_cost_yen
+            ), logged AS (
+                INSERT INTO state_transitions(entity_type, entity_id, from_state, to_state, reason_code,
+                                              reason_detail, actor, correlation_id, created_at)
+                SELECT 'PO', po_id, 'REQUESTED', 'SHIPPED_TO_3PL', 'EXPORT_3PL', NULL, 'SYSTEM', ?, CURRENT_TIMESTAMP
+                  FROM moved
+            )
+            SELECT po_id, order_id, ship_to_3pl_address, inbound_tracking, expected_total_cost_yen
+              FROM moved
+             ORDER BY po_id
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public PoExportJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public record PoExportRow(
+            Long poId,
+            Long orderId,
+            String shipTo3plAddress,
+            String inboundTracking,
+            BigDecimal expectedTotalCostYen) {
+    }
+
+    /**
+     * REQUESTED の発注を最大 limit 件 SHIPPED_TO_3PL に更新し、更新した行を順に sink へ渡す
+     *
+     * @return 更新件数
+     */
+    public int shipRequested(int limit, String correlationId, Consumer<PoExportRow> sink) {
+        int[] count = { 0 };
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SHIP_REQUESTED);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setInt(1, limit);
+            ps.setString(2, correlationId);
+            return ps;
+        }, rs -> {
+            sink.accept(new PoExportRow(
+                    rs.getLong("po_id"),
+                    rs.getLong("order_id"),
+                    rs.getString("ship_to_3pl_address"),
+                    rs.getString("inbound_tracking"),
+                    rs.getBigDecimal("expected_total_cost_yen")));
+            count[0]++;
+        });
+        return count[0];
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.cbs_mvp.repo;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,6 +13,8 @@ import com.example.cbs_mvp.entity.PricingResult;
 public interface PricingResultRepository extends JpaRepository<PricingResult, Long> {
     Optional<PricingResult> findByCandidateId(Long candidateId);
 
+    List<PricingResult> findByCandidateIdIn(Collection<Long> candidateIds);
+
     @org.springframework.data.jpa.repository.Query(value = """
                 SELECT
                     AVG(p.profit_rate) as avgProfitRate,
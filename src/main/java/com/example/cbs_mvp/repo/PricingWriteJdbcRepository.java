@@ -0,0 +1,151 @@
+package com.example.cbs_mvp.repo;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+
+import com.example.cbs_mvp.service.CandidatePricing;
+
+/**
+ * 価格計算結果の一括書き込み（JDBC）
+ * CandidateService.priceCandidate が1件ずつ行う書き込みと同じ内容を JDBC バッチで行う:
+ * - pricing_results の UPSERT（candidate_id で一意）
+ * - pricing_results_history の追加
+ * - candidates の状態・却下理由の更新
+ * - state_transitions の追加
+ * トランザクションは呼び出し側で管理する。
+ */
+@Repository
+public class PricingWriteJdbcRepository {
+
+    private static final String UPSERT_PRICING = """
+            INSERT INTO pricing_results(candidate_id, fx_rate, fx_safe, sell_price_usd, sell_price_yen,
+                                        total_cost_yen, ebay_fee_yen, refund_reserve_yen, profit_yen, profit_rate,
+                                        gate_profit_ok, gate_cash_ok, calc_source_price_yen, calc_weight_kg,
+                                        calc_intl_ship_yen, used_fee_rate, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (candidate_id) DO UPDATE SET
+                fx_rate = EXCLUDED.fx_rate,
+                fx_safe = EXCLUDED.fx_safe,
+                sell_price_usd = EXCLUDED.sell_price_usd,
+                sell_price_yen = EXCLUDED.sell_price_yen,
+                total_cost_yen = EXCLUDED.total_cost_yen,
+                ebay_fee_yen = EXCLUDED.ebay_fee_yen,
+                refund_reserve_yen = EXCLUDED.refund_reserve_yen,
+                profit_yen = EXCLUDED.profit_yen,
+                profit_rate = EXCLUDED.profit_rate,
+                gate_profit_ok = EXCLUDED.gate_profit_ok,
+                gate_cash_ok = EXCLUDED.gate_cash_ok,
+                calc_source_price_yen = EXCLUDED.calc_source_price_yen,
+                calc_weight_kg = EXCLUDED.calc_weight_kg,
+                calc_intl_ship_yen = EXCLUDED.calc_intl_ship_yen,
+                used_fee_rate = EXCLUDED.used_fee_rate,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String INSERT_HISTORY = """
+            INSERT INTO pricing_results_history(candidate_id, pricing_id, fx_rate, sell_price_usd, total_cost_yen,
+                                                profit_yen, profit_rate)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPDATE_CANDIDATE = """
+            UPDATE candidates
+               SET state = ?, reject_reason_code = ?, reject_reason_detail = ?,
+                   last_calculated_at = ?, updated_at = ?
+             WHERE candidate_id = ?
+            """;
+
+    private static final String INSERT_TRANSITION = """
+            INSERT INTO state_transitions(entity_type, entity_id, from_state, to_state, reason_code,
+                                          reason_detail, actor, correlation_id, created_at)
+            VALUES ('CANDIDATE', ?, ?, ?, ?, ?, 'SYSTEM', ?, ?)
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public PricingWriteJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * @param fromState 計算前の候補状態（遷移ログの from_state）
+     */
+    public record PricingWrite(Long candidateId, String fromState, CandidatePricing pricing) {
+    }
+
+    /**
+     * @return 書き込んだ件数
+     */
+    public int save(List<PricingWrite> writes, String correlationId, LocalDateTime now) {
+        if (writes.isEmpty()) {
+            return 0;
+        }
+        Timestamp ts = Timestamp.valueOf(now);
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbc.batchUpdate(
+                con -> con.prepareStatement(UPSERT_PRICING, new String[] { "pricing_id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PricingWrite w = writes.get(i);
+                        CandidatePricing p = w.pricing();
+                        ps.setLong(1, w.candidateId());
+                        ps.setBigDecimal(2, p.fxRate());
+                        ps.setBigDecimal(3, p.fxSafe());
+                        ps.setBigDecimal(4, p.sellPriceUsd());
+                        ps.setBigDecimal(5, p.sellPriceYen());
+                        ps.setBigDecimal(6, p.totalCostYen());
+                        ps.setBigDecimal(7, p.ebayFeeYen());
+                        ps.setBigDecimal(8, p.refundReserveYen());
+                        ps.setBigDecimal(9, p.profitYen());
+                        ps.setBigDecimal(10, p.profitRate());
+                        ps.setBoolean(11, p.gateProfitOk());
+                        ps.setBoolean(12, p.gateCashOk());
+                        ps.setBigDecimal(13, p.calcSourcePriceYen());
+                        ps.setBigDecimal(14, p.calcWeightKg());
+                        ps.setBigDecimal(15, p.calcIntlShipYen());
+                        ps.setBigDecimal(16, p.usedFeeRate());
+                        ps.setTimestamp(17, ts);
+                        ps.setTimestamp(18, ts);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return writes.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        List<Object[]> history = new ArrayList<>(writes.size());
+        List<Object[]> candidates = new ArrayList<>(writes.size());
+        List<Object[]> transitions = new ArrayList<>(writes.size());
+        for (int i = 0; i < writes.size(); i++) {
+            PricingWrite w = writes.get(i);
+            CandidatePricing p = w.pricing();
+            Long pricingId = i < keyList.size() ? ((Number) keyList.get(i).get("pricing_id")).longValue() : null;
+            history.add(new Object[] {
+                    w.candidateId(), pricingId, p.fxRate(), p.sellPriceUsd(), p.totalCostYen(),
+                    p.profitYen(), p.profitRate() });
+            candidates.add(new Object[] {
+                    p.nextState(), p.rejectReasonCode(), p.rejectReasonDetail(), ts, ts, w.candidateId() });
+            transitions.add(new Object[] {
+                    w.candidateId(), w.fromState(), p.nextState(), p.rejectReasonCode(), p.rejectReasonDetail(),
+                    correlationId, ts });
+        }
+        jdbc.batchUpdate(INSERT_HISTORY, history);
+        jdbc.batchUpdate(UPDATE_CANDIDATE, candidates);
+        jdbc.batchUpdate(INSERT_TRANSITION, transitions);
+        return writes.size();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.cbs_mvp.repo;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 集計の読み取りモデル（reporting_counters / reporting_daily、V5 参照）へのアクセス
+ * 値は元の表への書き込み時にトリガーが差分で加算する。ここでは slot を合計して読むだけ。
+ */
+@Repository
+public class ReportingJdbcRepository {
+
+    private static final String SELECT_COUNTERS = """
+            SELECT metric, SUM(value) AS value
+              FROM reporting_counters
+             WHERE metric = ANY(?)
+             GROUP BY metric
+            """;
+
+    private static final String SUM_DAILY_SINCE = """
+            SELECT COALESCE(SUM(value), 0)
+              FROM reporting_daily
+             WHERE metric = ? AND day >= ?
+            """;
+
+    // 各表の作成日時の索引を新しい順に window 件だけ読む
+    private static final String RECENT_FAILURES = """
+            SELECT
+              (SELECT COUNT(*) FILTER (WHERE state = 'EBAY_DRAFT_FAILED')
+                 FROM (SELECT state FROM ebay_drafts ORDER BY created_at DESC LIMIT ?) d) AS draft_failed,
+              (SELECT COUNT(*) FILTER (WHERE state = 'PROCUREMENT_FAILED')
+                 FROM (SELECT state FROM purchase_orders ORDER BY created_at DESC LIMIT ?) p) AS po_failed,
+              (SELECT COUNT(DISTINCT entity_id)
+                 FROM (SELECT entity_id FROM state_transitions
+                        WHERE entity_type = 'ORDER' AND reason_code = 'EBAY_TRACKING_UPLOAD_FAILED'
+                        ORDER BY created_at DESC LIMIT ?) t) AS tracking_failed
+            """;
+
+    // 接続ごとの slot を slot 0 に畳み込む（行の削除と加算を1文で行うため、途中の加算は失われない）
+    // 書き込み中のトランザクションがロックしている slot は SKIP LOCKED で飛ばし、次回に回す
+    // （待つと業務のトランザクションを止め、ロック順によってはデッドロックになる）
+    private static final String COMPACT_COUNTERS = """
+            WITH moved AS (
+                DELETE FROM reporting_counters
+                 WHERE ctid IN (SELECT ctid FROM reporting_counters WHERE slot <> 0 FOR UPDATE SKIP LOCKED)
+                RETURNING metric, value
+            )
+            INSERT INTO reporting_counters AS r (metric, slot, value)
+            SELECT metric, 0, SUM(value) FROM moved GROUP BY metric ORDER BY metric
+            ON CONFLICT (metric, slot) DO UPDATE SET value = r.value + EXCLUDED.value
+            """;
+
+    private static final String COMPACT_DAILY = """
+            WITH moved AS (
+                DELETE FROM reporting_daily
+                 WHERE ctid IN (SELECT ctid FROM reporting_daily WHERE slot <> 0 FOR UPDATE SKIP LOCKED)
+                RETURNING metric, day, value
+            )
+            INSERT INTO reporting_daily AS r (metric, day, slot, value)
+            SELECT metric, day, 0, SUM(value) FROM moved GROUP BY metric, day ORDER BY metric, day
+            ON CONFLICT (metric, day, slot) DO UPDATE SET value = r.value + EXCLUDED.value
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public ReportingJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public record RecentFailures(int draftFailed, int poFailed, int trackingFailed) {
+    }
+
+    /**
+     * 指標ごとの現在値（一度も加算されていない指標は含まれない）
+     */
+    public Map<String, BigDecimal> counters(Collection<String> metrics) {
+        Map<String, BigDecimal> values = new HashMap<>();
+        String[] names = metrics.toArray(new String[0]);
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_COUNTERS);
+            ps.setArray(1, con.createArrayOf("text", names));
+            return ps;
+        }, rs -> {
+            values.put(rs.getString("metric"), rs.getBigDecimal("value"));
+        });
+        return values;
+    }
+
+    public BigDecimal sumDailySince(String metric, LocalDate fromDate) {
+        return jdbc.queryForObject(SUM_DAILY_SINCE, BigDecimal.class, metric, fromDate);
+    }
+
+    /**
+     * 直近 window 件の下書き・発注のうち失敗の件数と、追跡番号アップロード失敗の注文数
+     */
+    public RecentFailures recentFailures(int window) {
+        return jdbc.queryForObject(RECENT_FAILURES, (rs, i) -> new RecentFailures(
+                rs.getInt("draft_failed"),
+                rs.getInt("po_failed"),
+                rs.getInt("tracking_failed")), window, window, window);
+    }
+
+    /**
+     * 他のトランザクションがロックしていない slot だけを畳み込む（ロックを待たない）
+     *
+     * @return slot 0 に加算・追加した行数
+     */
+    public int compact() {
+        return jdbc.update(COMPACT_COUNTERS) + jdbc.update(COMPACT_DAILY);
+    }
+
+    /**
+     * 元の表から数え直す（reporting_rebuild() は数え直しの間、元の表への書き込みを止める）
+     */
+    public void rebuild() {
+        jdbc.execute("SELECT reporting_rebuild()");
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.cbs_mvp.repo;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 3PL追跡番号取込の一括書き込み（JDBC バッチ）
+ * fulfillment の更新/追加、orders の状態更新、state_transitions の記録をまとめて実行する。
+ * トランザクションは呼び出し側で管理する。
+ */
+@Repository
+public class TrackingImportJdbcRepository {
+
+    private static final String SHIPPED = "3PL_SHIPPED_INTL";
+
+    private static final String UPDATE_FULFILLMENT = """
+            UPDATE fulfillment
+               SET outbound_carrier = ?, outbound_tracking = ?, state = ?, updated_at = ?
+             WHERE fulfill_id = ?
+            """;
+
+    private static final String INSERT_FULFILLMENT = """
+            INSERT INTO fulfillment(order_id, outbound_carrier, outbound_tracking, state, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPDATE_ORDER = """
+            UPDATE orders SET state = ?, updated_at = ? WHERE order_id = ?
+            """;
+
+    private static final String INSERT_TRANSITION = """
+            INSERT INTO state_transitions(entity_type, entity_id, from_state, to_state, reason_code,
+                                          reason_detail, actor, correlation_id, created_at)
+            VALUES ('ORDER', ?, ?, ?, 'TRACKING_IMPORTED', NULL, 'SYSTEM', ?, ?)
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public TrackingImportJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * @param fulfillId 既存の fulfillment があればその ID、なければ null（新規作成）
+     * @param fromState 取込前の注文状態（監査ログ用）
+     */
+    public record TrackingWrite(
+            Long orderId,
+            Long fulfillId,
+            String fromState,
+            String carrier,
+            String tracking,
+            String correlationId) {
+    }
+
+    public void applyShipped(List<TrackingWrite> writes, LocalDateTime now) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        List<Object[]> fulfillmentUpdates = new ArrayList<>();
+        List<Object[]> fulfillmentInserts = new ArrayList<>();
+        List<Object[]> orderUpdates = new ArrayList<>(writes.size());
+        List<Object[]> transitions = new ArrayList<>(writes.size());
+
+        for (TrackingWrite w : writes) {
+            if (w.fulfillId() != null) {
+                fulfillmentUpdates.add(new Object[] { w.carrier(), w.tracking(), SHIPPED, now, w.fulfillId() });
+            } else {
+                fulfillmentInserts.add(new Object[] { w.orderId(), w.carrier(), w.tracking(), SHIPPED, now, now });
+            }
+            orderUpdates.add(new Object[] { SHIPPED, now, w.orderId() });
+            transitions.add(new Object[] { w.orderId(), w.fromState(), SHIPPED, w.correlationId(), now });
+        }
+
+        if (!fulfillmentUpdates.isEmpty()) {
+            jdbc.batchUpdate(UPDATE_FULFILLMENT, fulfillmentUpdates);
+        }
+        if (!fulfillmentInserts.isEmpty()) {
+            jdbc.batchUpdate(INSERT_FULFILLMENT, fulfillmentInserts);
+        }
+        jdbc.batchUpdate(UPDATE_ORDER, orderUpdates);
+        jdbc.batchUpdate(INSERT_TRANSITION, transitions);
+    }
+}
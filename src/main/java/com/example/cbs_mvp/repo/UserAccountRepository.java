@@ -0,0 +1,33 @@
+package com.example.cbs_mvp.repo;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.cbs_mvp.entity.UserAccount;
+
+@Repository
+public interface UserAccountRepository extends JpaRepository<UserAccount, Long> {
+
+    /**
+     * ux_users_username で1件引く（username は小文字で渡す）
+     */
+    Optional<UserAccount> findByUsername(String username);
+
+    /**
+     * ハッシュのコストを上げる（ログイン成功時の再ハッシュ）
+     * 読んだときのハッシュのままの場合だけ更新する（その間にパスワード変更があれば上書きしない）
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE users SET password_hash = :newHash, updated_at = CURRENT_TIMESTAMP
+            WHERE user_id = :id AND password_hash = :oldHash
+            """, nativeQuery = true)
+    int upgradeHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+}
@@ -0,0 +1,50 @@
+package com.example.cbs_mvp.repo;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.cbs_mvp.entity.WebhookInbox;
+
+@Repository
+public interface WebhookInboxRepository extends JpaRepository<WebhookInbox, Long> {
+
+    /**
+     * 処理待ちの行を最大 limit 件取得して PROCESSING にする。
+     * SKIP LOCKED により複数ワーカー（複数インスタンス）が同じ行を取り合わない。
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE webhook_inbox
+            SET status = 'PROCESSING', locked_at = CURRENT_TIMESTAMP, attempts = attempts + 1
+            WHERE inbox_id IN (
+              SELECT inbox_id FROM webhook_inbox
+              WHERE status = 'PENDING' AND next_attempt_at <= CURRENT_TIMESTAMP
+              ORDER BY inbox_id
+              LIMIT :limit
+              FOR UPDATE SKIP LOCKED
+            )
+            RETURNING *
+            """, nativeQuery = true)
+    List<WebhookInbox> claimBatch(@Param("limit") int limit);
+
+    /**
+     * 処理中のままワーカーが落ちた行を処理待ちに戻す
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE webhook_inbox
+            SET status = 'PENDING', locked_at = NULL
+            WHERE status = 'PROCESSING' AND locked_at < :staleBefore
+            """, nativeQuery = true)
+    int releaseStale(@Param("staleBefore") LocalDateTime staleBefore);
+
+    long countByStatus(String status);
+}
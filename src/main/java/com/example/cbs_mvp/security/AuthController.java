@@ -1,21 +1,27 @@
 package com.example.cbs_mvp.security;
 
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.cbs_mvp.entity.UserAccount;
 import com.example.cbs_mvp.ops.OpsKeyService;
-import com.example.cbs_mvp.ops.SystemFlagService;
+import com.example.cbs_mvp.repo.UserAccountRepository;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,68 +35,53 @@ public class AuthController {
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
 
     private final JwtTokenService jwtTokenService;
-    private final SystemFlagService flagService;
-    private final PasswordEncoder passwordEncoder;
+    private final UserAccountRepository users;
+    private final LoginService loginService;
+    private final LoginThrottle loginThrottle;
     private final OpsKeyService opsKeyService;
+    private final JwtAuthenticationCache authentications;
 
     @Value("${cbs.allow-default-admin:false}")
     private boolean allowDefaultAdmin;
 
     /**
      * ログイン: ユーザー名/パスワードでJWTトークン発行
-     * 
-     * ユーザー管理は簡易的にSystemFlagで実装。
-     * USER_<username>_HASH に BCryptハッシュを保存。
+     *
+     * ユーザーは users テーブル（BCryptハッシュ）。照合は LoginService のプールで行い、
+     * 試行回数は接続元IP・ユーザー名ごとに LoginThrottle で制限する（超えたら 429）。
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request,
+            HttpServletRequest httpRequest) {
         if (request == null || request.username == null || request.password == null) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "username and password are required"));
+            return done(ResponseEntity.badRequest()
+                    .body(Map.of("error", "username and password are required")));
         }
 
         String username = request.username.trim().toLowerCase();
         if (username.isEmpty()) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "username is required"));
+            return done(ResponseEntity.badRequest()
+                    .body(Map.of("error", "username is required")));
         }
 
-        // SystemFlagからパスワードハッシュを取得
-        String storedHash = flagService.get("USER_" + username.toUpperCase() + "_HASH");
-
-        if (storedHash == null || storedHash.isBlank()) {
-            // デフォルト管理者: 環境変数 ALLOW_DEFAULT_ADMIN=true の場合のみ許可
-            if ("admin".equals(username)) {
-                String defaultHash = flagService.get("USER_ADMIN_HASH");
-                if (defaultHash == null || defaultHash.isBlank()) {
-                    if (!allowDefaultAdmin) {
-                        log.warn("デフォルト管理者ログインが無効です。ALLOW_DEFAULT_ADMIN=true で有効化してください。");
-                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                                .body(Map.of("error", "default admin login is disabled"));
-                    }
-                    if ("admin".equals(request.password)) {
-                        log.warn("⚠️ デフォルト管理者パスワードでログインしました。速やかにパスワードを変更してください。");
-                        String token = jwtTokenService.generateToken(username);
-                        return ResponseEntity.ok(Map.of(
-                                "token", token,
-                                "username", username,
-                                "warning", "default admin password - please change immediately"));
-                    }
-                }
-            }
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("error", "invalid credentials"));
+        ResponseEntity<?> throttled = throttle(httpRequest, username);
+        if (throttled != null) {
+            return done(throttled);
         }
 
-        if (!passwordEncoder.matches(request.password, storedHash)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+        return loginService.login(username, request.password).thenApply(status -> switch (status) {
+            case OK -> ResponseEntity.ok(Map.of(
+                    "token", jwtTokenService.generateToken(username),
+                    "username", username));
+            case DEFAULT_ADMIN -> ResponseEntity.ok(Map.of(
+                    "token", jwtTokenService.generateToken(username),
+                    "username", username,
+                    "warning", "default admin password - please change immediately"));
+            case DEFAULT_ADMIN_DISABLED -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "default admin login is disabled"));
+            case INVALID -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "invalid credentials"));
-        }
-
-        String token = jwtTokenService.generateToken(username);
-        return ResponseEntity.ok(Map.of(
-                "token", token,
-                "username", username));
+        });
     }
 
     /**
@@ -102,73 +93,128 @@ public class AuthController {
      * - または 現在のパスワードが正しい（自分自身の変更）
      */
     @PostMapping("/change-password")
-    public ResponseEntity<?> changePassword(
+    public CompletableFuture<ResponseEntity<?>> changePassword(
             @RequestHeader(value = "X-OPS-KEY", required = false) String opsKey,
-            @RequestBody ChangePasswordRequest request) {
+            @RequestBody ChangePasswordRequest request,
+            HttpServletRequest httpRequest) {
         if (request == null || request.username == null
                 || request.currentPassword == null || request.newPassword == null) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "username, currentPassword, and newPassword are required"));
+            return done(ResponseEntity.badRequest()
+                    .body(Map.of("error", "username, currentPassword, and newPassword are required")));
         }
 
         // 新しいパスワードの長さチェック
         if (request.newPassword.length() < 8) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "newPassword must be at least 8 characters"));
+            return done(ResponseEntity.badRequest()
+                    .body(Map.of("error", "newPassword must be at least 8 characters")));
         }
 
         String username = request.username.trim().toLowerCase();
-        String flagKey = "USER_" + username.toUpperCase() + "_HASH";
-        String storedHash = flagService.get(flagKey);
+        ResponseEntity<?> throttled = throttle(httpRequest, username);
+        if (throttled != null) {
+            return done(throttled);
+        }
+
+        UserAccount account = users.findByUsername(username).orElse(null);
+        String storedHash = account == null ? null : account.getPasswordHash();
+        boolean hasPassword = storedHash != null && !storedHash.isBlank();
 
         // 認証チェック: OPS-KEY または JWT または 現在のパスワード
+        // （SecurityContext はリクエストスレッドでしか読めないので、ここで取り出しておく）
         boolean isOpsKeyValid = opsKeyService.isValid(opsKey);
         boolean isJwtAuthenticated = isAuthenticated();
-        boolean isCurrentPasswordValid = false;
-
-        // 既存ユーザーの場合は現在のパスワード確認
-        if (storedHash != null && !storedHash.isBlank()) {
-            isCurrentPasswordValid = passwordEncoder.matches(request.currentPassword, storedHash);
+        String authenticatedUser = isJwtAuthenticated ? getAuthenticatedUsername() : null;
+
+        CompletableFuture<Boolean> currentPasswordCheck;
+        if (isOpsKeyValid) {
+            // OPS-KEY があれば現在のパスワードは判定に使わない（照合を省く）
+            currentPasswordCheck = CompletableFuture.completedFuture(false);
+        } else if (hasPassword) {
+            // 既存ユーザーの場合は現在のパスワード確認
+            currentPasswordCheck = loginService.matches(request.currentPassword, storedHash);
         } else {
             // 初回admin設定の場合はデフォルトパスワード確認（環境変数ガード付き）
-            if (allowDefaultAdmin && "admin".equals(username) && "admin".equals(request.currentPassword)) {
-                isCurrentPasswordValid = true;
-            }
+            currentPasswordCheck = CompletableFuture.completedFuture(
+                    allowDefaultAdmin && "admin".equals(username) && "admin".equals(request.currentPassword));
         }
 
-        // 3つのうちいずれかの認証が必要
-        if (!isOpsKeyValid && !isJwtAuthenticated && !isCurrentPasswordValid) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("error", "authentication required (OPS-KEY, JWT, or valid currentPassword)"));
-        }
+        return currentPasswordCheck.thenCompose(isCurrentPasswordValid -> {
+            // 3つのうちいずれかの認証が必要
+            if (!isOpsKeyValid && !isJwtAuthenticated && !isCurrentPasswordValid) {
+                return done(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(Map.of("error", "authentication required (OPS-KEY, JWT, or valid currentPassword)")));
+            }
 
-        // JWT認証の場合は、自分自身またはadminのみ変更可能
-        if (isJwtAuthenticated && !isOpsKeyValid && !isCurrentPasswordValid) {
-            String authenticatedUser = getAuthenticatedUsername();
-            if (!username.equals(authenticatedUser) && !"admin".equals(authenticatedUser)) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("error", "can only change your own password"));
+            // JWT認証の場合は、自分自身またはadminのみ変更可能
+            if (isJwtAuthenticated && !isOpsKeyValid && !isCurrentPasswordValid) {
+                if (!username.equals(authenticatedUser) && !"admin".equals(authenticatedUser)) {
+                    return done(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                            .body(Map.of("error", "can only change your own password")));
+                }
             }
-        }
 
-        // 新規ユーザー作成は OPS-KEY または admin JWT が必要
-        if (storedHash == null || storedHash.isBlank()) {
-            if (!isOpsKeyValid && !"admin".equals(username)) {
-                boolean isAdminJwt = isJwtAuthenticated && "admin".equals(getAuthenticatedUsername());
-                if (!isAdminJwt) {
-                    return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                            .body(Map.of("error", "only admin or OPS-KEY can create new users"));
+            // 新規ユーザー作成は OPS-KEY または admin JWT が必要
+            if (!hasPassword) {
+                if (!isOpsKeyValid && !"admin".equals(username)) {
+                    boolean isAdminJwt = isJwtAuthenticated && "admin".equals(authenticatedUser);
+                    if (!isAdminJwt) {
+                        return done(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                                .body(Map.of("error", "only admin or OPS-KEY can create new users")));
+                    }
                 }
             }
+
+            // 新しいパスワードをハッシュして保存
+            return loginService.encode(request.newPassword).thenApply(newHash -> {
+                UserAccount target = account != null ? account : new UserAccount(username);
+                target.setPasswordHash(newHash);
+                target.setPasswordChangedAt(LocalDateTime.now());
+                users.save(target);
+                // 変更前に発行したトークンは使えなくする
+                authentications.revokeUser(username);
+
+                return ResponseEntity.ok(Map.of(
+                        "message", "password changed successfully",
+                        "username", username));
+            });
+        });
+    }
+
+    /**
+     * ログアウト: 提示したトークンを失効させる（有効期限まで、このインスタンスで拒否する）
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "bearer token is required"));
         }
+        authentications.revoke(authorization.substring("Bearer ".length()));
+        return ResponseEntity.ok(Map.of("message", "logged out"));
+    }
+
+    private ResponseEntity<?> throttle(HttpServletRequest httpRequest, String username) {
+        long retryAfter = loginThrottle.tryAcquire(httpRequest.getRemoteAddr(), username);
+        if (retryAfter == 0) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(Map.of("error", "too many login attempts"));
+    }
 
-        // 新しいパスワードをハッシュして保存
-        String newHash = passwordEncoder.encode(request.newPassword);
-        flagService.set(flagKey, newHash);
+    /**
+     * ログイン用プールの待ちが上限に達した（照合を受け付けずに 503 を返す）
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<?> handleLoginBusy(RejectedExecutionException ex) {
+        log.warn("login executor saturated: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("error", "login is busy, please retry"));
+    }
 
-        return ResponseEntity.ok(Map.of(
-                "message", "password changed successfully",
-                "username", username));
+    private static CompletableFuture<ResponseEntity<?>> done(ResponseEntity<?> response) {
+        return CompletableFuture.completedFuture(response);
     }
 
     private boolean isAuthenticated() {
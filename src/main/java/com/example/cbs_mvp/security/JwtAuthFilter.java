@@ -2,10 +2,8 @@ package com.example.cbs_mvp.security;
 
 import java.io.IOException;
 
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import jakarta.servlet.FilterChain;
@@ -15,34 +13,32 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Authorization: Bearer のトークンで認証する
+ * 検証済みのトークンは JwtAuthenticationCache が exp まで覚えているので、2回目以降は署名検証・クレームの解析をしない。
+ */
 @RequiredArgsConstructor
 @Slf4j
 public class JwtAuthFilter extends OncePerRequestFilter {
 
-    private final JwtTokenService jwtTokenService;
+    private static final String BEARER = "Bearer ";
+
+    private final JwtAuthenticationCache authentications;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
-        log.debug("JwtAuthFilter processing request: {}", request.getRequestURI());
-
         String authHeader = request.getHeader("Authorization");
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            try {
-                // validateTokenAndGetUsernameはトークンが有効ならユーザー名を返し、無効ならnullを返す
-                String username = jwtTokenService.validateTokenAndGetUsername(token);
-
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(username,
-                            null, java.util.Collections.emptyList());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
-            } catch (Exception e) {
-                log.debug("JWT validation failed: {}", e.getMessage());
+        if (authHeader != null && authHeader.startsWith(BEARER)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // 無効・失効したトークンなら null（未認証のまま進み、認可で 401/403 になる）
+            Authentication authentication = authentications.authenticate(authHeader.substring(BEARER.length()));
+            if (authentication != null) {
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } else {
+                log.debug("JWT validation failed: {}", request.getRequestURI());
             }
         }
 
@@ -0,0 +1,241 @@
+package com.example.cbs_mvp.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.example.cbs_mvp.security.JwtTokenService.VerifiedToken;
+
+/**
+ * 検証済みトークンのキャッシュ（JwtAuthFilter から呼ぶ）
+ * - キーはトークンの SHA-256（トークン自体は保持しない）。ConcurrentHashMap で、参照・追加ともロックを取らない
+ * - 件数上限つき。超えたら1回の追加でまとめて（上限の1割）、最後に使った時刻の古いものから外す（近似の LRU）
+ * - 有効期限はトークンの exp。期限を過ぎたものは次に参照したとき、または上限超えの整理のときに外す
+ * - 同じトークンには同じ Authentication を返す（リクエストごとに作り直さない）
+ * - 失効: revoke（トークン単位、ログアウト）・revokeUser（その時点までに発行したユーザーのトークンすべて、パスワード変更）。
+ *   失効の記録はメモリ上のみ（再起動で消える。複数インスタンスでは各インスタンスで失効させる必要がある）
+ */
+@Component
+public class JwtAuthenticationCache {
+
+    private static final List<GrantedAuthority> NO_AUTHORITIES = List.of();
+
+    private final JwtTokenService tokens;
+    private final Clock clock;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<TokenKey, Entry> cache = new ConcurrentHashMap<>();
+    // 上限超えの整理は1スレッドだけが行う（他のスレッドは待たずに戻る）
+    private final ReentrantLock evicting = new ReentrantLock();
+    // 失効させたトークン → exp（ミリ秒）。exp を過ぎれば検証で弾かれるので外す
+    private final ConcurrentHashMap<TokenKey, Long> revokedTokens = new ConcurrentHashMap<>();
+    // ユーザー → この時刻より前に発行したトークンは無効
+    private final ConcurrentHashMap<String, Instant> revokedBefore = new ConcurrentHashMap<>();
+    // 検証中に失効があった場合、その結果はキャッシュしない
+    private final AtomicLong revocations = new AtomicLong();
+
+    // 呼び出しごとに複製して使う（スレッド毎に持たない）
+    private final MessageDigest sha256 = newDigest();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public JwtAuthenticationCache(
+            JwtTokenService tokens,
+            @Value("${jwt.cache.max-entries:10000}") int maxEntries) {
+        this(tokens, maxEntries, Clock.systemUTC());
+    }
+
+    JwtAuthenticationCache(JwtTokenService tokens, int maxEntries, Clock clock) {
+        this.tokens = tokens;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.clock = clock;
+    }
+
+    private record TokenKey(long a, long b, long c, long d) {
+    }
+
+    private static final class Entry {
+        private final Authentication authentication;
+        private final String username;
+        private final long expiresAtMillis;
+        // 最後に使った時刻（System.nanoTime）。整理のときの並び順にだけ使う
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private Entry(Authentication authentication, String username, long expiresAtMillis) {
+            this.authentication = authentication;
+            this.username = username;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * @return 無効・失効したトークンなら null
+     */
+    public Authentication authenticate(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        TokenKey key = key(token);
+        long now = clock.millis();
+        Entry cached = cache.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis > now) {
+                cached.lastUsedNanos = System.nanoTime();
+                hits.increment();
+                return cached.authentication;
+            }
+            cache.remove(key, cached);
+        }
+        long generation = revocations.get();
+        misses.increment();
+
+        if (revokedTokens.containsKey(key)) {
+            rejected.increment();
+            return null;
+        }
+        VerifiedToken verified = tokens.verify(token);
+        if (verified == null || isRevoked(verified)) {
+            rejected.increment();
+            return null;
+        }
+
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                verified.username(), null, NO_AUTHORITIES);
+        Entry entry = new Entry(authentication, verified.username(), verified.expiresAt().toEpochMilli());
+        cache.put(key, entry);
+        // 失効は「記録 → revocations を進める → キャッシュから外す」の順。追加後に進んでいたら自分で外す
+        if (revocations.get() != generation) {
+            cache.remove(key, entry);
+        } else if (cache.size() > maxEntries) {
+            evict(now);
+        }
+        return authentication;
+    }
+
+    /**
+     * 期限切れを外し、まだ上限を超えていれば最後に使った時刻の古いものから上限の1割を外す
+     */
+    private void evict(long now) {
+        if (!evicting.tryLock()) {
+            return;
+        }
+        try {
+            cache.values().removeIf(e -> e.expiresAtMillis <= now);
+            int excess = cache.size() - (maxEntries - maxEntries / 10);
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<TokenKey, Entry>> entries = new ArrayList<>(cache.entrySet());
+            entries.sort(Comparator.comparingLong(e -> e.getValue().lastUsedNanos));
+            for (int i = 0; i < excess && i < entries.size(); i++) {
+                cache.remove(entries.get(i).getKey(), entries.get(i).getValue());
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    /**
+     * トークンを失効させる（有効なトークンのみ記録する）
+     */
+    public void revoke(String token) {
+        if (token == null || token.isEmpty()) {
+            return;
+        }
+        TokenKey key = key(token);
+        VerifiedToken verified = tokens.verify(token);
+        long now = clock.millis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        if (verified != null) {
+            revokedTokens.put(key, verified.expiresAt().toEpochMilli());
+        }
+        revocations.incrementAndGet();
+        cache.remove(key);
+    }
+
+    /**
+     * ユーザーのこれまでに発行したトークンをすべて失効させる
+     * （iat は秒単位のため、失効と同じ秒に発行したトークンは有効のまま）
+     */
+    public void revokeUser(String username) {
+        if (username == null) {
+            return;
+        }
+        revokedBefore.put(username, clock.instant().truncatedTo(ChronoUnit.SECONDS));
+        revocations.incrementAndGet();
+        cache.values().removeIf(e -> username.equals(e.username));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("hits", hits.sum());
+        m.put("misses", misses.sum());
+        m.put("rejected", rejected.sum());
+        m.put("size", size());
+        m.put("revokedTokens", revokedTokens.size());
+        m.put("revokedUsers", revokedBefore.size());
+        return m;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    private boolean isRevoked(VerifiedToken verified) {
+        Instant before = revokedBefore.get(verified.username());
+        return before != null && (verified.issuedAt() == null || verified.issuedAt().isBefore(before));
+    }
+
+    private TokenKey key(String token) {
+        MessageDigest digest = digest();
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        return new TokenKey(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    private MessageDigest digest() {
+        try {
+            return (MessageDigest) sha256.clone();
+        } catch (CloneNotSupportedException e) {
+            return newDigest();
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
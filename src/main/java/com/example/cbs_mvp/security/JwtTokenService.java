@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -32,8 +33,16 @@ public class JwtTokenService {
     private String activeProfile;
 
     private SecretKey key;
+    // 検証用のパーサーはスレッドセーフなので初期化時に1つだけ作る
+    private JwtParser parser;
     private boolean usingDefaultSecret = false;
 
+    /**
+     * 署名と有効期限を確認したトークンの内容
+     */
+    public record VerifiedToken(String username, Instant issuedAt, Instant expiresAt) {
+    }
+
     @PostConstruct
     public void init() {
         // デフォルトシークレット使用の警告
@@ -72,6 +81,7 @@ public class JwtTokenService {
 
         // 32バイト以上あれば直接使用
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser().verifyWith(key).build();
         log.info("JWT service initialized. Token expiration: {} hours", expirationHours);
     }
 
@@ -92,18 +102,29 @@ public class JwtTokenService {
     }
 
     public String validateTokenAndGetUsername(String token) {
+        VerifiedToken verified = verify(token);
+        return verified == null ? null : verified.username();
+    }
+
+    /**
+     * 署名・有効期限を検証する（リクエストごとの認証は JwtAuthenticationCache を通す）
+     *
+     * @return 無効なトークンなら null
+     */
+    public VerifiedToken verify(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = parser.parseSignedClaims(token).getPayload();
 
-            if (claims.getExpiration().before(new Date())) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null || expiration.before(new Date()) || claims.getSubject() == null) {
                 return null;
             }
 
-            return claims.getSubject();
+            Date issuedAt = claims.getIssuedAt();
+            return new VerifiedToken(
+                    claims.getSubject(),
+                    issuedAt == null ? null : issuedAt.toInstant(),
+                    expiration.toInstant());
         } catch (Exception e) {
             return null;
         }
@@ -0,0 +1,154 @@
+package com.example.cbs_mvp.security;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.example.cbs_mvp.config.WorkerThreads;
+import com.example.cbs_mvp.entity.UserAccount;
+import com.example.cbs_mvp.repo.UserAccountRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * ログインのパスワード照合
+ * - users の検索はリクエストスレッド、BCrypt（照合・ハッシュ化）は専用の小さなプールで行う。
+ *   同時に走る BCrypt は auth.login.threads 本まで、待ちは auth.login.queue-capacity 件まで（超えたら RejectedExecutionException）。
+ *   ログインが集中しても、価格計算・取込の CPU とリクエストスレッドを食い潰さない
+ * - 存在しないユーザーでもダミーのハッシュと照合する（応答時間でユーザーの有無が分からないように）
+ * - 保存済みハッシュのコストが設定（auth.password.bcrypt-strength）より低ければ、ログイン成功時に再ハッシュして保存する
+ */
+@Service
+public class LoginService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginService.class);
+
+    public enum Status {
+        OK,
+        /** パスワード未設定の admin を admin/admin で許可した（cbs.allow-default-admin=true のときのみ） */
+        DEFAULT_ADMIN,
+        INVALID,
+        DEFAULT_ADMIN_DISABLED
+    }
+
+    private final UserAccountRepository users;
+    private final PasswordEncoder passwordEncoder;
+    private final ExecutorService executor;
+    private final ThreadPoolExecutor pool;
+    private final boolean allowDefaultAdmin;
+    private final String dummyHash;
+
+    @Autowired
+    public LoginService(
+            UserAccountRepository users,
+            PasswordEncoder passwordEncoder,
+            WorkerThreads workerThreads,
+            @Value("${auth.login.threads:2}") int threads,
+            @Value("${auth.login.queue-capacity:50}") int queueCapacity,
+            @Value("${cbs.allow-default-admin:false}") boolean allowDefaultAdmin) {
+        this(users, passwordEncoder, new ThreadPoolExecutor(
+                Math.max(1, threads), Math.max(1, threads), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                workerThreads.factory("login")), allowDefaultAdmin);
+    }
+
+    LoginService(UserAccountRepository users, PasswordEncoder passwordEncoder, ExecutorService executor,
+            boolean allowDefaultAdmin) {
+        this.users = users;
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.pool = executor instanceof ThreadPoolExecutor tpe ? tpe : null;
+        this.allowDefaultAdmin = allowDefaultAdmin;
+        this.dummyHash = passwordEncoder.encode("dummy-password-for-unknown-users");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * @param username 小文字・trim 済み
+     */
+    public CompletableFuture<Status> login(String username, String password) {
+        Optional<UserAccount> found = users.findByUsername(username);
+        UserAccount account = found.filter(a -> a.getPasswordHash() != null && !a.getPasswordHash().isBlank())
+                .orElse(null);
+
+        if (account == null) {
+            if ("admin".equals(username)) {
+                if (!allowDefaultAdmin) {
+                    log.warn("デフォルト管理者ログインが無効です。ALLOW_DEFAULT_ADMIN=true で有効化してください。");
+                    return CompletableFuture.completedFuture(Status.DEFAULT_ADMIN_DISABLED);
+                }
+                if ("admin".equals(password)) {
+                    log.warn("⚠️ デフォルト管理者パスワードでログインしました。速やかにパスワードを変更してください。");
+                    return CompletableFuture.completedFuture(Status.DEFAULT_ADMIN);
+                }
+            }
+            return submit(() -> {
+                passwordEncoder.matches(password, dummyHash);
+                return Status.INVALID;
+            });
+        }
+
+        String storedHash = account.getPasswordHash();
+        return submit(() -> {
+            if (!passwordEncoder.matches(password, storedHash) || !account.isEnabled()) {
+                return Status.INVALID;
+            }
+            if (passwordEncoder.upgradeEncoding(storedHash)) {
+                upgrade(account, storedHash, password);
+            }
+            return Status.OK;
+        });
+    }
+
+    /**
+     * 保存済みハッシュとの照合（BCrypt はログイン用プールで行う）
+     */
+    public CompletableFuture<Boolean> matches(String rawPassword, String storedHash) {
+        return submit(() -> passwordEncoder.matches(rawPassword, storedHash));
+    }
+
+    /**
+     * 新しいパスワードのハッシュ化（BCrypt はログイン用プールで行う）
+     */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 実行中＋待ちの件数
+     */
+    public int pending() {
+        return pool == null ? 0 : pool.getActiveCount() + pool.getQueue().size();
+    }
+
+    private void upgrade(UserAccount account, String storedHash, String password) {
+        try {
+            int updated = users.upgradeHash(account.getUserId(), storedHash, passwordEncoder.encode(password));
+            if (updated > 0) {
+                log.info("password hash upgraded: user={}", account.getUsername());
+            }
+        } catch (RuntimeException ex) {
+            // ログイン自体は成功させる（次回のログインで再試行される）
+            log.warn("password hash upgrade failed: user={}, error={}", account.getUsername(), ex.getMessage());
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+}
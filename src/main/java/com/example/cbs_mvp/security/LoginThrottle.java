@@ -0,0 +1,145 @@
+package com.example.cbs_mvp.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * ログイン試行の流量制限（メモリ上のトークンバケット）
+ * - 接続元IPごと・ユーザー名ごとにバケットを持ち、1回の試行で両方から1つずつ取る（どちらかが空なら拒否）
+ * - バケットは毎分 per-minute 個ずつ capacity まで補充される
+ * - キー数が max-keys を超えたら、満タンに戻ったバケット（しばらく試行のないキー）を捨てる
+ * 単一インスタンス内の制限。複数インスタンスでは上限がインスタンス数倍になる。
+ */
+@Component
+public class LoginThrottle {
+
+    private final Limit ipLimit;
+    private final Limit userLimit;
+    private final int maxKeys;
+    private final LongSupplier nanoTime;
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder throttled = new LongAdder();
+
+    @Autowired
+    public LoginThrottle(
+            @Value("${auth.throttle.ip-capacity:20}") int ipCapacity,
+            @Value("${auth.throttle.ip-per-minute:10}") int ipPerMinute,
+            @Value("${auth.throttle.user-capacity:5}") int userCapacity,
+            @Value("${auth.throttle.user-per-minute:5}") int userPerMinute,
+            @Value("${auth.throttle.max-keys:100000}") int maxKeys) {
+        this(new Limit(ipCapacity, ipPerMinute), new Limit(userCapacity, userPerMinute), maxKeys, System::nanoTime);
+    }
+
+    LoginThrottle(Limit ipLimit, Limit userLimit, int maxKeys, LongSupplier nanoTime) {
+        this.ipLimit = ipLimit;
+        this.userLimit = userLimit;
+        this.maxKeys = Math.max(1, maxKeys);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @param capacity  連続して許可する回数
+     * @param perMinute 1分あたりの補充数
+     */
+    record Limit(int capacity, int perMinute) {
+
+        Limit {
+            capacity = Math.max(1, capacity);
+            perMinute = Math.max(1, perMinute);
+        }
+
+        long nanosPerToken() {
+            return 60_000_000_000L / perMinute;
+        }
+    }
+
+    /**
+     * 試行を1回分記録する
+     *
+     * @return 許可なら 0、拒否なら次に試行できるまでの秒数
+     */
+    public long tryAcquire(String ip, String username) {
+        long now = nanoTime.getAsLong();
+        Bucket ipBucket = bucket("ip:" + ip, ipLimit, now);
+        long waitNanos = ipBucket.tryTake(now);
+        if (waitNanos == 0) {
+            Bucket userBucket = bucket("user:" + username, userLimit, now);
+            waitNanos = userBucket.tryTake(now);
+            if (waitNanos > 0) {
+                // ユーザー側で拒否した試行は IP 側にも数えない
+                ipBucket.giveBack();
+            }
+        }
+        if (waitNanos == 0) {
+            return 0;
+        }
+        throttled.increment();
+        return Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    public long throttledCount() {
+        return throttled.sum();
+    }
+
+    public int keys() {
+        return buckets.size();
+    }
+
+    private Bucket bucket(String key, Limit limit, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            buckets.values().removeIf(b -> b.isFull(now));
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(limit, now));
+    }
+
+    private static final class Bucket {
+        private final Limit limit;
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(Limit limit, long now) {
+            this.limit = limit;
+            this.tokens = limit.capacity();
+            this.refilledAt = now;
+        }
+
+        /**
+         * @return 取れたら 0、取れなければ次の1つが補充されるまでのナノ秒
+         */
+        synchronized long tryTake(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * limit.nanosPerToken());
+        }
+
+        synchronized void giveBack() {
+            tokens = Math.min(limit.capacity(), tokens + 1);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= limit.capacity();
+        }
+
+        private void refill(long now) {
+            long elapsed = now - refilledAt;
+            if (elapsed > 0) {
+                tokens = Math.min(limit.capacity(), tokens + (double) elapsed / limit.nanosPerToken());
+                refilledAt = now;
+            }
+        }
+    }
+}
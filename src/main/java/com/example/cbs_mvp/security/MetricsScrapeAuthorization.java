@@ -0,0 +1,36 @@
+package com.example.cbs_mvp.security;
+
+import java.util.function.Supplier;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import com.example.cbs_mvp.ops.OpsKeyService;
+
+/**
+ * GET /metrics の認可。
+ * ゲージに未払いコミットメント額（財務情報）を含むため匿名では読ませない。
+ * Prometheus は X-OPS-KEY ヘッダ（scrape_config の http_headers）、人が見る場合は JWT で読む。
+ */
+public class MetricsScrapeAuthorization implements AuthorizationManager<RequestAuthorizationContext> {
+
+    static final String OPS_KEY_HEADER = "X-OPS-KEY";
+
+    private final OpsKeyService opsKeyService;
+
+    public MetricsScrapeAuthorization(OpsKeyService opsKeyService) {
+        this.opsKeyService = opsKeyService;
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        Authentication auth = authentication.get();
+        if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+            return new AuthorizationDecision(true);
+        }
+        return new AuthorizationDecision(opsKeyService.isValid(context.getRequest().getHeader(OPS_KEY_HEADER)));
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.cbs_mvp.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -11,6 +12,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.example.cbs_mvp.ops.OpsKeyService;
+
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -19,13 +23,15 @@ import lombok.RequiredArgsConstructor;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtTokenService jwtTokenService)
-            throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationCache authentications,
+            OpsKeyService opsKeyService) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // 非同期処理（SSE など）の完了時の再ディスパッチ。元のリクエストで認可済み
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // --- 公開エンドポイント（ホワイトリスト） ---
                         .requestMatchers("/", "/index.html").permitAll()
                         .requestMatchers("/error").permitAll()
@@ -35,20 +41,26 @@ public class SecurityConfig {
                         .requestMatchers("/ops/status").permitAll()
                         .requestMatchers("/ebay/webhook").permitAll() // 署名検証はController内で実施
 
+                        // Prometheus スクレイプ用。未払いコミットメント額（財務情報）を含むため X-OPS-KEY か JWT が必要
+                        .requestMatchers("/metrics").access(new MetricsScrapeAuthorization(opsKeyService))
+
                         // --- その他は全て認証必須（deny-by-default） ---
                         .anyRequest().authenticated())
-                .addFilterBefore(jwtAuthFilter(jwtTokenService), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter(authentications), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
     @Bean
-    public JwtAuthFilter jwtAuthFilter(JwtTokenService jwtTokenService) {
-        return new JwtAuthFilter(jwtTokenService);
+    public JwtAuthFilter jwtAuthFilter(JwtAuthenticationCache authentications) {
+        return new JwtAuthFilter(authentications);
     }
 
+    /**
+     * BCrypt のコスト（2^strength 回）。上げた場合、既存ユーザーは次回ログイン時に再ハッシュされる（LoginService）
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
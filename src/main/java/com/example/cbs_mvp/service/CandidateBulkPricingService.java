@@ -0,0 +1,182 @@
+package com.example.cbs_mvp.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.cbs_mvp.live.LiveEvent;
+import com.example.cbs_mvp.live.LiveEventBus;
+import com.example.cbs_mvp.pricing.PricingCalculator;
+import com.example.cbs_mvp.pricing.PricingPolicy;
+import com.example.cbs_mvp.pricing.PricingRequest;
+import com.example.cbs_mvp.pricing.PricingResponse;
+import com.example.cbs_mvp.repo.PricingWriteJdbcRepository;
+import com.example.cbs_mvp.repo.PricingWriteJdbcRepository.PricingWrite;
+import com.example.cbs_mvp.service.GateService.CashPosition;
+import com.example.cbs_mvp.tracing.CorrelationIds;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 取込直後の候補（状態 CANDIDATE）をまとめて価格計算する。
+ * CandidateService.priceCandidate（autoDraft=false）を1件ずつ呼ぶのと同じ結果になるよう、同じ計算を3段階で行う:
+ * 1. 価格パラメータ（PricingPolicy）と資金状況（CashPosition）を1回だけ読み込む
+ * 2. 全件の計算を ForkJoinPool で並列に行う（メモリ上のみ。DB・フラグは参照しない）
+ * 3. 結果を chunkSize 件ずつ JDBC バッチで書き込む（チャンクごとに1トランザクション）
+ */
+@Service
+public class CandidateBulkPricingService {
+
+    private static final Logger log = LoggerFactory.getLogger(CandidateBulkPricingService.class);
+
+    private final PricingCalculator pricingCalculator;
+    private final GateService gateService;
+    private final CandidateStateMachine stateMachine;
+    private final PricingWriteJdbcRepository pricingWriter;
+    private final MeterRegistry meterRegistry;
+    private final LiveEventBus live;
+    private final TransactionTemplate txTemplate;
+    private final ForkJoinPool pool;
+
+    public CandidateBulkPricingService(
+            PricingCalculator pricingCalculator,
+            GateService gateService,
+            CandidateStateMachine stateMachine,
+            PricingWriteJdbcRepository pricingWriter,
+            MeterRegistry meterRegistry,
+            LiveEventBus live,
+            PlatformTransactionManager txManager,
+            @Value("${candidates.import.pricing-parallelism:0}") int parallelism) {
+        this.pricingCalculator = pricingCalculator;
+        this.gateService = gateService;
+        this.stateMachine = stateMachine;
+        this.pricingWriter = pricingWriter;
+        this.meterRegistry = meterRegistry;
+        this.live = live;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 価格計算の対象（取込直後の候補）
+     *
+     * @param sizeTier null の場合は既定値 XL（取込時の既定値と同じ）
+     */
+    public record Item(Long candidateId, BigDecimal sourcePriceYen, BigDecimal weightKg, String sizeTier) {
+    }
+
+    /**
+     * 1件分の計算結果（pricing か error のどちらか一方）
+     */
+    record Priced(Item item, CandidatePricing pricing, String error) {
+    }
+
+    /**
+     * @param chunkSize 書き込み1トランザクションあたりの件数
+     * @return 失敗した候補IDとエラーメッセージ（入力順）。失敗した候補は CANDIDATE のまま残る
+     */
+    @Observed(name = "cbs.candidate.bulk-price", contextualName = "bulk-price")
+    public Map<Long, String> priceImported(List<Item> items, BigDecimal fxRate, int chunkSize) {
+        Map<Long, String> failures = new LinkedHashMap<>();
+        if (items.isEmpty()) {
+            return failures;
+        }
+
+        // Stage 1: 全件で共有するスナップショット
+        PricingPolicy policy = pricingCalculator.snapshot();
+        CashPosition cash = gateService.cashPosition();
+
+        // Stage 2: 並列計算
+        List<Priced> priced = calculateAll(items, fxRate, policy, cash);
+
+        // Stage 3: バッチ書き込み
+        List<PricingWrite> writes = new ArrayList<>(priced.size());
+        for (Priced p : priced) {
+            if (p.error() != null) {
+                failures.put(p.item().candidateId(), p.error());
+            } else {
+                writes.add(new PricingWrite(p.item().candidateId(), "CANDIDATE", p.pricing()));
+            }
+        }
+
+        String correlationId = CorrelationIds.current();
+        int size = Math.max(1, chunkSize);
+        for (int i = 0; i < writes.size(); i += size) {
+            List<PricingWrite> chunk = writes.subList(i, Math.min(writes.size(), i + size));
+            try {
+                txTemplate.executeWithoutResult(
+                        status -> pricingWriter.save(chunk, correlationId, LocalDateTime.now()));
+            } catch (RuntimeException e) {
+                log.error("Bulk pricing write failed rows={}", chunk.size(), e);
+                for (PricingWrite w : chunk) {
+                    failures.put(w.candidateId(), e.getMessage());
+                }
+                continue;
+            }
+            chunk.forEach(w -> w.pricing().recordGate(meterRegistry));
+            if (live.isActive()) {
+                chunk.forEach(w -> live.publish(LiveEvent.of("candidate", w.candidateId(), "candidateId",
+                        w.candidateId(), "from", w.fromState(), "state", w.pricing().nextState(),
+                        "reasonCode", w.pricing().rejectReasonCode())));
+            }
+        }
+
+        log.info("Bulk pricing completed: {} priced, {} failed, parallelism={}",
+                items.size() - failures.size(), failures.size(), pool.getParallelism());
+        return failures;
+    }
+
+    List<Priced> calculateAll(List<Item> items, BigDecimal fxRate, PricingPolicy policy, CashPosition cash) {
+        try {
+            // parallelStream は呼び出し元の ForkJoinPool で実行される（共通プールを占有しない）
+            return pool.submit(() -> items.parallelStream()
+                    .map(item -> calculate(item, fxRate, policy, cash))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("bulk pricing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("bulk pricing failed", e.getCause());
+        }
+    }
+
+    private Priced calculate(Item item, BigDecimal fxRate, PricingPolicy policy, CashPosition cash) {
+        try {
+            PricingRequest req = new PricingRequest();
+            req.setSourcePriceYen(item.sourcePriceYen());
+            req.setWeightKg(item.weightKg());
+            req.setSizeTier(item.sizeTier() == null ? "XL" : item.sizeTier());
+            req.setFxRate(fxRate);
+
+            PricingResponse pr = pricingCalculator.calculate(req, policy);
+            boolean gateCashOk = gateService.checkCashGate(cash, pr.getExpectedCostJpy()).isOk();
+            CandidatePricing pricing = CandidatePricing.of(pr, fxRate, gateCashOk,
+                    policy.ebayFeeRate(), policy.refundResRate());
+
+            stateMachine.validate("CANDIDATE", pricing.nextState());
+            return new Priced(item, pricing, null);
+        } catch (RuntimeException e) {
+            log.error("Bulk pricing failed for candidate {}", item.candidateId(), e);
+            return new Priced(item, null, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.cbs_mvp.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.example.cbs_mvp.entity.PricingResult;
+import com.example.cbs_mvp.pricing.PricingResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 候補1件の価格計算結果（pricing_results に書く値と Gate 判定）
+ * 単件の CandidateService.priceCandidate と一括の CandidateBulkPricingService で同じ計算を使う。
+ */
+public record CandidatePricing(
+        BigDecimal fxRate,
+        BigDecimal fxSafe,
+        BigDecimal sellPriceUsd,
+        BigDecimal sellPriceYen,
+        BigDecimal totalCostYen,
+        BigDecimal ebayFeeYen,
+        BigDecimal refundReserveYen,
+        BigDecimal profitYen,
+        BigDecimal profitRate,
+        BigDecimal calcSourcePriceYen,
+        BigDecimal calcWeightKg,
+        BigDecimal calcIntlShipYen,
+        BigDecimal usedFeeRate,
+        boolean gateProfitOk,
+        boolean gateCashOk) {
+
+    public static CandidatePricing of(
+            PricingResponse pr,
+            BigDecimal fxRate,
+            boolean gateCashOk,
+            BigDecimal ebayFeeRate,
+            BigDecimal refundResRate) {
+        BigDecimal feeYen = pr.getSellYen().multiply(ebayFeeRate).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal reserveYen = pr.getSellYen().multiply(refundResRate).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal profitYen = pr.getSellYen()
+                .subtract(pr.getExpectedCostJpy())
+                .subtract(feeYen)
+                .subtract(reserveYen)
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal profitRate = profitYen
+                .divide(pr.getExpectedCostJpy(), 6, RoundingMode.HALF_UP);
+
+        return new CandidatePricing(
+                fxRate,
+                pr.getFxSafe(),
+                pr.getUseSellUsd(),
+                pr.getSellYen(),
+                pr.getExpectedCostJpy(),
+                feeYen,
+                reserveYen,
+                profitYen,
+                profitRate,
+                pr.getCalcSourcePriceYen(),
+                pr.getSafeWeightKg(),
+                pr.getIntlShipCostYen(),
+                pr.getUsedFeeRate(),
+                pr.isGateProfitOk(),
+                gateCashOk);
+    }
+
+    public void applyTo(PricingResult result) {
+        result.setFxRate(fxRate);
+        result.setFxSafe(fxSafe);
+        result.setSellPriceUsd(sellPriceUsd);
+        result.setSellPriceYen(sellPriceYen);
+        result.setTotalCostYen(totalCostYen);
+        result.setEbayFeeYen(ebayFeeYen);
+        result.setRefundReserveYen(refundReserveYen);
+        result.setProfitYen(profitYen);
+        result.setProfitRate(profitRate);
+
+        // Snapshot
+        result.setCalcSourcePriceYen(calcSourcePriceYen);
+        result.setCalcWeightKg(calcWeightKg);
+        result.setCalcIntlShipYen(calcIntlShipYen);
+        result.setUsedFeeRate(usedFeeRate);
+
+        result.setGateProfitOk(gateProfitOk);
+        result.setGateCashOk(gateCashOk);
+    }
+
+    public boolean passed() {
+        return gateProfitOk && gateCashOk;
+    }
+
+    /**
+     * Gate 判定後の候補状態
+     */
+    public String nextState() {
+        return passed() ? "DRAFT_READY" : "REJECTED";
+    }
+
+    public String rejectReasonCode() {
+        return reasonCode(gateProfitOk, gateCashOk);
+    }
+
+    public String rejectReasonDetail() {
+        return reasonDetail(gateProfitOk, gateCashOk);
+    }
+
+    /**
+     * Gate 判定の件数（cbs.gate.results: outcome=pass|fail, reason=NONE|GATE_PROFIT|GATE_CASH|GATE_BOTH）
+     */
+    public void recordGate(MeterRegistry registry) {
+        String reason = rejectReasonCode();
+        registry.counter("cbs.gate.results",
+                "outcome", reason == null ? "pass" : "fail",
+                "reason", reason == null ? "NONE" : reason).increment();
+    }
+
+    private static String reasonCode(boolean profitOk, boolean cashOk) {
+        if (profitOk && cashOk)
+            return null;
+        if (!profitOk && !cashOk)
+            return "GATE_BOTH";
+        return profitOk ? "GATE_CASH" : "GATE_PROFIT";
+    }
+
+    private static String reasonDetail(boolean profitOk, boolean cashOk) {
+        if (profitOk && cashOk)
+            return null;
+        if (!profitOk && !cashOk)
+            return "profit and cash gate failed";
+        return profitOk ? "cash gate failed" : "profit gate failed";
+    }
+}
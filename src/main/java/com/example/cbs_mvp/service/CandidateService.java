@@ -1,9 +1,7 @@
 package com.example.cbs_mvp.service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +15,10 @@ import com.example.cbs_mvp.pricing.PricingResponse;
 import com.example.cbs_mvp.repo.CandidateRepository;
 import com.example.cbs_mvp.repo.PricingResultHistoryRepository;
 import com.example.cbs_mvp.repo.PricingResultRepository;
+import com.example.cbs_mvp.tracing.CorrelationIds;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.annotation.Observed;
 
 @Service
 public class CandidateService {
@@ -30,6 +32,7 @@ public class CandidateService {
     private final StateTransitionService transitions;
     private final DraftService draftService;
     private final CandidateStateMachine stateMachine;
+    private final MeterRegistry meterRegistry;
 
     public CandidateService(
             CandidateRepository candidateRepo,
@@ -40,7 +43,8 @@ public class CandidateService {
             SystemFlagService flags,
             StateTransitionService transitions,
             DraftService draftService,
-            CandidateStateMachine stateMachine) {
+            CandidateStateMachine stateMachine,
+            MeterRegistry meterRegistry) {
         this.candidateRepo = candidateRepo;
         this.pricingRepo = pricingRepo;
         this.historyRepo = historyRepo;
@@ -50,6 +54,7 @@ public class CandidateService {
         this.transitions = transitions;
         this.draftService = draftService;
         this.stateMachine = stateMachine;
+        this.meterRegistry = meterRegistry;
     }
 
     @Transactional
@@ -73,6 +78,7 @@ public class CandidateService {
     }
 
     @Transactional
+    @Observed(name = "cbs.candidate.price", contextualName = "price")
     public PricingResult priceCandidate(Long candidateId, BigDecimal fxRate, BigDecimal targetSellUsd,
             boolean autoDraft) {
         Candidate c = candidateRepo.findById(candidateId)
@@ -90,36 +96,12 @@ public class CandidateService {
         GateResult cashGate = gateService.checkCashGate(pr.getExpectedCostJpy());
         boolean gateCashOk = cashGate.isOk();
 
+        CandidatePricing pricing = CandidatePricing.of(pr, fxRate, gateCashOk,
+                bd(flags.get("EBAY_FEE_RATE"), "0.15"), bd(flags.get("REFUND_RES_RATE"), "0.05"));
+
         PricingResult result = pricingRepo.findByCandidateId(candidateId).orElseGet(PricingResult::new);
         result.setCandidateId(candidateId);
-        result.setFxRate(fxRate);
-        result.setFxSafe(pr.getFxSafe());
-        result.setSellPriceUsd(pr.getUseSellUsd());
-        result.setSellPriceYen(pr.getSellYen());
-        result.setTotalCostYen(pr.getExpectedCostJpy());
-        BigDecimal feeYen = calcRate(pr.getSellYen(), flags.get("EBAY_FEE_RATE"), "0.15");
-        BigDecimal reserveYen = calcRate(pr.getSellYen(), flags.get("REFUND_RES_RATE"), "0.05");
-        BigDecimal profitYen = pr.getSellYen()
-                .subtract(pr.getExpectedCostJpy())
-                .subtract(feeYen)
-                .subtract(reserveYen)
-                .setScale(2, RoundingMode.HALF_UP);
-        BigDecimal profitRate = profitYen
-                .divide(pr.getExpectedCostJpy(), 6, RoundingMode.HALF_UP);
-
-        result.setEbayFeeYen(feeYen);
-        result.setRefundReserveYen(reserveYen);
-        result.setProfitYen(profitYen);
-        result.setProfitRate(profitRate);
-
-        // Snapshot
-        result.setCalcSourcePriceYen(pr.getCalcSourcePriceYen());
-        result.setCalcWeightKg(pr.getSafeWeightKg());
-        result.setCalcIntlShipYen(pr.getIntlShipCostYen());
-        result.setUsedFeeRate(pr.getUsedFeeRate());
-
-        result.setGateProfitOk(pr.isGateProfitOk());
-        result.setGateCashOk(gateCashOk);
+        pricing.applyTo(result);
 
         PricingResult saved = pricingRepo.save(result);
 
@@ -132,19 +114,13 @@ public class CandidateService {
                 result.getCalcIntlShipYen());
 
         String from = c.getState();
-        if (pr.isGateProfitOk() && gateCashOk) {
-            stateMachine.validate(from, "DRAFT_READY");
-            c.setState("DRAFT_READY");
-            c.setRejectReasonCode(null);
-            c.setRejectReasonDetail(null);
-        } else {
-            stateMachine.validate(from, "REJECTED");
-            c.setState("REJECTED");
-            c.setRejectReasonCode(reasonCode(pr.isGateProfitOk(), gateCashOk));
-            c.setRejectReasonDetail(reasonDetail(pr.isGateProfitOk(), gateCashOk));
-        }
+        stateMachine.validate(from, pricing.nextState());
+        c.setState(pricing.nextState());
+        c.setRejectReasonCode(pricing.rejectReasonCode());
+        c.setRejectReasonDetail(pricing.rejectReasonDetail());
         c.setLastCalculatedAt(LocalDateTime.now());
         candidateRepo.save(c);
+        pricing.recordGate(meterRegistry);
         transitions.log("CANDIDATE", c.getCandidateId(), from, c.getState(), c.getRejectReasonCode(),
                 c.getRejectReasonDetail(), "SYSTEM", cid());
 
@@ -174,27 +150,6 @@ public class CandidateService {
         historyRepo.save(history);
     }
 
-    private static String reasonCode(boolean profitOk, boolean cashOk) {
-        if (profitOk && cashOk)
-            return null;
-        if (!profitOk && !cashOk)
-            return "GATE_BOTH";
-        return profitOk ? "GATE_CASH" : "GATE_PROFIT";
-    }
-
-    private static String reasonDetail(boolean profitOk, boolean cashOk) {
-        if (profitOk && cashOk)
-            return null;
-        if (!profitOk && !cashOk)
-            return "profit and cash gate failed";
-        return profitOk ? "cash gate failed" : "profit gate failed";
-    }
-
-    private static BigDecimal calcRate(BigDecimal base, String rate, String def) {
-        BigDecimal r = bd(rate, def);
-        return base.multiply(r).setScale(2, RoundingMode.HALF_UP);
-    }
-
     private static BigDecimal bd(String s, String def) {
         String v = (s == null || s.isBlank()) ? def : s.trim();
         return new BigDecimal(v);
@@ -242,6 +197,6 @@ public class CandidateService {
     }
 
     private static String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
     }
 }
@@ -0,0 +1,300 @@
+package com.example.cbs_mvp.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.cbs_mvp.ebay.EbayBulkDraftRequest;
+import com.example.cbs_mvp.ebay.EbayBulkDraftResult;
+import com.example.cbs_mvp.ebay.EbayClient;
+import com.example.cbs_mvp.entity.Candidate;
+import com.example.cbs_mvp.entity.EbayDraft;
+import com.example.cbs_mvp.entity.PricingResult;
+import com.example.cbs_mvp.ops.KillSwitchService;
+import com.example.cbs_mvp.repo.CandidateRepository;
+import com.example.cbs_mvp.repo.EbayDraftRepository;
+import com.example.cbs_mvp.repo.PricingResultRepository;
+import com.example.cbs_mvp.tracing.CorrelationIds;
+
+import jakarta.annotation.PostConstruct;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Draft一括作成パイプライン
+ * - DRAFT_READY / EBAY_DRAFT_FAILED の候補をまとめて読み込み（Pricing・Draftは IN 句で一括取得）
+ * - eBay bulk API（最大25件/回）でバッチ単位に送信し、複数バッチを並行実行
+ *   （ノンブロッキング版 EbayClient を合成するため、送信中にスレッドを占有しない）
+ * - 結果はバッチ単位のトランザクションで一括保存（DB書き込みは boundedElastic 上で順次）。
+ *   保存時に候補を行ロックして読み直し、読み込み時から状態が変わっていた候補（却下・他の処理での更新）は上書きせずに飛ばす
+ * 単件の {@link DraftService#createDraft(Long)} と同じ状態遷移・エラー処理を行う。
+ */
+@Service
+public class DraftBatchPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(DraftBatchPublisher.class);
+
+    private final CandidateRepository candidateRepo;
+    private final PricingResultRepository pricingRepo;
+    private final EbayDraftRepository draftRepo;
+    private final EbayClient ebayClient;
+    private final KillSwitchService killSwitch;
+    private final StateTransitionService transitions;
+    private final CandidateStateMachine stateMachine;
+    private final TransactionTemplate txTemplate;
+
+    @Value("${ebay.draft.batch-size:25}")
+    private int batchSize;
+
+    @Value("${ebay.draft.max-in-flight:8}")
+    private int maxInFlight;
+
+    public DraftBatchPublisher(
+            CandidateRepository candidateRepo,
+            PricingResultRepository pricingRepo,
+            EbayDraftRepository draftRepo,
+            EbayClient ebayClient,
+            KillSwitchService killSwitch,
+            StateTransitionService transitions,
+            CandidateStateMachine stateMachine,
+            PlatformTransactionManager txManager) {
+        this.candidateRepo = candidateRepo;
+        this.pricingRepo = pricingRepo;
+        this.draftRepo = draftRepo;
+        this.ebayClient = ebayClient;
+        this.killSwitch = killSwitch;
+        this.transitions = transitions;
+        this.stateMachine = stateMachine;
+        this.txTemplate = new TransactionTemplate(txManager);
+    }
+
+    @PostConstruct
+    void init() {
+        batchSize = Math.max(1, Math.min(batchSize, EbayClient.BULK_MAX_ITEMS));
+        maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * 作成待ちの候補を最大 limit 件まとめてDraft化する
+     *
+     * @return EBAY_DRAFT_CREATED になった件数
+     */
+    public int publishReadyCandidates(int limit) {
+        if (killSwitch.isPaused()) {
+            log.warn("Draft batch skipped: system paused");
+            return 0;
+        }
+
+        List<Candidate> candidates = candidateRepo.findByStateIn(
+                List.of("DRAFT_READY", "EBAY_DRAFT_FAILED"),
+                PageRequest.of(0, limit));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        List<PreparedDraft> prepared = prepare(candidates);
+
+        List<List<PreparedDraft>> batches = new ArrayList<>();
+        for (int i = 0; i < prepared.size(); i += batchSize) {
+            batches.add(prepared.subList(i, Math.min(i + batchSize, prepared.size())));
+        }
+
+        // eBay送信は最大 maxInFlight バッチを同時に実行し、返ってきた順にDBへ保存する
+        Integer success = Flux.fromIterable(batches)
+                .flatMap(batch -> send(batch)
+                        .onErrorResume(ex -> {
+                            log.error("Draft batch failed size={}", batch.size(), ex);
+                            return Mono.empty();
+                        }), maxInFlight)
+                .publishOn(Schedulers.boundedElastic())
+                .map(this::persistSafely)
+                .reduce(0, Integer::sum)
+                .block();
+
+        int created = success == null ? 0 : success;
+        log.info("Draft pipeline done: candidates={} prepared={} batches={} created={}",
+                candidates.size(), prepared.size(), batches.size(), created);
+        return created;
+    }
+
+    private List<PreparedDraft> prepare(List<Candidate> candidates) {
+        List<Long> ids = candidates.stream().map(Candidate::getCandidateId).toList();
+        Map<Long, PricingResult> pricingByCandidate = pricingRepo.findByCandidateIdIn(ids).stream()
+                .collect(Collectors.toMap(PricingResult::getCandidateId, Function.identity(), (a, b) -> a));
+        Map<String, EbayDraft> draftBySku = draftRepo.findBySkuIn(ids.stream().map(DraftBatchPublisher::sku).toList())
+                .stream()
+                .collect(Collectors.toMap(EbayDraft::getSku, Function.identity(), (a, b) -> a));
+
+        List<PreparedDraft> prepared = new ArrayList<>();
+        for (Candidate c : candidates) {
+            Long candidateId = c.getCandidateId();
+            PricingResult pr = pricingByCandidate.get(candidateId);
+            if (pr == null) {
+                log.error("Draft creation skipped for candidateId={}: pricing result not found", candidateId);
+                continue;
+            }
+            if (c.getLastCalculatedAt() == null) {
+                log.error("Draft creation skipped for candidateId={}: candidate has not been calculated", candidateId);
+                continue;
+            }
+            if (DraftService.isPricingStale(c)) {
+                log.error("Draft creation skipped for candidateId={}: pricing result is stale", candidateId);
+                continue;
+            }
+
+            String sku = sku(candidateId);
+            EbayDraft draft = draftBySku.get(sku);
+            if (draft == null) {
+                draft = new EbayDraft();
+                draft.setCandidateId(candidateId);
+                draft.setSku(sku);
+                draft.setMarketplace("EBAY_US");
+                draft.setTitleEn("Candidate " + candidateId);
+                draft.setDescriptionHtml("<p>Draft for candidate " + candidateId + "</p>");
+                draft.setListPriceUsd(pr.getSellPriceUsd());
+                draft.setQuantity(1);
+            }
+            prepared.add(new PreparedDraft(c, pr, draft));
+        }
+        return prepared;
+    }
+
+    private Mono<SentBatch> send(List<PreparedDraft> batch) {
+        List<EbayBulkDraftRequest> requests = batch.stream()
+                .map(p -> new EbayBulkDraftRequest(
+                        p.draft().getSku(),
+                        DraftService.inventoryPayload(p.draft().getSku(), p.pricing().getSellPriceUsd()),
+                        DraftService.offerPayload(p.draft().getSku(), p.pricing().getSellPriceUsd()),
+                        p.draft().getOfferId()))
+                .toList();
+
+        return ebayClient.bulkCreateDraftsAsync(requests).flatMap(results -> {
+            Map<String, EbayBulkDraftResult> bySku = new HashMap<>();
+            results.forEach(r -> bySku.put(r.sku(), r));
+
+            // offer エラー時は既存offerの存在確認（DB書き込み前に eBay 呼び出しを済ませる）
+            List<Mono<Map.Entry<String, Boolean>>> checks = new ArrayList<>();
+            for (PreparedDraft p : batch) {
+                String sku = p.draft().getSku();
+                EbayBulkDraftResult r = bySku.get(sku);
+                String offerId = p.draft().getOfferId();
+                if (r != null && !r.success() && r.offerError() && offerId != null && !offerId.isBlank()) {
+                    checks.add(ebayClient.checkOfferExistsAsync(offerId).map(exists -> Map.entry(sku, exists)));
+                }
+            }
+            return Flux.merge(checks)
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                    .map(offerExists -> new SentBatch(batch, bySku, offerExists));
+        });
+    }
+
+    private int persistSafely(SentBatch sent) {
+        try {
+            Integer created = txTemplate.execute(status -> persist(sent.batch(), sent.results(), sent.offerExists()));
+            return created == null ? 0 : created;
+        } catch (RuntimeException ex) {
+            log.error("Draft batch persist failed size={}", sent.batch().size(), ex);
+            return 0;
+        }
+    }
+
+    private int persist(List<PreparedDraft> batch, Map<String, EbayBulkDraftResult> bySku,
+            Map<String, Boolean> offerExists) {
+        List<EbayDraft> drafts = new ArrayList<>(batch.size());
+        List<Candidate> candidates = new ArrayList<>(batch.size());
+        List<String[]> logs = new ArrayList<>(batch.size());
+        int created = 0;
+
+        // eBay 送信の間に他で更新されていないか、行ロックを取って読み直す
+        Map<Long, Candidate> current = candidateRepo.findAllByIdForUpdate(
+                batch.stream().map(p -> p.candidate().getCandidateId()).toList()).stream()
+                .collect(Collectors.toMap(Candidate::getCandidateId, Function.identity()));
+
+        for (PreparedDraft p : batch) {
+            Long candidateId = p.candidate().getCandidateId();
+            String fromState = p.candidate().getState();
+            Candidate c = current.get(candidateId);
+            if (c == null || !fromState.equals(c.getState())) {
+                log.warn("Draft result skipped for candidateId={}: state changed during publish ({} -> {})",
+                        candidateId, fromState, c == null ? "deleted" : c.getState());
+                continue;
+            }
+            EbayDraft draft = p.draft();
+            String sku = draft.getSku();
+            EbayBulkDraftResult r = bySku.get(sku);
+            if (r == null) {
+                r = EbayBulkDraftResult.failed(sku, draft.getOfferId(), "no result for sku in bulk response", false);
+            }
+
+            try {
+                if (r.success()) {
+                    draft.setInventoryItemId("INV-" + sku);
+                    draft.setOfferId(r.offerId());
+                    draft.setState("EBAY_DRAFT_CREATED");
+                    draft.setLastError(null);
+
+                    stateMachine.validate(c.getState(), "EBAY_DRAFT_CREATED");
+                    c.setState("EBAY_DRAFT_CREATED");
+                    c.setRejectReasonCode(null);
+                    c.setRejectReasonDetail(null);
+                    created++;
+                } else {
+                    if (Boolean.FALSE.equals(offerExists.get(sku))) {
+                        draft.setOfferId(null);
+                    }
+                    draft.setState("EBAY_DRAFT_FAILED");
+                    draft.setLastError(r.error());
+
+                    stateMachine.validate(c.getState(), "EBAY_DRAFT_FAILED");
+                    c.setState("EBAY_DRAFT_FAILED");
+                    c.setRejectReasonCode("EBAY_DRAFT_FAILED");
+                    c.setRejectReasonDetail(r.error());
+                }
+            } catch (IllegalStateException ex) {
+                log.error("Draft result rejected for candidateId={}", c.getCandidateId(), ex);
+                continue;
+            }
+            drafts.add(draft);
+            candidates.add(c);
+            logs.add(new String[] { fromState, c.getState(), c.getRejectReasonCode(), c.getRejectReasonDetail() });
+        }
+
+        draftRepo.saveAll(drafts);
+        candidateRepo.saveAll(candidates);
+        for (int i = 0; i < candidates.size(); i++) {
+            String[] l = logs.get(i);
+            transitions.log("CANDIDATE", candidates.get(i).getCandidateId(), l[0], l[1], l[2], l[3],
+                    "SYSTEM", cid());
+        }
+        return created;
+    }
+
+    private static String sku(Long candidateId) {
+        return "CAND-" + candidateId;
+    }
+
+    private static String cid() {
+        return CorrelationIds.current();
+    }
+
+    private record PreparedDraft(Candidate candidate, PricingResult pricing, EbayDraft draft) {
+    }
+
+    private record SentBatch(
+            List<PreparedDraft> batch,
+            Map<String, EbayBulkDraftResult> results,
+            Map<String, Boolean> offerExists) {
+    }
+}
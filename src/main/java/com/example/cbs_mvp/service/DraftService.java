@@ -3,7 +3,6 @@ package com.example.cbs_mvp.service;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +19,9 @@ import com.example.cbs_mvp.ops.KillSwitchService;
 import com.example.cbs_mvp.repo.CandidateRepository;
 import com.example.cbs_mvp.repo.EbayDraftRepository;
 import com.example.cbs_mvp.repo.PricingResultRepository;
+import com.example.cbs_mvp.tracing.CorrelationIds;
+
+import io.micrometer.observation.annotation.Observed;
 
 @Service
 public class DraftService {
@@ -52,6 +54,7 @@ public class DraftService {
     }
 
     @Transactional
+    @Observed(name = "cbs.draft.create", contextualName = "draft")
     public EbayDraft createDraft(Long candidateId) {
         if (killSwitch.isPaused()) {
             throw new IllegalStateException("system is paused");
@@ -83,8 +86,7 @@ public class DraftService {
         // Or better: check if they are "significantly" different.
         // If stale, updatedAt >> lastCalculatedAt.
 
-        long diffSeconds = java.time.Duration.between(c.getLastCalculatedAt(), c.getUpdatedAt()).getSeconds();
-        if (diffSeconds > 1) {
+        if (isPricingStale(c)) {
             throw new IllegalStateException("pricing result is stale (candidate updated since last pricing)");
         }
 
@@ -179,19 +181,27 @@ public class DraftService {
         return success;
     }
 
-    private static Map<String, Object> inventoryPayload(String sku, BigDecimal priceUsd) {
+    /**
+     * Candidate が最終計算後に更新されていれば stale（@PreUpdate の誤差として1秒まで許容）
+     */
+    static boolean isPricingStale(Candidate c) {
+        long diffSeconds = java.time.Duration.between(c.getLastCalculatedAt(), c.getUpdatedAt()).getSeconds();
+        return diffSeconds > 1;
+    }
+
+    static Map<String, Object> inventoryPayload(String sku, BigDecimal priceUsd) {
         return Map.of(
                 "sku", sku,
                 "priceUsd", priceUsd);
     }
 
-    private static Map<String, Object> offerPayload(String sku, BigDecimal priceUsd) {
+    static Map<String, Object> offerPayload(String sku, BigDecimal priceUsd) {
         return Map.of(
                 "sku", sku,
                 "offerPriceUsd", priceUsd);
     }
 
     private static String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
     }
 }
@@ -7,6 +7,8 @@ import org.springframework.stereotype.Service;
 import com.example.cbs_mvp.ops.SystemFlagService;
 import com.example.cbs_mvp.repo.PurchaseOrderRepository;
 
+import io.micrometer.observation.annotation.Observed;
+
 @Service
 public class GateService {
 
@@ -22,7 +24,16 @@ public class GateService {
      * Cash Gate: AvailableCash = CashOnHand - OpenCommitments - ReserveHeld
      * Gate OK when: AvailableCash >= RequiredCashBuffer + newCostEstimate
      */
+    @Observed(name = "cbs.gate.cash", contextualName = "gate")
     public GateResult checkCashGate(BigDecimal newCostEstimateTotalYen) {
+        return checkCashGate(cashPosition(), newCostEstimateTotalYen);
+    }
+
+    /**
+     * 資金状況（system_flags と未払い発注額）を読み込む。
+     * 一括計算では1回だけ読み、全件の判定で共有する（判定自体は発注を作らないので途中で変わらない）。
+     */
+    public CashPosition cashPosition() {
         BigDecimal cashOnHand = bd(flags.get("CURRENT_CASH"), "0");
         BigDecimal requiredCashBuffer = bd(flags.get("REQUIRED_CASH_BUFFER"), "50000");
 
@@ -39,11 +50,23 @@ public class GateService {
                 .subtract(openCommitments)
                 .subtract(refundReserve);
 
+        return new CashPosition(availableCash, refundReserve, openCommitments, requiredCashBuffer);
+    }
+
+    public GateResult checkCashGate(CashPosition position, BigDecimal newCostEstimateTotalYen) {
         // Gate: AvailableCash >= RequiredCashBuffer + newCost
-        BigDecimal threshold = requiredCashBuffer.add(nz(newCostEstimateTotalYen));
-        boolean ok = availableCash.compareTo(threshold) >= 0;
+        BigDecimal threshold = position.requiredCashBuffer().add(nz(newCostEstimateTotalYen));
+        boolean ok = position.availableCash().compareTo(threshold) >= 0;
+
+        return new GateResult(ok, position.availableCash(), position.refundReserve(), position.openCommitments(),
+                position.requiredCashBuffer());
+    }
 
-        return new GateResult(ok, availableCash, refundReserve, openCommitments, requiredCashBuffer);
+    public record CashPosition(
+            BigDecimal availableCash,
+            BigDecimal refundReserve,
+            BigDecimal openCommitments,
+            BigDecimal requiredCashBuffer) {
     }
 
     private static BigDecimal nz(BigDecimal v) {
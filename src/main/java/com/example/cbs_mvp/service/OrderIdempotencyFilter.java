@@ -0,0 +1,187 @@
+package com.example.cbs_mvp.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.cbs_mvp.repo.OrderRepository;
+
+/**
+ * 取込済み注文（ebay_order_key）の重複判定フィルタ
+ * - 直近の取込済みキー：件数上限・有効期限つきのセット。ヒットすれば DB に問い合わせず重複と判定
+ * - Bloom filter：起動時に orders から構築。「含まれない」なら未取込が確定するので DB 確認を省略
+ * - それ以外（Bloom 陽性・キャッシュ外、または構築前）は DB で確認する
+ * 正しさは orders.ebay_order_key の一意制約が担保し、このフィルタは問い合わせ削減のみを行う。
+ */
+@Component
+public class OrderIdempotencyFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIdempotencyFilter.class);
+    private static final int WARM_PAGE_SIZE = 10_000;
+
+    public enum Verdict {
+        /** 取込済みが確定（DB確認不要） */
+        DUPLICATE,
+        /** 未取込が確定（DB確認不要） */
+        NEW,
+        /** 判定不能（DBで確認する） */
+        UNKNOWN
+    }
+
+    private final OrderRepository orderRepository;
+
+    private final int cacheMaxSize;
+    private final long cacheTtlMillis;
+    private final LinkedHashMap<String, Long> recent = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile OrderKeyBloomFilter bloom;
+    private volatile boolean ready;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder bloomNegatives = new LongAdder();
+    private final LongAdder dbChecks = new LongAdder();
+    private final LongAdder dbConfirmed = new LongAdder();
+
+    public OrderIdempotencyFilter(
+            OrderRepository orderRepository,
+            @Value("${orders.idempotency.cache-size:100000}") int cacheMaxSize,
+            @Value("${orders.idempotency.cache-ttl-minutes:1440}") long cacheTtlMinutes,
+            @Value("${orders.idempotency.bloom-expected:1000000}") long bloomExpected,
+            @Value("${orders.idempotency.bloom-fpp:0.01}") double bloomFpp) {
+        this.orderRepository = orderRepository;
+        this.cacheMaxSize = Math.max(1, cacheMaxSize);
+        this.cacheTtlMillis = Math.max(1, cacheTtlMinutes) * 60_000L;
+        this.bloom = new OrderKeyBloomFilter(bloomExpected, bloomFpp);
+    }
+
+    /**
+     * 起動時に orders の全キーで Bloom filter を構築する。構築完了までは常に UNKNOWN を返す。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long started = System.currentTimeMillis();
+        long lastId = 0;
+        long count = 0;
+        try {
+            while (true) {
+                List<Object[]> page = orderRepository.findOrderKeysAfter(lastId, PageRequest.of(0, WARM_PAGE_SIZE));
+                for (Object[] row : page) {
+                    lastId = ((Number) row[0]).longValue();
+                    bloom.put((String) row[1]);
+                }
+                count += page.size();
+                if (page.size() < WARM_PAGE_SIZE) {
+                    break;
+                }
+            }
+            ready = true;
+            log.info("Order idempotency filter warmed: keys={} bits={} hashes={} elapsedMs={}",
+                    count, bloom.bitCount(), bloom.hashCount(), System.currentTimeMillis() - started);
+        } catch (RuntimeException ex) {
+            // 構築に失敗しても DB 確認にフォールバックするだけ
+            log.error("Order idempotency filter warm-up failed; falling back to DB checks", ex);
+        }
+    }
+
+    public Verdict check(String ebayOrderKey) {
+        checks.increment();
+        if (ebayOrderKey == null) {
+            return Verdict.UNKNOWN;
+        }
+        if (cacheContains(ebayOrderKey)) {
+            cacheHits.increment();
+            return Verdict.DUPLICATE;
+        }
+        if (ready && !bloom.mightContain(ebayOrderKey)) {
+            bloomNegatives.increment();
+            return Verdict.NEW;
+        }
+        dbChecks.increment();
+        return Verdict.UNKNOWN;
+    }
+
+    /**
+     * DB確認で取込済みと分かったキーを記録する
+     */
+    public void markExisting(String ebayOrderKey) {
+        dbConfirmed.increment();
+        remember(ebayOrderKey);
+    }
+
+    /**
+     * 取込（INSERT）したキーを記録する。トランザクション中ならコミット後に反映する
+     * （ロールバックされたキーを取込済み扱いにしないため）。
+     */
+    public void markImported(String ebayOrderKey) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(ebayOrderKey);
+                }
+            });
+        } else {
+            remember(ebayOrderKey);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long total = checks.sum();
+        long avoided = cacheHits.sum() + bloomNegatives.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("ready", ready);
+        m.put("checks", total);
+        m.put("cacheHits", cacheHits.sum());
+        m.put("bloomNegatives", bloomNegatives.sum());
+        m.put("dbChecks", dbChecks.sum());
+        m.put("dbConfirmedDuplicates", dbConfirmed.sum());
+        m.put("dbAvoidedRate", total == 0 ? 0.0 : (double) avoided / total);
+        synchronized (recent) {
+            m.put("cacheSize", recent.size());
+        }
+        return m;
+    }
+
+    private void remember(String key) {
+        if (key == null) {
+            return;
+        }
+        bloom.put(key);
+        long now = System.currentTimeMillis();
+        synchronized (recent) {
+            recent.put(key, now + cacheTtlMillis);
+            if (recent.size() > cacheMaxSize) {
+                Iterator<String> it = recent.keySet().iterator();
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private boolean cacheContains(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (recent) {
+            Long expiresAt = recent.get(key);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (expiresAt < now) {
+                recent.remove(key);
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.example.cbs_mvp.service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,6 +10,7 @@ import com.example.cbs_mvp.entity.Order;
 import com.example.cbs_mvp.ops.KillSwitchService;
 import com.example.cbs_mvp.repo.EbayDraftRepository;
 import com.example.cbs_mvp.repo.OrderRepository;
+import com.example.cbs_mvp.tracing.CorrelationIds;
 
 @Service
 public class OrderImportService {
@@ -19,17 +19,20 @@ public class OrderImportService {
     private final EbayDraftRepository draftRepo;
     private final KillSwitchService killSwitch;
     private final StateTransitionService transitions;
+    private final OrderIdempotencyFilter idempotency;
 
     public OrderImportService(
             OrderRepository orderRepo,
             EbayDraftRepository draftRepo,
             KillSwitchService killSwitch,
-            StateTransitionService transitions
+            StateTransitionService transitions,
+            OrderIdempotencyFilter idempotency
     ) {
         this.orderRepo = orderRepo;
         this.draftRepo = draftRepo;
         this.killSwitch = killSwitch;
         this.transitions = transitions;
+        this.idempotency = idempotency;
     }
 
     @Transactional
@@ -59,6 +62,7 @@ public class OrderImportService {
 
         Order existing = orderRepo.findByEbayOrderKey(cmd.ebayOrderKey()).orElse(null);
         if (existing != null) {
+            idempotency.markExisting(existing.getEbayOrderKey());
             return new SoldImportResult(existing, true);
         }
 
@@ -69,6 +73,7 @@ public class OrderImportService {
         order.setSoldPriceYen(calcYen(cmd.soldPriceUsd(), cmd.fxRate()));
         order.setState("SOLD");
         order = orderRepo.save(order);
+        idempotency.markImported(order.getEbayOrderKey());
 
         transitions.log("ORDER", order.getOrderId(), null, "SOLD", "CREATE_SOLD",
                 null, "SYSTEM", cid());
@@ -80,7 +85,7 @@ public class OrderImportService {
     }
 
     private static String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
     }
 
     public record SoldImportCommand(
@@ -0,0 +1,78 @@
+package com.example.cbs_mvp.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ebay_order_key 用のスレッドセーフな Bloom filter。
+ * 「含まれない」は確定、「含まれるかも」は偽陽性あり（DBで確認する）。
+ */
+final class OrderKeyBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    OrderKeyBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    void put(String key) {
+        long h = hash64(key);
+        long h1 = h;
+        long h2 = (h >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << (bit & 63);
+            long cur;
+            do {
+                cur = bits.get(word);
+                if ((cur & mask) != 0) break;
+            } while (!bits.compareAndSet(word, cur, cur | mask));
+        }
+    }
+
+    boolean mightContain(String key) {
+        long h = hash64(key);
+        long h1 = h;
+        long h2 = (h >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    /**
+     * FNV-1a を splitmix64 の finalizer で攪拌した 64bit ハッシュ
+     */
+    private static long hash64(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -3,7 +3,6 @@ package com.example.cbs_mvp.service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,6 +12,7 @@ import com.example.cbs_mvp.entity.Order;
 import com.example.cbs_mvp.ops.KillSwitchService;
 import com.example.cbs_mvp.repo.CashLedgerRepository;
 import com.example.cbs_mvp.repo.OrderRepository;
+import com.example.cbs_mvp.tracing.CorrelationIds;
 
 @Service
 public class OrderService {
@@ -145,7 +145,7 @@ public class OrderService {
     }
 
     private static String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
     }
 
     private void guardNotPaused() {
@@ -5,6 +5,8 @@ import java.time.LocalDateTime;
 import org.springframework.stereotype.Service;
 
 import com.example.cbs_mvp.entity.StateTransition;
+import com.example.cbs_mvp.live.LiveEvent;
+import com.example.cbs_mvp.live.LiveEventBus;
 import com.example.cbs_mvp.repo.StateTransitionRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -14,6 +16,7 @@ import lombok.RequiredArgsConstructor;
 public class StateTransitionService {
 
     private final StateTransitionRepository repo;
+    private final LiveEventBus live;
 
     public void log(
             String entityType,
@@ -36,5 +39,21 @@ public class StateTransitionService {
         st.setCorrelationId(correlationId);
         st.setCreatedAt(LocalDateTime.now());
         repo.save(st);
+        publish(entityType, entityId, fromState, toState, reasonCode);
+    }
+
+    /**
+     * 画面に表示している候補・下書き・仕入れ候補の変更を通知する（コミット後に送られる）
+     */
+    private void publish(String entityType, Long entityId, String fromState, String toState, String reasonCode) {
+        switch (entityType) {
+            case "CANDIDATE" -> live.publish(LiveEvent.of(
+                    toState != null && toState.startsWith("EBAY_DRAFT_") ? "draft" : "candidate", entityId,
+                    "candidateId", entityId, "from", fromState, "state", toState, "reasonCode", reasonCode));
+            case "DISCOVERY_ITEM" -> live.publish(LiveEvent.of("discovery", entityId,
+                    "id", entityId, "from", fromState, "state", toState));
+            default -> {
+            }
+        }
     }
 }
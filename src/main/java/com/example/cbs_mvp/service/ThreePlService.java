@@ -1,106 +1,194 @@
 package com.example.cbs_mvp.service;
 
-import java.math.BigDecimal;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
-import org.springframework.data.domain.PageRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.cbs_mvp.entity.Fulfillment;
 import com.example.cbs_mvp.entity.Order;
-import com.example.cbs_mvp.entity.PurchaseOrder;
 import com.example.cbs_mvp.ops.KillSwitchService;
 import com.example.cbs_mvp.repo.FulfillmentRepository;
 import com.example.cbs_mvp.repo.OrderRepository;
-import com.example.cbs_mvp.repo.PurchaseOrderRepository;
+import com.example.cbs_mvp.repo.PoExportJdbcRepository;
+import com.example.cbs_mvp.repo.PoExportJdbcRepository.PoExportRow;
+import com.example.cbs_mvp.repo.TrackingImportJdbcRepository;
+import com.example.cbs_mvp.repo.TrackingImportJdbcRepository.TrackingWrite;
+import com.example.cbs_mvp.tracing.CorrelationIds;
 
 @Service
 public class ThreePlService {
 
-    private final PurchaseOrderRepository poRepo;
+    private static final Logger log = LoggerFactory.getLogger(ThreePlService.class);
+
     private final OrderRepository orderRepo;
     private final FulfillmentRepository fulfillmentRepo;
     private final KillSwitchService killSwitch;
-    private final StateTransitionService transitions;
+    private final TrackingUploadQueue uploadQueue;
+    private final TrackingImportJdbcRepository trackingWriter;
+    private final PoExportJdbcRepository poExport;
+    private final TransactionTemplate txTemplate;
+
+    @Value("${tracking.import.chunk-size:500}")
+    private int importChunkSize = 500;
+
+    @Value("${threepl.export.chunk-size:1000}")
+    private int exportChunkSize = 1000;
 
     public ThreePlService(
-            PurchaseOrderRepository poRepo,
             OrderRepository orderRepo,
             FulfillmentRepository fulfillmentRepo,
             KillSwitchService killSwitch,
-            StateTransitionService transitions
+            TrackingUploadQueue uploadQueue,
+            TrackingImportJdbcRepository trackingWriter,
+            PoExportJdbcRepository poExport,
+            PlatformTransactionManager txManager
     ) {
-        this.poRepo = poRepo;
         this.orderRepo = orderRepo;
         this.fulfillmentRepo = fulfillmentRepo;
         this.killSwitch = killSwitch;
-        this.transitions = transitions;
+        this.uploadQueue = uploadQueue;
+        this.trackingWriter = trackingWriter;
+        this.poExport = poExport;
+        this.txTemplate = new TransactionTemplate(txManager);
     }
 
-    @Transactional
-    public String exportRequestedPos(int limit) {
+    /**
+     * 出力を開始できるか（停止中でないか）を確認する。
+     * ストリーミング出力はレスポンス確定後に実行されるため、呼び出し側で事前に確認する。
+     */
+    public void assertExportAllowed() {
         if (killSwitch.isPaused()) {
             throw new IllegalStateException("system is paused");
         }
+    }
 
-        List<PurchaseOrder> pos = poRepo.findByState("REQUESTED", PageRequest.of(0, limit));
-        StringBuilder sb = new StringBuilder();
-        sb.append("po_id,order_id,ship_to_3pl_address,inbound_tracking,expected_total_cost_yen,notes\n");
-
-        for (PurchaseOrder po : pos) {
-            String notes = "order_id=" + po.getOrderId() + ";po_id=" + po.getPoId();
-            sb.append(csv(po.getPoId()))
-              .append(",")
-              .append(csv(po.getOrderId()))
-              .append(",")
-              .append(csv(po.getShipTo3plAddress()))
-              .append(",")
-              .append(csv(po.getInboundTracking()))
-              .append(",")
-              .append(csv(po.getExpectedTotalCostYen()))
-              .append(",")
-              .append(csv(notes))
-              .append("\n");
-
-            String from = po.getState();
-            po.setState("SHIPPED_TO_3PL");
-            poRepo.save(po);
-            transitions.log("PO", po.getPoId(), from, po.getState(), "EXPORT_3PL", null, "SYSTEM", cid());
-        }
-
-        return sb.toString();
+    /**
+     * REQUESTED の発注を最大 limit 件、CSV として out に書き出しながら SHIPPED_TO_3PL に更新する。
+     * exportChunkSize 件ごとに1トランザクション：1文の UPDATE ... RETURNING で状態更新と監査ログを行い、
+     * 返ってきた行をそのまま書き出してからコミットする（書き込みに失敗したチャンクはロールバック）。
+     *
+     * @return 出力件数
+     */
+    public int exportRequestedPos(int limit, OutputStream out) throws IOException {
+        assertExportAllowed();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("po_id,order_id,ship_to_3pl_address,inbound_tracking,expected_total_cost_yen,notes\n");
+
+        String correlationId = cid();
+        int exported = 0;
+        while (exported < limit) {
+            int chunk = Math.min(limit - exported, Math.max(1, exportChunkSize));
+            Integer n;
+            try {
+                n = txTemplate.execute(status -> {
+                    int count = poExport.shipRequested(chunk, correlationId, row -> writeRow(writer, row));
+                    flush(writer);
+                    return count;
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            exported += n == null ? 0 : n;
+            if (n == null || n < chunk) {
+                break;
+            }
+        }
+        writer.flush();
+        return exported;
+    }
+
+    private static void writeRow(Writer writer, PoExportRow po) {
+        String notes = "order_id=" + po.orderId() + ";po_id=" + po.poId();
+        try {
+            writer.append(csv(po.poId()))
+                  .append(",")
+                  .append(csv(po.orderId()))
+                  .append(",")
+                  .append(csv(po.shipTo3plAddress()))
+                  .append(",")
+                  .append(csv(po.inboundTracking()))
+                  .append(",")
+                  .append(csv(po.expectedTotalCostYen()))
+                  .append(",")
+                  .append(csv(notes))
+                  .append("\n");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void flush(Writer writer) {
+        try {
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 
     public ImportResult importTrackingCsv(String csvBody) {
+        if (csvBody == null || csvBody.isBlank()) {
+            if (killSwitch.isPaused()) {
+                throw new IllegalStateException("system is paused");
+            }
+            return new ImportResult(0, 0, 0, List.of());
+        }
+        try {
+            return importTrackingCsv(new StringReader(csvBody));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * 追跡番号CSVを1行ずつ読み込み、chunkSize 行ごとに一括反映する。
+     * - 注文・fulfillment はチャンク単位で IN 句により一括取得
+     * - 書き込みは JDBC バッチでチャンクごとに1トランザクション（失敗したチャンクは全行ロールバックしてエラー扱い）
+     * - コミットしたチャンクの注文はまとめて追跡番号アップロードへ予約
+     */
+    public ImportResult importTrackingCsv(Reader csv) throws IOException {
         if (killSwitch.isPaused()) {
             throw new IllegalStateException("system is paused");
         }
-        if (csvBody == null || csvBody.isBlank()) {
-            return new ImportResult(0, 0, 0);
-        }
 
-        String[] lines = csvBody.split("\\r?\\n");
-        int idx = 0;
+        BufferedReader reader = csv instanceof BufferedReader br ? br : new BufferedReader(csv);
         Map<String, Integer> header = new HashMap<>();
-        if (lines.length > 0 && lines[0].toLowerCase().contains("order_id")) {
-            String[] cols = lines[0].split(",", -1);
-            for (int i = 0; i < cols.length; i++) {
-                header.put(cols[i].trim().toLowerCase(), i);
-            }
-            idx = 1;
-        }
+        ImportTally tally = new ImportTally();
+        List<TrackingRow> chunk = new ArrayList<>();
 
-        int updated = 0;
-        int skipped = 0;
-        int errors = 0;
+        String raw;
+        int lineNumber = 0;
+        while ((raw = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && raw.toLowerCase().contains("order_id")) {
+                String[] cols = raw.split(",", -1);
+                for (int i = 0; i < cols.length; i++) {
+                    header.put(cols[i].trim().toLowerCase(), i);
+                }
+                continue;
+            }
 
-        for (; idx < lines.length; idx++) {
-            String line = lines[idx].trim();
+            String line = raw.trim();
             if (line.isEmpty()) continue;
             String[] cols = line.split(",", -1);
 
@@ -109,7 +197,7 @@ public class ThreePlService {
             String tracking = get(cols, header, "outbound_tracking", 2);
 
             if (orderIdStr == null || orderIdStr.isBlank() || tracking == null || tracking.isBlank()) {
-                skipped++;
+                tally.skipped++;
                 continue;
             }
 
@@ -117,35 +205,88 @@ public class ThreePlService {
             try {
                 orderId = Long.parseLong(orderIdStr.trim());
             } catch (NumberFormatException ex) {
-                errors++;
+                tally.errors.add("Line " + lineNumber + ": invalid order_id: " + orderIdStr);
                 continue;
             }
 
-            Order order = orderRepo.findById(orderId).orElse(null);
-            if (order == null) {
-                errors++;
-                continue;
+            chunk.add(new TrackingRow(lineNumber, orderId, blankToNull(carrier), tracking));
+            if (chunk.size() >= importChunkSize) {
+                applyChunk(chunk, tally);
+                chunk.clear();
+            }
+        }
+        applyChunk(chunk, tally);
+
+        return new ImportResult(tally.updated, tally.skipped, tally.errors.size(), tally.errors);
+    }
+
+    private void applyChunk(List<TrackingRow> rows, ImportTally tally) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        // 同じ注文が複数行ある場合は後の行を採用（旧実装の上書き順と同じ）
+        Map<Long, TrackingRow> latest = new LinkedHashMap<>();
+        for (TrackingRow row : rows) {
+            if (latest.put(row.orderId(), row) != null) {
+                tally.skipped++;
             }
+        }
 
-            Fulfillment f = fulfillmentRepo.findByOrderId(orderId).orElseGet(Fulfillment::new);
-            f.setOrderId(orderId);
-            f.setOutboundCarrier(blankToNull(carrier));
-            f.setOutboundTracking(tracking);
-            f.setState("3PL_SHIPPED_INTL");
-            fulfillmentRepo.save(f);
+        Map<Long, Order> orders = new HashMap<>();
+        for (Order o : orderRepo.findAllById(latest.keySet())) {
+            orders.put(o.getOrderId(), o);
+        }
+        Map<Long, Long> fulfillIds = new HashMap<>();
+        for (Fulfillment f : fulfillmentRepo.findByOrderIdIn(latest.keySet())) {
+            fulfillIds.merge(f.getOrderId(), f.getFulfillId(), Math::min);
+        }
 
-            String from = order.getState();
-            order.setState("3PL_SHIPPED_INTL");
-            orderRepo.save(order);
-            transitions.log("ORDER", orderId, from, order.getState(), "TRACKING_IMPORTED", null, "SYSTEM", cid());
+        List<TrackingRow> applicable = new ArrayList<>();
+        List<TrackingWrite> writes = new ArrayList<>();
+        for (TrackingRow row : latest.values()) {
+            Order order = orders.get(row.orderId());
+            if (order == null) {
+                tally.errors.add("Line " + row.lineNumber() + ": order not found: " + row.orderId());
+                continue;
+            }
+            applicable.add(row);
+            writes.add(new TrackingWrite(
+                    row.orderId(),
+                    fulfillIds.get(row.orderId()),
+                    order.getState(),
+                    row.carrier(),
+                    row.tracking(),
+                    cid()));
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
 
-            updated++;
+        try {
+            txTemplate.executeWithoutResult(status -> trackingWriter.applyShipped(writes, LocalDateTime.now()));
+        } catch (RuntimeException ex) {
+            log.error("[ThreePlService] tracking import chunk failed rows={}", writes.size(), ex);
+            for (TrackingRow row : applicable) {
+                tally.errors.add("Line " + row.lineNumber() + ": " + ex.getMessage());
+            }
+            return;
         }
 
-        return new ImportResult(updated, skipped, errors);
+        tally.updated += writes.size();
+        // eBay への追跡番号アップロードをまとめて即時予約（ポーリング待ちをなくす）
+        uploadQueue.scheduleNowAll(writes.stream().map(TrackingWrite::orderId).toList());
     }
 
-    public record ImportResult(int updated, int skipped, int errors) {}
+    public record ImportResult(int updated, int skipped, int errors, List<String> errorDetails) {}
+
+    private record TrackingRow(int lineNumber, Long orderId, String carrier, String tracking) {}
+
+    private static final class ImportTally {
+        private int updated;
+        private int skipped;
+        private final List<String> errors = new ArrayList<>();
+    }
 
     private static String get(String[] cols, Map<String, Integer> header, String key, int fallbackIndex) {
         Integer idx = header.get(key);
@@ -169,6 +310,6 @@ public class ThreePlService {
     }
 
     private static String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
     }
 }
@@ -1,7 +1,6 @@
 package com.example.cbs_mvp.service;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +13,7 @@ import com.example.cbs_mvp.ops.KillSwitchService;
 import com.example.cbs_mvp.ops.SystemFlagService;
 import com.example.cbs_mvp.repo.FulfillmentRepository;
 import com.example.cbs_mvp.repo.OrderRepository;
+import com.example.cbs_mvp.tracing.CorrelationIds;
 
 @Service
 public class TrackingService {
@@ -24,6 +24,7 @@ public class TrackingService {
     private final KillSwitchService killSwitch;
     private final SystemFlagService flags;
     private final StateTransitionService transitions;
+    private final TrackingUploadQueue uploadQueue;
 
     private static final long RETRY_BASE_DELAY_SECONDS_DEFAULT = 60;
     private static final long RETRY_MAX_DELAY_SECONDS_DEFAULT = 900;
@@ -34,7 +35,8 @@ public class TrackingService {
             EbayOrderClient ebayOrderClient,
             KillSwitchService killSwitch,
             SystemFlagService flags,
-            StateTransitionService transitions
+            StateTransitionService transitions,
+            TrackingUploadQueue uploadQueue
     ) {
         this.orderRepo = orderRepo;
         this.fulfillmentRepo = fulfillmentRepo;
@@ -42,6 +44,7 @@ public class TrackingService {
         this.killSwitch = killSwitch;
         this.flags = flags;
         this.transitions = transitions;
+        this.uploadQueue = uploadQueue;
     }
 
     @Transactional(noRollbackFor = EbayOrderClientException.class)
@@ -120,6 +123,7 @@ public class TrackingService {
             } else {
                 scheduleTrackingRetry(order, ex.getMessage());
                 orderRepo.save(order);
+                uploadQueue.schedule(orderId, order.getTrackingNextRetryAt());
                 reasonCode = "EBAY_TRACKING_UPLOAD_RETRYING";
             }
             transitions.log(
@@ -181,7 +185,7 @@ public class TrackingService {
     }
 
     private static String cid() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return CorrelationIds.current();
     }
 
     private static String nz(String v) {
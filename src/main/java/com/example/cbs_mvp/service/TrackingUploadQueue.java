@@ -0,0 +1,118 @@
+package com.example.cbs_mvp.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 追跡番号アップロードの実行予定キュー（プロセス内の遅延キュー）
+ * - キーは order_id。同じ注文を再登録すると後から登録した予定で上書きされる
+ * - トランザクション内から登録した場合はコミット後にキューへ入れる（未コミットの状態を読ませない）
+ * - 永続化はしない。再起動時は TrackingRetryBatch が orders.tracking_next_retry_at から復元する
+ */
+@Component
+public class TrackingUploadQueue {
+
+    private final DelayQueue<Due> queue = new DelayQueue<>();
+    private final ConcurrentHashMap<Long, Due> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 即時実行として登録する
+     */
+    public void scheduleNow(Long orderId) {
+        schedule(orderId, null);
+    }
+
+    /**
+     * 複数注文をまとめて即時実行として登録する
+     */
+    public void scheduleNowAll(Collection<Long> orderIds) {
+        for (Long orderId : orderIds) {
+            schedule(orderId, null);
+        }
+    }
+
+    /**
+     * @param dueAt 実行予定時刻。null または過去なら即時
+     */
+    public void schedule(Long orderId, LocalDateTime dueAt) {
+        if (orderId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(orderId, dueAt);
+                }
+            });
+        } else {
+            enqueue(orderId, dueAt);
+        }
+    }
+
+    /**
+     * 実行予定時刻に達した注文を1件取り出す（到達するまでブロック）。
+     * 上書きされた古い予定は読み飛ばす。
+     */
+    public Long take() throws InterruptedException {
+        while (true) {
+            Due due = queue.take();
+            if (pending.remove(due.orderId, due)) {
+                return due.orderId;
+            }
+        }
+    }
+
+    /**
+     * 登録済み（未実行）の注文数
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    public boolean isScheduled(Long orderId) {
+        return pending.containsKey(orderId);
+    }
+
+    private void enqueue(Long orderId, LocalDateTime dueAt) {
+        long delayNanos = 0;
+        if (dueAt != null) {
+            delayNanos = Math.max(0, Duration.between(LocalDateTime.now(), dueAt).toNanos());
+        }
+        Due due = new Due(orderId, System.nanoTime() + delayNanos);
+        pending.put(orderId, due);
+        queue.add(due);
+    }
+
+    private static final class Due implements Delayed {
+        private final Long orderId;
+        private final long deadlineNanos;
+
+        private Due(Long orderId, long deadlineNanos) {
+            this.orderId = orderId;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof Due d) {
+                return Long.compare(deadlineNanos - d.deadlineNanos, 0);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
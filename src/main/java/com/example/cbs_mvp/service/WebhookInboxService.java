@@ -0,0 +1,276 @@
+package com.example.cbs_mvp.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.cbs_mvp.ebay.EbayOrderClient;
+import com.example.cbs_mvp.entity.EbayDraft;
+import com.example.cbs_mvp.entity.WebhookInbox;
+import com.example.cbs_mvp.fx.FxRateService;
+import com.example.cbs_mvp.repo.EbayDraftRepository;
+import com.example.cbs_mvp.repo.OrderRepository;
+import com.example.cbs_mvp.repo.WebhookInboxRepository;
+import com.example.cbs_mvp.service.OrderImportService.SoldImportCommand;
+
+/**
+ * Webhook受信キュー（webhook_inbox）
+ * - enqueue: 署名検証済みの通知をそのまま保存するだけ（Controllerは即200を返す）
+ * - processClaimed: ワーカーが取得した行を orderId で重複排除し、注文詳細をまとめて取得して取込む
+ * 失敗した行は指数バックオフで再実行を予約し、上限回数を超えたら FAILED にする。
+ */
+@Service
+public class WebhookInboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookInboxService.class);
+
+    private final WebhookInboxRepository inboxRepo;
+    private final EbayOrderClient ebayOrderClient;
+    private final OrderRepository orderRepository;
+    private final EbayDraftRepository draftRepository;
+    private final OrderImportService orderImportService;
+    private final FxRateService fxRateService;
+    private final OrderIdempotencyFilter idempotency;
+
+    @Value("${webhook.inbox.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    @Value("${webhook.inbox.retry-base-seconds:30}")
+    private long retryBaseSeconds = 30;
+
+    @Value("${webhook.inbox.retry-max-seconds:3600}")
+    private long retryMaxSeconds = 3600;
+
+    public WebhookInboxService(
+            WebhookInboxRepository inboxRepo,
+            EbayOrderClient ebayOrderClient,
+            OrderRepository orderRepository,
+            EbayDraftRepository draftRepository,
+            OrderImportService orderImportService,
+            FxRateService fxRateService,
+            OrderIdempotencyFilter idempotency) {
+        this.inboxRepo = inboxRepo;
+        this.ebayOrderClient = ebayOrderClient;
+        this.orderRepository = orderRepository;
+        this.draftRepository = draftRepository;
+        this.orderImportService = orderImportService;
+        this.fxRateService = fxRateService;
+        this.idempotency = idempotency;
+    }
+
+    public WebhookInbox enqueue(String ebayOrderKey, String rawBody) {
+        WebhookInbox row = new WebhookInbox();
+        row.setEbayOrderKey(ebayOrderKey);
+        row.setPayload(rawBody);
+        return inboxRepo.save(row);
+    }
+
+    public List<WebhookInbox> claim(int limit) {
+        return inboxRepo.claimBatch(limit);
+    }
+
+    public int releaseStale(LocalDateTime staleBefore) {
+        return inboxRepo.releaseStale(staleBefore);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("pending", inboxRepo.countByStatus("PENDING"));
+        m.put("processing", inboxRepo.countByStatus("PROCESSING"));
+        m.put("failed", inboxRepo.countByStatus("FAILED"));
+        m.put("idempotency", idempotency.stats());
+        return m;
+    }
+
+    /**
+     * 取得済み（PROCESSING）の行をまとめて処理し、結果を保存する。
+     *
+     * @return 取込に成功した注文数
+     */
+    public int processClaimed(List<WebhookInbox> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        // 1. orderId で重複排除（同じ注文の通知は先頭の1件だけ処理）
+        Map<String, WebhookInbox> primary = new LinkedHashMap<>();
+        for (WebhookInbox row : rows) {
+            WebhookInbox first = primary.putIfAbsent(row.getEbayOrderKey(), row);
+            if (first != null) {
+                finish(row, "DUPLICATE", "duplicate of inbox_id=" + first.getInboxId());
+            }
+        }
+
+        // 2. 取込済みの注文はスキップ
+        //    重複判定フィルタで確定できるものは DB を見ず、判定不能なものだけ IN 句1回で確認
+        List<WebhookInbox> targets = new ArrayList<>();
+        List<String> unknown = new ArrayList<>();
+        for (WebhookInbox row : primary.values()) {
+            OrderIdempotencyFilter.Verdict verdict = idempotency.check(row.getEbayOrderKey());
+            if (verdict == OrderIdempotencyFilter.Verdict.DUPLICATE) {
+                log.info("Order {} already exists. Skipping.", row.getEbayOrderKey());
+                finish(row, "DUPLICATE", "order already imported");
+                continue;
+            }
+            if (verdict == OrderIdempotencyFilter.Verdict.UNKNOWN) {
+                unknown.add(row.getEbayOrderKey());
+            }
+            targets.add(row);
+        }
+        if (!unknown.isEmpty()) {
+            Set<String> existing = new HashSet<>(orderRepository.findExistingEbayOrderKeys(unknown));
+            targets.removeIf(row -> {
+                if (!existing.contains(row.getEbayOrderKey())) {
+                    return false;
+                }
+                log.info("Order {} already exists. Skipping.", row.getEbayOrderKey());
+                idempotency.markExisting(row.getEbayOrderKey());
+                finish(row, "DUPLICATE", "order already imported");
+                return true;
+            });
+        }
+
+        // 3. 注文詳細をまとめて取得
+        Map<String, Map<String, Object>> details = Map.of();
+        if (!targets.isEmpty()) {
+            try {
+                details = ebayOrderClient.getOrdersAsync(
+                        targets.stream().map(WebhookInbox::getEbayOrderKey).toList()).block();
+            } catch (RuntimeException e) {
+                log.error("Failed to fetch order details count={}", targets.size(), e);
+                targets.forEach(row -> scheduleRetry(row, "getOrders failed: " + e.getMessage()));
+                targets = List.of();
+            }
+        }
+
+        BigDecimal fxRate = currentFxRate();
+        int imported = 0;
+        for (WebhookInbox row : targets) {
+            String orderId = row.getEbayOrderKey();
+            Map<String, Object> orderDetails = details == null ? null : details.get(orderId);
+            if (orderDetails == null) {
+                log.error("Failed to fetch order details for {}", orderId);
+                scheduleRetry(row, "order details not available");
+                continue;
+            }
+            if (importOrder(row, orderDetails, fxRate)) {
+                imported++;
+            }
+        }
+
+        inboxRepo.saveAll(rows);
+        return imported;
+    }
+
+    private boolean importOrder(WebhookInbox row, Map<String, Object> orderDetails, BigDecimal fxRate) {
+        String orderId = row.getEbayOrderKey();
+
+        // SKU抽出 & Draft特定
+        String sku = extractSku(orderDetails);
+        if (sku == null) {
+            log.error("SKU not found in order details for {}", orderId);
+            // 処理不能。リトライしても変わらないので終了扱い
+            finish(row, "SKIPPED", "sku not found in order details");
+            return false;
+        }
+
+        Optional<EbayDraft> draftOpt = draftRepository.findBySku(sku);
+        if (draftOpt.isEmpty()) {
+            log.warn("Draft not found for SKU: {} (Order: {})", sku, orderId);
+            // 要件B: 受理して監視ログに残す
+            finish(row, "SKIPPED", "draft not found for sku=" + sku);
+            return false;
+        }
+
+        try {
+            orderImportService.importSold(new SoldImportCommand(
+                    orderId,
+                    draftOpt.get().getDraftId(),
+                    extractSoldPrice(orderDetails),
+                    fxRate));
+            log.info("Order imported successfully: {}", orderId);
+            finish(row, "DONE", null);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to import order {}", orderId, e);
+            scheduleRetry(row, "import failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private BigDecimal currentFxRate() {
+        BigDecimal fxRate = BigDecimal.valueOf(150.0);
+        var rateResult = fxRateService.getCurrentRate();
+        if (rateResult.isSuccess() && rateResult.rate() != null) {
+            fxRate = rateResult.rate();
+        }
+        return fxRate;
+    }
+
+    private void finish(WebhookInbox row, String status, String detail) {
+        row.setStatus(status);
+        row.setLastError(detail);
+        row.setLockedAt(null);
+        row.setProcessedAt(LocalDateTime.now());
+    }
+
+    private void scheduleRetry(WebhookInbox row, String error) {
+        row.setLockedAt(null);
+        row.setLastError(error);
+        if (row.getAttempts() >= maxAttempts) {
+            row.setStatus("FAILED");
+            row.setProcessedAt(LocalDateTime.now());
+            log.error("Webhook inbox_id={} orderId={} gave up after {} attempts", row.getInboxId(),
+                    row.getEbayOrderKey(), row.getAttempts());
+            return;
+        }
+        row.setStatus("PENDING");
+        row.setNextAttemptAt(LocalDateTime.now().plusSeconds(retryDelaySeconds(row.getAttempts())));
+    }
+
+    long retryDelaySeconds(int attempt) {
+        if (attempt <= 1) return retryBaseSeconds;
+        long delay = retryBaseSeconds * (1L << Math.min(attempt - 1, 20));
+        return Math.min(delay, retryMaxSeconds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String extractSku(Map<String, Object> orderDetails) {
+        // lineItems -> [0] -> sku
+        if (orderDetails.containsKey("lineItems")) {
+            List<Map<String, Object>> items = (List<Map<String, Object>>) orderDetails.get("lineItems");
+            if (items != null && !items.isEmpty()) {
+                Map<String, Object> firstItem = items.get(0);
+                return (String) firstItem.get("sku");
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BigDecimal extractSoldPrice(Map<String, Object> orderDetails) {
+        // pricingSummary -> total -> value
+        if (orderDetails.containsKey("pricingSummary")) {
+            Map<String, Object> pricing = (Map<String, Object>) orderDetails.get("pricingSummary");
+            if (pricing != null && pricing.containsKey("total")) {
+                Map<String, Object> total = (Map<String, Object>) pricing.get("total");
+                if (total != null && total.containsKey("value")) {
+                    return new BigDecimal((String) total.get("value"));
+                }
+            }
+        }
+        // Fallback: lineItems sum?
+        return BigDecimal.ZERO;
+    }
+}
@@ -1,17 +1,24 @@
 package com.example.cbs_mvp.threepl;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.cbs_mvp.service.ThreePlService;
-import com.example.cbs_mvp.service.ThreePlService.ImportResult;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/3pl")
@@ -23,24 +30,37 @@ public class ThreePlController {
         this.service = service;
     }
 
+    /**
+     * REQUESTED の発注をCSVで出力（SHIPPED_TO_3PL へ更新）。
+     * 件数が多くてもメモリに溜めないよう、読み込んだ行から順にレスポンスへ書き出す。
+     */
     @GetMapping(value = "/export", produces = "text/csv")
     public ResponseEntity<?> exportCsv(@RequestParam(defaultValue = "10") int limit) {
         try {
-            String csv = service.exportRequestedPos(limit);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.valueOf("text/csv"))
-                    .body(csv);
+            service.assertExportAllowed();
         } catch (IllegalStateException ex) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
         }
+        StreamingResponseBody body = out -> service.exportRequestedPos(limit, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.valueOf("text/csv"))
+                .body(body);
     }
 
+    /**
+     * 追跡番号CSVの取込。本文は全体を文字列化せず、ストリームのまま読み込む。
+     */
     @PostMapping(value = "/import-tracking", consumes = MediaType.TEXT_PLAIN_VALUE)
-    public ResponseEntity<?> importTracking(@RequestBody String body) {
-        try {
-            return ResponseEntity.ok(service.importTrackingCsv(body));
+    public ResponseEntity<?> importTracking(HttpServletRequest request) {
+        Charset charset = request.getCharacterEncoding() == null
+                ? StandardCharsets.UTF_8
+                : Charset.forName(request.getCharacterEncoding());
+        try (Reader reader = new InputStreamReader(request.getInputStream(), charset)) {
+            return ResponseEntity.ok(service.importTrackingCsv(reader));
         } catch (IllegalStateException ex) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        } catch (IOException ex) {
+            return ResponseEntity.badRequest().body("failed to read body: " + ex.getMessage());
         }
     }
 }
@@ -0,0 +1,26 @@
+package com.example.cbs_mvp.tracing;
+
+import java.util.UUID;
+
+import org.slf4j.MDC;
+
+/**
+ * state_transitions.correlation_id などに使う相関ID
+ * 実行中のトレースがあればそのトレースID（MDC の traceId）を使い、1回のリクエスト・バッチ実行で
+ * 書かれる遷移ログを同じIDでたどれるようにする。トレース外では従来どおりランダムな値。
+ */
+public final class CorrelationIds {
+
+    static final String MDC_TRACE_ID = "traceId";
+
+    private CorrelationIds() {
+    }
+
+    public static String current() {
+        String traceId = MDC.get(MDC_TRACE_ID);
+        if (traceId != null && !traceId.isBlank()) {
+            return traceId;
+        }
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
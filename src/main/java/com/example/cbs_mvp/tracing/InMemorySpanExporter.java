@@ -0,0 +1,217 @@
+package com.example.cbs_mvp.tracing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * 終了したスパンをメモリ上に保持するエクスポーター（外部の収集基盤なしでトレースを参照するため）
+ * 直近 maxTraces 件のトレースを保持し、古いものから捨てる。1トレースのスパン数にも上限を設ける。
+ * 子スパンのない短いトレース（空振りのポーリングなど）は保持しない。
+ */
+@Component
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int maxTraces;
+    private final int maxSpansPerTrace;
+    private final long loneRootMinNanos;
+    private final LinkedHashMap<String, List<SpanData>> traces;
+
+    public InMemorySpanExporter(
+            @Value("${tracing.store.max-traces:500}") int maxTraces,
+            @Value("${tracing.store.max-spans-per-trace:500}") int maxSpansPerTrace,
+            @Value("${tracing.store.lone-root-min-ms:50}") long loneRootMinMs) {
+        this.maxTraces = Math.max(1, maxTraces);
+        this.maxSpansPerTrace = Math.max(1, maxSpansPerTrace);
+        this.loneRootMinNanos = Math.max(0, loneRootMinMs) * 1_000_000;
+        this.traces = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<SpanData>> eldest) {
+                return size() > InMemorySpanExporter.this.maxTraces;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        for (SpanData span : spans) {
+            // 子スパンは親より先に終わるため、ルート到着時に何も無ければ子のないトレース
+            if (!span.getParentSpanContext().isValid()
+                    && !traces.containsKey(span.getTraceId())
+                    && span.getEndEpochNanos() - span.getStartEpochNanos() < loneRootMinNanos) {
+                continue;
+            }
+            List<SpanData> list = traces.computeIfAbsent(span.getTraceId(), k -> new ArrayList<>());
+            if (list.size() < maxSpansPerTrace) {
+                list.add(span);
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    public record TraceSummary(
+            String traceId,
+            String rootName,
+            long startEpochMs,
+            double durationMs,
+            int spanCount,
+            boolean error) {
+    }
+
+    public record SpanView(
+            String spanId,
+            String parentSpanId,
+            String name,
+            int depth,
+            double offsetMs,
+            double durationMs,
+            boolean error,
+            Map<String, String> attributes) {
+    }
+
+    /**
+     * 新しい順のトレース一覧
+     *
+     * @param rootName null 以外ならルートスパン名が一致するものだけ
+     */
+    public List<TraceSummary> recent(int limit, String rootName) {
+        List<List<SpanData>> snapshot = snapshot();
+        List<TraceSummary> out = new ArrayList<>();
+        for (int i = snapshot.size() - 1; i >= 0 && out.size() < limit; i--) {
+            List<SpanData> spans = snapshot.get(i);
+            SpanData root = root(spans);
+            if (rootName != null && !rootName.equals(root.getName())) {
+                continue;
+            }
+            long start = spans.stream().mapToLong(SpanData::getStartEpochNanos).min().orElse(0);
+            long end = spans.stream().mapToLong(SpanData::getEndEpochNanos).max().orElse(start);
+            boolean error = spans.stream().anyMatch(s -> s.getStatus().getStatusCode() == StatusCode.ERROR);
+            out.add(new TraceSummary(root.getTraceId(), root.getName(), start / 1_000_000,
+                    (end - start) / 1_000_000.0, spans.size(), error));
+        }
+        return out;
+    }
+
+    /**
+     * ウォーターフォール表示用：開始順のスパン（トレース先頭からの経過時間と親子の深さつき）
+     */
+    public Optional<List<SpanView>> waterfall(String traceId) {
+        List<SpanData> spans;
+        synchronized (this) {
+            List<SpanData> list = traces.get(traceId);
+            if (list == null) {
+                return Optional.empty();
+            }
+            spans = new ArrayList<>(list);
+        }
+        spans.sort(Comparator.comparingLong(SpanData::getStartEpochNanos));
+        long origin = spans.get(0).getStartEpochNanos();
+
+        Map<String, SpanData> byId = new HashMap<>();
+        spans.forEach(s -> byId.put(s.getSpanId(), s));
+
+        List<SpanView> out = new ArrayList<>(spans.size());
+        for (SpanData s : spans) {
+            Map<String, String> attrs = new LinkedHashMap<>();
+            s.getAttributes().forEach((k, v) -> attrs.put(k.getKey(), String.valueOf(v)));
+            out.add(new SpanView(
+                    s.getSpanId(),
+                    s.getParentSpanContext().isValid() ? s.getParentSpanId() : null,
+                    s.getName(),
+                    depth(s, byId),
+                    (s.getStartEpochNanos() - origin) / 1_000_000.0,
+                    (s.getEndEpochNanos() - s.getStartEpochNanos()) / 1_000_000.0,
+                    s.getStatus().getStatusCode() == StatusCode.ERROR,
+                    attrs));
+        }
+        return Optional.of(out);
+    }
+
+    /**
+     * ルートスパン名が rootName のトレースについて、スパン名ごとの合計時間の平均・最大
+     * （どの工程が全体の時間を占めているかを見るため。合計時間の大きい順）
+     */
+    public List<Map<String, Object>> breakdown(String rootName) {
+        Map<String, double[]> acc = new LinkedHashMap<>(); // [合計ms, 件数, 最大ms]
+        int traceCount = 0;
+        for (List<SpanData> spans : snapshot()) {
+            if (!rootName.equals(root(spans).getName())) {
+                continue;
+            }
+            traceCount++;
+            for (SpanData s : spans) {
+                double ms = (s.getEndEpochNanos() - s.getStartEpochNanos()) / 1_000_000.0;
+                double[] a = acc.computeIfAbsent(s.getName(), k -> new double[3]);
+                a[0] += ms;
+                a[1]++;
+                a[2] = Math.max(a[2], ms);
+            }
+        }
+        int matched = traceCount;
+        int divisor = Math.max(1, traceCount);
+        List<Map<String, Object>> out = new ArrayList<>();
+        acc.entrySet().stream()
+                .sorted((x, y) -> Double.compare(y.getValue()[0], x.getValue()[0]))
+                .forEach(e -> {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("name", e.getKey());
+                    m.put("traces", matched);
+                    m.put("calls", (long) e.getValue()[1]);
+                    m.put("avgMsPerTrace", e.getValue()[0] / divisor);
+                    m.put("maxMs", e.getValue()[2]);
+                    out.add(m);
+                });
+        return out;
+    }
+
+    private synchronized List<List<SpanData>> snapshot() {
+        List<List<SpanData>> out = new ArrayList<>(traces.size());
+        traces.values().forEach(l -> out.add(new ArrayList<>(l)));
+        return out;
+    }
+
+    /**
+     * 親がこのトレース内に無いスパンのうち最も早く始まったもの
+     */
+    private static SpanData root(List<SpanData> spans) {
+        Map<String, SpanData> byId = new HashMap<>();
+        spans.forEach(s -> byId.put(s.getSpanId(), s));
+        return spans.stream()
+                .filter(s -> !s.getParentSpanContext().isValid() || !byId.containsKey(s.getParentSpanId()))
+                .min(Comparator.comparingLong(SpanData::getStartEpochNanos))
+                .orElse(spans.get(0));
+    }
+
+    private static int depth(SpanData span, Map<String, SpanData> byId) {
+        int depth = 0;
+        SpanData cur = span;
+        while (cur.getParentSpanContext().isValid() && byId.containsKey(cur.getParentSpanId()) && depth < 64) {
+            cur = byId.get(cur.getParentSpanId());
+            depth++;
+        }
+        return depth;
+    }
+}
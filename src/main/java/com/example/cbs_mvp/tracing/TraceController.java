@@ -0,0 +1,47 @@
+package com.example.cbs_mvp.tracing;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * メモリ上のトレース参照（画面: /traces.html）
+ */
+@RestController
+@RequestMapping("/ops/traces")
+public class TraceController {
+
+    private final InMemorySpanExporter store;
+
+    public TraceController(InMemorySpanExporter store) {
+        this.store = store;
+    }
+
+    @GetMapping
+    public List<InMemorySpanExporter.TraceSummary> recent(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String root) {
+        return store.recent(Math.max(1, Math.min(limit, 500)), root == null || root.isBlank() ? null : root);
+    }
+
+    @GetMapping("/{traceId}")
+    public ResponseEntity<?> waterfall(@PathVariable String traceId) {
+        return store.waterfall(traceId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 例: /ops/traces/breakdown?root=cbs.discovery.draft
+     */
+    @GetMapping("/breakdown")
+    public Map<String, Object> breakdown(@RequestParam String root) {
+        return Map.of("root", root, "steps", store.breakdown(root));
+    }
+}
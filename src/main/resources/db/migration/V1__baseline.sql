@@ -1,5 +1,6 @@
--- schema.sql (PostgreSQL) : Freeze仕様・完全版（開発用）
--- ※ CREATE TABLE IF NOT EXISTS で冪等。初期INSERTはON CONFLICTで冪等。
+-- V1: ベーススキーマ（PostgreSQL）: Freeze仕様・完全版（旧 schema.sql）
+-- ※ 起動のたびに schema.sql を流していた既存DBにもそのまま適用できるよう、
+--    CREATE TABLE IF NOT EXISTS / ADD COLUMN IF NOT EXISTS / ON CONFLICT・NOT EXISTS で冪等にしてある。
 
 -- 0) app_meta（動作確認用）
 CREATE TABLE IF NOT EXISTS app_meta (
@@ -31,6 +32,7 @@ ON CONFLICT (key) DO NOTHING;
 
 -- Pricing/Gate用の初期Params（MVPはsystem_flagsで管理）
 INSERT INTO system_flags(key, value) VALUES ('FX_BUFFER', '0.03') ON CONFLICT (key) DO NOTHING;
+INSERT INTO system_flags(key, value) VALUES ('FX_BUFFER_MODE', 'STATIC') ON CONFLICT (key) DO NOTHING;
 INSERT INTO system_flags(key, value) VALUES ('DOMESTIC_SHIP', '800') ON CONFLICT (key) DO NOTHING;
 INSERT INTO system_flags(key, value) VALUES ('PACKING_MISC', '300') ON CONFLICT (key) DO NOTHING;
 INSERT INTO system_flags(key, value) VALUES ('PL_INBOUND', '200') ON CONFLICT (key) DO NOTHING;
@@ -99,6 +101,8 @@ ALTER TABLE pricing_results ADD COLUMN IF NOT EXISTS used_fee_rate NUMERIC(6,4);
 ALTER TABLE pricing_results ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
 
 ALTER TABLE candidates ADD COLUMN IF NOT EXISTS last_calculated_at TIMESTAMP;
+-- CSV取込の既存URL判定（source_url = ANY(?)、等価検索のみなのでハッシュインデックス）
+CREATE INDEX IF NOT EXISTS idx_candidates_source_url_hash ON candidates USING hash (source_url);
 
 -- 3b) pricing_results_history (履歴保持用)
 CREATE TABLE IF NOT EXISTS pricing_results_history (
@@ -234,6 +238,10 @@ CREATE TABLE IF NOT EXISTS fx_rate_history (
   fetched_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- 時系列スキャン用（追記のみ・時刻順なのでBRINで十分小さい）
+CREATE INDEX IF NOT EXISTS idx_fx_rate_history_fetched_brin
+  ON fx_rate_history USING BRIN (fetched_at);
+
 -- 11) pricing_rules
 CREATE TABLE IF NOT EXISTS pricing_rules (
   rule_id BIGSERIAL PRIMARY KEY,
@@ -246,14 +254,24 @@ CREATE TABLE IF NOT EXISTS pricing_rules (
   created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
--- Seed Data (Rules)
+-- Seed Data (Rules)（既存DBで再度追加されないよう、同じ条件のルールがあれば入れない）
 -- Rule 1: High Price items (> 10000) -> Lower Profit Rate (15%) OK
 INSERT INTO pricing_rules (condition_type, condition_min, condition_max, target_field, adjustment_value, priority)
-VALUES ('SOURCE_PRICE', 10000, NULL, 'PROFIT_MIN_RATE', 0.15, 10);
+SELECT 'SOURCE_PRICE', 10000, NULL, 'PROFIT_MIN_RATE', 0.15, 10
+WHERE NOT EXISTS (
+  SELECT 1 FROM pricing_rules
+  WHERE condition_type = 'SOURCE_PRICE' AND condition_min = 10000 AND condition_max IS NULL
+    AND target_field = 'PROFIT_MIN_RATE' AND priority = 10
+);
 
 -- Rule 2: Low Price items (< 3000) -> Higher Profit Rate (30%) Required
 INSERT INTO pricing_rules (condition_type, condition_min, condition_max, target_field, adjustment_value, priority)
-VALUES ('SOURCE_PRICE', 0, 3000, 'PROFIT_MIN_RATE', 0.30, 20);
+SELECT 'SOURCE_PRICE', 0, 3000, 'PROFIT_MIN_RATE', 0.30, 20
+WHERE NOT EXISTS (
+  SELECT 1 FROM pricing_rules
+  WHERE condition_type = 'SOURCE_PRICE' AND condition_min = 0 AND condition_max = 3000
+    AND target_field = 'PROFIT_MIN_RATE' AND priority = 20
+);
 
 -- 12) discovery_items（Discovery機能用）
 CREATE TABLE IF NOT EXISTS discovery_items (
@@ -291,3 +309,20 @@ CREATE INDEX IF NOT EXISTS idx_discovery_items_last_checked ON discovery_items(l
 -- Discovery用の初期閾値設定
 INSERT INTO system_flags(key, value) VALUES ('DISCOVERY_MIN_SAFETY', '50') ON CONFLICT (key) DO NOTHING;
 INSERT INTO system_flags(key, value) VALUES ('DISCOVERY_FRESHNESS_REQUIRED_HOURS', '24') ON CONFLICT (key) DO NOTHING;
+
+-- 13) webhook_inbox（Webhook受信キュー：受信時は保存のみ、処理はワーカーが非同期で実施）
+CREATE TABLE IF NOT EXISTS webhook_inbox (
+  inbox_id BIGSERIAL PRIMARY KEY,
+  ebay_order_key VARCHAR(64) NOT NULL,
+  payload TEXT NOT NULL,
+  status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING/PROCESSING/DONE/DUPLICATE/SKIPPED/FAILED
+  attempts INT NOT NULL DEFAULT 0,
+  next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  locked_at TIMESTAMP,
+  last_error TEXT,
+  received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  processed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_pending ON webhook_inbox(next_attempt_at, inbox_id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_order_key ON webhook_inbox(ebay_order_key);
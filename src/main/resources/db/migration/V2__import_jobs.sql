@@ -0,0 +1,28 @@
+-- 14) import_jobs（CSV取込ジョブ：アップロードはローカルに保存して即応答、ワーカーがチャンク単位で処理・チェックポイント）
+CREATE TABLE IF NOT EXISTS import_jobs (
+  job_id BIGSERIAL PRIMARY KEY,
+  kind VARCHAR(30) NOT NULL,                       -- CANDIDATE_CSV / DISCOVERY_CSV
+  status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',    -- QUEUED/RUNNING/COMPLETED/FAILED/CANCELLED
+  filename VARCHAR(255),
+  spool_path TEXT NOT NULL,
+  total_lines INT NOT NULL DEFAULT 0,              -- ヘッダー行を含む
+  skip_duplicates BOOLEAN NOT NULL DEFAULT FALSE,
+  auto_filter_profit BOOLEAN NOT NULL DEFAULT FALSE,
+  fx_rate NUMERIC(10,4),                           -- 自動フィルタ用（開始時に1回取得し、再開後も同じ値を使う）
+  checkpoint_line INT NOT NULL DEFAULT 1,          -- この行まで処理・コミット済み（1 = ヘッダーのみ）
+  success_count INT NOT NULL DEFAULT 0,
+  updated_count INT NOT NULL DEFAULT 0,
+  skipped_count INT NOT NULL DEFAULT 0,
+  error_count INT NOT NULL DEFAULT 0,
+  error_file_bytes BIGINT NOT NULL DEFAULT 0,      -- チェックポイント時点のエラーCSVの長さ（再開時にここまで切り詰める）
+  cancel_requested BOOLEAN NOT NULL DEFAULT FALSE,
+  last_error TEXT,
+  correlation_id VARCHAR(64),
+  locked_at TIMESTAMP,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  started_at TIMESTAMP,
+  finished_at TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_import_jobs_runnable ON import_jobs(job_id) WHERE status IN ('QUEUED', 'RUNNING');
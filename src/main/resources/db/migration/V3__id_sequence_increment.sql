@@ -0,0 +1,17 @@
+-- 15) ID採番（エンティティは SEQUENCE + allocationSize=50。Hibernate がIDを50件ずつ先取りし、INSERT をバッチで送る）
+-- BIGSERIAL が作ったシーケンスをそのまま使い、増分だけ 50 にそろえる（何度実行しても同じ。既存の採番済みIDとは重ならない）。
+-- 列の既定値 nextval(...) は残るので、JdbcTemplate の一括INSERTやシードデータはこれまで通り既定値で採番される。
+ALTER SEQUENCE candidates_candidate_id_seq INCREMENT BY 50;
+ALTER SEQUENCE pricing_results_pricing_id_seq INCREMENT BY 50;
+ALTER SEQUENCE pricing_results_history_history_id_seq INCREMENT BY 50;
+ALTER SEQUENCE ebay_drafts_draft_id_seq INCREMENT BY 50;
+ALTER SEQUENCE orders_order_id_seq INCREMENT BY 50;
+ALTER SEQUENCE purchase_orders_po_id_seq INCREMENT BY 50;
+ALTER SEQUENCE fulfillment_fulfill_id_seq INCREMENT BY 50;
+ALTER SEQUENCE cash_ledger_cash_id_seq INCREMENT BY 50;
+ALTER SEQUENCE state_transitions_log_id_seq INCREMENT BY 50;
+ALTER SEQUENCE fx_rate_history_history_id_seq INCREMENT BY 50;
+ALTER SEQUENCE pricing_rules_rule_id_seq INCREMENT BY 50;
+ALTER SEQUENCE discovery_items_id_seq INCREMENT BY 50;
+ALTER SEQUENCE webhook_inbox_inbox_id_seq INCREMENT BY 50;
+ALTER SEQUENCE import_jobs_job_id_seq INCREMENT BY 50;
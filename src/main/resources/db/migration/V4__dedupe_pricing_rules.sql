@@ -0,0 +1,11 @@
+-- pricing_rules の重複削除（schema.sql を起動のたびに流していた頃、シードのルールが毎回追加されていた）
+-- 同じ条件・調整値・優先度のルールは最も古い1件だけを残す。評価結果は変わらず、PricingCalculator が読む件数だけが減る。
+DELETE FROM pricing_rules r
+USING pricing_rules keep
+WHERE keep.rule_id < r.rule_id
+  AND keep.condition_type = r.condition_type
+  AND keep.condition_min IS NOT DISTINCT FROM r.condition_min
+  AND keep.condition_max IS NOT DISTINCT FROM r.condition_max
+  AND keep.target_field = r.target_field
+  AND keep.adjustment_value = r.adjustment_value
+  AND keep.priority = r.priority;
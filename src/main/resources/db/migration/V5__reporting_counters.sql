@@ -0,0 +1,287 @@
+-- 16) 集計の読み取りモデル（/ops/summary・/ops/dashboard/stats 用）
+-- candidates / pricing_results / purchase_orders / cash_ledger への書き込みと同じトランザクションで、
+-- 文単位のトリガーが変更行（遷移テーブル）から差分を計算して加算する。JPA・JdbcTemplate のどちらの書き込みでも更新される。
+-- 行は (指標, slot = 書き込んだ接続の pg_backend_pid()) ごとに分け、同時に走るトランザクションが同じ行を取り合わないようにする。
+-- 読み取りは指標ごとに slot を合計する。slot は ReportingJdbcRepository#compact が定期的に slot 0 へ畳み込む。
+CREATE TABLE IF NOT EXISTS reporting_counters (
+  metric VARCHAR(100) NOT NULL,
+  slot INT NOT NULL,
+  value NUMERIC(20,4) NOT NULL,
+  PRIMARY KEY (metric, slot)
+);
+
+-- 日別の指標（cash.<event_type> = actual_date ごとの確定額）
+CREATE TABLE IF NOT EXISTS reporting_daily (
+  metric VARCHAR(100) NOT NULL,
+  day DATE NOT NULL,
+  slot INT NOT NULL,
+  value NUMERIC(20,4) NOT NULL,
+  PRIMARY KEY (metric, day, slot)
+);
+
+-- 直近10件の失敗数（/ops/summary）を索引の先頭10件だけで数える
+CREATE INDEX IF NOT EXISTS idx_ebay_drafts_created_at ON ebay_drafts(created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_purchase_orders_created_at ON purchase_orders(created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_state_transitions_reason_created
+  ON state_transitions(entity_type, reason_code, created_at DESC);
+
+-- 差分の加算（指標名順にまとめて upsert。合計0の指標は書かない）
+CREATE OR REPLACE FUNCTION reporting_apply(p_metrics TEXT[], p_deltas NUMERIC[]) RETURNS void AS $$
+  INSERT INTO reporting_counters AS r (metric, slot, value)
+  SELECT d.metric, pg_backend_pid(), SUM(d.delta)
+    FROM unnest(p_metrics, p_deltas) AS d(metric, delta)
+   GROUP BY d.metric
+  HAVING SUM(d.delta) <> 0
+   ORDER BY d.metric
+  ON CONFLICT (metric, slot) DO UPDATE SET value = r.value + EXCLUDED.value
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION reporting_apply_daily(p_metrics TEXT[], p_days DATE[], p_deltas NUMERIC[]) RETURNS void AS $$
+  INSERT INTO reporting_daily AS r (metric, day, slot, value)
+  SELECT d.metric, d.day, pg_backend_pid(), SUM(d.delta)
+    FROM unnest(p_metrics, p_days, p_deltas) AS d(metric, day, delta)
+   GROUP BY d.metric, d.day
+  HAVING SUM(d.delta) <> 0
+   ORDER BY d.metric, d.day
+  ON CONFLICT (metric, day, slot) DO UPDATE SET value = r.value + EXCLUDED.value
+$$ LANGUAGE sql;
+
+-- 価格計算結果1件分の寄与（候補が DRAFT_READY のときだけ数える）
+CREATE OR REPLACE FUNCTION reporting_pricing_deltas(p_profit_rate NUMERIC, p_profit_yen NUMERIC,
+                                                    p_sell_price_yen NUMERIC, p_sign INT)
+RETURNS TABLE(metric TEXT, delta NUMERIC) AS $$
+  VALUES ('dashboard.draft_ready.priced', p_sign::NUMERIC),
+         ('dashboard.draft_ready.profit_rate_sum', p_sign * p_profit_rate),
+         ('dashboard.draft_ready.profit_yen', p_sign * p_profit_yen),
+         ('dashboard.draft_ready.sales_yen', p_sign * p_sell_price_yen)
+$$ LANGUAGE sql IMMUTABLE;
+
+-- 候補1件分の寄与（状態ごとの件数と、DRAFT_READY なら現在の価格計算結果）
+CREATE OR REPLACE FUNCTION reporting_candidate_deltas(p_candidate_id BIGINT, p_state TEXT, p_sign INT)
+RETURNS TABLE(metric TEXT, delta NUMERIC) AS $$
+  SELECT 'candidates.state.' || p_state, p_sign::NUMERIC
+  UNION ALL
+  SELECT d.metric, d.delta
+    FROM pricing_results p,
+         LATERAL reporting_pricing_deltas(p.profit_rate, p.profit_yen, p.sell_price_yen, p_sign) d
+   WHERE p_state = 'DRAFT_READY' AND p.candidate_id = p_candidate_id
+$$ LANGUAGE sql;
+
+-- 発注1件分の未確定コミットメント（calculateOpenCommitments と同じ条件。PROCUREMENT の台帳は発注ごとに1件まで）
+CREATE OR REPLACE FUNCTION reporting_po_open_yen(p_po_id BIGINT, p_state TEXT, p_cost NUMERIC) RETURNS NUMERIC AS $$
+  SELECT CASE
+           WHEN p_state <> 'PROCUREMENT_FAILED' AND NOT EXISTS (
+             SELECT 1 FROM cash_ledger cl
+              WHERE cl.ref_table = 'purchase_orders'
+                AND cl.ref_id = p_po_id
+                AND cl.event_type = 'PROCUREMENT'
+                AND cl.actual_date IS NOT NULL)
+           THEN p_cost
+           ELSE 0
+         END
+$$ LANGUAGE sql;
+
+-- 確定した PROCUREMENT 台帳1件分の寄与（発注のコミットメントを打ち消す）
+CREATE OR REPLACE FUNCTION reporting_ledger_settled_yen(p_event_type TEXT, p_ref_table TEXT, p_ref_id BIGINT,
+                                                        p_actual_date DATE) RETURNS NUMERIC AS $$
+  SELECT CASE
+           WHEN p_event_type = 'PROCUREMENT' AND p_ref_table = 'purchase_orders' AND p_actual_date IS NOT NULL
+           THEN COALESCE((
+             SELECT -po.expected_total_cost_yen FROM purchase_orders po
+              WHERE po.po_id = p_ref_id AND po.state <> 'PROCUREMENT_FAILED'), 0)
+           ELSE 0
+         END
+$$ LANGUAGE sql;
+
+-- 2つの表にまたがる寄与は、相手の行を FOR SHARE で押さえてから読む
+-- （相手の行を更新中のトランザクションがあればコミットを待ち、その結果を使う。どちらが先でも差分が食い違わない）
+
+CREATE OR REPLACE FUNCTION reporting_candidates_changed() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    PERFORM reporting_apply(array_agg(d.metric), array_agg(d.delta))
+       FROM new_rows n, LATERAL reporting_candidate_deltas(n.candidate_id, n.state, 1) d;
+  ELSIF TG_OP = 'DELETE' THEN
+    PERFORM reporting_apply(array_agg(d.metric), array_agg(d.delta))
+       FROM old_rows o, LATERAL reporting_candidate_deltas(o.candidate_id, o.state, -1) d;
+  ELSE
+    -- 状態が変わった行だけ（updated_at などの更新は集計に影響しない）
+    PERFORM reporting_apply(array_agg(d.metric), array_agg(d.delta))
+       FROM (SELECT n.candidate_id, n.state AS new_state, o.state AS old_state
+               FROM new_rows n JOIN old_rows o ON o.candidate_id = n.candidate_id
+              WHERE n.state IS DISTINCT FROM o.state) c,
+            LATERAL (SELECT * FROM reporting_candidate_deltas(c.candidate_id, c.new_state, 1)
+                     UNION ALL
+                     SELECT * FROM reporting_candidate_deltas(c.candidate_id, c.old_state, -1)) d;
+  END IF;
+  RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION reporting_pricing_results_changed() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    PERFORM 1 FROM candidates
+      WHERE candidate_id IN (SELECT candidate_id FROM new_rows)
+      ORDER BY candidate_id FOR SHARE;
+    PERFORM reporting_apply(array_agg(d.metric), array_agg(d.delta))
+       FROM new_rows n
+       JOIN candidates c ON c.candidate_id = n.candidate_id AND c.state = 'DRAFT_READY',
+            LATERAL reporting_pricing_deltas(n.profit_rate, n.profit_yen, n.sell_price_yen, 1) d;
+  ELSIF TG_OP = 'DELETE' THEN
+    PERFORM 1 FROM candidates
+      WHERE candidate_id IN (SELECT candidate_id FROM old_rows)
+      ORDER BY candidate_id FOR SHARE;
+    PERFORM reporting_apply(array_agg(d.metric), array_agg(d.delta))
+       FROM old_rows o
+       JOIN candidates c ON c.candidate_id = o.candidate_id AND c.state = 'DRAFT_READY',
+            LATERAL reporting_pricing_deltas(o.profit_rate, o.profit_yen, o.sell_price_yen, -1) d;
+  ELSE
+    PERFORM 1 FROM candidates
+      WHERE candidate_id IN (SELECT candidate_id FROM new_rows UNION SELECT candidate_id FROM old_rows)
+      ORDER BY candidate_id FOR SHARE;
+    PERFORM reporting_apply(array_agg(d.metric), array_agg(d.delta))
+       FROM (SELECT n.candidate_id, n.profit_rate, n.profit_yen, n.sell_price_yen, 1 AS sign
+               FROM new_rows n JOIN old_rows o ON o.pricing_id = n.pricing_id
+              WHERE (n.candidate_id, n.profit_rate, n.profit_yen, n.sell_price_yen)
+                    IS DISTINCT FROM (o.candidate_id, o.profit_rate, o.profit_yen, o.sell_price_yen)
+             UNION ALL
+             SELECT o.candidate_id, o.profit_rate, o.profit_yen, o.sell_price_yen, -1
+               FROM old_rows o JOIN new_rows n ON n.pricing_id = o.pricing_id
+              WHERE (n.candidate_id, n.profit_rate, n.profit_yen, n.sell_price_yen)
+                    IS DISTINCT FROM (o.candidate_id, o.profit_rate, o.profit_yen, o.sell_price_yen)) p
+       JOIN candidates c ON c.candidate_id = p.candidate_id AND c.state = 'DRAFT_READY',
+            LATERAL reporting_pricing_deltas(p.profit_rate, p.profit_yen, p.sell_price_yen, p.sign) d;
+  END IF;
+  RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION reporting_purchase_orders_changed() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    PERFORM reporting_apply(array_agg('ops.open_commitments_yen'::TEXT),
+                            array_agg(reporting_po_open_yen(n.po_id, n.state, n.expected_total_cost_yen)))
+       FROM new_rows n;
+  ELSIF TG_OP = 'DELETE' THEN
+    PERFORM reporting_apply(array_agg('ops.open_commitments_yen'::TEXT),
+                            array_agg(-reporting_po_open_yen(o.po_id, o.state, o.expected_total_cost_yen)))
+       FROM old_rows o;
+  ELSE
+    PERFORM reporting_apply(array_agg('ops.open_commitments_yen'::TEXT),
+                            array_agg(reporting_po_open_yen(n.po_id, n.state, n.expected_total_cost_yen)
+                                      - reporting_po_open_yen(o.po_id, o.state, o.expected_total_cost_yen)))
+       FROM new_rows n JOIN old_rows o ON o.po_id = n.po_id
+      WHERE (n.state, n.expected_total_cost_yen) IS DISTINCT FROM (o.state, o.expected_total_cost_yen);
+  END IF;
+  RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION reporting_cash_ledger_changed() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    PERFORM 1 FROM purchase_orders
+      WHERE po_id IN (SELECT ref_id FROM new_rows WHERE ref_table = 'purchase_orders' AND event_type = 'PROCUREMENT')
+      ORDER BY po_id FOR SHARE;
+    PERFORM reporting_apply(array_agg('ops.open_commitments_yen'::TEXT),
+                            array_agg(reporting_ledger_settled_yen(n.event_type, n.ref_table, n.ref_id, n.actual_date)))
+       FROM new_rows n;
+    PERFORM reporting_apply_daily(array_agg('cash.' || n.event_type), array_agg(n.actual_date), array_agg(n.amount_yen))
+       FROM new_rows n WHERE n.actual_date IS NOT NULL;
+  ELSIF TG_OP = 'DELETE' THEN
+    PERFORM 1 FROM purchase_orders
+      WHERE po_id IN (SELECT ref_id FROM old_rows WHERE ref_table = 'purchase_orders' AND event_type = 'PROCUREMENT')
+      ORDER BY po_id FOR SHARE;
+    PERFORM reporting_apply(array_agg('ops.open_commitments_yen'::TEXT),
+                            array_agg(-reporting_ledger_settled_yen(o.event_type, o.ref_table, o.ref_id, o.actual_date)))
+       FROM old_rows o;
+    PERFORM reporting_apply_daily(array_agg('cash.' || o.event_type), array_agg(o.actual_date), array_agg(-o.amount_yen))
+       FROM old_rows o WHERE o.actual_date IS NOT NULL;
+  ELSE
+    PERFORM 1 FROM purchase_orders
+      WHERE po_id IN (SELECT ref_id FROM new_rows WHERE ref_table = 'purchase_orders' AND event_type = 'PROCUREMENT'
+                      UNION
+                      SELECT ref_id FROM old_rows WHERE ref_table = 'purchase_orders' AND event_type = 'PROCUREMENT')
+      ORDER BY po_id FOR SHARE;
+    PERFORM reporting_apply(array_agg('ops.open_commitments_yen'::TEXT),
+                            array_agg(reporting_ledger_settled_yen(n.event_type, n.ref_table, n.ref_id, n.actual_date)
+                                      - reporting_ledger_settled_yen(o.event_type, o.ref_table, o.ref_id, o.actual_date)))
+       FROM new_rows n JOIN old_rows o ON o.cash_id = n.cash_id;
+    PERFORM reporting_apply_daily(array_agg(c.metric), array_agg(c.day), array_agg(c.delta))
+       FROM (SELECT 'cash.' || n.event_type AS metric, n.actual_date AS day, n.amount_yen AS delta
+               FROM new_rows n WHERE n.actual_date IS NOT NULL
+             UNION ALL
+             SELECT 'cash.' || o.event_type, o.actual_date, -o.amount_yen
+               FROM old_rows o WHERE o.actual_date IS NOT NULL) c;
+  END IF;
+  RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+-- 遷移テーブルを使うトリガーは1つのイベントにつき1つ
+DROP TRIGGER IF EXISTS trg_reporting_candidates_ins ON candidates;
+DROP TRIGGER IF EXISTS trg_reporting_candidates_upd ON candidates;
+DROP TRIGGER IF EXISTS trg_reporting_candidates_del ON candidates;
+CREATE TRIGGER trg_reporting_candidates_ins AFTER INSERT ON candidates
+  REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_candidates_changed();
+CREATE TRIGGER trg_reporting_candidates_upd AFTER UPDATE ON candidates
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_candidates_changed();
+CREATE TRIGGER trg_reporting_candidates_del AFTER DELETE ON candidates
+  REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_candidates_changed();
+
+DROP TRIGGER IF EXISTS trg_reporting_pricing_results_ins ON pricing_results;
+DROP TRIGGER IF EXISTS trg_reporting_pricing_results_upd ON pricing_results;
+DROP TRIGGER IF EXISTS trg_reporting_pricing_results_del ON pricing_results;
+CREATE TRIGGER trg_reporting_pricing_results_ins AFTER INSERT ON pricing_results
+  REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_pricing_results_changed();
+CREATE TRIGGER trg_reporting_pricing_results_upd AFTER UPDATE ON pricing_results
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_pricing_results_changed();
+CREATE TRIGGER trg_reporting_pricing_results_del AFTER DELETE ON pricing_results
+  REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_pricing_results_changed();
+
+DROP TRIGGER IF EXISTS trg_reporting_purchase_orders_ins ON purchase_orders;
+DROP TRIGGER IF EXISTS trg_reporting_purchase_orders_upd ON purchase_orders;
+DROP TRIGGER IF EXISTS trg_reporting_purchase_orders_del ON purchase_orders;
+CREATE TRIGGER trg_reporting_purchase_orders_ins AFTER INSERT ON purchase_orders
+  REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_purchase_orders_changed();
+CREATE TRIGGER trg_reporting_purchase_orders_upd AFTER UPDATE ON purchase_orders
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_purchase_orders_changed();
+CREATE TRIGGER trg_reporting_purchase_orders_del AFTER DELETE ON purchase_orders
+  REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_purchase_orders_changed();
+
+DROP TRIGGER IF EXISTS trg_reporting_cash_ledger_ins ON cash_ledger;
+DROP TRIGGER IF EXISTS trg_reporting_cash_ledger_upd ON cash_ledger;
+DROP TRIGGER IF EXISTS trg_reporting_cash_ledger_del ON cash_ledger;
+CREATE TRIGGER trg_reporting_cash_ledger_ins AFTER INSERT ON cash_ledger
+  REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_cash_ledger_changed();
+CREATE TRIGGER trg_reporting_cash_ledger_upd AFTER UPDATE ON cash_ledger
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_cash_ledger_changed();
+CREATE TRIGGER trg_reporting_cash_ledger_del AFTER DELETE ON cash_ledger
+  REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_cash_ledger_changed();
+
+-- 元の表から全件を数え直す（初回の投入と、トリガーを通らない変更（TRUNCATE・手作業の修正）後の復旧用）
+-- 数え直しの間は元の表への書き込みを止め、途中の差分が二重に入らないようにする
+CREATE OR REPLACE FUNCTION reporting_rebuild() RETURNS void AS $$
+BEGIN
+  LOCK TABLE candidates, pricing_results, purchase_orders, cash_ledger IN SHARE MODE;
+  LOCK TABLE reporting_counters, reporting_daily IN EXCLUSIVE MODE;
+  DELETE FROM reporting_counters;
+  DELETE FROM reporting_daily;
+  INSERT INTO reporting_counters(metric, slot, value)
+  SELECT d.metric, 0, SUM(d.delta)
+    FROM (SELECT x.metric, x.delta
+            FROM candidates c, LATERAL reporting_candidate_deltas(c.candidate_id, c.state, 1) x
+          UNION ALL
+          SELECT 'ops.open_commitments_yen', reporting_po_open_yen(po.po_id, po.state, po.expected_total_cost_yen)
+            FROM purchase_orders po) d
+   GROUP BY d.metric;
+  INSERT INTO reporting_daily(metric, day, slot, value)
+  SELECT 'cash.' || event_type, actual_date, 0, SUM(amount_yen)
+    FROM cash_ledger
+   WHERE actual_date IS NOT NULL
+   GROUP BY event_type, actual_date;
+END
+$$ LANGUAGE plpgsql;
+
+SELECT reporting_rebuild();
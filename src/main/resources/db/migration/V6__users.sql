@@ -0,0 +1,25 @@
+-- 17) ログインユーザー（旧: system_flags の USER_<大文字のユーザー名>_HASH）
+-- username は小文字で保存し、ログイン時は一意索引で1件だけ引く。
+CREATE TABLE IF NOT EXISTS users (
+  user_id BIGSERIAL PRIMARY KEY,
+  username VARCHAR(100) NOT NULL,
+  password_hash VARCHAR(100) NOT NULL,
+  enabled BOOLEAN NOT NULL DEFAULT TRUE,
+  password_changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_username ON users(username);
+
+-- エンティティの採番（allocationSize=50）にそろえる（V3 参照）
+ALTER SEQUENCE users_user_id_seq INCREMENT BY 50;
+
+-- 既存のハッシュを移し、system_flags からは削除する
+INSERT INTO users(username, password_hash)
+SELECT lower(substr(key, 6, length(key) - 10)), value
+  FROM system_flags
+ WHERE key LIKE 'USER\_%\_HASH' AND value IS NOT NULL AND value <> ''
+ON CONFLICT (username) DO NOTHING;
+
+DELETE FROM system_flags WHERE key LIKE 'USER\_%\_HASH';
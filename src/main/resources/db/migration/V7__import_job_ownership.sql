@@ -0,0 +1,9 @@
+-- 18) 取込ジョブの再開と実行インスタンス
+-- 取込ジョブで追加した候補にジョブIDと行番号を残す。チェックポイント前に停止したチャンクを処理し直すとき、
+-- 前回追加済みの行を重複URLではなく追加済みとして数え、未計算（CANDIDATE のまま）なら価格計算をやり直す。
+ALTER TABLE candidates ADD COLUMN IF NOT EXISTS import_job_id BIGINT;
+ALTER TABLE candidates ADD COLUMN IF NOT EXISTS import_line INT;
+
+-- アップロードを保存したインスタンス。spool-dir がローカルディスクの場合、他のインスタンスはこのジョブを取得しない
+-- （NULL は V7 以前に登録したジョブ。どのインスタンスでも取得できる）
+ALTER TABLE import_jobs ADD COLUMN IF NOT EXISTS owner_instance VARCHAR(100);
@@ -0,0 +1,75 @@
+package com.example.cbs_mvp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.cbs_mvp.config.WorkerThreads;
+import com.example.cbs_mvp.entity.ImportJob;
+import com.example.cbs_mvp.imports.ImportJobService;
+
+class ImportJobWorkerTest {
+
+    private ImportJobService jobs;
+    private ImportJobWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        jobs = mock(ImportJobService.class);
+        worker = new ImportJobWorker(jobs, new WorkerThreads(false));
+        ReflectionTestUtils.setField(worker, "workers", 1);
+        worker.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void renewLeases_extendsRunningJobsOnlyWhileTheyRun() throws Exception {
+        ImportJob job = new ImportJob();
+        job.setJobId(5L);
+        when(jobs.claimNext()).thenReturn(Optional.of(job), Optional.empty());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(jobs).run(job);
+
+        worker.poll();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // チャンクの処理が長引いている間もリースを延長する
+        worker.renewLeases();
+        verify(jobs).renewLeases(List.of(5L));
+
+        release.countDown();
+        Set<?> active = (Set<?>) ReflectionTestUtils.getField(worker, "active");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!active.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // 終了したジョブは延長しない
+        worker.renewLeases();
+        verify(jobs, times(1)).renewLeases(any());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.cbs_mvp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.cbs_mvp.ops.KillSwitchService;
+import com.example.cbs_mvp.repo.EbayDraftRepository;
+import com.example.cbs_mvp.repo.StateTransitionRepository;
+import com.example.cbs_mvp.service.DraftBatchPublisher;
+
+class NightlyBatchTest {
+
+    private KillSwitchService killSwitch;
+    private DraftBatchPublisher publisher;
+    private EbayDraftRepository draftRepo;
+    private NightlyBatch batch;
+
+    @BeforeEach
+    void setUp() {
+        killSwitch = mock(KillSwitchService.class);
+        publisher = mock(DraftBatchPublisher.class);
+        draftRepo = mock(EbayDraftRepository.class);
+        when(draftRepo.findRecentByUpdatedAt(any())).thenReturn(List.of());
+        batch = new NightlyBatch(killSwitch, publisher, draftRepo, mock(StateTransitionRepository.class));
+    }
+
+    @Test
+    void run_skipsWhilePreviousRunIsInProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(publisher.publishReadyCandidates(anyInt())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 0;
+        });
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(batch::run);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        batch.run(); // 実行中なので何もせずに戻る
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        verify(publisher, times(1)).publishReadyCandidates(anyInt());
+
+        // 終了後は再び実行できる
+        batch.run();
+        verify(publisher, times(2)).publishReadyCandidates(anyInt());
+    }
+
+    @Test
+    void run_releasesGuardWhenRunFails() {
+        when(publisher.publishReadyCandidates(anyInt())).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, batch::run);
+        when(killSwitch.isPaused()).thenReturn(true);
+        batch.run();
+
+        verify(publisher, times(1)).publishReadyCandidates(anyInt());
+        verify(killSwitch, times(2)).isPaused();
+        verify(killSwitch, never()).pauseFromBatch(any(), any());
+    }
+}
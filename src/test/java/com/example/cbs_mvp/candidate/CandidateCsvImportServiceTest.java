@@ -1,7 +1,9 @@
 package com.example.cbs_mvp.candidate;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -9,39 +11,45 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import com.example.cbs_mvp.entity.Candidate;
+import com.example.cbs_mvp.entity.ImportJob;
 import com.example.cbs_mvp.fx.FxRateService;
-import com.example.cbs_mvp.repo.CandidateRepository;
-import com.example.cbs_mvp.service.CandidateService;
-import com.example.cbs_mvp.service.StateTransitionService;
+import com.example.cbs_mvp.imports.ImportChunkProcessor;
+import com.example.cbs_mvp.live.LiveEventBus;
+import com.example.cbs_mvp.repo.CandidateImportJdbcRepository;
+import com.example.cbs_mvp.repo.CandidateImportJdbcRepository.ExistingCandidate;
+import com.example.cbs_mvp.repo.CandidateImportJdbcRepository.NewCandidate;
+import com.example.cbs_mvp.service.CandidateBulkPricingService;
 
 class CandidateCsvImportServiceTest {
 
-    private CandidateRepository candidateRepo;
-    private StateTransitionService transitions;
-    private CandidateService candidateService;
+    private CandidateImportJdbcRepository importRepo;
+    private CandidateBulkPricingService bulkPricing;
     private FxRateService fxRateService;
     private CandidateCsvImportService importService;
 
     @BeforeEach
     void setUp() {
-        candidateRepo = mock(CandidateRepository.class);
-        transitions = mock(StateTransitionService.class);
-        candidateService = mock(CandidateService.class);
+        importRepo = mock(CandidateImportJdbcRepository.class);
+        bulkPricing = mock(CandidateBulkPricingService.class);
         fxRateService = mock(FxRateService.class);
 
-        importService = new CandidateCsvImportService(candidateRepo, transitions, candidateService, fxRateService);
+        importService = new CandidateCsvImportService(importRepo, bulkPricing, fxRateService,
+                mock(PlatformTransactionManager.class), mock(LiveEventBus.class));
     }
 
     @Test
@@ -50,27 +58,25 @@ class CandidateCsvImportServiceTest {
                 "http://example.com/1,1000,1.5,M";
         InputStream is = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
 
-        when(candidateRepo.findBySourceUrl(any())).thenReturn(Optional.empty());
-        when(candidateRepo.save(any(Candidate.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(importRepo.findExisting(any())).thenReturn(Map.of());
+        when(importRepo.insert(anyList(), any(), anyString(), any())).thenReturn(List.of(1L));
 
         var result = importService.importFromCsv(is, false, false);
 
         assertEquals(1, result.successCount());
         assertEquals(0, result.errorCount());
-        verify(candidateRepo, times(1)).save(any(Candidate.class));
-        verify(candidateService, never()).priceCandidate(any(), any(), any(), anyBoolean());
+        verify(importRepo, times(1)).insert(anyList(), any(), anyString(), any());
+        verify(bulkPricing, never()).priceImported(anyList(), any(), anyInt());
     }
 
     @Test
-    void importFromCsv_withAutoFilter_callsPriceCandidate() {
+    void importFromCsv_withAutoFilter_pricesInsertedCandidates() {
         String csv = "sourceUrl,sourcePriceYen\n" +
                 "http://example.com/2,2000";
         InputStream is = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
 
-        when(candidateRepo.findBySourceUrl(any())).thenReturn(Optional.empty());
-        Candidate savedCandidate = new Candidate();
-        savedCandidate.setCandidateId(10L);
-        when(candidateRepo.save(any(Candidate.class))).thenReturn(savedCandidate);
+        when(importRepo.findExisting(any())).thenReturn(Map.of());
+        when(importRepo.insert(anyList(), any(), anyString(), any())).thenReturn(List.of(10L));
 
         // Mock FX
         when(fxRateService.getCurrentRate())
@@ -79,8 +85,29 @@ class CandidateCsvImportServiceTest {
         var result = importService.importFromCsv(is, false, true);
 
         assertEquals(1, result.successCount());
-        verify(candidateRepo, times(1)).save(any(Candidate.class));
-        verify(candidateService, times(1)).priceCandidate(eq(10L), eq(new BigDecimal("150")), eq(null), eq(false));
+        verify(importRepo, times(1)).insert(anyList(), any(), anyString(), any());
+        verify(bulkPricing, times(1)).priceImported(
+                eq(List.of(new CandidateBulkPricingService.Item(10L, new BigDecimal("2000"), null, null))),
+                eq(new BigDecimal("150")), anyInt());
+    }
+
+    @Test
+    void importFromCsv_withAutoFilter_reportsPricingFailuresByLine() {
+        String csv = "sourceUrl,sourcePriceYen\n" +
+                "http://example.com/x,2000\n" +
+                "http://example.com/y,3000\n";
+        InputStream is = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+
+        when(importRepo.findExisting(any())).thenReturn(Map.of());
+        when(importRepo.insert(anyList(), any(), anyString(), any())).thenReturn(List.of(10L, 11L));
+        when(fxRateService.getCurrentRate())
+                .thenReturn(new FxRateService.FxRateResult(new BigDecimal("150"), null, null));
+        when(bulkPricing.priceImported(anyList(), any(), anyInt())).thenReturn(Map.of(11L, "boom"));
+
+        var result = importService.importFromCsv(is, false, true);
+
+        assertEquals(2, result.successCount());
+        assertEquals(List.of("Line 3: Saved, but auto-filter failed: boom"), result.errors());
     }
 
     @Test
@@ -98,6 +125,146 @@ class CandidateCsvImportServiceTest {
         assertEquals(0, result.successCount());
         assertEquals(1, result.errorCount());
         assertTrue(result.errors().get(0).contains("failed to get FX rate"));
-        verify(candidateRepo, never()).save(any());
+        verify(importRepo, never()).insert(anyList(), any(), anyString(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importFromCsv_dedupesWithinFileAndAgainstDb() {
+        String csv = "sourceUrl,sourcePriceYen\n" +
+                "http://example.com/a,1000\n" +
+                "http://example.com/b,1000\n" +
+                "http://example.com/a,1200\n" +
+                "http://example.com/c,1000\n";
+        InputStream is = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+
+        when(importRepo.findExisting(any())).thenReturn(Map.of("http://example.com/b", existing(99L)));
+        when(importRepo.insert(anyList(), any(), anyString(), any())).thenReturn(List.of(1L, 2L));
+
+        var result = importService.importFromCsv(is, false, false);
+
+        assertEquals(2, result.successCount());
+        assertEquals(2, result.errorCount());
+        assertTrue(result.errors().get(0).startsWith("Line 3: duplicate URL"));
+        assertTrue(result.errors().get(1).startsWith("Line 4: duplicate URL in file"));
+
+        ArgumentCaptor<List<NewCandidate>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(importRepo).insert(inserted.capture(), any(), anyString(), any());
+        assertEquals(List.of("http://example.com/a", "http://example.com/c"),
+                inserted.getValue().stream().map(NewCandidate::sourceUrl).toList());
+        assertEquals(List.of(2, 5), inserted.getValue().stream().map(NewCandidate::lineNumber).toList());
+    }
+
+    @Test
+    void importFromCsv_skipDuplicates_countsBothKindsAsSkipped() {
+        String csv = "sourceUrl,sourcePriceYen\n" +
+                "http://example.com/a,1000\n" +
+                "http://example.com/a,1000\n" +
+                "http://example.com/b,1000\n";
+        InputStream is = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+
+        when(importRepo.findExisting(any())).thenReturn(Map.of("http://example.com/b", existing(99L)));
+        when(importRepo.insert(anyList(), any(), anyString(), any())).thenReturn(List.of(1L));
+
+        var result = importService.importFromCsv(is, true, false);
+
+        assertEquals(1, result.successCount());
+        assertEquals(2, result.skippedCount());
+        assertEquals(0, result.errorCount());
+    }
+
+    @Test
+    void process_importsOneJobChunkWithPersistedFxRate() {
+        when(importRepo.findExisting(any())).thenReturn(Map.of("http://example.com/old", existing(99L)));
+        when(importRepo.insert(anyList(), any(), anyString(), any())).thenReturn(List.of(21L));
+        when(bulkPricing.priceImported(anyList(), any(), anyInt())).thenReturn(Map.of());
+
+        ImportJob job = new ImportJob();
+        job.setSkipDuplicates(true);
+        job.setAutoFilterProfit(true);
+        job.setFxRate(new BigDecimal("151"));
+
+        var result = importService.process(job, "sourceUrl,sourcePriceYen", List.of(
+                new ImportChunkProcessor.Line(41, "http://example.com/new,1000"),
+                new ImportChunkProcessor.Line(42, "http://example.com/new,1000"),
+                new ImportChunkProcessor.Line(43, "http://example.com/old,1000"),
+                new ImportChunkProcessor.Line(44, ""),
+                new ImportChunkProcessor.Line(45, "http://example.com/x,abc")));
+
+        assertEquals(1, result.success());
+        assertEquals(2, result.skipped());
+        assertEquals(List.of(new ImportChunkProcessor.RowError(45, "Line 45: invalid sourcePriceYen: abc")),
+                result.errors());
+        verify(fxRateService, never()).getCurrentRate();
+        verify(bulkPricing).priceImported(
+                eq(List.of(new CandidateBulkPricingService.Item(21L, new BigDecimal("1000"), null, null))),
+                eq(new BigDecimal("151")), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void process_rerunOfUncheckpointedChunkCountsOwnRowsAndRepricesUnpriced() {
+        // 前回の実行で行41・42を追加し、行41だけ価格計算が済んだところで停止した
+        when(importRepo.findExisting(any())).thenReturn(Map.of(
+                "http://example.com/p", new ExistingCandidate(31L, "DRAFT_READY", 9L, 41),
+                "http://example.com/q", new ExistingCandidate(32L, "CANDIDATE", 9L, 42),
+                "http://example.com/r", new ExistingCandidate(33L, "CANDIDATE", 9L, 7)));
+        when(importRepo.insert(anyList(), any(), anyString(), any())).thenReturn(List.of(34L));
+        when(bulkPricing.priceImported(anyList(), any(), anyInt())).thenReturn(Map.of());
+
+        ImportJob job = new ImportJob();
+        job.setJobId(9L);
+        job.setAutoFilterProfit(true);
+        job.setFxRate(new BigDecimal("151"));
+
+        var result = importService.process(job, "sourceUrl,sourcePriceYen", List.of(
+                new ImportChunkProcessor.Line(41, "http://example.com/p,1000"),
+                new ImportChunkProcessor.Line(42, "http://example.com/q,2000"),
+                new ImportChunkProcessor.Line(43, "http://example.com/r,3000"),
+                new ImportChunkProcessor.Line(44, "http://example.com/s,4000")));
+
+        // p・q は追加済みとして数え、同じジョブでも別の行（7行目）と同じURLの r は重複
+        assertEquals(3, result.success());
+        assertEquals(List.of(new ImportChunkProcessor.RowError(43,
+                "Line 43: duplicate URL: http://example.com/r")), result.errors());
+
+        ArgumentCaptor<List<NewCandidate>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(importRepo).insert(inserted.capture(), eq(9L), anyString(), any());
+        assertEquals(List.of("http://example.com/s"),
+                inserted.getValue().stream().map(NewCandidate::sourceUrl).toList());
+        verify(bulkPricing).priceImported(
+                eq(List.of(
+                        new CandidateBulkPricingService.Item(32L, new BigDecimal("2000"), null, null),
+                        new CandidateBulkPricingService.Item(34L, new BigDecimal("4000"), null, null))),
+                eq(new BigDecimal("151")), anyInt());
+    }
+
+    @Test
+    void prepare_failsJobWhenFxRateUnavailable() {
+        when(fxRateService.getCurrentRate()).thenReturn(new FxRateService.FxRateResult(null, null, "API Error"));
+        ImportJob job = new ImportJob();
+        job.setAutoFilterProfit(true);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> importService.prepare(job));
+        assertTrue(ex.getMessage().contains("failed to get FX rate"));
+    }
+
+    @Test
+    void openAddressingStringSet_growsAndDetectsDuplicates() {
+        OpenAddressingStringSet set = new OpenAddressingStringSet(2);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(set.add("https://example.com/item/" + i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(set.contains("https://example.com/item/" + i));
+            assertTrue(!set.add("https://example.com/item/" + i));
+        }
+        assertEquals(10_000, set.size());
+        assertTrue(!set.contains("https://example.com/item/10000"));
+    }
+
+    private static ExistingCandidate existing(long candidateId) {
+        return new ExistingCandidate(candidateId, "CANDIDATE", null, null);
     }
 }
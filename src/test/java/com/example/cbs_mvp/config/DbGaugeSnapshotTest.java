@@ -0,0 +1,63 @@
+package com.example.cbs_mvp.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.cbs_mvp.ops.ReportingService;
+import com.example.cbs_mvp.repo.WebhookInboxRepository;
+import com.example.cbs_mvp.service.TrackingUploadQueue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DbGaugeSnapshotTest {
+
+    @Test
+    void scrape_readsSnapshotWithoutQueryingDb() {
+        WebhookInboxRepository inbox = mock(WebhookInboxRepository.class);
+        ReportingService reporting = mock(ReportingService.class);
+        when(inbox.countByStatus("PENDING")).thenReturn(3L);
+        when(inbox.countByStatus("FAILED")).thenReturn(1L);
+        when(reporting.openCommitmentsYen()).thenReturn(new BigDecimal("120000"));
+        DbGaugeSnapshot snapshot = new DbGaugeSnapshot(inbox, reporting);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new MetricsConfig().pipelineGauges(mock(TrackingUploadQueue.class), snapshot)
+                .bindTo(registry);
+
+        // 読み直す前は欠損
+        assertTrue(Double.isNaN(registry.get("cbs.cash.open_commitments_yen").gauge().value()));
+
+        snapshot.refresh();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(3.0, registry.get("cbs.webhook.inbox.depth").tag("status", "PENDING").gauge().value());
+            assertEquals(1.0, registry.get("cbs.webhook.inbox.depth").tag("status", "FAILED").gauge().value());
+            assertEquals(120000.0, registry.get("cbs.cash.open_commitments_yen").gauge().value());
+        }
+
+        verify(inbox, times(1)).countByStatus("PENDING");
+        verify(reporting, times(1)).openCommitmentsYen();
+    }
+
+    @Test
+    void refresh_failedReadBecomesNaNWithoutAffectingOthers() {
+        WebhookInboxRepository inbox = mock(WebhookInboxRepository.class);
+        ReportingService reporting = mock(ReportingService.class);
+        when(inbox.countByStatus("PENDING")).thenReturn(2L);
+        when(inbox.countByStatus("FAILED")).thenReturn(0L);
+        when(reporting.openCommitmentsYen()).thenThrow(new IllegalStateException("db down"));
+        DbGaugeSnapshot snapshot = new DbGaugeSnapshot(inbox, reporting);
+
+        snapshot.refresh();
+
+        assertEquals(2.0, snapshot.webhookInboxPending());
+        assertEquals(0.0, snapshot.webhookInboxFailed());
+        assertTrue(Double.isNaN(snapshot.openCommitmentsYen()));
+    }
+}
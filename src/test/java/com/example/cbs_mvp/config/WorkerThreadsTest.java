@@ -0,0 +1,94 @@
+package com.example.cbs_mvp.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class WorkerThreadsTest {
+
+    @Test
+    void factory_platformModeCreatesNamedDaemonThreadsOnBatchPool() throws Exception {
+        WorkerThreads threads = new WorkerThreads(false);
+        AtomicReference<DbWorkload> workload = new AtomicReference<>();
+
+        Thread t = threads.factory("inbox").newThread(() -> workload.set(DbWorkload.current()));
+        t.start();
+        t.join(5_000);
+
+        assertFalse(threads.isVirtual());
+        assertFalse(t.isVirtual());
+        assertTrue(t.isDaemon());
+        assertEquals("inbox-1", t.getName());
+        assertEquals(DbWorkload.BATCH, workload.get());
+    }
+
+    @Test
+    void factory_virtualModeCreatesVirtualThreadsOnBatchPool() throws Exception {
+        WorkerThreads threads = new WorkerThreads(true);
+        AtomicReference<DbWorkload> workload = new AtomicReference<>();
+
+        Thread first = threads.factory("upload").newThread(() -> workload.set(DbWorkload.current()));
+        Thread second = threads.factory("upload").newThread(() -> {
+        });
+        first.start();
+        first.join(5_000);
+
+        assertTrue(threads.isVirtual());
+        assertTrue(first.isVirtual());
+        assertEquals("upload-1", first.getName());
+        assertEquals("upload-1", second.getName()); // 名前の連番はファクトリ毎
+        assertEquals(DbWorkload.BATCH, workload.get());
+    }
+
+    @Test
+    void newThread_followsModeAndIsNotStarted() {
+        Thread platform = new WorkerThreads(false).newThread("single", () -> {
+        });
+        Thread virtual = new WorkerThreads(true).newThread("single", () -> {
+        });
+
+        assertFalse(platform.isVirtual());
+        assertTrue(platform.isDaemon());
+        assertTrue(virtual.isVirtual());
+        assertEquals(Thread.State.NEW, platform.getState());
+        assertEquals(Thread.State.NEW, virtual.getState());
+        assertEquals("single", virtual.getName());
+    }
+
+    @Test
+    void fixedPool_capsConcurrencyEvenWithVirtualThreads() throws Exception {
+        ExecutorService pool = new WorkerThreads(true).fixedPool("pool", 2);
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(10);
+        try {
+            for (int i = 0; i < 10; i++) {
+                pool.execute(() -> {
+                    peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    current.decrementAndGet();
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(peak.get() <= 2, "peak concurrency " + peak.get());
+            assertTrue(CompletableFuture.supplyAsync(() -> Thread.currentThread().isVirtual(), pool)
+                    .get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
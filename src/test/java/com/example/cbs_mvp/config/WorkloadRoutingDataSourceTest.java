@@ -0,0 +1,137 @@
+package com.example.cbs_mvp.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class WorkloadRoutingDataSourceTest {
+
+    private final WorkloadRoutingDataSource routing = new WorkloadRoutingDataSource();
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void routesRequestThreadsToOltpByDefault() {
+        assertEquals(DbWorkload.OLTP, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void routesBatchTasksToBatchAndRestoresAfterwards() {
+        AtomicReference<DbWorkload> inside = new AtomicReference<>();
+
+        DbWorkload.batch(() -> inside.set(routing.determineCurrentLookupKey())).run();
+
+        assertEquals(DbWorkload.BATCH, inside.get());
+        assertEquals(DbWorkload.OLTP, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readOnlyTransactionsKeepTheThreadWorkload() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        AtomicReference<DbWorkload> inBatch = new AtomicReference<>();
+
+        DbWorkload.batch(() -> inBatch.set(routing.determineCurrentLookupKey())).run();
+
+        assertEquals(DbWorkload.OLTP, routing.determineCurrentLookupKey());
+        assertEquals(DbWorkload.BATCH, inBatch.get());
+    }
+
+    @Test
+    void routesToReportingOnlyInsideReportingMarkerAndRestoresAfterwards() {
+        AtomicReference<DbWorkload> inBatch = new AtomicReference<>();
+
+        DbWorkload workload = DbWorkload.reporting(routing::determineCurrentLookupKey);
+        DbWorkload.batch(() -> inBatch.set(DbWorkload.reporting(routing::determineCurrentLookupKey))).run();
+
+        assertEquals(DbWorkload.REPORTING, workload);
+        assertEquals(DbWorkload.REPORTING, inBatch.get());
+        assertEquals(DbWorkload.OLTP, routing.determineCurrentLookupKey());
+    }
+
+    /**
+     * Spring Data の参照メソッド（SimpleJpaRepository はクラスに @Transactional(readOnly = true)）を
+     * リクエストのスレッドから呼んだ場合と同じ形: readOnly のトランザクションで最初の SQL を出す
+     */
+    @Test
+    void readOnlyRepositoryReadOnRequestThreadUsesOltpConnection() throws SQLException {
+        DataSource oltp = pool();
+        DataSource reporting = pool();
+        DataSource dataSource = routed(oltp, reporting);
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> firstStatement(dataSource));
+
+        verify(oltp).getConnection();
+        verify(reporting, never()).getConnection();
+    }
+
+    @Test
+    void reportingMarkerUsesReportingConnection() throws SQLException {
+        DataSource oltp = pool();
+        DataSource reporting = pool();
+        DataSource dataSource = routed(oltp, reporting);
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> DbWorkload.reporting(() -> {
+            firstStatement(dataSource);
+            return null;
+        }));
+
+        verify(reporting).getConnection();
+        verify(oltp, never()).getConnection();
+    }
+
+    private static DataSource pool() throws SQLException {
+        DataSource pool = mock(DataSource.class);
+        when(pool.getConnection()).thenReturn(mock(Connection.class));
+        return pool;
+    }
+
+    private static DataSource routed(DataSource oltp, DataSource reporting) {
+        WorkloadRoutingDataSource routing = new WorkloadRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                DbWorkload.OLTP, oltp,
+                DbWorkload.BATCH, mock(DataSource.class),
+                DbWorkload.REPORTING, reporting));
+        routing.setDefaultTargetDataSource(oltp);
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy lazy = new LazyConnectionDataSourceProxy();
+        // 既定値を渡しておく（未設定だと初期化時に接続を1本取って調べる）
+        lazy.setDefaultAutoCommit(true);
+        lazy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        lazy.setTargetDataSource(routing);
+        lazy.afterPropertiesSet();
+        return lazy;
+    }
+
+    // LazyConnectionDataSourceProxy は最初の文を作る時点で実際の接続を取る
+    private static void firstStatement(DataSource dataSource) {
+        try {
+            DataSourceUtils.getConnection(dataSource).createStatement();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
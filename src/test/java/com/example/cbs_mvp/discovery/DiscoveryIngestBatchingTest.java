@@ -0,0 +1,117 @@
+package com.example.cbs_mvp.discovery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.SessionEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.cbs_mvp.entity.ImportJob;
+import com.example.cbs_mvp.imports.ImportChunkProcessor;
+
+/**
+ * 1万行のDiscovery取込で INSERT がバッチにまとまることを、JDBCの実行回数で確認する
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session.events.auto="
+        + "com.example.cbs_mvp.discovery.DiscoveryIngestBatchingTest$StatementCounter")
+class DiscoveryIngestBatchingTest {
+
+    private static final int ROWS = 10_000;
+    private static final int CHUNK = 1_000;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private DiscoveryIngestService ingestService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final String run = UUID.randomUUID().toString();
+    private final String urlPrefix = "https://batch-test.example.com/" + run + "/";
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("""
+                DELETE FROM state_transitions
+                WHERE entity_type = 'DISCOVERY_ITEM'
+                  AND entity_id IN (SELECT id FROM discovery_items WHERE source_url LIKE ?)
+                """, urlPrefix + "%");
+        jdbc.update("DELETE FROM discovery_items WHERE source_url LIKE ?", urlPrefix + "%");
+    }
+
+    @Test
+    void import10kRows_sendsInsertsInBatches() {
+        int inserted = 0;
+        StatementCounter.start();
+        try {
+            for (int from = 0; from < ROWS; from += CHUNK) {
+                List<ImportChunkProcessor.Line> lines = new ArrayList<>(CHUNK);
+                for (int i = from; i < from + CHUNK; i++) {
+                    lines.add(new ImportChunkProcessor.Line(i + 2,
+                            urlPrefix + i + ",Batch Item " + run + "-" + i + ",5000,1.0,NEW"));
+                }
+                ImportChunkProcessor.Result result = ingestService.process(new ImportJob(),
+                        "source_url,title,price_yen,weight_kg,condition", lines);
+                assertThat(result.errors()).isEmpty();
+                inserted += result.success();
+            }
+        } finally {
+            StatementCounter.stop();
+        }
+
+        assertThat(inserted).isEqualTo(ROWS);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM discovery_items WHERE source_url LIKE ?",
+                Integer.class, urlPrefix + "%")).isEqualTo(ROWS);
+
+        // discovery_items と state_transitions の INSERT がそれぞれ50行ずつ1回で送られる
+        assertThat(StatementCounter.batches.get())
+                .isPositive()
+                .isLessThanOrEqualTo(2 * ROWS / BATCH_SIZE);
+        // 単発の文はIDの先取り（50件ごとに1回）とチャンク単位の既存データ・パラメータ読み込みだけ
+        assertThat(StatementCounter.statements.get()).isLessThan(ROWS / 10);
+    }
+
+    /**
+     * テストスレッドで開いたセッションの JDBC 実行回数を数える（他のワーカーのセッションは数えない）
+     */
+    public static class StatementCounter implements SessionEventListener {
+
+        static final AtomicInteger statements = new AtomicInteger();
+        static final AtomicInteger batches = new AtomicInteger();
+        private static volatile Thread target;
+
+        private final boolean counting = Thread.currentThread() == target;
+
+        static void start() {
+            statements.set(0);
+            batches.set(0);
+            target = Thread.currentThread();
+        }
+
+        static void stop() {
+            target = null;
+        }
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            if (counting) {
+                statements.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            if (counting) {
+                batches.incrementAndGet();
+            }
+        }
+    }
+}
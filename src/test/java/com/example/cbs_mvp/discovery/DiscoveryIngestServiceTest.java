@@ -6,20 +6,28 @@ import static org.mockito.Mockito.*;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import com.example.cbs_mvp.dto.discovery.CsvIngestResultResponse;
+import com.example.cbs_mvp.entity.ImportJob;
 import com.example.cbs_mvp.fx.FxRateService;
+import com.example.cbs_mvp.imports.ImportChunkProcessor;
 import com.example.cbs_mvp.pricing.PricingCalculator;
+import com.example.cbs_mvp.pricing.PricingPolicy;
+import com.example.cbs_mvp.pricing.PricingRequest;
 import com.example.cbs_mvp.pricing.PricingResponse;
 
 import com.example.cbs_mvp.service.StateTransitionService;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 class DiscoveryIngestServiceTest {
 
@@ -42,7 +50,9 @@ class DiscoveryIngestServiceTest {
                 validator = new DiscoveryItemValidator();
                 service = new DiscoveryIngestService(repository, scoringService, validator, pricingCalculator,
                                 fxRateService,
-                                transitions);
+                                transitions,
+                                new SimpleMeterRegistry(),
+                                mock(PlatformTransactionManager.class));
         }
 
         @Test
@@ -129,4 +139,43 @@ class DiscoveryIngestServiceTest {
                 assertTrue(result.errors().get(0).message().contains("sourceUrl"));
                 assertTrue(result.errors().get(1).message().contains("priceYen"));
         }
+
+        @Test
+        void process_loadsExistingItemsOncePerChunk() {
+                DiscoveryItem existingItem = new DiscoveryItem();
+                existingItem.setId(1L);
+                existingItem.setSourceUrl("https://example.com/item1");
+                existingItem.setPriceYen(new BigDecimal("15000"));
+                PricingPolicy policy = mock(PricingPolicy.class);
+
+                when(repository.findBySourceUrlIn(any())).thenReturn(List.of(existingItem));
+                when(repository.findActiveByTitleIn(any())).thenReturn(List.of());
+                when(pricingCalculator.snapshot()).thenReturn(policy);
+                when(fxRateService.getCurrentRate())
+                                .thenReturn(new FxRateService.FxRateResult(new BigDecimal("150.0"), null, null));
+                when(pricingCalculator.calculate(any(), eq(policy))).thenReturn(
+                                PricingResponse.builder()
+                                                .profitRate(new BigDecimal("0.25"))
+                                                .gateProfitOk(true)
+                                                .build());
+                when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+                ImportChunkProcessor.Result result = service.process(new ImportJob(), "header", List.of(
+                                new ImportChunkProcessor.Line(2, "https://example.com/item1,Existing,20000,1.0,NEW"),
+                                new ImportChunkProcessor.Line(3, "https://example.com/new1,New Item,10000,1.0,NEW"),
+                                new ImportChunkProcessor.Line(4, "https://example.com/new1,New Item,10500,1.0,NEW"),
+                                new ImportChunkProcessor.Line(5, ",,,,")));
+
+                // 同じチャンク内で先に登録した行は、後ろの行から更新として見える
+                assertEquals(1, result.success());
+                assertEquals(2, result.updated());
+                assertEquals(1, result.errors().size());
+                assertEquals(5, result.errors().get(0).lineNumber());
+                assertEquals(new BigDecimal("20000"), existingItem.getPriceYen());
+                verify(repository, times(1)).findBySourceUrlIn(any());
+                verify(repository, never()).findBySourceUrl(any());
+                verify(repository, never()).findByTitleAndPriceRange(any(), any(), any());
+                verify(pricingCalculator, never()).calculate(any(PricingRequest.class));
+                verify(repository, times(3)).save(any(DiscoveryItem.class));
+        }
 }
@@ -0,0 +1,147 @@
+package com.example.cbs_mvp.ebay;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class EbayApiExecutorTest {
+
+    @Test
+    void retryAfter_parsesSecondsAndHttpDate() {
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        HttpHeaders seconds = new HttpHeaders();
+        seconds.set(HttpHeaders.RETRY_AFTER, "7");
+        assertEquals(Duration.ofSeconds(7), EbayApiExecutor.retryAfter(seconds, now));
+
+        HttpHeaders date = new HttpHeaders();
+        date.set(HttpHeaders.RETRY_AFTER, "Thu, 01 Jan 2026 00:00:30 GMT");
+        assertEquals(Duration.ofSeconds(30), EbayApiExecutor.retryAfter(date, now));
+
+        assertNull(EbayApiExecutor.retryAfter(new HttpHeaders(), now));
+    }
+
+    @Test
+    void backoff_staysWithinJitterRangeAndCap() {
+        for (int i = 0; i < 100; i++) {
+            long ms = EbayApiExecutor.backoff(2, 100, 10_000).toMillis();
+            assertTrue(ms >= 200 && ms <= 400, "backoff out of range: " + ms);
+            assertTrue(EbayApiExecutor.backoff(30, 100, 1_000).toMillis() <= 1_000);
+        }
+    }
+
+    @Test
+    void execute_retriesThrottledRequestHonoringRetryAfter() {
+        EbayApiExecutor api = executor(new EbayApiProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "0");
+        WebClientResponseException throttled = WebClientResponseException.create(
+                HttpStatus.TOO_MANY_REQUESTS.value(), "Too Many Requests", headers, new byte[0],
+                StandardCharsets.UTF_8);
+
+        Mono<String> result = api.execute("test", token -> calls.incrementAndGet() < 3
+                ? Mono.error(throttled)
+                : Mono.just("ok:" + token));
+
+        StepVerifier.create(result).expectNext("ok:TOKEN").verifyComplete();
+        assertEquals(3, calls.get());
+        assertEquals(2L, api.stats().get("test").get("retries"));
+    }
+
+    @Test
+    void execute_doesNotRetryClientErrors() {
+        EbayApiExecutor api = executor(new EbayApiProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        Mono<String> result = api.execute("test", token -> {
+            calls.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(400, "Bad Request", null, null, null));
+        });
+
+        StepVerifier.create(result).expectError(WebClientResponseException.class).verify();
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_retriesServerErrorsOnlyForIdempotentCalls() {
+        EbayApiProperties props = new EbayApiProperties();
+        props.setInitialBackoffMs(1);
+        props.setMaxBackoffMs(2);
+        EbayApiExecutor api = executor(props);
+        WebClientResponseException unavailable = WebClientResponseException.create(503, "Service Unavailable",
+                null, null, null);
+
+        AtomicInteger gets = new AtomicInteger();
+        Mono<String> get = api.execute("get", EbayApiExecutor.RetryPolicy.IDEMPOTENT,
+                token -> gets.incrementAndGet() < 2 ? Mono.error(unavailable) : Mono.just("ok"));
+        StepVerifier.create(get).expectNext("ok").verifyComplete();
+        assertEquals(2, gets.get());
+
+        // POST（既定の THROTTLED_ONLY）は受け付け済みかもしれないので 5xx を再送しない
+        AtomicInteger posts = new AtomicInteger();
+        Mono<String> post = api.execute("post", token -> {
+            posts.incrementAndGet();
+            return Mono.error(unavailable);
+        });
+        StepVerifier.create(post).expectError(WebClientResponseException.class).verify();
+        assertEquals(1, posts.get());
+    }
+
+    @Test
+    void execute_noneDoesNotRetryEvenWhenThrottled() {
+        EbayApiExecutor api = executor(new EbayApiProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        Mono<String> result = api.execute("tracking", EbayApiExecutor.RetryPolicy.NONE, token -> {
+            calls.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(429, "Too Many Requests", null, null, null));
+        });
+
+        StepVerifier.create(result).expectError(WebClientResponseException.class).verify();
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_limitsConcurrencyPerEndpoint() {
+        EbayApiProperties props = new EbayApiProperties();
+        props.getEndpointConcurrency().put("limited", 2);
+        EbayApiExecutor api = executor(props);
+
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        Flux<Integer> all = Flux.range(0, 20)
+                .flatMap(i -> api.execute("limited", token -> Mono.fromSupplier(() -> {
+                    peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+                    return i;
+                })
+                        .delayElement(Duration.ofMillis(5))
+                        .doFinally(s -> current.decrementAndGet())), 20);
+
+        StepVerifier.create(all).expectNextCount(20).verifyComplete();
+        assertTrue(peak.get() <= 2, "peak concurrency " + peak.get());
+    }
+
+    private static EbayApiExecutor executor(EbayApiProperties props) {
+        EbayOAuthService oauth = mock(EbayOAuthService.class);
+        when(oauth.accessToken()).thenReturn(Mono.just("TOKEN"));
+        return new EbayApiExecutor(oauth, props, new EbayApiMetrics(new SimpleMeterRegistry()), WebClient.builder());
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.cbs_mvp.ebay;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Mono;
+
+class EbayOAuthServiceTest {
+
+    @Test
+    void concurrentCallers_shareSingleRefresh() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        EbayOAuthService service = new EbayOAuthService(config(), tokenEndpoint(calls, 7200), Clock.systemUTC());
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(CompletableFuture.supplyAsync(service::getAccessToken, pool));
+            }
+            for (CompletableFuture<String> f : futures) {
+                assertEquals("T1", f.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void nearExpiry_returnsCurrentTokenAndRefreshesInBackground() {
+        AtomicInteger calls = new AtomicInteger();
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        EbayOAuthService service = new EbayOAuthService(config(), tokenEndpoint(calls, 3600), clock);
+
+        assertEquals("T1", service.getAccessToken());
+
+        // 期限10分前：まだ使えるので待たずに T1 を返し、裏で T2 を取りに行く
+        clock.advance(Duration.ofMinutes(50));
+        assertEquals("T1", service.accessToken().block());
+
+        waitUntil(() -> calls.get() == 2);
+        waitUntil(() -> "T2".equals(service.accessToken().block()));
+    }
+
+    @Test
+    void missingCredentials_failsWithClientException() {
+        EbayOAuthConfig config = new EbayOAuthConfig();
+        EbayOAuthService service = new EbayOAuthService(config, tokenEndpoint(new AtomicInteger(), 7200),
+                Clock.systemUTC());
+
+        assertThrows(EbayClientException.class, service::getAccessToken);
+    }
+
+    @Test
+    void stalledTokenEndpoint_timesOutAndNextCallFetchesAgain() {
+        AtomicInteger calls = new AtomicInteger();
+        WebClient.Builder endpoint = WebClient.builder().exchangeFunction(request -> {
+            if (calls.incrementAndGet() == 1) {
+                return Mono.never(); // 応答を返さないトークンエンドポイント
+            }
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"access_token\":\"T2\",\"expires_in\":7200}")
+                    .build());
+        });
+        EbayOAuthService service = new EbayOAuthService(config(), endpoint, Clock.systemUTC(), 200);
+
+        EbayClientException ex = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(EbayClientException.class, service::getAccessToken));
+        assertTrue(ex.getMessage().contains("timed out"));
+
+        // 進行中の取得が外れているので、次の呼び出しは新しいリクエストを出す
+        assertEquals("T2", assertTimeoutPreemptively(Duration.ofSeconds(5), () -> service.getAccessToken()));
+        assertEquals(2, calls.get());
+    }
+
+    private static EbayOAuthConfig config() {
+        EbayOAuthConfig config = new EbayOAuthConfig();
+        config.setClientId("client");
+        config.setClientSecret("secret");
+        return config;
+    }
+
+    private static WebClient.Builder tokenEndpoint(AtomicInteger calls, long expiresIn) {
+        return WebClient.builder().exchangeFunction(request -> {
+            int n = calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"access_token\":\"T" + n + "\",\"expires_in\":" + expiresIn + "}")
+                    .build())
+                    .delayElement(Duration.ofMillis(100));
+        });
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not met within timeout");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrupted");
+            }
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
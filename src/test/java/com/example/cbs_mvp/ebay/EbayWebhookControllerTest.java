@@ -1,17 +1,28 @@
 package com.example.cbs_mvp.ebay;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-import java.math.BigDecimal;
-import java.time.Instant;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,15 +32,10 @@ import org.mockito.Spy;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import com.example.cbs_mvp.entity.EbayDraft;
-import com.example.cbs_mvp.entity.Order;
-import com.example.cbs_mvp.fx.FxRateService;
-import com.example.cbs_mvp.repo.EbayDraftRepository;
-import com.example.cbs_mvp.repo.OrderRepository;
-import com.example.cbs_mvp.service.OrderImportService;
-import com.example.cbs_mvp.service.OrderImportService.SoldImportCommand;
+import com.example.cbs_mvp.service.WebhookInboxService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 class EbayWebhookControllerTest {
@@ -37,19 +43,7 @@ class EbayWebhookControllerTest {
         private MockMvc mvc;
 
         @Mock
-        private EbayOrderClient ebayOrderClient;
-
-        @Mock
-        private OrderRepository orderRepository;
-
-        @Mock
-        private EbayDraftRepository draftRepository;
-
-        @Mock
-        private OrderImportService orderImportService;
-
-        @Mock
-        private FxRateService fxRateService;
+        private WebhookInboxService webhookInbox;
 
         @Mock
         private WebhookSignatureVerifier signatureVerifier;
@@ -67,94 +61,89 @@ class EbayWebhookControllerTest {
         }
 
         @Test
-        void receiveWebhook_shouldImportOrder() throws Exception {
+        void receiveWebhook_shouldEnqueueNotification() throws Exception {
                 String orderId = "11-222-333";
-                String sku = "TEST-SKU-001";
-                Long draftId = 100L;
-                BigDecimal soldPrice = new BigDecimal("50.00");
-                BigDecimal fxRate = new BigDecimal("150.00");
-
-                // Mock: Order not exists
-                when(orderRepository.findByEbayOrderKey(orderId)).thenReturn(Optional.empty());
-
-                // Mock: Order details
-                Map<String, Object> orderDetails = Map.of(
-                                "orderId", orderId,
-                                "lineItems", List.of(Map.of("sku", sku)),
-                                "pricingSummary", Map.of("total", Map.of("value", soldPrice.toString())));
-                when(ebayOrderClient.getOrder(orderId)).thenReturn(orderDetails);
-
-                // Mock: Draft exists
-                EbayDraft draft = new EbayDraft();
-                draft.setDraftId(draftId);
-                draft.setSku(sku);
-                when(draftRepository.findBySku(sku)).thenReturn(Optional.of(draft));
-
-                // Mock: FxRate
-                when(fxRateService.getCurrentRate())
-                                .thenReturn(new FxRateService.FxRateResult(fxRate, Instant.now(), null));
 
                 // Payload
                 Map<String, Object> payload = Map.of(
                                 "notification", Map.of(
                                                 "data", Map.of("orderId", orderId)));
+                String body = objectMapper.writeValueAsString(payload);
 
                 mvc.perform(post("/ebay/webhook")
                                 .contentType(MediaType.APPLICATION_JSON)
-                                .content(objectMapper.writeValueAsString(payload)))
+                                .content(body))
                                 .andExpect(status().isOk());
 
-                verify(orderImportService).importSold(any(SoldImportCommand.class));
+                verify(webhookInbox).enqueue(orderId, body);
         }
 
         @Test
-        void receiveWebhook_shouldSkip_ifAlreadyExists() throws Exception {
-                String orderId = "11-222-333";
-
-                // Mock: Order exists
-                when(orderRepository.findByEbayOrderKey(orderId)).thenReturn(Optional.of(new Order()));
-
-                // Payload
-                Map<String, Object> payload = Map.of("orderId", orderId);
+        void receiveWebhook_shouldReturn400_ifOrderIdMissing() throws Exception {
+                Map<String, Object> payload = Map.of("notification", Map.of("data", Map.of()));
 
                 mvc.perform(post("/ebay/webhook")
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .content(objectMapper.writeValueAsString(payload)))
-                                .andExpect(status().isOk());
+                                .andExpect(status().isBadRequest());
 
-                verify(ebayOrderClient, never()).getOrder(any());
-                verify(orderImportService, never()).importSold(any());
+                verify(webhookInbox, never()).enqueue(any(), any());
         }
 
         @Test
-        void receiveWebhook_shouldSkip_ifDraftNotFound() throws Exception {
-                String orderId = "11-222-333";
-                String sku = "UNKNOWN-SKU";
-
-                when(orderRepository.findByEbayOrderKey(orderId)).thenReturn(Optional.empty());
-
-                Map<String, Object> orderDetails = Map.of(
-                                "orderId", orderId,
-                                "lineItems", List.of(Map.of("sku", sku)));
-                when(ebayOrderClient.getOrder(orderId)).thenReturn(orderDetails);
-                when(draftRepository.findBySku(sku)).thenReturn(Optional.empty());
-
-                Map<String, Object> payload = Map.of("orderId", orderId);
-
-                mvc.perform(post("/ebay/webhook")
-                                .contentType(MediaType.APPLICATION_JSON)
-                                .content(objectMapper.writeValueAsString(payload)))
-                                .andExpect(status().isOk()); // Returns 200 but logs error
+        void receiveWebhook_burst_verifiesRotatedSecretsAndEnqueuesValidOnly() throws Exception {
+                EbayWebhookController real = new EbayWebhookController(
+                                webhookInbox, new WebhookSignatureVerifier(), objectMapper);
+                ReflectionTestUtils.setField(real, "webhookSecret", "new-secret, old-secret");
+                MockMvc burstMvc = MockMvcBuilders.standaloneSetup(real).build();
+
+                int requests = 300;
+                AtomicInteger accepted = new AtomicInteger();
+                AtomicInteger rejected = new AtomicInteger();
+                ExecutorService pool = Executors.newFixedThreadPool(16);
+                try {
+                        List<Future<?>> futures = new ArrayList<>();
+                        for (int i = 0; i < requests; i++) {
+                                int n = i;
+                                futures.add(pool.submit(() -> {
+                                        String body = "{\"orderId\":\"ORDER-" + n + "\"}";
+                                        String secret = switch (n % 3) {
+                                                case 0 -> "new-secret";
+                                                case 1 -> "old-secret";
+                                                default -> "forged";
+                                        };
+                                        int code = burstMvc.perform(post("/ebay/webhook")
+                                                        .contentType(MediaType.APPLICATION_JSON)
+                                                        .header("X-Ebay-Signature", "sha256=" + sign(body, secret))
+                                                        .content(body))
+                                                        .andReturn().getResponse().getStatus();
+                                        (code == 200 ? accepted : rejected).incrementAndGet();
+                                        return null;
+                                }));
+                        }
+                        for (Future<?> f : futures) {
+                                f.get();
+                        }
+                } finally {
+                        pool.shutdownNow();
+                }
+
+                assertEquals(requests / 3 * 2, accepted.get());
+                assertEquals(requests / 3, rejected.get());
+                verify(webhookInbox, times(requests / 3 * 2)).enqueue(anyString(), anyString());
+        }
 
-                verify(orderImportService, never()).importSold(any());
+        private static String sign(String body, String secret) throws Exception {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+                return HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
         }
 
         @Test
-        void receiveWebhook_shouldReturn500_onApiError() throws Exception {
+        void receiveWebhook_shouldReturn500_ifEnqueueFails() throws Exception {
                 String orderId = "11-222-333";
 
-                when(orderRepository.findByEbayOrderKey(orderId)).thenReturn(Optional.empty());
-                when(ebayOrderClient.getOrder(orderId)).thenThrow(new RuntimeException("API Error"));
+                when(webhookInbox.enqueue(eq(orderId), anyString())).thenThrow(new RuntimeException("DB down"));
 
                 Map<String, Object> payload = Map.of("orderId", orderId);
 
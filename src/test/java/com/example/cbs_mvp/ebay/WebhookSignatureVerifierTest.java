@@ -0,0 +1,86 @@
+package com.example.cbs_mvp.ebay;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+class WebhookSignatureVerifierTest {
+
+    private final WebhookSignatureVerifier verifier = new WebhookSignatureVerifier();
+
+    @Test
+    void verify_acceptsValidSignatureInAllForms() throws Exception {
+        byte[] body = "{\"orderId\":\"11-222-333\"}".getBytes(StandardCharsets.UTF_8);
+        String sig = sign(body, "secret");
+
+        assertTrue(verifier.verify(body, sig, "secret"));
+        assertTrue(verifier.verify(body, sig.toUpperCase(), "secret"));
+        assertTrue(verifier.verify(body, "sha256=" + sig, "secret"));
+        assertTrue(verifier.verify(body, "  SHA256=" + sig + " ", "secret"));
+        assertTrue(verifier.verify(new String(body, StandardCharsets.UTF_8), sig, "secret"));
+        assertTrue(verifier.verify(ByteBuffer.wrap(body), sig, "secret"));
+    }
+
+    @Test
+    void verify_rejectsWrongSecretOrMalformedSignature() throws Exception {
+        byte[] body = "payload".getBytes(StandardCharsets.UTF_8);
+        String sig = sign(body, "secret");
+
+        assertFalse(verifier.verify(body, sig, "other"));
+        assertFalse(verifier.verify(body, sig.substring(2), "secret"));
+        assertFalse(verifier.verify(body, "zz" + sig.substring(2), "secret"));
+        assertFalse(verifier.verify(body, "", "secret"));
+        assertFalse(verifier.verify((byte[]) null, sig, "secret"));
+        // 失敗後も同じスレッドの Mac が正しく再利用できる
+        assertTrue(verifier.verify(body, sig, "secret"));
+    }
+
+    @Test
+    void verifyAny_supportsKeyRotation() throws Exception {
+        byte[] body = "payload".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(verifier.verifyAny(body, sign(body, "old"), List.of("new", "old")));
+        assertTrue(verifier.verifyAny(body, sign(body, "new"), List.of("new", "old")));
+        assertFalse(verifier.verifyAny(body, sign(body, "retired"), List.of("new", "old")));
+    }
+
+    @Test
+    void burst_concurrentVerificationIsCorrect() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                int n = i;
+                results.add(pool.submit(() -> {
+                    byte[] body = ("{\"orderId\":\"" + n + "\"}").getBytes(StandardCharsets.UTF_8);
+                    String secret = n % 2 == 0 ? "new" : "old";
+                    boolean valid = verifier.verifyAny(body, sign(body, secret), List.of("new", "old"));
+                    boolean forged = verifier.verifyAny(body, sign(body, "forged"), List.of("new", "old"));
+                    return valid && !forged;
+                }));
+            }
+            for (Future<Boolean> f : results) {
+                assertTrue(f.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String sign(byte[] body, String secret) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(body));
+    }
+}
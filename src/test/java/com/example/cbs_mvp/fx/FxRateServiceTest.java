@@ -0,0 +1,124 @@
+package com.example.cbs_mvp.fx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.example.cbs_mvp.ops.SystemFlagService;
+import com.example.cbs_mvp.repo.FxRateHistoryRepository;
+import com.example.cbs_mvp.service.CandidateService;
+
+class FxRateServiceTest {
+
+    private SystemFlagService flags;
+    private FxRateHistoryRepository historyRepo;
+    private CandidateService candidateService;
+    private FxRateService service;
+
+    @BeforeEach
+    void setUp() {
+        flags = mock(SystemFlagService.class);
+        historyRepo = mock(FxRateHistoryRepository.class);
+        candidateService = mock(CandidateService.class);
+        when(historyRepo.findTopByBaseCurrencyAndTargetCurrencyOrderByFetchedAtDesc(any(), any()))
+                .thenReturn(Optional.empty());
+
+        service = new FxRateService(flags, mock(WebClient.Builder.class), historyRepo, candidateService,
+                mock(FxStatsService.class));
+        ReflectionTestUtils.setField(service, "apiKey", "");
+        ReflectionTestUtils.setField(service, "baseCurrency", "USD");
+        ReflectionTestUtils.setField(service, "baseCurrencies", new String[] { "USD", "GBP", "EUR" });
+        ReflectionTestUtils.setField(service, "targetCurrency", "JPY");
+    }
+
+    @Test
+    void refreshRate_publishesAllPairsAtOnce() {
+        when(flags.get("FX_MANUAL_RATE")).thenReturn("150.00");
+        when(flags.get("FX_MANUAL_RATE_GBP")).thenReturn("190.50");
+        when(flags.get("FX_MANUAL_RATE_EUR")).thenReturn("162.25");
+
+        var result = service.refreshRate();
+
+        assertTrue(result.isSuccess());
+        assertEquals(0, new BigDecimal("150.00").compareTo(result.rate()));
+        assertEquals(0, new BigDecimal("190.50").compareTo(service.rate("GBP/JPY")));
+        assertEquals(0, new BigDecimal("162.25").compareTo(service.rate("eur/jpy")));
+        assertEquals(3, service.getRateTable().rates().size());
+        verify(historyRepo, times(3)).save(any());
+        verify(candidateService).recalcAllActiveCandidates(any());
+    }
+
+    @Test
+    void rate_readsStoredFlagsOnlyOnce() {
+        when(flags.get("FX_RATE")).thenReturn("148.1234");
+        when(flags.get("FX_RATE_GBP_JPY")).thenReturn("188.0000");
+
+        assertEquals(0, new BigDecimal("148.1234").compareTo(service.getCurrentRate().rate()));
+        assertEquals(0, new BigDecimal("188.0000").compareTo(service.rate("GBP/JPY")));
+        assertNull(service.rate("EUR/JPY"));
+        service.getCurrentRate();
+
+        verify(flags, times(1)).get("FX_RATE");
+    }
+
+    @Test
+    void refreshRate_readersDoNotWaitForFetchAndConcurrentRefreshesShareOne() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(flags.get("FX_RATE")).thenReturn("148.0000");
+        when(flags.get("FX_MANUAL_RATE")).thenAnswer(inv -> {
+            fetching.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "151.00";
+        });
+
+        CompletableFuture<FxRateService.FxRateResult> first = CompletableFuture.supplyAsync(service::refreshRate);
+        assertTrue(fetching.await(5, TimeUnit.SECONDS));
+
+        // 取得中でも公開中のレートはすぐに読める
+        CompletableFuture<BigDecimal> read = CompletableFuture.supplyAsync(() -> service.rate("USD/JPY"));
+        assertEquals(0, new BigDecimal("148.0000").compareTo(read.get(2, TimeUnit.SECONDS)));
+
+        // 実行中に呼ばれた更新は、実行中の結果を待つ
+        CompletableFuture<FxRateService.FxRateResult> second = new CompletableFuture<>();
+        Thread waiter = new Thread(() -> second.complete(service.refreshRate()));
+        waiter.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waiter.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals(0, new BigDecimal("151.00").compareTo(first.get(5, TimeUnit.SECONDS).rate()));
+        assertEquals(0, new BigDecimal("151.00").compareTo(second.get(5, TimeUnit.SECONDS).rate()));
+        verify(flags, times(1)).get("FX_MANUAL_RATE");
+        verify(candidateService, times(1)).recalcAllActiveCandidates(any());
+    }
+
+    @Test
+    void getCurrentRate_returnsErrorWhenNotSet() {
+        var result = service.getCurrentRate();
+
+        assertFalse(result.isSuccess());
+        assertEquals("FX rate not set", result.error());
+        verify(candidateService, never()).recalcAllActiveCandidates(any());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.cbs_mvp.fx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.cbs_mvp.ops.SystemFlagService;
+import com.example.cbs_mvp.repo.FxRateHistoryRepository;
+
+class FxStatsServiceTest {
+
+    private FxRateHistoryRepository historyRepo;
+    private SystemFlagService flags;
+    private FxStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        historyRepo = mock(FxRateHistoryRepository.class);
+        flags = mock(SystemFlagService.class);
+        service = new FxStatsService(historyRepo, flags);
+    }
+
+    @Test
+    void record_tracksMinMaxWithinWindow() {
+        Instant t0 = Instant.parse("2026-01-01T00:00:00Z");
+        service.record("USD", "JPY", t0, new BigDecimal("140"));
+        service.record("USD", "JPY", t0.plus(Duration.ofDays(1)), new BigDecimal("155"));
+        service.record("USD", "JPY", t0.plus(Duration.ofDays(2)), new BigDecimal("150"));
+
+        FxStats stats = service.stats("USD/JPY");
+        assertEquals(3, stats.count());
+        assertEquals(0, new BigDecimal("140").compareTo(stats.min()));
+        assertEquals(0, new BigDecimal("155").compareTo(stats.max()));
+        assertTrue(stats.volatilityDaily() > 0);
+
+        // 31日後: 先頭2件がウィンドウ外になる
+        service.record("USD", "JPY", t0.plus(Duration.ofDays(32)), new BigDecimal("152"));
+        stats = service.stats("USD/JPY");
+        assertEquals(2, stats.count());
+        assertEquals(0, new BigDecimal("150").compareTo(stats.min()));
+        assertEquals(0, new BigDecimal("152").compareTo(stats.max()));
+        verifyNoInteractions(historyRepo);
+    }
+
+    @Test
+    void fxBuffer_staticModeUsesFlag() {
+        when(flags.get("FX_BUFFER")).thenReturn("0.05");
+
+        assertEquals(new BigDecimal("0.05"), service.fxBuffer());
+    }
+
+    @Test
+    void fxBuffer_volatilityModeIsClampedBetweenFloorAndMax() {
+        when(flags.get("FX_BUFFER")).thenReturn("0.03");
+        when(flags.get("FX_BUFFER_MODE")).thenReturn("VOLATILITY");
+        when(flags.get("FX_BUFFER_MAX")).thenReturn("0.08");
+
+        // 安定相場 → 下限(FX_BUFFER)
+        Instant t0 = Instant.parse("2026-01-01T00:00:00Z");
+        for (int i = 0; i < 10; i++) {
+            service.record("USD", "JPY", t0.plus(Duration.ofDays(i)), new BigDecimal("150.00"));
+        }
+        assertEquals(0, new BigDecimal("0.03").compareTo(service.fxBuffer()));
+
+        // 乱高下 → 上限(FX_BUFFER_MAX)
+        for (int i = 10; i < 20; i++) {
+            service.record("USD", "JPY", t0.plus(Duration.ofDays(i)), new BigDecimal(i % 2 == 0 ? "130" : "170"));
+        }
+        assertEquals(0, new BigDecimal("0.08").compareTo(service.fxBuffer()));
+    }
+}
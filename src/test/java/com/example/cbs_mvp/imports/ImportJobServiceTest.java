@@ -0,0 +1,180 @@
+package com.example.cbs_mvp.imports;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.cbs_mvp.entity.ImportJob;
+import com.example.cbs_mvp.live.LiveEventBus;
+import com.example.cbs_mvp.repo.ImportJobRepository;
+
+import io.micrometer.observation.ObservationRegistry;
+
+class ImportJobServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ImportJobRepository repo;
+    private RecordingProcessor processor;
+    private ImportJobService service;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(ImportJobRepository.class);
+        processor = new RecordingProcessor();
+        service = new ImportJobService(repo, List.of(processor), ObservationRegistry.NOOP,
+                mock(LiveEventBus.class), dir.toString(), 2, 300, "node-a", false);
+        when(repo.isCancelRequested(any())).thenReturn(false);
+    }
+
+    @Test
+    void submit_spoolsUploadAndCountsLines() throws Exception {
+        when(repo.save(any())).thenAnswer(inv -> {
+            ImportJob job = inv.getArgument(0);
+            job.setJobId(7L);
+            return job;
+        });
+
+        ImportJob job = service.submit("TEST", "a.csv", stream("h\na\nb"), true, false);
+
+        assertEquals(7L, job.getJobId());
+        assertEquals(3, job.getTotalLines());
+        assertTrue(job.isSkipDuplicates());
+        assertEquals("h\na\nb", Files.readString(Path.of(job.getSpoolPath())));
+        assertEquals("node-a", job.getOwnerInstance());
+    }
+
+    @Test
+    void claimNext_onlyClaimsJobsSpooledOnThisInstanceUnlessSpoolIsShared() {
+        when(repo.claimNext(any(), any(), anyBoolean())).thenReturn(List.of());
+
+        service.claimNext();
+        new ImportJobService(repo, List.of(processor), ObservationRegistry.NOOP, mock(LiveEventBus.class),
+                dir.toString(), 2, 300, "node-b", true).claimNext();
+
+        verify(repo).claimNext(any(), eq("node-a"), eq(false));
+        verify(repo).claimNext(any(), eq("node-b"), eq(true));
+    }
+
+    @Test
+    void run_resumesAfterCheckpointAndWritesErrorCsv() throws Exception {
+        ImportJob job = job(1L, "h\nl2\nl3\nl4\nbad\nl6\n");
+        job.setCheckpointLine(3);
+        job.setSuccessCount(2);
+
+        service.run(job);
+
+        assertEquals(List.of(4, 5, 6), processor.seen);
+        verify(repo).checkpoint(eq(1L), eq(5), eq(3), eq(0), eq(0), eq(1), anyLong());
+        verify(repo).checkpoint(eq(1L), eq(6), eq(4), eq(0), eq(0), eq(1), anyLong());
+        verify(repo).finish(1L, "COMPLETED", null);
+        assertFalse(Files.exists(Path.of(job.getSpoolPath())));
+        assertEquals("line,error\n5,\"bad row, rejected\"\n",
+                Files.readString(service.errorFile(1L)));
+    }
+
+    @Test
+    void run_truncatesErrorsWrittenAfterLastCheckpoint() throws Exception {
+        ImportJob job = job(2L, "h\nl2\nbad\n");
+        Path errors = service.errorFile(2L);
+        String committed = "line,error\n";
+        Files.writeString(errors, committed + "3,\"bad row, rejected\"\n", StandardCharsets.UTF_8);
+        job.setErrorFileBytes(committed.length());
+
+        service.run(job);
+
+        // 再開前に書かれていた行は切り詰められ、処理し直したチャンクのエラーだけが残る
+        assertEquals("line,error\n3,\"bad row, rejected\"\n", Files.readString(errors));
+    }
+
+    @Test
+    void run_stopsBeforeNextChunkWhenCancelled() throws Exception {
+        ImportJob job = job(3L, "h\nl2\nl3\n");
+        when(repo.isCancelRequested(3L)).thenReturn(true);
+
+        service.run(job);
+
+        assertTrue(processor.seen.isEmpty());
+        verify(repo).finish(3L, "CANCELLED", null);
+        verify(repo, never()).checkpoint(any(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyLong());
+    }
+
+    @Test
+    void run_failsJobOnInvalidHeader() throws Exception {
+        ImportJob job = job(4L, "wrong\nl2\n");
+
+        service.run(job);
+
+        verify(repo).finish(4L, "FAILED", "bad header");
+        assertTrue(Files.exists(Path.of(job.getSpoolPath())));
+    }
+
+    private ImportJob job(Long id, String content) throws Exception {
+        Path spool = dir.resolve("upload-" + id + ".csv");
+        Files.writeString(spool, content, StandardCharsets.UTF_8);
+        ImportJob job = new ImportJob();
+        job.setJobId(id);
+        job.setKind("TEST");
+        job.setStatus("RUNNING");
+        job.setSpoolPath(spool.toString());
+        job.setCheckpointLine(1);
+        return job;
+    }
+
+    private static ByteArrayInputStream stream(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * "bad" の行をエラー、それ以外を成功として数える
+     */
+    private static final class RecordingProcessor implements ImportChunkProcessor {
+        private final List<Integer> seen = new ArrayList<>();
+
+        @Override
+        public String kind() {
+            return "TEST";
+        }
+
+        @Override
+        public String checkHeader(String headerLine) {
+            return "h".equals(headerLine) ? null : "bad header";
+        }
+
+        @Override
+        public Result process(ImportJob job, String headerLine, List<Line> lines) {
+            List<RowError> errors = new ArrayList<>();
+            int success = 0;
+            for (Line line : lines) {
+                seen.add(line.lineNumber());
+                if ("bad".equals(line.text())) {
+                    errors.add(new RowError(line.lineNumber(), "bad row, rejected"));
+                } else {
+                    success++;
+                }
+            }
+            return new Result(success, 0, 0, errors);
+        }
+    }
+}
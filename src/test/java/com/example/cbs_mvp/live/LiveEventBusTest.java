@@ -0,0 +1,98 @@
+package com.example.cbs_mvp.live;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class LiveEventBusTest {
+
+    private LiveFeedHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = mock(LiveFeedHub.class);
+        when(hub.hasSubscribers()).thenReturn(true);
+    }
+
+    @Test
+    void drain_keepsLatestEventPerKeyInOrderOfLastChange() {
+        LiveEventBus bus = new LiveEventBus(hub, 100, 10);
+        bus.publish(LiveEvent.of("candidate", 1L, "state", "CANDIDATE"));
+        bus.publish(LiveEvent.of("candidate", 2L, "state", "CANDIDATE"));
+        bus.publish(LiveEvent.of("candidate", 1L, "state", "DRAFT_READY"));
+        bus.publish(LiveEvent.of("killswitch", "PAUSED", "paused", true));
+
+        List<LiveEvent> events = bus.drain();
+
+        assertEquals(3, events.size());
+        assertEquals("2", events.get(0).key());
+        assertEquals("1", events.get(1).key());
+        assertEquals("DRAFT_READY", events.get(1).data().get("state"));
+        assertEquals("killswitch", events.get(2).type());
+        assertTrue(bus.drain().isEmpty());
+    }
+
+    @Test
+    void drain_collapsesTypeOverLimitIntoCount() {
+        LiveEventBus bus = new LiveEventBus(hub, 100, 3);
+        for (long id = 1; id <= 5; id++) {
+            bus.publish(LiveEvent.of("candidate", id, "state", "CANDIDATE"));
+        }
+        bus.publish(LiveEvent.of("discovery", 9L, "state", "NEW"));
+
+        List<LiveEvent> events = bus.drain();
+
+        assertEquals(2, events.size());
+        assertEquals("candidate", events.get(0).type());
+        assertEquals(5, events.get(0).data().get("count"));
+        assertEquals(true, events.get(0).data().get("truncated"));
+        assertEquals("9", events.get(1).key());
+    }
+
+    @Test
+    void drain_reportsResyncAfterOverflow() {
+        LiveEventBus bus = new LiveEventBus(hub, 2, 10);
+        for (long id = 1; id <= 4; id++) {
+            bus.publish(LiveEvent.of("candidate", id));
+        }
+
+        List<LiveEvent> events = bus.drain();
+
+        assertEquals(3, events.size());
+        assertEquals(LiveEventBus.RESYNC, events.get(2).type());
+        assertTrue(bus.drain().isEmpty());
+    }
+
+    @Test
+    void publish_withoutSubscribersIsDropped() {
+        when(hub.hasSubscribers()).thenReturn(false);
+        LiveEventBus bus = new LiveEventBus(hub, 100, 10);
+        bus.publish(LiveEvent.of("candidate", 1L));
+
+        assertTrue(bus.drain().isEmpty());
+    }
+
+    @Test
+    void publish_insideTransactionWaitsForCommit() {
+        LiveEventBus bus = new LiveEventBus(hub, 100, 10);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bus.publish(LiveEvent.of("candidate", 1L));
+            assertTrue(bus.drain().isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, bus.drain().size());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.cbs_mvp.live;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class LiveFeedHubTest {
+
+    private final ExecutorService sender = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        sender.shutdownNow();
+    }
+
+    @Test
+    void broadcast_stalledSubscriberDoesNotBlockOthersAndIsDroppedWhenItFallsBehind() throws Exception {
+        LiveFeedHub hub = new LiveFeedHub(new ObjectMapper(), sender, 10, 60_000, 2, 60_000);
+        RecordingEmitter stalled = new RecordingEmitter(release);
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        hub.register(stalled);
+        hub.register(healthy);
+
+        hub.broadcast(List.of(LiveEvent.of("candidate", 1, "candidateId", 1)));
+        waitUntil(() -> stalled.sending);
+
+        // 止まった接続があっても呼び出し元は待たない
+        CompletableFuture.runAsync(() -> {
+            for (int i = 2; i <= 4; i++) {
+                hub.broadcast(List.of(LiveEvent.of("candidate", i, "candidateId", i)));
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        waitUntil(() -> healthy.sent.size() == 4);
+        assertEquals(1, hub.subscribers()); // キュー（2件）が溢れた購読者は外れる
+        assertFalse(stalled.completed);
+
+        // 止まっていた書き込みが戻ったら、その送信タスクが接続を閉じる
+        release.countDown();
+        waitUntil(() -> stalled.completed);
+        assertEquals(1, stalled.sent.size());
+        assertFalse(healthy.completed);
+    }
+
+    @Test
+    void heartbeat_dropsSubscriberWhoseWriteExceedsSendTimeout() throws Exception {
+        LiveFeedHub hub = new LiveFeedHub(new ObjectMapper(), sender, 10, 60_000, 100, 50);
+        RecordingEmitter stalled = new RecordingEmitter(release);
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        hub.register(stalled);
+        hub.register(healthy);
+
+        hub.heartbeat();
+        waitUntil(() -> stalled.sending);
+        Thread.sleep(100);
+        hub.heartbeat();
+
+        assertEquals(1, hub.subscribers());
+        waitUntil(() -> healthy.sent.size() == 2);
+    }
+
+    @Test
+    void broadcast_failedWriteDropsSubscriber() throws Exception {
+        LiveFeedHub hub = new LiveFeedHub(new ObjectMapper(), sender, 10, 60_000, 100, 60_000);
+        RecordingEmitter broken = new RecordingEmitter(null);
+        broken.fail = true;
+        hub.register(broken);
+
+        hub.broadcast(List.of(LiveEvent.of("killswitch", null, "paused", true)));
+
+        waitUntil(() -> hub.subscribers() == 0);
+        assertFalse(hub.hasSubscribers());
+    }
+
+    @Test
+    void register_rejectsBeyondMaxSubscribers() {
+        LiveFeedHub hub = new LiveFeedHub(new ObjectMapper(), sender, 1, 60_000, 100, 60_000);
+
+        assertTrue(hub.register(new RecordingEmitter(null)).isPresent());
+        assertTrue(hub.register(new RecordingEmitter(null)).isEmpty());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * block を渡すと、最初の書き込みが block が開くまで戻らない（応答を読まないクライアント）
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<Set<DataWithMediaType>> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch block;
+        private volatile boolean sending;
+        private volatile boolean completed;
+        private volatile boolean fail;
+
+        private RecordingEmitter(CountDownLatch block) {
+            this.block = block;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            if (fail) {
+                throw new IOException("broken pipe");
+            }
+            sending = true;
+            if (block != null) {
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            sent.add(items);
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.cbs_mvp.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FlightRecorderServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void dump_writesWindowAndSummarizes() throws Exception {
+        FlightRecorderService jfr = new FlightRecorderService(
+                true, "default", 10, 64, dir.toString(), 2, List.of("FlightRecorderServiceTest"));
+        jfr.start();
+        try {
+            assertTrue(jfr.isRecording());
+            burn();
+
+            FlightRecorderService.RecordingInfo first = jfr.dump(Duration.ofMinutes(1));
+            assertTrue(first.sizeBytes() > 0);
+            assertEquals(first.name(), jfr.list().get(0).name());
+
+            Path file = jfr.find(first.name()).orElseThrow();
+            FlightRecorderService.Summary summary = jfr.summarize(file, 10);
+            assertNotNull(summary.from());
+            assertTrue(summary.hotMethods().size() <= 10);
+            assertTrue(summary.watched().containsKey("FlightRecorderServiceTest"));
+        } finally {
+            jfr.stop();
+        }
+        assertTrue(!jfr.isRecording());
+    }
+
+    @Test
+    void find_rejectsPathTraversalAndMissingFiles() {
+        FlightRecorderService jfr = new FlightRecorderService(
+                false, "default", 10, 64, dir.toString(), 2, List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> jfr.find("../secret.jfr"));
+        assertThrows(IllegalArgumentException.class, () -> jfr.find("notes.txt"));
+        assertTrue(jfr.find("missing.jfr").isEmpty());
+        assertThrows(IllegalStateException.class, () -> jfr.dump(Duration.ofMinutes(1)));
+    }
+
+    private static void burn() {
+        long end = System.nanoTime() + 300_000_000L;
+        List<byte[]> sink = new ArrayList<>();
+        while (System.nanoTime() < end) {
+            sink.add(new byte[4096]);
+            if (sink.size() > 1_000) {
+                sink.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.cbs_mvp.ops;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.cbs_mvp.repo.CandidateRepository;
+import com.example.cbs_mvp.repo.CashLedgerRepository;
+import com.example.cbs_mvp.repo.PricingResultRepository;
+import com.example.cbs_mvp.repo.PurchaseOrderRepository;
+import com.example.cbs_mvp.repo.ReportingJdbcRepository;
+
+/**
+ * トリガーで更新した集計値が、元の表を集計した値（従来のクエリ）と一致し続けることを確認する
+ */
+@SpringBootTest
+class ReportingCountersTest {
+
+    @Autowired
+    private ReportingService reporting;
+
+    @Autowired
+    private ReportingJdbcRepository reportingRepo;
+
+    @Autowired
+    private PricingResultRepository pricingResultRepo;
+
+    @Autowired
+    private CandidateRepository candidateRepo;
+
+    @Autowired
+    private PurchaseOrderRepository poRepo;
+
+    @Autowired
+    private CashLedgerRepository cashLedgerRepo;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    private final String run = UUID.randomUUID().toString();
+    private Long candidateId;
+    private Long orderId;
+    private Long poId;
+
+    @AfterEach
+    void cleanUp() {
+        if (poId != null) {
+            jdbc.update("DELETE FROM cash_ledger WHERE ref_table = 'purchase_orders' AND ref_id = ?", poId);
+            jdbc.update("DELETE FROM purchase_orders WHERE po_id = ?", poId);
+        }
+        if (orderId != null) {
+            jdbc.update("DELETE FROM cash_ledger WHERE ref_table = 'orders' AND ref_id = ?", orderId);
+            jdbc.update("DELETE FROM orders WHERE order_id = ?", orderId);
+        }
+        if (candidateId != null) {
+            jdbc.update("DELETE FROM pricing_results WHERE candidate_id = ?", candidateId);
+            jdbc.update("DELETE FROM candidates WHERE candidate_id = ?", candidateId);
+        }
+        assertMatchesSourceTables();
+    }
+
+    @Test
+    void dashboardFollowsCandidateAndPricingWrites() {
+        candidateId = jdbc.queryForObject("""
+                INSERT INTO candidates(source_url, source_price_yen, state)
+                VALUES (?, 3000, 'CANDIDATE') RETURNING candidate_id
+                """, Long.class, "https://reporting-test.example.com/" + run);
+        jdbc.update("""
+                INSERT INTO pricing_results(candidate_id, fx_rate, fx_safe, sell_price_usd, sell_price_yen,
+                    total_cost_yen, ebay_fee_yen, refund_reserve_yen, profit_yen, profit_rate,
+                    gate_profit_ok, gate_cash_ok)
+                VALUES (?, 150, 155, 60, 9000, 6000, 1200, 300, 1500, 0.1667, true, true)
+                """, candidateId);
+        assertMatchesSourceTables();
+
+        jdbc.update("UPDATE candidates SET state = 'DRAFT_READY' WHERE candidate_id = ?", candidateId);
+        assertMatchesSourceTables();
+
+        // 状態を変えない更新・価格の再計算
+        jdbc.update("UPDATE candidates SET updated_at = CURRENT_TIMESTAMP WHERE candidate_id = ?", candidateId);
+        jdbc.update("UPDATE pricing_results SET profit_yen = 2100, profit_rate = 0.2333, sell_price_yen = 9600"
+                + " WHERE candidate_id = ?", candidateId);
+        assertMatchesSourceTables();
+
+        jdbc.update("UPDATE candidates SET state = 'EBAY_DRAFT_CREATED' WHERE candidate_id = ?", candidateId);
+        assertMatchesSourceTables();
+
+        // 畳み込んでも値は変わらない
+        reportingRepo.compact();
+        assertMatchesSourceTables();
+    }
+
+    @Test
+    void summaryFollowsPurchaseOrderAndLedgerWrites() {
+        orderId = jdbc.queryForObject("""
+                INSERT INTO orders(ebay_order_key, sold_price_usd, sold_price_yen, state)
+                VALUES (?, 100, 15000, 'SOLD') RETURNING order_id
+                """, Long.class, "REPORTING-" + run);
+        poId = jdbc.queryForObject("""
+                INSERT INTO purchase_orders(order_id, ship_to_3pl_address, expected_total_cost_yen, state)
+                VALUES (?, 'test', 8000, 'REQUESTED') RETURNING po_id
+                """, Long.class, orderId);
+        assertMatchesSourceTables();
+
+        // 未確定の PROCUREMENT はコミットメントのまま、確定したら外れる
+        jdbc.update("""
+                INSERT INTO cash_ledger(event_type, ref_table, ref_id, amount_yen, expected_date)
+                VALUES ('PROCUREMENT', 'purchase_orders', ?, -8000, CURRENT_DATE)
+                """, poId);
+        assertMatchesSourceTables();
+        jdbc.update("UPDATE cash_ledger SET actual_date = CURRENT_DATE"
+                + " WHERE ref_table = 'purchase_orders' AND ref_id = ?", poId);
+        assertMatchesSourceTables();
+        jdbc.update("UPDATE purchase_orders SET expected_total_cost_yen = 9000 WHERE po_id = ?", poId);
+        jdbc.update("UPDATE cash_ledger SET actual_date = NULL"
+                + " WHERE ref_table = 'purchase_orders' AND ref_id = ?", poId);
+        assertMatchesSourceTables();
+        jdbc.update("UPDATE purchase_orders SET state = 'PROCUREMENT_FAILED' WHERE po_id = ?", poId);
+        assertMatchesSourceTables();
+
+        jdbc.update("""
+                INSERT INTO cash_ledger(event_type, ref_table, ref_id, amount_yen, actual_date)
+                VALUES ('SALE', 'orders', ?, 15000, CURRENT_DATE - 3)
+                """, orderId);
+        assertMatchesSourceTables();
+        jdbc.update("UPDATE cash_ledger SET actual_date = CURRENT_DATE - 40"
+                + " WHERE ref_table = 'orders' AND ref_id = ?", orderId);
+        assertMatchesSourceTables();
+    }
+
+    @Test
+    void compactionSkipsSlotsHeldByOpenWritesInsteadOfWaiting() throws Exception {
+        String metric = "test.compaction." + run;
+        CountDownLatch pidKnown = new CountDownLatch(1);
+        CountDownLatch slotSeeded = new CountDownLatch(1);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        long[] pid = new long[1];
+        try {
+            // 業務の書き込み: 候補の追加（トリガーが自分の slot に加算）と、同じ slot の既存行への加算を
+            // 1トランザクションで行い、コミットせずに止まる
+            CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> new TransactionTemplate(txManager)
+                    .executeWithoutResult(status -> {
+                        pid[0] = jdbc.queryForObject("SELECT pg_backend_pid()", Long.class);
+                        pidKnown.countDown();
+                        await(slotSeeded);
+                        candidateId = jdbc.queryForObject("""
+                                INSERT INTO candidates(source_url, source_price_yen, state)
+                                VALUES (?, 1000, 'CANDIDATE') RETURNING candidate_id
+                                """, Long.class, "https://reporting-compact.example.com/" + run);
+                        jdbc.query("SELECT reporting_apply(ARRAY[?::text], ARRAY[1::numeric])", rs -> {
+                        }, metric);
+                        holding.countDown();
+                        await(release);
+                    }));
+
+            assertThat(pidKnown.await(5, TimeUnit.SECONDS)).isTrue();
+            // 書き込み側の slot にコミット済みの行を用意しておく（書き込みはこの行を更新してロックする）
+            jdbc.update("INSERT INTO reporting_counters(metric, slot, value) VALUES (?, ?, 1)", metric, pid[0]);
+            slotSeeded.countDown();
+            assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // 畳み込みはロックを待たずに終わり、ロック中の slot はそのまま残る
+            CompletableFuture.runAsync(() -> reportingRepo.compact()).get(5, TimeUnit.SECONDS);
+            assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM reporting_counters WHERE metric = ? AND slot = ?",
+                    Integer.class, metric, pid[0])).isEqualTo(1);
+
+            release.countDown();
+            writer.get(5, TimeUnit.SECONDS);
+            assertThat(reportingRepo.counters(List.of(metric)).get(metric)).isEqualByComparingTo("2");
+
+            // コミット後は次の畳み込みで slot 0 に移る
+            reportingRepo.compact();
+            assertThat(jdbc.queryForList("SELECT slot FROM reporting_counters WHERE metric = ?",
+                    Integer.class, metric)).containsExactly(0);
+            assertThat(reportingRepo.counters(List.of(metric)).get(metric)).isEqualByComparingTo("2");
+        } finally {
+            release.countDown();
+            jdbc.update("DELETE FROM reporting_counters WHERE metric = ?", metric);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void assertMatchesSourceTables() {
+        ReportingService.DashboardStats stats = reporting.dashboard();
+        PricingResultRepository.StatsSummary expected = pricingResultRepo.findStatsByState("DRAFT_READY");
+        assertThat(stats.avgProfitRate()).isEqualByComparingTo(expected.getAvgProfitRate() == null
+                ? BigDecimal.ZERO
+                : expected.getAvgProfitRate().setScale(4, RoundingMode.HALF_UP));
+        assertThat(stats.totalProfitYen()).isEqualByComparingTo(nz(expected.getTotalProfitYen()));
+        assertThat(stats.totalSalesYen()).isEqualByComparingTo(nz(expected.getTotalSalesYen()));
+        assertThat(stats.countDraftReady()).isEqualTo(candidateRepo.countByState("DRAFT_READY"));
+        assertThat(stats.countTotalScope())
+                .isEqualTo(candidateRepo.countByStateIn(List.of("CANDIDATE", "DRAFT_READY", "REJECTED")));
+
+        ReportingService.OpsSummary summary = reporting.summary();
+        assertThat(summary.openCommitmentsYen()).isEqualByComparingTo(nz(poRepo.calculateOpenCommitments()));
+        assertThat(summary.sales30dYen()).isEqualByComparingTo(
+                nz(cashLedgerRepo.sumAmountByEventTypeSince("SALE", LocalDate.now().minusDays(30))));
+    }
+
+    private static BigDecimal nz(BigDecimal v) {
+        return v == null ? BigDecimal.ZERO : v;
+    }
+}
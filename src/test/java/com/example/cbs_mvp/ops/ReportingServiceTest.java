@@ -0,0 +1,97 @@
+package com.example.cbs_mvp.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.cbs_mvp.config.DbWorkload;
+import com.example.cbs_mvp.repo.ReportingJdbcRepository;
+import com.example.cbs_mvp.repo.ReportingJdbcRepository.RecentFailures;
+
+class ReportingServiceTest {
+
+    private ReportingJdbcRepository reportingRepo;
+    private ReportingService service;
+
+    @BeforeEach
+    void setUp() {
+        reportingRepo = mock(ReportingJdbcRepository.class);
+        service = new ReportingService(reportingRepo);
+    }
+
+    @Test
+    void dashboard_derivesAverageAndPassRateFromCounters() {
+        when(reportingRepo.counters(anyList())).thenReturn(Map.of(
+                ReportingService.DRAFT_READY_PRICED, new BigDecimal("4.0000"),
+                ReportingService.DRAFT_READY_PROFIT_RATE_SUM, new BigDecimal("1.0000"),
+                ReportingService.DRAFT_READY_PROFIT, new BigDecimal("15000.0000"),
+                ReportingService.DRAFT_READY_SALES, new BigDecimal("60000.0000"),
+                "candidates.state.CANDIDATE", new BigDecimal("12.0000"),
+                "candidates.state.DRAFT_READY", new BigDecimal("5.0000"),
+                "candidates.state.REJECTED", new BigDecimal("3.0000"),
+                "candidates.state.PUBLISHED", new BigDecimal("100.0000")));
+
+        ReportingService.DashboardStats stats = service.dashboard();
+
+        assertEquals(new BigDecimal("0.2500"), stats.avgProfitRate());
+        assertEquals(new BigDecimal("15000.00"), stats.totalProfitYen());
+        assertEquals(new BigDecimal("60000.00"), stats.totalSalesYen());
+        assertEquals(5L, stats.countDraftReady());
+        // 判定済み（CANDIDATE / DRAFT_READY / REJECTED）だけが分母
+        assertEquals(20L, stats.countTotalScope());
+        assertEquals(0.25, stats.passRate(), 0.001);
+    }
+
+    @Test
+    void reads_runAsReportingWorkloadAndRestoreTheCallersWorkload() {
+        AtomicReference<DbWorkload> during = new AtomicReference<>();
+        when(reportingRepo.counters(anyList())).thenAnswer(inv -> {
+            during.set(DbWorkload.current());
+            return Map.of();
+        });
+
+        service.openCommitmentsYen();
+
+        assertEquals(DbWorkload.REPORTING, during.get());
+        assertEquals(DbWorkload.OLTP, DbWorkload.current());
+    }
+
+    @Test
+    void dashboard_missingCountersAreZero() {
+        when(reportingRepo.counters(anyList())).thenReturn(Map.of());
+
+        ReportingService.DashboardStats stats = service.dashboard();
+
+        assertEquals(BigDecimal.ZERO, stats.avgProfitRate());
+        assertEquals(new BigDecimal("0.00"), stats.totalProfitYen());
+        assertEquals(0L, stats.countTotalScope());
+        assertEquals(0.0, stats.passRate());
+    }
+
+    @Test
+    void summary_readsCountersDailySalesAndRecentFailures() {
+        when(reportingRepo.counters(anyList())).thenReturn(Map.of(
+                ReportingService.OPEN_COMMITMENTS, new BigDecimal("32000.0000")));
+        when(reportingRepo.sumDailySince(eq(ReportingService.CASH_SALE), any()))
+                .thenReturn(new BigDecimal("98000.5000"));
+        when(reportingRepo.recentFailures(10)).thenReturn(new RecentFailures(2, 1, 3));
+
+        ReportingService.OpsSummary summary = service.summary();
+
+        assertEquals(new BigDecimal("32000.00"), summary.openCommitmentsYen());
+        assertEquals(new BigDecimal("98000.50"), summary.sales30dYen());
+        assertEquals(2, summary.draftFailedLast10());
+        assertEquals(1, summary.poFailedLast10());
+        assertEquals(3, summary.trackingFailedLast10());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.cbs_mvp.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+
+class VirtualThreadPinningMonitorTest {
+
+    @Test
+    void onPinned_countsByFirstApplicationFrame() {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor();
+        ReflectionTestUtils.setField(monitor, "thresholdMs", 20L);
+
+        monitor.onPinned(event(30, frame("java.lang.Object", "wait", 1),
+                frame("com.example.cbs_mvp.fx.FxRateService", "refreshRate", 81)));
+        monitor.onPinned(event(50, frame("com.example.cbs_mvp.fx.FxRateService", "refreshRate", 81)));
+        monitor.onPinned(event(25, frame("java.io.FileOutputStream", "write", 10)));
+
+        Map<String, Object> stats = monitor.stats();
+        assertEquals(3L, stats.get("pinnedEvents"));
+        assertEquals(50L, stats.get("maxPinnedMs"));
+        assertEquals(false, stats.get("monitoring")); // start() していない
+        @SuppressWarnings("unchecked")
+        Map<String, Object> sites = (Map<String, Object>) stats.get("sites");
+        // 件数の多い順
+        assertEquals(List.of(
+                "com.example.cbs_mvp.fx.FxRateService.refreshRate:81",
+                "java.io.FileOutputStream.write:10"), List.copyOf(sites.keySet()));
+        assertEquals(2L, sites.get("com.example.cbs_mvp.fx.FxRateService.refreshRate:81"));
+    }
+
+    @Test
+    void onPinned_withoutStackTraceIsUnknownSite() {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor();
+        RecordedEvent event = mock(RecordedEvent.class);
+        when(event.getDuration()).thenReturn(Duration.ofMillis(40));
+
+        monitor.onPinned(event);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> sites = (Map<String, Object>) monitor.stats().get("sites");
+        assertEquals(1L, sites.get("unknown"));
+    }
+
+    private static RecordedEvent event(long millis, RecordedFrame... frames) {
+        RecordedStackTrace stack = mock(RecordedStackTrace.class);
+        when(stack.getFrames()).thenReturn(List.of(frames));
+        RecordedEvent event = mock(RecordedEvent.class);
+        when(event.getDuration()).thenReturn(Duration.ofMillis(millis));
+        when(event.getStackTrace()).thenReturn(stack);
+        return event;
+    }
+
+    private static RecordedFrame frame(String type, String method, int line) {
+        RecordedClass clazz = mock(RecordedClass.class);
+        when(clazz.getName()).thenReturn(type);
+        RecordedMethod m = mock(RecordedMethod.class);
+        when(m.getType()).thenReturn(clazz);
+        when(m.getName()).thenReturn(method);
+        RecordedFrame frame = mock(RecordedFrame.class);
+        when(frame.getMethod()).thenReturn(m);
+        when(frame.getLineNumber()).thenReturn(line);
+        return frame;
+    }
+}
@@ -32,7 +32,9 @@ class PricingCalculatorEdgeTest {
         when(ruleRepo.findAll(any(Sort.class))).thenReturn(Collections.emptyList());
 
         ShipCostTable shipTable = new ShipCostTable();
-        calculator = new PricingCalculator(shipTable, flags, ruleRepo);
+        calculator = new PricingCalculator(shipTable, flags, ruleRepo,
+                new com.example.cbs_mvp.fx.FxStatsService(
+                        org.mockito.Mockito.mock(com.example.cbs_mvp.repo.FxRateHistoryRepository.class), flags));
     }
 
     @Test
@@ -34,7 +34,9 @@ class PricingCalculatorTest {
                 .thenReturn(java.util.Collections.emptyList());
 
         ShipCostTable ship = new ShipCostTable();
-        PricingCalculator calc = new PricingCalculator(ship, flags, repo); // Constructor updated
+        PricingCalculator calc = new PricingCalculator(ship, flags, repo,
+                new com.example.cbs_mvp.fx.FxStatsService(
+                        Mockito.mock(com.example.cbs_mvp.repo.FxRateHistoryRepository.class), flags)); // Constructor updated
 
         PricingRequest req = new PricingRequest();
         req.setSourcePriceYen(new BigDecimal("10000"));
@@ -76,7 +78,9 @@ class PricingCalculatorTest {
                 .thenReturn(java.util.Collections.emptyList());
 
         ShipCostTable ship = new ShipCostTable();
-        PricingCalculator calc = new PricingCalculator(ship, flags, repo);
+        PricingCalculator calc = new PricingCalculator(ship, flags, repo,
+                new com.example.cbs_mvp.fx.FxStatsService(
+                        Mockito.mock(com.example.cbs_mvp.repo.FxRateHistoryRepository.class), flags));
 
         PricingRequest req = new PricingRequest();
         req.setSourcePriceYen(new BigDecimal("1000")); // Cost
@@ -131,7 +135,9 @@ class PricingCalculatorTest {
                 .thenReturn(java.util.Collections.singletonList(rule));
 
         ShipCostTable ship = new ShipCostTable();
-        PricingCalculator calc = new PricingCalculator(ship, flags, repo);
+        PricingCalculator calc = new PricingCalculator(ship, flags, repo,
+                new com.example.cbs_mvp.fx.FxStatsService(
+                        Mockito.mock(com.example.cbs_mvp.repo.FxRateHistoryRepository.class), flags));
 
         PricingRequest req = new PricingRequest();
         req.setSourcePriceYen(new BigDecimal("10000")); // Match rule
@@ -0,0 +1,265 @@
+package com.example.cbs_mvp.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.cbs_mvp.security.JwtTokenService.VerifiedToken;
+
+class JwtAuthenticationCacheTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationCacheTest.class);
+
+    private static final Instant NOW = Instant.parse("2026-01-10T00:00:00Z");
+
+    private JwtTokenService tokens;
+    private MutableClock clock;
+    private JwtAuthenticationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        tokens = mock(JwtTokenService.class);
+        clock = new MutableClock(NOW);
+        cache = new JwtAuthenticationCache(tokens, 2, clock);
+        when(tokens.verify("t1")).thenReturn(new VerifiedToken("alice", NOW.minusSeconds(10), NOW.plusSeconds(60)));
+        when(tokens.verify("t2")).thenReturn(new VerifiedToken("bob", NOW.minusSeconds(10), NOW.plusSeconds(60)));
+        when(tokens.verify("t3")).thenReturn(new VerifiedToken("carol", NOW.minusSeconds(10), NOW.plusSeconds(60)));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticate_verifiesOnceAndReusesAuthentication() {
+        Authentication first = cache.authenticate("t1");
+        Authentication second = cache.authenticate("t1");
+
+        assertNotNull(first);
+        assertEquals("alice", first.getName());
+        assertTrue(first.isAuthenticated());
+        assertSame(first, second);
+        verify(tokens, times(1)).verify("t1");
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void authenticate_reverifiesAfterTokenExpiry() {
+        cache.authenticate("t1");
+        clock.advance(Duration.ofSeconds(61));
+
+        cache.authenticate("t1");
+
+        verify(tokens, times(2)).verify("t1");
+    }
+
+    @Test
+    void authenticate_invalidTokenIsNotCached() {
+        assertNull(cache.authenticate("forged"));
+        assertNull(cache.authenticate("forged"));
+
+        verify(tokens, times(2)).verify("forged");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cache_isBoundedAndEvictsLeastRecentlyUsed() {
+        cache.authenticate("t1");
+        cache.authenticate("t2");
+        cache.authenticate("t1");
+        cache.authenticate("t3");
+
+        assertEquals(2, cache.size());
+        cache.authenticate("t1");
+        cache.authenticate("t2");
+        verify(tokens, times(1)).verify("t1");
+        verify(tokens, times(2)).verify("t2");
+    }
+
+    @Test
+    void revoke_rejectsTokenUntilItExpires() {
+        assertNotNull(cache.authenticate("t1"));
+
+        cache.revoke("t1");
+
+        assertNull(cache.authenticate("t1"));
+        assertNotNull(cache.authenticate("t2"));
+    }
+
+    @Test
+    void revokeUser_rejectsTokensIssuedBeforeRevocation() {
+        assertNotNull(cache.authenticate("t1"));
+        clock.advance(Duration.ofSeconds(5));
+
+        cache.revokeUser("alice");
+
+        assertNull(cache.authenticate("t1"));
+        when(tokens.verify("t1-new")).thenReturn(new VerifiedToken("alice", NOW.plusSeconds(6), NOW.plusSeconds(66)));
+        clock.advance(Duration.ofSeconds(1));
+        assertNotNull(cache.authenticate("t1-new"));
+    }
+
+    @Test
+    void filter_setsCachedAuthenticationOnEachRequest() throws Exception {
+        JwtAuthFilter filter = new JwtAuthFilter(cache);
+
+        Authentication seen = null;
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ops/summary");
+            request.addHeader("Authorization", "Bearer t1");
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            assertNotNull(auth);
+            if (seen != null) {
+                assertSame(seen, auth);
+            }
+            seen = auth;
+            SecurityContextHolder.clearContext();
+        }
+        verify(tokens, times(1)).verify("t1");
+    }
+
+    /**
+     * 認証フィルタのオーバーヘッド（1リクエストあたり）: 毎回署名を検証する場合とキャッシュを通す場合
+     * 結果はログに出す。判定するのは正しさのみ（実行環境で時間がぶれるため）
+     */
+    @Test
+    void burst_cachedFilterSkipsVerificationAndIsCorrect() throws Exception {
+        JwtTokenService real = new JwtTokenService();
+        ReflectionTestUtils.setField(real, "jwtSecret", "benchmark-secret-key-that-is-long-enough-32");
+        ReflectionTestUtils.setField(real, "activeProfile", "stub");
+        ReflectionTestUtils.setField(real, "expirationHours", 1);
+        real.init();
+        List<String> issued = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            issued.add(real.generateToken("user" + i));
+        }
+        JwtAuthenticationCache realCache = new JwtAuthenticationCache(real, 100);
+        JwtAuthFilter filter = new JwtAuthFilter(realCache);
+
+        int requests = 20_000;
+        long uncachedNanos = run(requests, i -> {
+            String token = issued.get(i % issued.size());
+            return ("user" + (i % issued.size())).equals(real.validateTokenAndGetUsername(token));
+        });
+        long cachedNanos = run(requests, i -> {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ops/summary");
+            request.addHeader("Authorization", "Bearer " + issued.get(i % issued.size()));
+            try {
+                filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+                Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+                return auth != null && ("user" + (i % issued.size())).equals(auth.getName());
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        });
+
+        log.info("JWT auth per request: verify={} ns, cached filter={} ns ({} requests, 16 threads)",
+                uncachedNanos / requests, cachedNanos / requests, requests);
+        assertTrue(realCache.misses() <= issued.size() * 16L);
+        assertEquals(issued.size(), realCache.size());
+    }
+
+    @Test
+    void concurrent_missesStayBoundedAndRevocationIsNotUndoneByInFlightVerification() throws Exception {
+        JwtAuthenticationCache bounded = new JwtAuthenticationCache(tokens, 50, clock);
+        when(tokens.verify(anyString())).thenAnswer(inv -> new VerifiedToken(
+                inv.getArgument(0, String.class), NOW.minusSeconds(10), NOW.plusSeconds(60)));
+
+        run(4_000, i -> {
+            String token = "u" + (i % 400);
+            if (i == 2_000) {
+                bounded.revokeUser("u7");
+            }
+            return token.equals("u7") || token.equals(bounded.authenticate(token).getName());
+        });
+
+        // 整理は1スレッドずつなので並行中は多少超えるが、上限の近くに収まる
+        assertTrue(bounded.size() <= 50 + 16, "size=" + bounded.size());
+        assertNull(bounded.authenticate("u7"));
+    }
+
+    private interface Check {
+        boolean run(int i) throws Exception;
+    }
+
+    // 16 スレッドで requests 回実行した合計の経過時間（ナノ秒、スレッド数を掛けた CPU 時間ではない）
+    private static long run(int requests, Check check) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            long started = System.nanoTime();
+            List<Future<Boolean>> results = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                int n = i;
+                results.add(pool.submit(() -> check.run(n)));
+            }
+            for (Future<Boolean> f : results) {
+                assertTrue(f.get());
+            }
+            return System.nanoTime() - started;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.cbs_mvp.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.example.cbs_mvp.entity.UserAccount;
+import com.example.cbs_mvp.repo.UserAccountRepository;
+import com.example.cbs_mvp.security.LoginService.Status;
+
+class LoginServiceTest {
+
+    private UserAccountRepository users;
+    private BCryptPasswordEncoder encoder;
+    private ExecutorService executor;
+    private LoginService service;
+
+    @BeforeEach
+    void setUp() {
+        users = mock(UserAccountRepository.class);
+        encoder = new BCryptPasswordEncoder(4);
+        executor = Executors.newSingleThreadExecutor();
+        service = new LoginService(users, encoder, executor, false);
+        when(users.findByUsername(anyString())).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void login_matchesStoredHash() throws Exception {
+        UserAccount alice = account(1L, "alice", encoder.encode("s3cret-pass"));
+        when(users.findByUsername("alice")).thenReturn(Optional.of(alice));
+        assertEquals(Status.OK, service.login("alice", "s3cret-pass").get(5, TimeUnit.SECONDS));
+        assertEquals(Status.INVALID, service.login("alice", "wrong").get(5, TimeUnit.SECONDS));
+        verify(users, never()).upgradeHash(anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void login_unknownUserAndDisabledAccountAreInvalid() throws Exception {
+        UserAccount bob = account(2L, "bob", encoder.encode("bob-password"));
+        bob.setEnabled(false);
+        when(users.findByUsername("bob")).thenReturn(Optional.of(bob));
+
+        assertEquals(Status.INVALID, service.login("nobody", "whatever").get(5, TimeUnit.SECONDS));
+        assertEquals(Status.INVALID, service.login("bob", "bob-password").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void login_defaultAdminFollowsFlag() throws Exception {
+        assertEquals(Status.DEFAULT_ADMIN_DISABLED, service.login("admin", "admin").get(5, TimeUnit.SECONDS));
+
+        LoginService allowed = new LoginService(users, encoder, executor, true);
+        assertEquals(Status.DEFAULT_ADMIN, allowed.login("admin", "admin").get(5, TimeUnit.SECONDS));
+        assertEquals(Status.INVALID, allowed.login("admin", "nope").get(5, TimeUnit.SECONDS));
+
+        UserAccount admin = account(3L, "admin", encoder.encode("changed-password"));
+        when(users.findByUsername("admin")).thenReturn(Optional.of(admin));
+        assertEquals(Status.INVALID, allowed.login("admin", "admin").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void login_upgradesHashWhenCostIsRaised() throws Exception {
+        String weak = encoder.encode("carol-password");
+        UserAccount carol = account(4L, "carol", weak);
+        when(users.findByUsername("carol")).thenReturn(Optional.of(carol));
+        LoginService stronger = new LoginService(users, new BCryptPasswordEncoder(5), executor, false);
+
+        assertEquals(Status.OK, stronger.login("carol", "carol-password").get(5, TimeUnit.SECONDS));
+
+        verify(users).upgradeHash(eq(4L), eq(weak), anyString());
+    }
+
+    @Test
+    void saturatedExecutor_rejectsInsteadOfQueueingUnbounded() throws Exception {
+        ThreadPoolExecutor bounded = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1));
+        try {
+            LoginService busy = new LoginService(users, encoder, bounded, false);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            bounded.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            started.await(5, TimeUnit.SECONDS);
+            CompletableFuture<Status> queued = busy.login("nobody", "x");
+            assertEquals(2, busy.pending());
+
+            assertThrows(RejectedExecutionException.class, () -> busy.login("nobody", "y"));
+
+            release.countDown();
+            assertEquals(Status.INVALID, queued.get(5, TimeUnit.SECONDS));
+            assertFalse(busy.matches("x", encoder.encode("y")).get(5, TimeUnit.SECONDS));
+        } finally {
+            bounded.shutdownNow();
+        }
+    }
+
+    private static UserAccount account(Long id, String username, String hash) {
+        UserAccount account = new UserAccount(username);
+        account.setUserId(id);
+        account.setPasswordHash(hash);
+        return account;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.cbs_mvp.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.cbs_mvp.security.LoginThrottle.Limit;
+
+class LoginThrottleTest {
+
+    private long now;
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+        throttle = new LoginThrottle(new Limit(4, 2), new Limit(2, 1), 100, () -> now);
+    }
+
+    @Test
+    void userBucket_allowsBurstThenRejectsWithRetryAfter() {
+        assertEquals(0, throttle.tryAcquire("10.0.0.1", "alice"));
+        assertEquals(0, throttle.tryAcquire("10.0.0.1", "alice"));
+
+        long retryAfter = throttle.tryAcquire("10.0.0.1", "alice");
+
+        assertEquals(60, retryAfter);
+        assertEquals(1, throttle.throttledCount());
+        // 別ユーザーは同じIPからでも試行できる（ユーザー側で拒否した分は IP 側に数えない）
+        assertEquals(0, throttle.tryAcquire("10.0.0.1", "bob"));
+        assertEquals(0, throttle.tryAcquire("10.0.0.1", "bob"));
+    }
+
+    @Test
+    void userBucket_refillsOverTime() {
+        throttle.tryAcquire("10.0.0.1", "alice");
+        throttle.tryAcquire("10.0.0.1", "alice");
+        now += TimeUnit.SECONDS.toNanos(30);
+
+        assertEquals(30, throttle.tryAcquire("10.0.0.1", "alice"));
+
+        now += TimeUnit.SECONDS.toNanos(30);
+        assertEquals(0, throttle.tryAcquire("10.0.0.1", "alice"));
+    }
+
+    @Test
+    void ipBucket_limitsAttemptsAcrossUsers() {
+        assertEquals(0, throttle.tryAcquire("10.0.0.9", "u1"));
+        assertEquals(0, throttle.tryAcquire("10.0.0.9", "u2"));
+        assertEquals(0, throttle.tryAcquire("10.0.0.9", "u3"));
+        assertEquals(0, throttle.tryAcquire("10.0.0.9", "u4"));
+
+        assertEquals(30, throttle.tryAcquire("10.0.0.9", "u5"));
+        // 他のIPには影響しない
+        assertEquals(0, throttle.tryAcquire("10.0.0.10", "u5"));
+    }
+
+    @Test
+    void keys_areSweptWhenOverLimitAndRefilled() {
+        LoginThrottle small = new LoginThrottle(new Limit(4, 2), new Limit(2, 1), 4, () -> now);
+        small.tryAcquire("10.0.0.1", "a");
+        small.tryAcquire("10.0.0.2", "b");
+        assertEquals(4, small.keys());
+
+        now += TimeUnit.MINUTES.toNanos(5);
+        small.tryAcquire("10.0.0.3", "c");
+
+        assertTrue(small.keys() <= 2, "refilled buckets are dropped: " + small.keys());
+    }
+}
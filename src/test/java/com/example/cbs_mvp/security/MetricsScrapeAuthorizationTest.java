@@ -0,0 +1,62 @@
+package com.example.cbs_mvp.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import com.example.cbs_mvp.ops.OpsKeyService;
+
+class MetricsScrapeAuthorizationTest {
+
+    private final OpsKeyService opsKeys = mock(OpsKeyService.class);
+    private final MetricsScrapeAuthorization authorization = new MetricsScrapeAuthorization(opsKeys);
+
+    @Test
+    void anonymousWithoutOpsKey_isDenied() {
+        assertFalse(authorization.check(MetricsScrapeAuthorizationTest::anonymous, context(null)).isGranted());
+        assertFalse(authorization.check(() -> null, context(null)).isGranted());
+    }
+
+    @Test
+    void validOpsKey_isGranted() {
+        when(opsKeys.isValid("ops-key")).thenReturn(true);
+
+        assertTrue(authorization.check(MetricsScrapeAuthorizationTest::anonymous, context("ops-key")).isGranted());
+        assertFalse(authorization.check(MetricsScrapeAuthorizationTest::anonymous, context("wrong")).isGranted());
+    }
+
+    @Test
+    void jwtAuthenticatedUser_isGrantedWithoutOpsKey() {
+        Authentication user = new UsernamePasswordAuthenticationToken("alice", null, List.of());
+
+        assertTrue(authorization.check(() -> user, context(null)).isGranted());
+        verify(opsKeys, never()).isValid(any());
+    }
+
+    private static Authentication anonymous() {
+        return new AnonymousAuthenticationToken("key", "anonymousUser",
+                List.of(new SimpleGrantedAuthority("ROLE_ANONYMOUS")));
+    }
+
+    private static RequestAuthorizationContext context(String opsKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/metrics");
+        if (opsKey != null) {
+            request.addHeader(MetricsScrapeAuthorization.OPS_KEY_HEADER, opsKey);
+        }
+        return new RequestAuthorizationContext(request);
+    }
+}
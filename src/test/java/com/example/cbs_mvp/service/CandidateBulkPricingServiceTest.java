@@ -0,0 +1,202 @@
+package com.example.cbs_mvp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.cbs_mvp.entity.Candidate;
+import com.example.cbs_mvp.entity.PricingResult;
+import com.example.cbs_mvp.live.LiveEventBus;
+import com.example.cbs_mvp.ops.SystemFlagService;
+import com.example.cbs_mvp.pricing.PricingCalculator;
+import com.example.cbs_mvp.pricing.PricingPolicy;
+import com.example.cbs_mvp.pricing.PricingRequest;
+import com.example.cbs_mvp.pricing.PricingResponse;
+import com.example.cbs_mvp.repo.CandidateRepository;
+import com.example.cbs_mvp.repo.PricingResultHistoryRepository;
+import com.example.cbs_mvp.repo.PricingResultRepository;
+import com.example.cbs_mvp.repo.PricingWriteJdbcRepository;
+import com.example.cbs_mvp.repo.PricingWriteJdbcRepository.PricingWrite;
+import com.example.cbs_mvp.service.GateService.CashPosition;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CandidateBulkPricingServiceTest {
+
+    private static final BigDecimal FX = new BigDecimal("145");
+
+    private PricingCalculator calculator;
+    private GateService gateService;
+    private PricingWriteJdbcRepository writer;
+    private SimpleMeterRegistry meters;
+    private CandidateBulkPricingService service;
+
+    private final PricingPolicy policy = new PricingPolicy(
+            new BigDecimal("3"), new BigDecimal("800"), new BigDecimal("300"), new BigDecimal("200"),
+            new BigDecimal("500"), new BigDecimal("0.13"), new BigDecimal("0.04"), new BigDecimal("3000"),
+            new BigDecimal("0.20"), new BigDecimal("1.500"), "XL", new BigDecimal("30000"), List.of());
+
+    private final CashPosition cash = new CashPosition(
+            new BigDecimal("100000"), new BigDecimal("5000"), BigDecimal.ZERO, new BigDecimal("50000"));
+
+    @BeforeEach
+    void setUp() {
+        calculator = mock(PricingCalculator.class);
+        gateService = mock(GateService.class);
+        writer = mock(PricingWriteJdbcRepository.class);
+        meters = new SimpleMeterRegistry();
+        service = new CandidateBulkPricingService(calculator, gateService, new CandidateStateMachine(), writer,
+                meters, mock(LiveEventBus.class), mock(PlatformTransactionManager.class), 4);
+
+        when(calculator.snapshot()).thenReturn(policy);
+        when(gateService.cashPosition()).thenReturn(cash);
+        when(gateService.checkCashGate(any(CashPosition.class), any())).thenAnswer(inv -> {
+            BigDecimal cost = inv.getArgument(1);
+            boolean ok = cost.compareTo(new BigDecimal("40000")) <= 0;
+            return new GateResult(ok, cash.availableCash(), cash.refundReserve(), cash.openCommitments(),
+                    cash.requiredCashBuffer());
+        });
+    }
+
+    @Test
+    void priceImported_readsSnapshotOnceAndWritesInChunks() {
+        when(calculator.calculate(any(PricingRequest.class), any(PricingPolicy.class)))
+                .thenAnswer(inv -> response(inv.getArgument(0)));
+
+        List<CandidateBulkPricingService.Item> items = new ArrayList<>();
+        for (long id = 1; id <= 250; id++) {
+            items.add(new CandidateBulkPricingService.Item(id, BigDecimal.valueOf(id * 200), null, null));
+        }
+
+        Map<Long, String> failures = service.priceImported(items, FX, 100);
+
+        assertTrue(failures.isEmpty());
+        verify(calculator, times(1)).snapshot();
+        verify(gateService, times(1)).cashPosition();
+        verify(gateService, never()).checkCashGate(any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PricingWrite>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(writer, times(3)).save(chunks.capture(), anyString(), any());
+        List<Long> written = chunks.getAllValues().stream().flatMap(List::stream).map(PricingWrite::candidateId)
+                .toList();
+        assertEquals(items.stream().map(CandidateBulkPricingService.Item::candidateId).toList(), written);
+        assertEquals(250.0, meters.get("cbs.gate.results").counters().stream()
+                .mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void priceImported_matchesSerialPriceCandidate() {
+        when(calculator.calculate(any(PricingRequest.class), any(PricingPolicy.class)))
+                .thenAnswer(inv -> response(inv.getArgument(0)));
+
+        // 一括
+        CandidateBulkPricingService.Item item = new CandidateBulkPricingService.Item(
+                7L, new BigDecimal("40000"), new BigDecimal("2.0"), null);
+        service.priceImported(List.of(item), FX, 100);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PricingWrite>> captor = ArgumentCaptor.forClass(List.class);
+        verify(writer).save(captor.capture(), anyString(), any());
+        PricingWrite bulk = captor.getValue().get(0);
+
+        // 単件（同じ計算結果・同じ資金判定・同じ手数料率）
+        CandidateRepository candidateRepo = mock(CandidateRepository.class);
+        PricingResultRepository pricingRepo = mock(PricingResultRepository.class);
+        SystemFlagService flags = mock(SystemFlagService.class);
+        when(flags.get("EBAY_FEE_RATE")).thenReturn("0.13");
+        when(flags.get("REFUND_RES_RATE")).thenReturn("0.04");
+        Candidate candidate = new Candidate();
+        candidate.setCandidateId(7L);
+        candidate.setState("CANDIDATE");
+        candidate.setSourcePriceYen(item.sourcePriceYen());
+        candidate.setWeightKg(item.weightKg());
+        candidate.setSizeTier("XL");
+        when(candidateRepo.findById(7L)).thenReturn(Optional.of(candidate));
+        when(pricingRepo.findByCandidateId(7L)).thenReturn(Optional.empty());
+        when(pricingRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(candidateRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(calculator.calculate(any(PricingRequest.class))).thenAnswer(inv -> response(inv.getArgument(0)));
+        when(gateService.checkCashGate(any())).thenAnswer(
+                inv -> gateService.checkCashGate(cash, (BigDecimal) inv.getArgument(0)));
+
+        CandidateService serial = new CandidateService(candidateRepo, pricingRepo,
+                mock(PricingResultHistoryRepository.class), calculator, gateService, flags,
+                mock(StateTransitionService.class), mock(DraftService.class), new CandidateStateMachine(),
+                new SimpleMeterRegistry());
+        PricingResult expected = serial.priceCandidate(7L, FX, null, false);
+
+        PricingResult actual = new PricingResult();
+        bulk.pricing().applyTo(actual);
+        assertEquals(expected.getProfitYen(), actual.getProfitYen());
+        assertEquals(expected.getProfitRate(), actual.getProfitRate());
+        assertEquals(expected.getEbayFeeYen(), actual.getEbayFeeYen());
+        assertEquals(expected.getRefundReserveYen(), actual.getRefundReserveYen());
+        assertEquals(expected.isGateCashOk(), actual.isGateCashOk());
+        assertEquals(expected.isGateProfitOk(), actual.isGateProfitOk());
+        assertEquals(candidate.getState(), bulk.pricing().nextState());
+        assertEquals(candidate.getRejectReasonCode(), bulk.pricing().rejectReasonCode());
+        assertEquals("REJECTED", candidate.getState());
+        assertEquals("GATE_CASH", candidate.getRejectReasonCode());
+    }
+
+    @Test
+    void priceImported_reportsCalculationAndWriteFailuresPerCandidate() {
+        when(calculator.calculate(any(PricingRequest.class), any(PricingPolicy.class))).thenAnswer(inv -> {
+            PricingRequest req = inv.getArgument(0);
+            if (req.getSourcePriceYen().compareTo(new BigDecimal("999")) == 0) {
+                throw new IllegalArgumentException("bad price");
+            }
+            return response(req);
+        });
+        when(writer.save(anyList(), anyString(), any())).thenReturn(1);
+
+        Map<Long, String> failures = service.priceImported(List.of(
+                new CandidateBulkPricingService.Item(1L, new BigDecimal("1000"), null, "M"),
+                new CandidateBulkPricingService.Item(2L, new BigDecimal("999"), null, "M")), FX, 100);
+
+        assertEquals(Map.of(2L, "bad price"), failures);
+
+        when(writer.save(anyList(), anyString(), any())).thenThrow(new IllegalStateException("db down"));
+        failures = service.priceImported(List.of(
+                new CandidateBulkPricingService.Item(3L, new BigDecimal("1000"), null, "M")), FX, 100);
+        assertEquals(Map.of(3L, "db down"), failures);
+    }
+
+    /**
+     * 仕入値の1.1倍を総コスト、1.4倍を売値とする簡易レスポンス
+     */
+    private static PricingResponse response(PricingRequest req) {
+        BigDecimal cost = req.getSourcePriceYen().multiply(new BigDecimal("1.1"));
+        BigDecimal sell = req.getSourcePriceYen().multiply(new BigDecimal("1.4"));
+        return PricingResponse.builder()
+                .fxSafe(req.getFxRate().subtract(new BigDecimal("3")))
+                .recSellUsd(new BigDecimal("100.00"))
+                .useSellUsd(new BigDecimal("100.00"))
+                .sellYen(sell)
+                .expectedCostJpy(cost)
+                .expectedProfitJpy(sell.subtract(cost))
+                .profitRate(new BigDecimal("0.25"))
+                .calcSourcePriceYen(req.getSourcePriceYen())
+                .safeWeightKg(req.getWeightKg() == null ? new BigDecimal("1.500") : req.getWeightKg())
+                .gateProfitOk(true)
+                .build();
+    }
+}
@@ -20,6 +20,8 @@ import com.example.cbs_mvp.repo.CandidateRepository;
 import com.example.cbs_mvp.repo.PricingResultHistoryRepository;
 import com.example.cbs_mvp.repo.PricingResultRepository;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 class CandidateServiceTest {
 
         @Test
@@ -36,7 +38,7 @@ class CandidateServiceTest {
 
                 CandidateService service = new CandidateService(
                                 candidateRepo, pricingRepo, historyRepo, calculator, gateService, flags, transitions,
-                                draftService, stateMachine);
+                                draftService, stateMachine, new SimpleMeterRegistry());
 
                 Candidate candidate = new Candidate();
                 candidate.setCandidateId(1L);
@@ -90,7 +92,7 @@ class CandidateServiceTest {
 
                 CandidateService service = new CandidateService(
                                 candidateRepo, pricingRepo, historyRepo, calculator, gateService, flags, transitions,
-                                draftService, stateMachine);
+                                draftService, stateMachine, new SimpleMeterRegistry());
 
                 Candidate candidate = new Candidate();
                 candidate.setCandidateId(4L);
@@ -143,7 +145,7 @@ class CandidateServiceTest {
 
                 CandidateService service = new CandidateService(
                                 candidateRepo, pricingRepo, historyRepo, calculator, gateService, flags, transitions,
-                                draftService, stateMachine);
+                                draftService, stateMachine, new SimpleMeterRegistry());
 
                 Candidate candidate = new Candidate();
                 candidate.setCandidateId(2L);
@@ -195,7 +197,7 @@ class CandidateServiceTest {
 
                 CandidateService service = new CandidateService(
                                 candidateRepo, pricingRepo, historyRepo, calculator, gateService, flags, transitions,
-                                draftService, stateMachine);
+                                draftService, stateMachine, new SimpleMeterRegistry());
 
                 Candidate candidate = new Candidate();
                 candidate.setCandidateId(3L);
@@ -0,0 +1,169 @@
+package com.example.cbs_mvp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.cbs_mvp.ebay.EbayBulkDraftRequest;
+import com.example.cbs_mvp.ebay.EbayBulkDraftResult;
+import com.example.cbs_mvp.ebay.EbayClient;
+import com.example.cbs_mvp.entity.Candidate;
+import com.example.cbs_mvp.entity.PricingResult;
+import com.example.cbs_mvp.ops.KillSwitchService;
+import com.example.cbs_mvp.repo.CandidateRepository;
+import com.example.cbs_mvp.repo.EbayDraftRepository;
+import com.example.cbs_mvp.repo.PricingResultRepository;
+
+import reactor.core.publisher.Mono;
+
+class DraftBatchPublisherTest {
+
+    @Test
+    void publishReadyCandidates_sendsInBulkBatches_andPersistsResults() {
+        CandidateRepository candidateRepo = mock(CandidateRepository.class);
+        PricingResultRepository pricingRepo = mock(PricingResultRepository.class);
+        EbayDraftRepository draftRepo = mock(EbayDraftRepository.class);
+        EbayClient ebayClient = mock(EbayClient.class);
+        KillSwitchService killSwitch = mock(KillSwitchService.class);
+        StateTransitionService transitions = mock(StateTransitionService.class);
+        CandidateStateMachine stateMachine = mock(CandidateStateMachine.class);
+        PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+
+        DraftBatchPublisher publisher = new DraftBatchPublisher(
+                candidateRepo, pricingRepo, draftRepo, ebayClient, killSwitch, transitions, stateMachine,
+                txManager);
+        ReflectionTestUtils.setField(publisher, "batchSize", 2);
+        ReflectionTestUtils.setField(publisher, "maxInFlight", 2);
+        publisher.init();
+
+        List<Candidate> candidates = new ArrayList<>();
+        List<PricingResult> pricing = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            Candidate c = new Candidate();
+            c.setCandidateId(id);
+            c.setState("DRAFT_READY");
+            c.setLastCalculatedAt(LocalDateTime.now());
+            c.setUpdatedAt(LocalDateTime.now());
+            candidates.add(c);
+
+            PricingResult pr = new PricingResult();
+            pr.setCandidateId(id);
+            pr.setSellPriceUsd(new BigDecimal("100.00"));
+            pricing.add(pr);
+        }
+
+        when(killSwitch.isPaused()).thenReturn(false);
+        when(candidateRepo.findByStateIn(anyList(), any())).thenReturn(candidates);
+        when(candidateRepo.findAllByIdForUpdate(anyCollection())).thenReturn(candidates);
+        when(pricingRepo.findByCandidateIdIn(anyCollection())).thenReturn(pricing);
+        when(draftRepo.findBySkuIn(anyCollection())).thenReturn(List.of());
+        when(ebayClient.bulkCreateDraftsAsync(anyList())).thenAnswer(inv -> {
+            List<EbayBulkDraftRequest> reqs = inv.getArgument(0);
+            return Mono.just(reqs.stream()
+                    .map(r -> "CAND-3".equals(r.sku())
+                            ? EbayBulkDraftResult.failed(r.sku(), null, "bad item", false)
+                            : EbayBulkDraftResult.ok(r.sku(), "OFFER-" + r.sku()))
+                    .toList());
+        });
+
+        int created = publisher.publishReadyCandidates(10);
+
+        assertEquals(2, created);
+        verify(ebayClient, times(2)).bulkCreateDraftsAsync(anyList());
+        verify(ebayClient, never()).bulkCreateDrafts(anyList());
+        verify(pricingRepo, never()).findByCandidateId(any());
+        assertEquals("EBAY_DRAFT_CREATED", candidates.get(0).getState());
+        assertEquals("EBAY_DRAFT_CREATED", candidates.get(1).getState());
+        assertEquals("EBAY_DRAFT_FAILED", candidates.get(2).getState());
+        assertEquals("bad item", candidates.get(2).getRejectReasonDetail());
+        verify(transitions, times(3)).log(eq("CANDIDATE"), anyLong(), anyString(), anyString(), any(), any(),
+                eq("SYSTEM"), anyString());
+    }
+
+    @Test
+    void publishReadyCandidates_skipsCandidatesWhoseStateMovedDuringSend() {
+        CandidateRepository candidateRepo = mock(CandidateRepository.class);
+        PricingResultRepository pricingRepo = mock(PricingResultRepository.class);
+        EbayDraftRepository draftRepo = mock(EbayDraftRepository.class);
+        EbayClient ebayClient = mock(EbayClient.class);
+        KillSwitchService killSwitch = mock(KillSwitchService.class);
+        StateTransitionService transitions = mock(StateTransitionService.class);
+
+        DraftBatchPublisher publisher = new DraftBatchPublisher(
+                candidateRepo, pricingRepo, draftRepo, ebayClient, killSwitch, transitions,
+                mock(CandidateStateMachine.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(publisher, "batchSize", 25);
+        publisher.init();
+
+        List<Candidate> loaded = new ArrayList<>();
+        List<PricingResult> pricing = new ArrayList<>();
+        for (long id = 1; id <= 2; id++) {
+            Candidate c = new Candidate();
+            c.setCandidateId(id);
+            c.setState("DRAFT_READY");
+            c.setLastCalculatedAt(LocalDateTime.now());
+            c.setUpdatedAt(LocalDateTime.now());
+            loaded.add(c);
+
+            PricingResult pr = new PricingResult();
+            pr.setCandidateId(id);
+            pr.setSellPriceUsd(new BigDecimal("100.00"));
+            pricing.add(pr);
+        }
+        // 送信中に候補2が却下された（保存時に読み直した行）
+        Candidate fresh1 = new Candidate();
+        fresh1.setCandidateId(1L);
+        fresh1.setState("DRAFT_READY");
+        Candidate fresh2 = new Candidate();
+        fresh2.setCandidateId(2L);
+        fresh2.setState("REJECTED");
+        fresh2.setRejectReasonCode("MANUAL");
+
+        when(killSwitch.isPaused()).thenReturn(false);
+        when(candidateRepo.findByStateIn(anyList(), any())).thenReturn(loaded);
+        when(candidateRepo.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(fresh1, fresh2));
+        when(pricingRepo.findByCandidateIdIn(anyCollection())).thenReturn(pricing);
+        when(draftRepo.findBySkuIn(anyCollection())).thenReturn(List.of());
+        when(ebayClient.bulkCreateDraftsAsync(anyList())).thenAnswer(inv -> {
+            List<EbayBulkDraftRequest> reqs = inv.getArgument(0);
+            return Mono.just(reqs.stream().map(r -> EbayBulkDraftResult.ok(r.sku(), "OFFER-" + r.sku())).toList());
+        });
+
+        assertEquals(1, publisher.publishReadyCandidates(10));
+
+        assertEquals("EBAY_DRAFT_CREATED", fresh1.getState());
+        assertEquals("REJECTED", fresh2.getState());
+        assertEquals("MANUAL", fresh2.getRejectReasonCode());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<Candidate>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(candidateRepo).saveAll(saved.capture());
+        assertEquals(List.of(fresh1), saved.getValue());
+        verify(transitions, times(1)).log(eq("CANDIDATE"), eq(1L), eq("DRAFT_READY"), eq("EBAY_DRAFT_CREATED"),
+                any(), any(), eq("SYSTEM"), anyString());
+    }
+
+    @Test
+    void publishReadyCandidates_paused_doesNothing() {
+        KillSwitchService killSwitch = mock(KillSwitchService.class);
+        CandidateRepository candidateRepo = mock(CandidateRepository.class);
+        when(killSwitch.isPaused()).thenReturn(true);
+
+        DraftBatchPublisher publisher = new DraftBatchPublisher(
+                candidateRepo, mock(PricingResultRepository.class), mock(EbayDraftRepository.class),
+                mock(EbayClient.class), killSwitch, mock(StateTransitionService.class),
+                mock(CandidateStateMachine.class), mock(PlatformTransactionManager.class));
+
+        assertEquals(0, publisher.publishReadyCandidates(10));
+        verify(candidateRepo, never()).findByStateIn(anyList(), any());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.cbs_mvp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.cbs_mvp.repo.OrderRepository;
+
+class OrderIdempotencyFilterTest {
+
+    @Test
+    void beforeWarmUp_unknownKeysRequireDbCheck() {
+        OrderIdempotencyFilter filter = new OrderIdempotencyFilter(mock(OrderRepository.class), 100, 60, 1000, 0.01);
+
+        assertEquals(OrderIdempotencyFilter.Verdict.UNKNOWN, filter.check("ORDER-1"));
+    }
+
+    @Test
+    void warmUp_buildsBloomFromOrders() {
+        OrderRepository repo = mock(OrderRepository.class);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, "ORDER-1" });
+        rows.add(new Object[] { 2L, "ORDER-2" });
+        when(repo.findOrderKeysAfter(eq(0L), any())).thenReturn(rows);
+
+        OrderIdempotencyFilter filter = new OrderIdempotencyFilter(repo, 100, 60, 1000, 0.01);
+        filter.warmUp();
+
+        // 既存キーは Bloom 陽性 → DB で確認
+        assertEquals(OrderIdempotencyFilter.Verdict.UNKNOWN, filter.check("ORDER-1"));
+        // 存在しないキーの大半は DB 確認なしで NEW と判定できる
+        int negatives = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (filter.check("NEW-" + i) == OrderIdempotencyFilter.Verdict.NEW) {
+                negatives++;
+            }
+        }
+        assertTrue(negatives > 950, "negatives=" + negatives);
+    }
+
+    @Test
+    void markedKeys_areDuplicatesWithoutDb_andCacheIsBounded() {
+        OrderIdempotencyFilter filter = new OrderIdempotencyFilter(mock(OrderRepository.class), 2, 60, 1000, 0.01);
+
+        filter.markImported("A");
+        filter.markExisting("B");
+        assertEquals(OrderIdempotencyFilter.Verdict.DUPLICATE, filter.check("A"));
+        assertEquals(OrderIdempotencyFilter.Verdict.DUPLICATE, filter.check("B"));
+
+        filter.markImported("C");
+        // 上限2件：最も参照の古い A が追い出される
+        assertEquals(OrderIdempotencyFilter.Verdict.UNKNOWN, filter.check("A"));
+        assertEquals(OrderIdempotencyFilter.Verdict.DUPLICATE, filter.check("C"));
+        assertEquals(3L, filter.stats().get("cacheHits"));
+    }
+}
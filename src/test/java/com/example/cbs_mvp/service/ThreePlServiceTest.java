@@ -0,0 +1,202 @@
+package com.example.cbs_mvp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.cbs_mvp.entity.Fulfillment;
+import com.example.cbs_mvp.entity.Order;
+import com.example.cbs_mvp.ops.KillSwitchService;
+import com.example.cbs_mvp.repo.FulfillmentRepository;
+import com.example.cbs_mvp.repo.OrderRepository;
+import com.example.cbs_mvp.repo.PoExportJdbcRepository;
+import com.example.cbs_mvp.repo.PoExportJdbcRepository.PoExportRow;
+import com.example.cbs_mvp.repo.TrackingImportJdbcRepository;
+import com.example.cbs_mvp.repo.TrackingImportJdbcRepository.TrackingWrite;
+
+class ThreePlServiceTest {
+
+    private OrderRepository orderRepo;
+    private FulfillmentRepository fulfillmentRepo;
+    private KillSwitchService killSwitch;
+    private TrackingUploadQueue uploadQueue;
+    private TrackingImportJdbcRepository trackingWriter;
+    private PoExportJdbcRepository poExport;
+    private ThreePlService service;
+
+    @BeforeEach
+    void setUp() {
+        orderRepo = mock(OrderRepository.class);
+        fulfillmentRepo = mock(FulfillmentRepository.class);
+        killSwitch = mock(KillSwitchService.class);
+        uploadQueue = mock(TrackingUploadQueue.class);
+        trackingWriter = mock(TrackingImportJdbcRepository.class);
+        poExport = mock(PoExportJdbcRepository.class);
+        service = new ThreePlService(
+                orderRepo,
+                fulfillmentRepo,
+                killSwitch,
+                uploadQueue,
+                trackingWriter,
+                poExport,
+                mock(PlatformTransactionManager.class));
+
+        when(orderRepo.findAllById(any())).thenAnswer(inv -> {
+            List<Order> out = new ArrayList<>();
+            for (Long id : inv.<Iterable<Long>>getArgument(0)) {
+                if (id < 900) {
+                    out.add(order(id));
+                }
+            }
+            return out;
+        });
+        when(fulfillmentRepo.findByOrderIdIn(anyCollection())).thenAnswer(inv -> {
+            List<Fulfillment> out = new ArrayList<>();
+            for (Long id : inv.<Collection<Long>>getArgument(0)) {
+                if (id % 2 == 0) {
+                    Fulfillment f = new Fulfillment();
+                    f.setFulfillId(id * 10);
+                    f.setOrderId(id);
+                    out.add(f);
+                }
+            }
+            return out;
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importTrackingCsv_loadsPerChunkAndWritesInBatches() {
+        ReflectionTestUtils.setField(service, "importChunkSize", 2);
+        String csv = """
+                order_id,outbound_carrier,outbound_tracking
+                1,JapanPost,T1
+                2,,T2
+                3,DHL,T3
+                4,DHL,
+                abc,DHL,T5
+                999,DHL,T6
+                """;
+
+        ThreePlService.ImportResult result = service.importTrackingCsv(csv);
+
+        assertEquals(3, result.updated());
+        assertEquals(1, result.skipped());
+        assertEquals(2, result.errors());
+        assertTrue(result.errorDetails().get(0).startsWith("Line 6:"));
+        assertTrue(result.errorDetails().get(1).contains("order not found: 999"));
+
+        // チャンク [1,2] と [3,999] の2回だけ一括取得（行ごとの findById はしない）
+        verify(orderRepo, times(2)).findAllById(any());
+        verify(orderRepo, never()).findById(any());
+
+        ArgumentCaptor<List<TrackingWrite>> writes = ArgumentCaptor.forClass(List.class);
+        verify(trackingWriter, times(2)).applyShipped(writes.capture(), any());
+        TrackingWrite second = writes.getAllValues().get(0).get(1);
+        assertEquals(2L, second.orderId());
+        assertEquals(20L, second.fulfillId());
+        assertNull(second.carrier());
+        assertNull(writes.getAllValues().get(1).get(0).fulfillId());
+
+        verify(uploadQueue).scheduleNowAll(List.of(1L, 2L));
+        verify(uploadQueue).scheduleNowAll(List.of(3L));
+    }
+
+    @Test
+    void importTrackingCsv_failedChunkReportsEveryRowAndSchedulesNothing() {
+        doThrow(new IllegalStateException("db down")).when(trackingWriter).applyShipped(any(), any());
+
+        ThreePlService.ImportResult result = service.importTrackingCsv("1,JapanPost,T1\n2,JapanPost,T2\n");
+
+        assertEquals(0, result.updated());
+        assertEquals(2, result.errors());
+        assertEquals(List.of("Line 1: db down", "Line 2: db down"), result.errorDetails());
+        verify(uploadQueue, never()).scheduleNowAll(any());
+    }
+
+    @Test
+    void importTrackingCsv_duplicateOrderUsesLastRow() {
+        ThreePlService.ImportResult result = service.importTrackingCsv("1,JapanPost,OLD\n1,JapanPost,NEW\n");
+
+        assertEquals(1, result.updated());
+        assertEquals(1, result.skipped());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TrackingWrite>> writes = ArgumentCaptor.forClass(List.class);
+        verify(trackingWriter).applyShipped(writes.capture(), any());
+        assertEquals("NEW", writes.getValue().get(0).tracking());
+    }
+
+    @Test
+    void exportRequestedPos_streamsChunksUntilExhausted() throws Exception {
+        ReflectionTestUtils.setField(service, "exportChunkSize", 2);
+        AtomicLong nextPoId = new AtomicLong(1);
+        // REQUESTED が3件だけある想定：2件 → 1件（chunk 未満）で終了
+        when(poExport.shipRequested(anyInt(), anyString(), any())).thenAnswer(inv -> {
+            int limit = inv.getArgument(0);
+            Consumer<PoExportRow> sink = inv.getArgument(2);
+            int n = 0;
+            while (n < limit && nextPoId.get() <= 3) {
+                long id = nextPoId.getAndIncrement();
+                sink.accept(new PoExportRow(id, 100 + id, "Tokyo, JP", null, new BigDecimal("1500.00")));
+                n++;
+            }
+            return n;
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exported = service.exportRequestedPos(10, out);
+
+        assertEquals(3, exported);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("po_id,order_id,ship_to_3pl_address,inbound_tracking,expected_total_cost_yen,notes", lines[0]);
+        assertEquals("1,101,\"Tokyo, JP\",,1500.00,order_id=101;po_id=1", lines[1]);
+        verify(poExport, times(2)).shipRequested(anyInt(), anyString(), any());
+    }
+
+    @Test
+    void exportRequestedPos_respectsLimitAndPause() throws Exception {
+        ReflectionTestUtils.setField(service, "exportChunkSize", 1000);
+        when(poExport.shipRequested(anyInt(), anyString(), any())).thenAnswer(inv -> inv.getArgument(0));
+
+        assertEquals(5, service.exportRequestedPos(5, new ByteArrayOutputStream()));
+        verify(poExport).shipRequested(eq(5), anyString(), any());
+
+        when(killSwitch.isPaused()).thenReturn(true);
+        assertThrows(IllegalStateException.class, () -> service.exportRequestedPos(5, new ByteArrayOutputStream()));
+    }
+
+    private static Order order(Long id) {
+        Order o = new Order();
+        o.setOrderId(id);
+        o.setState("PURCHASED");
+        return o;
+    }
+}
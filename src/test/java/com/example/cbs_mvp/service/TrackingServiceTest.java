@@ -35,7 +35,8 @@ class TrackingServiceTest {
                 ebayOrderClient,
                 killSwitch,
                 flags,
-                transitions
+                transitions,
+                Mockito.mock(TrackingUploadQueue.class)
         );
 
         Order order = new Order();
@@ -100,7 +101,8 @@ class TrackingServiceTest {
                 ebayOrderClient,
                 killSwitch,
                 flags,
-                transitions
+                transitions,
+                Mockito.mock(TrackingUploadQueue.class)
         );
 
         Order order = new Order();
@@ -138,4 +140,52 @@ class TrackingServiceTest {
         );
         Mockito.verify(ebayOrderClient, Mockito.never()).checkTrackingUploaded(Mockito.anyString());
     }
+
+    @Test
+    void uploadTracking_retryableFailureSchedulesNextAttempt() {
+        OrderRepository orderRepo = Mockito.mock(OrderRepository.class);
+        FulfillmentRepository fulfillmentRepo = Mockito.mock(FulfillmentRepository.class);
+        EbayOrderClient ebayOrderClient = Mockito.mock(EbayOrderClient.class);
+        KillSwitchService killSwitch = Mockito.mock(KillSwitchService.class);
+        SystemFlagService flags = Mockito.mock(SystemFlagService.class);
+        StateTransitionService transitions = Mockito.mock(StateTransitionService.class);
+        TrackingUploadQueue uploadQueue = Mockito.mock(TrackingUploadQueue.class);
+
+        TrackingService service = new TrackingService(
+                orderRepo,
+                fulfillmentRepo,
+                ebayOrderClient,
+                killSwitch,
+                flags,
+                transitions,
+                uploadQueue
+        );
+
+        Order order = new Order();
+        order.setOrderId(3L);
+        order.setEbayOrderKey("ORDER-KEY-3");
+        order.setState("3PL_SHIPPED_INTL");
+
+        Fulfillment fulfillment = new Fulfillment();
+        fulfillment.setOrderId(3L);
+        fulfillment.setOutboundCarrier("JapanPost");
+        fulfillment.setOutboundTracking("TRACK-3");
+        fulfillment.setState("3PL_SHIPPED_INTL");
+
+        Mockito.when(killSwitch.isPaused()).thenReturn(false);
+        Mockito.when(orderRepo.findById(3L)).thenReturn(Optional.of(order));
+        Mockito.when(fulfillmentRepo.findByOrderId(3L)).thenReturn(Optional.of(fulfillment));
+        Mockito.when(orderRepo.save(Mockito.any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
+        Mockito.when(flags.get("EBAY_TRACKING_CHECK_ON_ERROR")).thenReturn("false");
+
+        Mockito.doThrow(new EbayOrderClientException("rate limited", true))
+                .when(ebayOrderClient)
+                .uploadTracking("ORDER-KEY-3", "JapanPost", "TRACK-3");
+
+        assertThrows(EbayOrderClientException.class, () -> service.uploadTracking(3L));
+
+        assertEquals(1, order.getTrackingRetryCount());
+        assertNotNull(order.getTrackingNextRetryAt());
+        Mockito.verify(uploadQueue).schedule(3L, order.getTrackingNextRetryAt());
+    }
 }
@@ -0,0 +1,51 @@
+package com.example.cbs_mvp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class TrackingUploadQueueTest {
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void take_returnsDueOrdersInDueOrder() throws Exception {
+        TrackingUploadQueue queue = new TrackingUploadQueue();
+        LocalDateTime now = LocalDateTime.now();
+
+        queue.schedule(2L, now.plusNanos(200_000_000));
+        queue.schedule(1L, now.minusMinutes(1));
+        queue.scheduleNow(3L);
+
+        long first = queue.take();
+        long second = queue.take();
+        assertTrue((first == 1L && second == 3L) || (first == 3L && second == 1L));
+        assertEquals(2L, queue.take());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void schedule_latestRegistrationWins() throws Exception {
+        TrackingUploadQueue queue = new TrackingUploadQueue();
+
+        // リトライ待ち（1時間後）の注文が再取込された → 即時実行に置き換わる
+        queue.schedule(1L, LocalDateTime.now().plusHours(1));
+        queue.scheduleNow(1L);
+        assertEquals(1, queue.size());
+        assertEquals(1L, queue.take());
+        assertFalse(queue.isScheduled(1L));
+
+        // 即時予定を後から未来の予定で上書き → 古い即時予定は読み飛ばされる
+        queue.scheduleNow(2L);
+        queue.schedule(2L, LocalDateTime.now().plusHours(1));
+        queue.scheduleNow(4L);
+        assertEquals(4L, queue.take());
+        assertTrue(queue.isScheduled(2L));
+    }
+}
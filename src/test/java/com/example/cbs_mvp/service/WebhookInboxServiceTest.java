@@ -0,0 +1,170 @@
+package com.example.cbs_mvp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.cbs_mvp.ebay.EbayOrderClient;
+import com.example.cbs_mvp.entity.EbayDraft;
+import com.example.cbs_mvp.entity.WebhookInbox;
+import com.example.cbs_mvp.fx.FxRateService;
+import com.example.cbs_mvp.repo.EbayDraftRepository;
+import com.example.cbs_mvp.repo.OrderRepository;
+import com.example.cbs_mvp.repo.WebhookInboxRepository;
+import com.example.cbs_mvp.service.OrderImportService.SoldImportCommand;
+
+import reactor.core.publisher.Mono;
+
+class WebhookInboxServiceTest {
+
+    private WebhookInboxRepository inboxRepo;
+    private EbayOrderClient ebayOrderClient;
+    private OrderRepository orderRepository;
+    private EbayDraftRepository draftRepository;
+    private OrderImportService orderImportService;
+    private FxRateService fxRateService;
+    private OrderIdempotencyFilter idempotency;
+    private WebhookInboxService service;
+
+    @BeforeEach
+    void setup() {
+        inboxRepo = mock(WebhookInboxRepository.class);
+        ebayOrderClient = mock(EbayOrderClient.class);
+        orderRepository = mock(OrderRepository.class);
+        draftRepository = mock(EbayDraftRepository.class);
+        orderImportService = mock(OrderImportService.class);
+        fxRateService = mock(FxRateService.class);
+        idempotency = new OrderIdempotencyFilter(orderRepository, 1000, 60, 1000, 0.01);
+        service = new WebhookInboxService(inboxRepo, ebayOrderClient, orderRepository, draftRepository,
+                orderImportService, fxRateService, idempotency);
+
+        when(fxRateService.getCurrentRate())
+                .thenReturn(new FxRateService.FxRateResult(new BigDecimal("150.00"), Instant.now(), null));
+        when(orderRepository.findExistingEbayOrderKeys(anyCollection())).thenReturn(List.of());
+    }
+
+    @Test
+    void processClaimed_importsOrder_andDedupesByOrderId() {
+        String orderId = "11-222-333";
+        String sku = "TEST-SKU-001";
+
+        Map<String, Object> orderDetails = Map.of(
+                "orderId", orderId,
+                "lineItems", List.of(Map.of("sku", sku)),
+                "pricingSummary", Map.of("total", Map.of("value", "50.00")));
+        when(ebayOrderClient.getOrdersAsync(anyCollection())).thenReturn(Mono.just(Map.of(orderId, orderDetails)));
+
+        EbayDraft draft = new EbayDraft();
+        draft.setDraftId(100L);
+        draft.setSku(sku);
+        when(draftRepository.findBySku(sku)).thenReturn(Optional.of(draft));
+
+        WebhookInbox first = row(1L, orderId);
+        WebhookInbox dup = row(2L, orderId);
+
+        int imported = service.processClaimed(List.of(first, dup));
+
+        assertEquals(1, imported);
+        verify(orderImportService, times(1)).importSold(any(SoldImportCommand.class));
+        assertEquals("DONE", first.getStatus());
+        assertEquals("DUPLICATE", dup.getStatus());
+        verify(inboxRepo).saveAll(List.of(first, dup));
+    }
+
+    @Test
+    void processClaimed_skipsExistingOrders_withoutCallingEbay() {
+        String orderId = "11-222-333";
+        when(orderRepository.findExistingEbayOrderKeys(anyCollection())).thenReturn(List.of(orderId));
+
+        WebhookInbox row = row(1L, orderId);
+        service.processClaimed(List.of(row));
+
+        assertEquals("DUPLICATE", row.getStatus());
+        verify(ebayOrderClient, never()).getOrdersAsync(anyCollection());
+        verify(orderImportService, never()).importSold(any());
+    }
+
+    @Test
+    void processClaimed_knownDuplicate_isRejectedWithoutDbQuery() {
+        String orderId = "11-222-333";
+        idempotency.markImported(orderId);
+
+        WebhookInbox row = row(1L, orderId);
+        service.processClaimed(List.of(row));
+
+        assertEquals("DUPLICATE", row.getStatus());
+        verify(orderRepository, never()).findExistingEbayOrderKeys(anyCollection());
+        verify(ebayOrderClient, never()).getOrdersAsync(anyCollection());
+    }
+
+    @Test
+    void processClaimed_draftNotFound_isSkippedWithoutRetry() {
+        String orderId = "11-222-333";
+        Map<String, Object> orderDetails = Map.of(
+                "orderId", orderId,
+                "lineItems", List.of(Map.of("sku", "UNKNOWN-SKU")));
+        when(ebayOrderClient.getOrdersAsync(anyCollection())).thenReturn(Mono.just(Map.of(orderId, orderDetails)));
+        when(draftRepository.findBySku("UNKNOWN-SKU")).thenReturn(Optional.empty());
+
+        WebhookInbox row = row(1L, orderId);
+        service.processClaimed(List.of(row));
+
+        assertEquals("SKIPPED", row.getStatus());
+        verify(orderImportService, never()).importSold(any());
+    }
+
+    @Test
+    void processClaimed_apiError_schedulesRetry() {
+        String orderId = "11-222-333";
+        when(ebayOrderClient.getOrdersAsync(anyCollection())).thenReturn(Mono.error(new RuntimeException("API Error")));
+
+        WebhookInbox row = row(1L, orderId);
+        LocalDateTime before = LocalDateTime.now();
+        service.processClaimed(List.of(row));
+
+        assertEquals("PENDING", row.getStatus());
+        assertTrue(row.getNextAttemptAt().isAfter(before));
+        assertNotNull(row.getLastError());
+    }
+
+    @Test
+    void processClaimed_givesUpAfterMaxAttempts() {
+        String orderId = "11-222-333";
+        when(ebayOrderClient.getOrdersAsync(anyCollection())).thenReturn(Mono.just(Map.of()));
+
+        WebhookInbox row = row(1L, orderId);
+        row.setAttempts(10);
+        service.processClaimed(List.of(row));
+
+        assertEquals("FAILED", row.getStatus());
+    }
+
+    @Test
+    void retryDelay_growsExponentiallyUpToMax() {
+        assertEquals(30, service.retryDelaySeconds(1));
+        assertEquals(60, service.retryDelaySeconds(2));
+        assertEquals(120, service.retryDelaySeconds(3));
+        assertEquals(3600, service.retryDelaySeconds(20));
+    }
+
+    private static WebhookInbox row(Long id, String orderKey) {
+        WebhookInbox row = new WebhookInbox();
+        row.setInboxId(id);
+        row.setEbayOrderKey(orderKey);
+        row.setPayload("{\"orderId\":\"" + orderKey + "\"}");
+        row.setStatus("PROCESSING");
+        row.setAttempts(1);
+        row.setNextAttemptAt(LocalDateTime.now());
+        return row;
+    }
+}
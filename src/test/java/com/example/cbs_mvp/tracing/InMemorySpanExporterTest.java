@@ -0,0 +1,100 @@
+package com.example.cbs_mvp.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.sdk.testing.trace.TestSpanData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+class InMemorySpanExporterTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void waterfall_ordersSpansWithOffsetsAndDepth() {
+        InMemorySpanExporter store = new InMemorySpanExporter(10, 100, 0);
+        String trace = "0af7651916cd43dd8448eb211c80319c";
+
+        SpanData root = span(trace, "00f067aa0ba902b7", null, "discovery.draft", 0, 100);
+        SpanData price = span(trace, "00f067aa0ba902b8", "00f067aa0ba902b7", "price", 10, 40);
+        SpanData gate = span(trace, "00f067aa0ba902b9", "00f067aa0ba902b8", "gate", 20, 25);
+
+        store.export(List.of(gate, price));
+        store.export(List.of(root));
+
+        List<InMemorySpanExporter.SpanView> spans = store.waterfall(trace).orElseThrow();
+        assertEquals(List.of("discovery.draft", "price", "gate"),
+                spans.stream().map(InMemorySpanExporter.SpanView::name).toList());
+        assertEquals(List.of(0, 1, 2), spans.stream().map(InMemorySpanExporter.SpanView::depth).toList());
+        assertNull(spans.get(0).parentSpanId());
+        assertEquals(20.0, spans.get(2).offsetMs());
+        assertEquals(5.0, spans.get(2).durationMs());
+
+        InMemorySpanExporter.TraceSummary summary = store.recent(10, null).get(0);
+        assertEquals("discovery.draft", summary.rootName());
+        assertEquals(3, summary.spanCount());
+        assertEquals(100.0, summary.durationMs());
+    }
+
+    @Test
+    void breakdown_sortsStepsByTimeSpent() {
+        InMemorySpanExporter store = new InMemorySpanExporter(10, 100, 0);
+        for (int i = 0; i < 2; i++) {
+            String trace = "0af7651916cd43dd8448eb211c80319" + i;
+            store.export(List.of(
+                    span(trace, "00000000000000a" + i, "00000000000000f" + i, "refresh", 0, 10),
+                    span(trace, "00000000000000b" + i, "00000000000000f" + i, "draft", 10, 70),
+                    span(trace, "00000000000000f" + i, null, "discovery.draft", 0, 80)));
+        }
+
+        List<Map<String, Object>> steps = store.breakdown("discovery.draft");
+        assertEquals("discovery.draft", steps.get(0).get("name"));
+        assertEquals("draft", steps.get(1).get("name"));
+        assertEquals(60.0, steps.get(1).get("avgMsPerTrace"));
+        assertEquals("refresh", steps.get(2).get("name"));
+        assertEquals(2, steps.get(2).get("traces"));
+    }
+
+    @Test
+    void export_dropsShortTracesWithoutChildrenAndEvictsOldest() {
+        InMemorySpanExporter store = new InMemorySpanExporter(2, 100, 50);
+
+        store.export(List.of(span("0af7651916cd43dd8448eb211c803190", "00f067aa0ba902b7", null, "poll", 0, 3)));
+        assertTrue(store.recent(10, null).isEmpty());
+
+        for (int i = 1; i <= 3; i++) {
+            store.export(List.of(span("0af7651916cd43dd8448eb211c80319" + i, "00f067aa0ba902b7", null, "slow", 0, 60)));
+        }
+        List<InMemorySpanExporter.TraceSummary> recent = store.recent(10, null);
+        assertEquals(2, recent.size());
+        assertEquals("0af7651916cd43dd8448eb211c803193", recent.get(0).traceId());
+        assertTrue(store.waterfall("0af7651916cd43dd8448eb211c803191").isEmpty());
+    }
+
+    private static SpanData span(String traceId, String spanId, String parentId, String name, long startMs, long endMs) {
+        SpanContext parent = parentId == null
+                ? SpanContext.getInvalid()
+                : SpanContext.create(traceId, parentId, TraceFlags.getSampled(), TraceState.getDefault());
+        return TestSpanData.builder()
+                .setSpanContext(SpanContext.create(traceId, spanId, TraceFlags.getSampled(), TraceState.getDefault()))
+                .setParentSpanContext(parent)
+                .setName(name)
+                .setKind(SpanKind.INTERNAL)
+                .setStartEpochNanos(1_000 * MS + startMs * MS)
+                .setEndEpochNanos(1_000 * MS + endMs * MS)
+                .setHasEnded(true)
+                .setStatus(StatusData.unset())
+                .build();
+    }
+}